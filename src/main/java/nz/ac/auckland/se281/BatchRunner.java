@@ -0,0 +1,408 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a script of commands without the prompt or help menu, for when the calculator is driven by
+ * another program rather than a person.
+ *
+ * <p>The whole script is read and parsed up front. Consecutive commands that only read the open
+ * graph are run at the same time, while commands that change what later commands see (opening or
+ * watching a file, printing statistics and exiting) wait for everything before them to finish. A
+ * change to a watched file is only applied between groups, so every command of a group sees the
+ * same graph. The results are always written in the order of the script, through a single buffered
+ * stream.
+ */
+public class BatchRunner {
+  public static final String BATCH_FLAG = "--batch";
+
+  private static final String FORMAT_FLAG = "--format=";
+  private static final String STDIN = "-";
+  private static final String COMMENT_PREFIX = "#";
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** The formats that the results of a script can be written in. */
+  public enum OutputFormat {
+    /** The same text the interactive interface prints, without the prompts. */
+    TEXT,
+    /** One JSON object per command, holding the line number, command, input and output. */
+    JSON
+  }
+
+  /**
+   * Runs a script given on the command line as {@code --batch [SCRIPT|-] [--format=text|json]}. The
+   * script is read from standard input if no file is given.
+   *
+   * @param args The arguments after {@value #BATCH_FLAG}.
+   */
+  public static void main(final String[] args) {
+    String script = STDIN;
+    OutputFormat format = OutputFormat.TEXT;
+
+    for (final String arg : args) {
+      if (arg.startsWith(FORMAT_FLAG)) {
+        final String name = arg.substring(FORMAT_FLAG.length());
+
+        try {
+          format = OutputFormat.valueOf(name.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+          System.err.println(MessageCli.UNKNOWN_OUTPUT_FORMAT.getMessage(name));
+          return;
+        }
+      } else {
+        script = arg;
+      }
+    }
+
+    final List<String> lines;
+
+    try {
+      lines = script.equals(STDIN) ? readLines() : Files.readAllLines(Path.of(script));
+    } catch (final NoSuchFileException e) {
+      System.err.println(MessageCli.SCRIPT_NOT_FOUND.getMessage(script));
+      return;
+    } catch (final IOException e) {
+      System.err.println(MessageCli.SCRIPT_NOT_READABLE.getMessage(script, e.getMessage()));
+      return;
+    }
+
+    final OutputStream out =
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE);
+
+    try {
+      new BatchRunner(format).run(lines, out);
+    } catch (final IOException e) {
+      System.err.println(e.getMessage());
+    }
+  }
+
+  /**
+   * Reads every line of standard input.
+   *
+   * @return The lines.
+   * @throws IOException If standard input cannot be read.
+   */
+  private static List<String> readLines() throws IOException {
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+    return reader.lines().collect(Collectors.toList());
+  }
+
+  /** The output of a single command of the script. */
+  private static final class Result {
+    private final int line;
+    private final String input;
+    private final String output;
+    private final boolean isContinuing;
+
+    private Result(
+        final int line, final String input, final String output, final boolean isContinuing) {
+      this.line = line;
+      this.input = input;
+      this.output = output;
+      this.isContinuing = isContinuing;
+    }
+  }
+
+  private final Main session = new Main();
+
+  private final OutputFormat format;
+
+  /**
+   * Creates a new batch runner with its own session.
+   *
+   * @param format The format to write results in.
+   */
+  public BatchRunner(final OutputFormat format) {
+    this.format = format;
+  }
+
+  /**
+   * Runs every command in the script until the end of the script or an exit command. Blank lines,
+   * and lines starting with {@value #COMMENT_PREFIX}, are skipped.
+   *
+   * @param script The lines of the script.
+   * @param out Where to write the results.
+   * @throws IOException If the results cannot be written.
+   */
+  public void run(final List<String> script, final OutputStream out) throws IOException {
+    final PrintStream original = System.out;
+    final OutputRouter router = new OutputRouter(original);
+    final ExecutorService workers =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), WorkerThreads.newFactory("batch-worker"));
+
+    System.setOut(new PrintStream(router, true));
+
+    try {
+      int i = 0;
+
+      while (i < script.size()) {
+        if (isSkipped(script.get(i))) {
+          i++;
+          continue;
+        }
+
+        if (isBarrier(script.get(i))) {
+          final Result result = execute(router, i, script.get(i), true);
+          write(out, result);
+          i++;
+
+          if (!result.isContinuing) {
+            break;
+          }
+          continue;
+        }
+
+        // Gather the run of commands that only read the graph, and run them together.
+        final List<Integer> group = new ArrayList<>();
+
+        while (i < script.size() && !isBarrier(script.get(i))) {
+          if (!isSkipped(script.get(i))) {
+            group.add(i);
+          }
+          i++;
+        }
+
+        runGroup(router, workers, script, group, out);
+      }
+    } finally {
+      workers.shutdown();
+      session.close();
+      System.setOut(original);
+      out.flush();
+    }
+  }
+
+  /**
+   * Runs a group of commands that only read the graph at the same time, writing the results in the
+   * order of the script as soon as each is ready.
+   *
+   * @param router The router that captures the output of each command.
+   * @param workers The threads to run the commands on.
+   * @param script The lines of the script.
+   * @param group The indexes of the lines in the group.
+   * @param out Where to write the results.
+   * @throws IOException If the results cannot be written.
+   */
+  private void runGroup(
+      final OutputRouter router,
+      final ExecutorService workers,
+      final List<String> script,
+      final List<Integer> group,
+      final OutputStream out)
+      throws IOException {
+    // A single command gains nothing from being handed to another thread.
+    if (group.size() == 1) {
+      write(out, execute(router, group.get(0), script.get(group.get(0)), true));
+      return;
+    }
+
+    // The change to a watched file is applied once, before the group, and reported with its first
+    // command.
+    final ByteArrayOutputStream reload = new ByteArrayOutputStream();
+    router.route(reload);
+    try {
+      session.applyReload();
+    } finally {
+      router.clear();
+    }
+
+    final List<Future<Result>> pending = new ArrayList<>();
+
+    for (final int line : group) {
+      pending.add(workers.submit(() -> execute(router, line, script.get(line), false)));
+    }
+
+    for (final Future<Result> result : pending) {
+      try {
+        final Result done = result.get();
+
+        if (reload.size() > 0) {
+          write(
+              out,
+              new Result(
+                  done.line, done.input, reload.toString() + done.output, done.isContinuing));
+          reload.reset();
+        } else {
+          write(out, done);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for a command", e);
+      } catch (final ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Runs a single command, capturing everything it prints.
+   *
+   * @param router The router that captures the output of the current thread.
+   * @param line The index of the command in the script.
+   * @param input The command.
+   * @param isReloading If a change to a watched file is applied before the command.
+   * @return The output of the command.
+   */
+  private Result execute(
+      final OutputRouter router, final int line, final String input, final boolean isReloading) {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    router.route(buffer);
+
+    try {
+      final boolean isContinuing = session.processCommand(input, isReloading);
+      return new Result(line, input.trim(), buffer.toString(), isContinuing);
+    } finally {
+      router.clear();
+    }
+  }
+
+  /**
+   * Writes the result of a command in the chosen format.
+   *
+   * @param out Where to write the result.
+   * @param result The result.
+   * @throws IOException If the result cannot be written.
+   */
+  private void write(final OutputStream out, final Result result) throws IOException {
+    final String text;
+
+    switch (format) {
+      case JSON:
+        final Command command = Main.findCommand(result.input);
+        text =
+            "{\"line\":"
+                + (result.line + 1)
+                + ",\"command\":"
+                + (command == null ? "null" : quote(command.toString()))
+                + ",\"input\":"
+                + quote(result.input)
+                + ",\"output\":"
+                + quote(result.output)
+                + "}"
+                + System.lineSeparator();
+        break;
+      case TEXT:
+      default:
+        text = result.output;
+        break;
+    }
+
+    out.write(text.getBytes(Charset.defaultCharset()));
+  }
+
+  /**
+   * Checks if a line of the script has no command on it.
+   *
+   * @param line The line.
+   * @return If the line is blank or a comment.
+   */
+  private boolean isSkipped(final String line) {
+    final String trimmed = line.trim();
+    return trimmed.isEmpty() || trimmed.startsWith(COMMENT_PREFIX);
+  }
+
+  /**
+   * Checks if a command must wait for every command before it, and be waited for by every command
+   * after it.
+   *
+   * @param line The line of the script holding the command.
+   * @return If the command cannot run at the same time as its neighbours.
+   */
+  private boolean isBarrier(final String line) {
+    final Command command = Main.findCommand(line);
+    return command == Command.OPEN_FILE
+        || command == Command.WATCH_FILE
+        || command == Command.STATS
+        || command == Command.EXIT;
+  }
+
+  /**
+   * Quotes a string as a JSON string literal. Every control character is escaped, as JSON requires,
+   * and so are the line and paragraph separators, which JSON allows but JavaScript does not, and
+   * any half of a surrogate pair that is missing its other half, which cannot be encoded.
+   *
+   * @param value The string.
+   * @return The JSON literal.
+   */
+  static String quote(final String value) {
+    final StringBuilder sb = new StringBuilder("\"");
+
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\b':
+          sb.append("\\b");
+          break;
+        case '\f':
+          sb.append("\\f");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\u2028':
+        case '\u2029':
+          sb.append(String.format("\\u%04x", (int) c));
+          break;
+        default:
+          if (c < ' ' || isUnpaired(value, i)) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+
+    return sb.append("\"").toString();
+  }
+
+  /**
+   * Checks if a character is half of a surrogate pair whose other half is missing.
+   *
+   * @param value The string holding the character.
+   * @param i The position of the character.
+   * @return If the character is a lone surrogate.
+   */
+  private static boolean isUnpaired(final String value, final int i) {
+    final char c = value.charAt(i);
+
+    if (Character.isHighSurrogate(c)) {
+      return i + 1 == value.length() || !Character.isLowSurrogate(value.charAt(i + 1));
+    }
+
+    return Character.isLowSurrogate(c)
+        && (i == 0 || !Character.isHighSurrogate(value.charAt(i - 1)));
+  }
+}
@@ -0,0 +1,110 @@
+package nz.ac.auckland.se281;
+
+import java.util.Map;
+
+/**
+ * The management interface of the graph calculator, registered with the platform MBean server as
+ * {@value CalculatorMonitor#OBJECT_NAME}.
+ *
+ * <p>There is one bean for the whole JVM, so when a server runs many sessions at once the open
+ * graph is that of the session that most recently opened a file and has not yet closed it.
+ */
+public interface CalculatorMXBean {
+  /**
+   * Gets the name of the file the session that most recently opened a file has open.
+   *
+   * @return The filename, or null if no file is open.
+   */
+  String getLoadedFile();
+
+  /**
+   * Gets the number of verticies in the open graph.
+   *
+   * @return The vertex count, or zero if no file is open.
+   */
+  int getVertexCount();
+
+  /**
+   * Gets the number of edges in the open graph.
+   *
+   * @return The edge count, or zero if no file is open.
+   */
+  long getEdgeCount();
+
+  /**
+   * Gets the estimated heap used by the adjacency index of the open graph.
+   *
+   * @return The estimate in bytes, or zero if no file is open.
+   */
+  long getEstimatedIndexBytes();
+
+  /**
+   * Gets the estimated memory used by the open graph's edges outside the heap.
+   *
+   * @return The estimate in bytes, or zero if no file is open or its edges are on the heap.
+   */
+  long getOffHeapIndexBytes();
+
+  /**
+   * Gets how the edges of the open graph are stored.
+   *
+   * @return The name of the representation, or null if no file is open.
+   */
+  String getRepresentation();
+
+  /**
+   * Gets the number of answers served from a cache.
+   *
+   * @return The cache hit count.
+   */
+  long getCacheHits();
+
+  /**
+   * Gets the number of answers that had to be computed because they were not cached.
+   *
+   * @return The cache miss count.
+   */
+  long getCacheMisses();
+
+  /**
+   * Gets the fraction of cache lookups that were hits.
+   *
+   * @return The hit rate between 0 and 1, or 0 if there have been no lookups.
+   */
+  double getCacheHitRate();
+
+  /**
+   * Gets the current value of every work counter.
+   *
+   * @return The counters, keyed by name.
+   */
+  Map<String, Long> getWorkCounters();
+
+  /**
+   * Gets the number of times each command has been run.
+   *
+   * @return The invocation counts, keyed by command.
+   */
+  Map<String, Long> getCommandInvocationCounts();
+
+  /**
+   * Gets the total time spent running each command.
+   *
+   * @return The total times in milliseconds, keyed by command.
+   */
+  Map<String, Double> getCommandTotalMillis();
+
+  /**
+   * Gets the 99th percentile latency of each command.
+   *
+   * @return The latencies in milliseconds, keyed by command.
+   */
+  Map<String, Double> getCommandP99Millis();
+
+  /**
+   * Gets the command that is currently running.
+   *
+   * @return The command, or null if the calculator is waiting for input.
+   */
+  String getRunningCommand();
+}
@@ -0,0 +1,207 @@
+package nz.ac.auckland.se281;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.metrics.LatencyHistogram;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/**
+ * Exposes the open graph, the work counters and the command latencies over JMX, so that long
+ * running sessions can be monitored with tools such as JConsole without attaching a profiler.
+ *
+ * <p>The counters and latencies cover every session in the JVM, while the open graph is that of the
+ * most recent session to open a file. A session that closes stops being reported, unless another
+ * session has opened a file since, so a closed session is never kept reachable by the monitor.
+ */
+public class CalculatorMonitor implements CalculatorMXBean {
+  public static final String OBJECT_NAME = "nz.ac.auckland.se281:type=GraphCalculator";
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private static CalculatorMonitor instance;
+
+  /**
+   * Gets the monitor shared by every command line interface in this JVM, registering it with the
+   * platform MBean server the first time it is requested.
+   *
+   * @return The shared monitor.
+   */
+  public static synchronized CalculatorMonitor getInstance() {
+    if (instance == null) {
+      instance = new CalculatorMonitor();
+      instance.register();
+    }
+
+    return instance;
+  }
+
+  private final AtomicReference<GraphCalculator> calculator = new AtomicReference<>();
+
+  private CalculatorMonitor() {}
+
+  /**
+   * Registers the monitor with the platform MBean server. Monitoring is best effort, so a failure
+   * to register does not stop the calculator from running.
+   */
+  private void register() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    } catch (final JMException | SecurityException e) {
+      System.err.println("Unable to register " + OBJECT_NAME + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Sets the calculator whose graph is reported.
+   *
+   * @param calculator The calculator of the most recently opened file.
+   */
+  public void setCalculator(final GraphCalculator calculator) {
+    this.calculator.set(calculator);
+  }
+
+  /**
+   * Stops reporting a calculator that is being closed, if it is still the one reported. The
+   * calculator of another session that has opened a file since is left alone.
+   *
+   * @param calculator The calculator being closed.
+   */
+  public void clearCalculator(final GraphCalculator calculator) {
+    this.calculator.compareAndSet(calculator, null);
+  }
+
+  @Override
+  public String getLoadedFile() {
+    final GraphCalculator current = calculator.get();
+    return current == null ? null : current.getFilename();
+  }
+
+  @Override
+  public int getVertexCount() {
+    final Graph<String> graph = getGraph();
+    return graph == null ? 0 : graph.getVertexCount();
+  }
+
+  @Override
+  public long getEdgeCount() {
+    final Graph<String> graph = getGraph();
+    return graph == null ? 0 : graph.getEdgeCount();
+  }
+
+  @Override
+  public long getEstimatedIndexBytes() {
+    final Graph<String> graph = getGraph();
+    return graph == null ? 0 : graph.estimateIndexBytes();
+  }
+
+  @Override
+  public long getOffHeapIndexBytes() {
+    final Graph<String> graph = getGraph();
+    return graph == null ? 0 : graph.estimateOffHeapBytes();
+  }
+
+  @Override
+  public String getRepresentation() {
+    final Graph<String> graph = getGraph();
+    return graph == null ? null : graph.getAdjacency().getRepresentation();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return WorkCounter.CACHE_HITS.get();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return WorkCounter.CACHE_MISSES.get();
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    final long hits = getCacheHits();
+    final long lookups = hits + getCacheMisses();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  @Override
+  public Map<String, Long> getWorkCounters() {
+    final Map<String, Long> counters = new LinkedHashMap<>();
+
+    for (final WorkCounter counter : WorkCounter.values()) {
+      counters.put(counter.toString(), counter.get());
+    }
+
+    return counters;
+  }
+
+  @Override
+  public Map<String, Long> getCommandInvocationCounts() {
+    final Map<String, Long> counts = new LinkedHashMap<>();
+
+    for (final Command command : Command.values()) {
+      counts.put(command.toString(), getLatency(command).getCount());
+    }
+
+    return counts;
+  }
+
+  @Override
+  public Map<String, Double> getCommandTotalMillis() {
+    final Map<String, Double> totals = new LinkedHashMap<>();
+
+    for (final Command command : Command.values()) {
+      totals.put(command.toString(), getLatency(command).getTotalNanos() / NANOS_PER_MILLI);
+    }
+
+    return totals;
+  }
+
+  @Override
+  public Map<String, Double> getCommandP99Millis() {
+    final Map<String, Double> latencies = new LinkedHashMap<>();
+
+    for (final Command command : Command.values()) {
+      latencies.put(
+          command.toString(), getLatency(command).getPercentileNanos(99) / NANOS_PER_MILLI);
+    }
+
+    return latencies;
+  }
+
+  @Override
+  public String getRunningCommand() {
+    final Command command = CommandMetrics.getInstance().getRunningCommand();
+    return command == null ? null : command.toString();
+  }
+
+  /**
+   * Gets the graph of the calculator being reported.
+   *
+   * @return The graph, or null if no file is open or its graph is still being built.
+   */
+  private Graph<String> getGraph() {
+    final GraphCalculator current = calculator.get();
+    return current == null ? null : current.getLoad().getGraphNow();
+  }
+
+  /**
+   * Gets the latency histogram of a command.
+   *
+   * @param command The command.
+   * @return The histogram.
+   */
+  private LatencyHistogram getLatency(final Command command) {
+    return CommandMetrics.getInstance().getLatency(command);
+  }
+}
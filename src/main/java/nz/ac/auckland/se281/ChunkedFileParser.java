@@ -0,0 +1,351 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * Parses a large file in one of the plain text formats of {@link GraphFormat} on every core.
+ *
+ * <p>The file is split into chunks that each end at the end of a line, each chunk is memory mapped
+ * and parsed on the common fork join pool into its own {@link GraphBuilder}, and the chunks are
+ * then merged in the order they appear in the file. A vertex is given its position in the merged
+ * builder when the first chunk that lists it is merged, in the order that chunk first lists it, so
+ * the merged builder has the verticies and edges in exactly the order the sequential parser of
+ * {@link EdgeFileParser} gives them. The entries of a Matrix Market file are kept as pairs of
+ * positions, as every vertex of a matrix is known from its size line.
+ */
+final class ChunkedFileParser {
+  private static final int TASKS_PER_THREAD = 1;
+  private static final long MIN_CHUNK_BYTES = 1L << 20;
+  private static final long MAX_CHUNK_BYTES = 1L << 28;
+  private static final int BOUNDARY_BYTES = 1 << 16;
+
+  /** The lines of a chunk of a file, and the verticies and edges they list. */
+  private static final class Chunk {
+    private final long start;
+    private final long end;
+    private GraphBuilder<String> builder;
+    private int[] entries = new int[0];
+    private int entryCount;
+    private int lines;
+    private List<String> badLine;
+
+    private Chunk(final long start, final long end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  private ChunkedFileParser() {}
+
+  /**
+   * Parses a file on the common fork join pool, in chunks sized so each thread parses a few.
+   *
+   * @param channel The file.
+   * @param format The format of the file, which is not {@link GraphFormat#DOT}.
+   * @return The verticies and edges of the file, in the order they are listed.
+   * @throws IOException If the file could not be read or is not in the format.
+   */
+  static GraphBuilder<String> parse(final FileChannel channel, final GraphFormat format)
+      throws IOException {
+    final ForkJoinPool pool = ForkJoinPool.commonPool();
+    final long chunkBytes =
+        Math.max(
+            MIN_CHUNK_BYTES,
+            Math.min(MAX_CHUNK_BYTES, channel.size() / (pool.getParallelism() * TASKS_PER_THREAD)));
+    return parse(channel, format, chunkBytes, pool);
+  }
+
+  /**
+   * Parses a file in chunks of about the given size.
+   *
+   * @param channel The file.
+   * @param format The format of the file, which is not {@link GraphFormat#DOT}.
+   * @param chunkBytes The size to split the file at, which is moved on to the end of a line.
+   * @param pool The pool to parse the chunks on.
+   * @return The verticies and edges of the file, in the order they are listed.
+   * @throws IOException If the file could not be read or is not in the format.
+   */
+  static GraphBuilder<String> parse(
+      final FileChannel channel,
+      final GraphFormat format,
+      final long chunkBytes,
+      final ForkJoinPool pool)
+      throws IOException {
+    /*
+        Reads the header of a matrix, splits the rest of the file, parses the chunks in parallel,
+        then merges them in order
+    */
+    final List<String> columns = new ArrayList<>();
+    long offset = 0;
+    int headerLines = 0;
+    EdgeFileParser.Matrix matrix = null;
+
+    if (format == GraphFormat.MATRIX_MARKET) {
+      final boolean isSymmetric = EdgeFileParser.readMatrixHeader(readLine(channel, 0));
+      offset = findLineEnd(channel, 0);
+      headerLines = 1;
+
+      do {
+        columns.clear();
+        if (offset < channel.size()) {
+          EdgeFileParser.split(readLine(channel, offset), columns);
+          offset = findLineEnd(channel, offset);
+        }
+        headerLines++;
+      } while (columns.isEmpty() && offset < channel.size());
+
+      matrix = EdgeFileParser.readMatrixSize(columns, isSymmetric, headerLines);
+    }
+
+    final List<Chunk> chunks = new ArrayList<>();
+    while (offset < channel.size()) {
+      final long end = findLineEnd(channel, Math.min(channel.size(), offset + chunkBytes) - 1);
+      chunks.add(new Chunk(offset, end));
+      offset = end;
+    }
+
+    final EdgeFileParser.Matrix size = matrix;
+    final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks.size()];
+    for (int i = 0; i < tasks.length; i++) {
+      final Chunk chunk = chunks.get(i);
+      tasks[i] = ForkJoinTask.adapt(() -> parseChunk(channel, format, size, chunk));
+    }
+    try {
+      pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    return matrix == null ? mergeLists(chunks) : mergeMatrix(chunks, matrix, headerLines);
+  }
+
+  /**
+   * Parses the lines of a chunk.
+   *
+   * @param channel The file.
+   * @param format The format of the file.
+   * @param matrix The size of the matrix, or null if the file is not a matrix.
+   * @param chunk The chunk.
+   */
+  private static void parseChunk(
+      final FileChannel channel,
+      final GraphFormat format,
+      final EdgeFileParser.Matrix matrix,
+      final Chunk chunk) {
+    final MappedByteBuffer bytes;
+    try {
+      bytes = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    final List<String> columns = new ArrayList<>();
+    final int length = bytes.limit();
+    if (matrix == null) {
+      chunk.builder = new GraphBuilder<>();
+    }
+
+    for (int position = 0; position < length; ) {
+      position = split(bytes, position, length, columns);
+      chunk.lines++;
+
+      if (matrix == null) {
+        EdgeFileParser.readListLine(columns, format, chunk.builder);
+      } else if (!columns.isEmpty()) {
+        if (chunk.entryCount + 2 > chunk.entries.length) {
+          chunk.entries = Arrays.copyOf(chunk.entries, Math.max(1024, 2 * chunk.entries.length));
+        }
+
+        // The number of a line that is not an entry is only known once the chunks before it are
+        // counted, so the line is kept to be read again then.
+        final long entry;
+        try {
+          entry = EdgeFileParser.readMatrixEntry(columns, matrix, chunk.lines);
+        } catch (final IOException e) {
+          chunk.badLine = new ArrayList<>(columns);
+          return;
+        }
+        chunk.entries[chunk.entryCount++] = (int) (entry >>> 32);
+        chunk.entries[chunk.entryCount++] = (int) entry;
+      }
+    }
+  }
+
+  /**
+   * Merges the builders of the chunks of an edge list or adjacency list, in order.
+   *
+   * @param chunks The parsed chunks.
+   * @return The verticies and edges of the file.
+   */
+  private static GraphBuilder<String> mergeLists(final List<Chunk> chunks) {
+    if (chunks.size() == 1) {
+      return chunks.get(0).builder;
+    }
+
+    final GraphBuilder<String> merged = new GraphBuilder<>();
+
+    for (final Chunk chunk : chunks) {
+      final GraphBuilder<String> builder = chunk.builder;
+      final int[] positions = new int[builder.getVertexCount()];
+
+      for (int v = 0; v < positions.length; v++) {
+        positions[v] = merged.addVertex(builder.getVertex(v));
+      }
+      for (int e = 0; e < builder.getEdgeCount(); e++) {
+        merged.addEdge(positions[builder.getSource(e)], positions[builder.getDestination(e)]);
+      }
+
+      chunk.builder = null;
+    }
+
+    return merged;
+  }
+
+  /**
+   * Merges the entries of the chunks of a Matrix Market file, in order, reporting the first line
+   * that is not an entry with its number in the whole file.
+   *
+   * @param chunks The parsed chunks.
+   * @param matrix The size of the matrix.
+   * @param headerLines The number of lines before the first chunk.
+   * @return The verticies and edges of the file.
+   * @throws IOException If a line is not an entry, or the matrix has the wrong number of entries.
+   */
+  private static GraphBuilder<String> mergeMatrix(
+      final List<Chunk> chunks, final EdgeFileParser.Matrix matrix, final int headerLines)
+      throws IOException {
+    int lines = headerLines;
+
+    for (final Chunk chunk : chunks) {
+      if (chunk.badLine != null) {
+        EdgeFileParser.readMatrixEntry(chunk.badLine, matrix, lines + chunk.lines);
+      }
+      lines += chunk.lines;
+    }
+
+    final GraphBuilder<String> builder = EdgeFileParser.newMatrixBuilder(matrix);
+    long read = 0;
+
+    for (final Chunk chunk : chunks) {
+      for (int i = 0; i < chunk.entryCount; i += 2) {
+        EdgeFileParser.addMatrixEntry(builder, matrix, chunk.entries[i], chunk.entries[i + 1]);
+        read++;
+      }
+      chunk.entries = null;
+    }
+
+    EdgeFileParser.checkMatrixEntries(matrix, read);
+    return builder;
+  }
+
+  /**
+   * Splits the line starting at a position into its columns, as {@link EdgeFileParser} splits a
+   * line read as text.
+   *
+   * @param bytes The bytes of the chunk.
+   * @param position The position of the start of the line.
+   * @param length The position the chunk ends at.
+   * @param columns Where to put the columns, which is cleared first, and left empty for comments.
+   * @return The position of the start of the next line.
+   */
+  private static int split(
+      final ByteBuffer bytes, final int position, final int length, final List<String> columns) {
+    columns.clear();
+    int lineEnd = position;
+    while (lineEnd < length && bytes.get(lineEnd) != '\n') {
+      lineEnd++;
+    }
+
+    int start = -1;
+    for (int i = position; i <= lineEnd; i++) {
+      final int c = i < lineEnd ? bytes.get(i) : ' ';
+
+      if (start < 0 && !EdgeFileParser.isSeparator(c)) {
+        if (columns.isEmpty() && EdgeFileParser.isComment(c)) {
+          break;
+        }
+        start = i;
+      } else if (start >= 0 && EdgeFileParser.isSeparator(c)) {
+        columns.add(decode(bytes, start, i));
+        start = -1;
+      }
+    }
+
+    return lineEnd + 1;
+  }
+
+  /**
+   * Decodes a column from UTF-8.
+   *
+   * @param bytes The bytes of the chunk.
+   * @param start The position of the first byte of the column.
+   * @param end The position after the last byte of the column.
+   * @return The column.
+   */
+  private static String decode(final ByteBuffer bytes, final int start, final int end) {
+    final byte[] column = new byte[end - start];
+    bytes.get(start, column);
+    return new String(column, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Finds the end of the line that holds a position of a file.
+   *
+   * @param channel The file.
+   * @param position The position.
+   * @return The position after the line break that ends the line, or the size of the file.
+   * @throws IOException If the file could not be read.
+   */
+  private static long findLineEnd(final FileChannel channel, final long position)
+      throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_BYTES);
+    long offset = position;
+
+    while (offset < channel.size()) {
+      buffer.clear();
+      final int read = channel.read(buffer, offset);
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += Math.max(read, 0);
+    }
+
+    return channel.size();
+  }
+
+  /**
+   * Reads the line starting at a position of a file as text.
+   *
+   * @param channel The file.
+   * @param position The position of the start of the line.
+   * @return The line, without its line break.
+   * @throws IOException If the file could not be read.
+   */
+  private static String readLine(final FileChannel channel, final long position)
+      throws IOException {
+    final long end = findLineEnd(channel, position);
+    final ByteBuffer buffer =
+        ByteBuffer.allocate((int) Math.min(end - position, Integer.MAX_VALUE));
+    channel.read(buffer, position);
+
+    int length = buffer.position();
+    while (length > 0 && (buffer.get(length - 1) == '\n' || buffer.get(length - 1) == '\r')) {
+      length--;
+    }
+
+    return new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+  }
+}
@@ -8,6 +8,12 @@ package nz.ac.auckland.se281;
 public enum Command {
   OPEN_FILE(1, "Open the file <FILENAME>"),
   INFO(0, "Print information about the current loaded file"),
+  LOAD_STATUS(0, "Show how far the current file has been parsed and indexed"),
+  REPRESENTATION(0, "Show how the edges of the current loaded file are stored"),
+  WATCH_FILE(
+      1,
+      "Turn <ON|OFF> reloading the current loaded file whenever it changes, applying only the"
+          + " edges that changed"),
 
   LIST_VERTICIES_EDGES(0, "List the set of vertices and edges"),
   LIST_ROOT_VERTICIES(0, "List the set of root vertices"),
@@ -17,7 +23,26 @@ public enum Command {
   CHECK_TRANSITIVITY(0, "Check transitivity of the graph"),
   CHECK_ANTISYMMETRY(0, "Check anti-symmetry of the graph"),
   CHECK_EQUIVALENCE(0, "Check equivalence of the graph"),
+  ANALYZE(0, "Check every property of the graph in a single pass"),
+  CHECK_ACYCLIC(0, "Check if the graph has no cycles, and show a cycle if it has one"),
+  TOPOLOGICAL_SORT(
+      0, "List the verticies so that every edge leads forwards, if the graph is acyclic"),
   COMPUTE_EQUIVALENCE(1, "Compute equivalence class for a vertex in loaded file <VERTEX>"),
+  BATCH_EQUIVALENCE(
+      1, "Compute the equivalence class of every vertex in <VERTEX,VERTEX,...> or in <@FILE>"),
+  BATCH_REACHABILITY(
+      1,
+      "Check each <FROM:TO> pair, or list what each <FROM> reaches, in <QUERY,QUERY,...> or in"
+          + " <@FILE>"),
+
+  DISTANCES(
+      1,
+      "Show how many edges away from the nearest of <VERTEX,VERTEX,...> or <@FILE> each vertex it"
+          + " reaches is"),
+  K_HOP(
+      2,
+      "List the verticies within reach of <VERTEX,VERTEX,...> or <@FILE> in at most <HOPS>"
+          + " edges"),
 
   GRAPH_SEARCH_IBFS(
       0, "Perform a breadth-first search on the current loaded file, and display the BFS order"),
@@ -33,6 +58,8 @@ public enum Command {
       "Perform a recursive depth-first search on the current loaded file, and display the DFS"
           + " order"),
 
+  STATS(0, "Print per-command latency percentiles and graph work counters"),
+
   HELP(0, "Print usage"),
   EXIT(0, "Exit the application");
 
@@ -0,0 +1,123 @@
+package nz.ac.auckland.se281;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import nz.ac.auckland.se281.metrics.LatencyHistogram;
+import nz.ac.auckland.se281.metrics.Metrics;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/** The latency histograms and running command of every command line interface in this JVM. */
+public class CommandMetrics {
+  private static final CommandMetrics INSTANCE = new CommandMetrics();
+
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  /**
+   * Gets the metrics shared by every command line interface in this JVM.
+   *
+   * @return The shared metrics.
+   */
+  public static CommandMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  private final Map<Command, LatencyHistogram> latencies = new EnumMap<>(Command.class);
+
+  private final AtomicReference<Command> runningCommand = new AtomicReference<>();
+
+  /** Creates a histogram for each command up front, so recording never has to allocate. */
+  private CommandMetrics() {
+    for (final Command command : Command.values()) {
+      latencies.put(command, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Marks a command as running and starts timing it.
+   *
+   * @param command The command that is about to run.
+   * @return The start time to pass to {@link #finish(Command, long)}.
+   */
+  public long start(final Command command) {
+    runningCommand.set(command);
+    return Metrics.startTimer();
+  }
+
+  /**
+   * Records the latency of a command that started at the given time, and marks it as no longer
+   * running.
+   *
+   * @param command The command that was run.
+   * @param startNanos The time returned by {@link #start(Command)} when the command started.
+   */
+  public void finish(final Command command, final long startNanos) {
+    runningCommand.compareAndSet(command, null);
+
+    if (Metrics.isEnabled() && startNanos != 0L) {
+      latencies.get(command).record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Gets the command that most recently started and has not yet finished.
+   *
+   * @return The running command, or null if no command is running.
+   */
+  public Command getRunningCommand() {
+    return runningCommand.get();
+  }
+
+  /**
+   * Gets the latency histogram of a command.
+   *
+   * @param command The command.
+   * @return The histogram.
+   */
+  public LatencyHistogram getLatency(final Command command) {
+    return latencies.get(command);
+  }
+
+  /** Prints the latency percentiles of every command that has run, then every work counter. */
+  public void printStats() {
+    if (!Metrics.isEnabled()) {
+      MessageCli.STATS_DISABLED.printMessage();
+      return;
+    }
+
+    MessageCli.STATS_LATENCY_HEADER.printMessage();
+
+    for (final Command command : Command.values()) {
+      final LatencyHistogram histogram = latencies.get(command);
+
+      // Only report the commands that have actually been used.
+      if (histogram.getCount() == 0) {
+        continue;
+      }
+
+      MessageCli.STATS_LATENCY.printMessage(
+          command.toString(),
+          String.valueOf(histogram.getCount()),
+          toMicros(histogram.getPercentileNanos(50)),
+          toMicros(histogram.getPercentileNanos(99)),
+          toMicros(histogram.getMaxNanos()));
+    }
+
+    MessageCli.STATS_COUNTER_HEADER.printMessage();
+
+    for (final WorkCounter counter : WorkCounter.values()) {
+      MessageCli.STATS_COUNTER.printMessage(
+          counter.getDescription(), String.valueOf(counter.get()));
+    }
+  }
+
+  /**
+   * Converts a latency to whole microseconds for printing.
+   *
+   * @param nanos The latency in nanoseconds.
+   * @return The latency in microseconds.
+   */
+  private String toMicros(final long nanos) {
+    return String.valueOf(nanos / NANOS_PER_MICRO);
+  }
+}
@@ -0,0 +1,177 @@
+package nz.ac.auckland.se281;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a gzip compressed file, decompressing it on a background thread so that decompression
+ * overlaps with parsing what has already been decompressed.
+ *
+ * <p>The background thread fills blocks of decompressed bytes and hands them over through a small
+ * bounded queue, so it stays at most a few blocks ahead of the reader and the whole file is never
+ * held in memory. A failure to read or decompress the file is thrown to the reader once it has read
+ * every block before the failure. Closing the stream stops the background thread.
+ */
+public class DecompressingInputStream extends InputStream {
+  private static final ThreadFactory DECOMPRESSORS = WorkerThreads.newFactory("graph-decompress");
+
+  private static final int BLOCK_BYTES = 1 << 18;
+  private static final int QUEUED_BLOCKS = 8;
+  private static final int FILE_BUFFER_BYTES = 1 << 16;
+  private static final long OFFER_MILLIS = 100;
+
+  // The block that marks the end of the file, or a failure.
+  private static final byte[] END = new byte[0];
+
+  /**
+   * Checks if a file starts with the two bytes that start every gzip file.
+   *
+   * @param file The file.
+   * @return If the file is gzip compressed.
+   * @throws IOException If the file could not be read.
+   */
+  public static boolean isCompressed(final Path file) throws IOException {
+    try (InputStream in = new FileInputStream(file.toFile())) {
+      return in.read() == 0x1f && in.read() == 0x8b;
+    }
+  }
+
+  /**
+   * Opens a file to be read, decompressing it in the background if it is gzip compressed.
+   *
+   * @param file The file.
+   * @return The bytes of the file, decompressed.
+   * @throws IOException If the file could not be opened.
+   */
+  public static InputStream open(final Path file) throws IOException {
+    return isCompressed(file)
+        ? new DecompressingInputStream(file)
+        : new FileInputStream(file.toFile());
+  }
+
+  private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+
+  private volatile IOException failure;
+
+  private volatile boolean isClosed;
+
+  private byte[] block = new byte[0];
+
+  private int position;
+
+  /**
+   * Opens a gzip compressed file and starts decompressing it in the background.
+   *
+   * @param file The file.
+   * @throws IOException If the file could not be opened or is not gzip compressed.
+   */
+  public DecompressingInputStream(final Path file) throws IOException {
+    final InputStream in =
+        new GZIPInputStream(new FileInputStream(file.toFile()), FILE_BUFFER_BYTES);
+    DECOMPRESSORS.newThread(() -> decompress(in)).start();
+  }
+
+  /**
+   * Decompresses the file into blocks until it ends, fails, or the stream is closed.
+   *
+   * @param in The decompressed bytes of the file.
+   */
+  private void decompress(final InputStream in) {
+    try (in) {
+      while (!isClosed) {
+        final byte[] next = new byte[BLOCK_BYTES];
+        final int length = in.readNBytes(next, 0, next.length);
+
+        if (length > 0) {
+          hand(length == next.length ? next : Arrays.copyOf(next, length));
+        }
+        if (length < next.length) {
+          break;
+        }
+      }
+    } catch (final IOException e) {
+      failure = e;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      try {
+        hand(END);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Hands a block to the reader, waiting for room in the queue unless the stream is closed.
+   *
+   * @param next The block.
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  private void hand(final byte[] next) throws InterruptedException {
+    while (!isClosed && !blocks.offer(next, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+      // The reader is behind, so wait for it to take a block.
+    }
+  }
+
+  /**
+   * Makes sure there is an unread byte in the current block, waiting for the next block if needed.
+   *
+   * @return If there is a byte to read, false at the end of the file.
+   * @throws IOException If the file could not be read or decompressed.
+   */
+  private boolean fill() throws IOException {
+    while (position == block.length) {
+      if (block == END) {
+        if (failure != null) {
+          throw failure;
+        }
+        return false;
+      }
+
+      try {
+        block = blocks.take();
+        position = 0;
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while decompressing");
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return fill() ? block[position++] & 0xff : -1;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    } else if (!fill()) {
+      return -1;
+    }
+
+    final int count = Math.min(length, block.length - position);
+    System.arraycopy(block, position, buffer, offset, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+    blocks.clear();
+  }
+}
@@ -0,0 +1,387 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * Streaming parsers for the plain text formats of {@link GraphFormat}, which feed each line
+ * straight into a {@link GraphBuilder} rather than building a syntax tree of the whole file as the
+ * DOT parser does.
+ *
+ * <p>Lines are split by hand on tabs, commas and spaces. Blank lines and lines starting with {@code
+ * #} or {@code %} are comments, except for the header of a Matrix Market file. Files of at least
+ * {@code -Dgraph.parse.parallel-bytes} bytes, 8 MiB by default, are split into chunks that are
+ * parsed on every core by {@link ChunkedFileParser}, which reads each line with the same methods as
+ * the sequential parser so both give the same graph.
+ */
+public final class EdgeFileParser {
+  private static final long PARALLEL_BYTES = Long.getLong("graph.parse.parallel-bytes", 8L << 20);
+
+  /** The size of a Matrix Market coordinate file, and whether it is symmetric. */
+  static final class Matrix {
+    final int rows;
+    final int cols;
+    final long entries;
+    final boolean isSymmetric;
+
+    private Matrix(final int rows, final int cols, final long entries, final boolean isSymmetric) {
+      this.rows = rows;
+      this.cols = cols;
+      this.entries = entries;
+      this.isSymmetric = isSymmetric;
+    }
+  }
+
+  private EdgeFileParser() {}
+
+  /**
+   * Reads a file in one of the plain text formats, in parallel chunks if it is large, or while it
+   * is decompressed if it is gzip compressed.
+   *
+   * @param file The file.
+   * @param format The format of the file, which is not {@link GraphFormat#DOT}.
+   * @return The verticies and edges of the file, in the order they are listed.
+   * @throws IOException If the file could not be read or is not in the format.
+   */
+  public static GraphBuilder<String> parse(final Path file, final GraphFormat format)
+      throws IOException {
+    if (DecompressingInputStream.isCompressed(file)) {
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(new DecompressingInputStream(file), StandardCharsets.UTF_8))) {
+        return parse(reader, format);
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // Chunks only cost time to merge when there is a single core to parse them on.
+      if (channel.size() >= PARALLEL_BYTES && ForkJoinPool.getCommonPoolParallelism() > 1) {
+        return ChunkedFileParser.parse(channel, format);
+      }
+
+      final BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      return parse(reader, format);
+    }
+  }
+
+  /**
+   * Reads a file in one of the plain text formats, a line at a time.
+   *
+   * @param reader The lines of the file.
+   * @param format The format of the file, which is not {@link GraphFormat#DOT}.
+   * @return The verticies and edges of the file, in the order they are listed.
+   * @throws IOException If the file could not be read or is not in the format.
+   */
+  public static GraphBuilder<String> parse(final BufferedReader reader, final GraphFormat format)
+      throws IOException {
+    switch (format) {
+      case EDGE_LIST:
+      case ADJACENCY_LIST:
+        return parseLists(reader, format);
+      case MATRIX_MARKET:
+        return parseMatrixMarket(reader);
+      case DOT:
+      default:
+        throw new IllegalArgumentException(format + " files are read by the DOT parser");
+    }
+  }
+
+  /**
+   * Reads an edge list or an adjacency list.
+   *
+   * @param reader The lines of the file.
+   * @param format The format of the file.
+   * @return The verticies and edges of the file.
+   * @throws IOException If the file could not be read.
+   */
+  private static GraphBuilder<String> parseLists(
+      final BufferedReader reader, final GraphFormat format) throws IOException {
+    final GraphBuilder<String> builder = new GraphBuilder<>();
+    final List<String> columns = new ArrayList<>();
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      split(line, columns);
+      readListLine(columns, format, builder);
+    }
+
+    return builder;
+  }
+
+  /**
+   * Reads a line of an edge list or an adjacency list.
+   *
+   * <p>A line of an edge list is an edge from its first column to its second. Any other columns,
+   * such as weights, are ignored, and a line with a single column is a vertex without edges. A line
+   * of an adjacency list is a vertex, optionally followed by a colon, and then every vertex it has
+   * an edge to.
+   *
+   * @param columns The columns of the line, which may be none.
+   * @param format The format of the file.
+   * @param builder Where to add the verticies and edges of the line.
+   */
+  static void readListLine(
+      final List<String> columns, final GraphFormat format, final GraphBuilder<String> builder) {
+    if (columns.isEmpty()) {
+      return;
+    } else if (format == GraphFormat.EDGE_LIST) {
+      if (columns.size() == 1) {
+        builder.addVertex(columns.get(0));
+      } else {
+        builder.addEdge(columns.get(0), columns.get(1));
+      }
+      return;
+    }
+
+    String vertex = columns.get(0);
+    if (vertex.length() > 1 && vertex.endsWith(":")) {
+      vertex = vertex.substring(0, vertex.length() - 1);
+    }
+
+    final int source = builder.addVertex(vertex);
+    for (int i = 1; i < columns.size(); i++) {
+      if (!columns.get(i).equals(":")) {
+        builder.addEdge(source, builder.addVertex(columns.get(i)));
+      }
+    }
+  }
+
+  /**
+   * Reads a Matrix Market coordinate file. Every row and column is a vertex named by its number
+   * from 1, and each entry is an edge from its row to its column, whatever its value. The entries
+   * of a symmetric matrix below the diagonal stand for the entries above it as well.
+   *
+   * @param reader The lines of the file.
+   * @return The verticies and edges of the file.
+   * @throws IOException If the file could not be read or is not a coordinate matrix.
+   */
+  private static GraphBuilder<String> parseMatrixMarket(final BufferedReader reader)
+      throws IOException {
+    /*
+        Checks the header, adds every vertex from the size line, then adds each entry
+    */
+    final boolean isSymmetric = readMatrixHeader(reader.readLine());
+    final List<String> columns = new ArrayList<>();
+    int lineNumber = 1;
+    String line;
+
+    do {
+      line = reader.readLine();
+      lineNumber++;
+    } while (line != null && split(line, columns) == 0);
+
+    final Matrix matrix = readMatrixSize(columns, isSymmetric, lineNumber);
+    final GraphBuilder<String> builder = newMatrixBuilder(matrix);
+
+    long read = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (split(line, columns) > 0) {
+        final long entry = readMatrixEntry(columns, matrix, lineNumber);
+        addMatrixEntry(builder, matrix, (int) (entry >>> 32), (int) entry);
+        read++;
+      }
+    }
+
+    checkMatrixEntries(matrix, read);
+    return builder;
+  }
+
+  /**
+   * Reads the header of a Matrix Market file.
+   *
+   * @param header The first line of the file, or null if the file is empty.
+   * @return If the matrix is symmetric.
+   * @throws IOException If the line is not the header of a coordinate matrix.
+   */
+  static boolean readMatrixHeader(final String header) throws IOException {
+    final String[] words = header == null ? new String[0] : header.trim().split("\\s+");
+
+    if (words.length < 5
+        || !words[0].equalsIgnoreCase("%%MatrixMarket")
+        || !words[1].equalsIgnoreCase("matrix")) {
+      throw new IOException("Line 1: expected a %%MatrixMarket matrix header");
+    } else if (!words[2].equalsIgnoreCase("coordinate")) {
+      throw new IOException("Line 1: only coordinate Matrix Market files can be read");
+    }
+
+    return !words[4].equalsIgnoreCase("general");
+  }
+
+  /**
+   * Reads the size line of a Matrix Market file.
+   *
+   * @param columns The columns of the first line after the header that is not a comment, or none if
+   *     the file ends first.
+   * @param isSymmetric If the header says the matrix is symmetric.
+   * @param lineNumber The number of the line, to report if it is not a size line.
+   * @return The size of the matrix.
+   * @throws IOException If the line is not a size line.
+   */
+  static Matrix readMatrixSize(
+      final List<String> columns, final boolean isSymmetric, final int lineNumber)
+      throws IOException {
+    if (columns.size() < 3) {
+      throw new IOException("Line " + lineNumber + ": expected the rows, columns and entries");
+    }
+
+    return new Matrix(
+        parseCount(columns.get(0), lineNumber),
+        parseCount(columns.get(1), lineNumber),
+        parseCount(columns.get(2), lineNumber),
+        isSymmetric);
+  }
+
+  /**
+   * Creates the builder of a matrix with every vertex already added, so vertex {@code n} is at
+   * position {@code n - 1}.
+   *
+   * @param matrix The size of the matrix.
+   * @return The builder.
+   */
+  static GraphBuilder<String> newMatrixBuilder(final Matrix matrix) {
+    final GraphBuilder<String> builder = new GraphBuilder<>();
+
+    for (int v = 1; v <= Math.max(matrix.rows, matrix.cols); v++) {
+      builder.addVertex(String.valueOf(v));
+    }
+
+    return builder;
+  }
+
+  /**
+   * Reads an entry of a Matrix Market file.
+   *
+   * @param columns The columns of the line, of which there is at least one.
+   * @param matrix The size of the matrix.
+   * @param lineNumber The number of the line, to report if it is not an entry.
+   * @return The position of the row of the entry in the upper half, and of its column in the lower.
+   * @throws IOException If the line is not an entry of the matrix.
+   */
+  static long readMatrixEntry(final List<String> columns, final Matrix matrix, final int lineNumber)
+      throws IOException {
+    if (columns.size() < 2) {
+      throw new IOException("Line " + lineNumber + ": expected a row and a column");
+    }
+
+    final int row = parseCount(columns.get(0), lineNumber) - 1;
+    final int col = parseCount(columns.get(1), lineNumber) - 1;
+    if (row < 0 || row >= matrix.rows || col < 0 || col >= matrix.cols) {
+      throw new IOException("Line " + lineNumber + ": entry outside the matrix");
+    }
+
+    return (long) row << 32 | col;
+  }
+
+  /**
+   * Adds the edge of an entry, and the edge of the entry it stands for in a symmetric matrix.
+   *
+   * @param builder The builder of the matrix.
+   * @param matrix The size of the matrix.
+   * @param row The position of the row of the entry.
+   * @param col The position of the column of the entry.
+   */
+  static void addMatrixEntry(
+      final GraphBuilder<String> builder, final Matrix matrix, final int row, final int col) {
+    builder.addEdge(row, col);
+    if (matrix.isSymmetric && row != col) {
+      builder.addEdge(col, row);
+    }
+  }
+
+  /**
+   * Checks that a Matrix Market file has as many entries as its size line says.
+   *
+   * @param matrix The size of the matrix.
+   * @param read The number of entries read.
+   * @throws IOException If the numbers differ.
+   */
+  static void checkMatrixEntries(final Matrix matrix, final long read) throws IOException {
+    if (read != matrix.entries) {
+      throw new IOException("Expected " + matrix.entries + " entries but found " + read);
+    }
+  }
+
+  /**
+   * Reads a number that cannot be negative.
+   *
+   * @param column The column holding the number.
+   * @param lineNumber The number of the line, to report if the column is not a number.
+   * @return The number.
+   * @throws IOException If the column is not a number that fits in an int.
+   */
+  private static int parseCount(final String column, final int lineNumber) throws IOException {
+    try {
+      final int count = Integer.parseInt(column);
+      if (count >= 0) {
+        return count;
+      }
+    } catch (final NumberFormatException e) {
+      // Reported below.
+    }
+
+    throw new IOException("Line " + lineNumber + ": " + column + " is not a count");
+  }
+
+  /**
+   * Checks if a character separates columns.
+   *
+   * @param c The character.
+   * @return If the character is a tab, comma, space or carriage return.
+   */
+  static boolean isSeparator(final int c) {
+    return c == ' ' || c == '\t' || c == ',' || c == '\r';
+  }
+
+  /**
+   * Checks if a character starts a comment, when it is the first of its line that is not a
+   * separator.
+   *
+   * @param c The character.
+   * @return If the character is a hash or a percent sign.
+   */
+  static boolean isComment(final int c) {
+    return c == '#' || c == '%';
+  }
+
+  /**
+   * Splits a line into its columns, which are separated by any run of tabs, commas and spaces.
+   * Comments have no columns.
+   *
+   * @param line The line.
+   * @param columns Where to put the columns, which is cleared first.
+   * @return The number of columns.
+   */
+  static int split(final String line, final List<String> columns) {
+    columns.clear();
+    int start = -1;
+
+    for (int i = 0; i <= line.length(); i++) {
+      final char c = i < line.length() ? line.charAt(i) : ' ';
+
+      if (start < 0 && !isSeparator(c)) {
+        if (columns.isEmpty() && isComment(c)) {
+          return 0;
+        }
+        start = i;
+      } else if (start >= 0 && isSeparator(c)) {
+        columns.add(line.substring(start, i));
+        start = -1;
+      }
+    }
+
+    return columns.size();
+  }
+}
@@ -0,0 +1,118 @@
+package nz.ac.auckland.se281;
+
+import com.paypal.digraph.parser.GraphEdge;
+import com.paypal.digraph.parser.GraphNode;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * The verticies and edges of a graph file in the order they are listed, kept as the numbers the
+ * graph gives its verticies rather than as the parser's objects. Each vertex takes one number and
+ * each edge two, so the order of the file can be listed long after the parser's objects are gone.
+ */
+public class FileOrder {
+  private static final int ARRAY_BYTES = 16;
+
+  private final Graph<String> graph;
+
+  private final int[] verticies;
+
+  private final int[] sources;
+
+  private final int[] destinations;
+
+  /**
+   * Records the order of a parsed file, as numbers of the verticies of the graph built from it.
+   *
+   * @param parsed The verticies and edges read from the file, by the DOT parser or a {@link
+   *     GraphBuilder}, which have not been released.
+   * @param graph The graph built from the verticies and edges.
+   */
+  public FileOrder(final ParsedGraph parsed, final Graph<String> graph) {
+    this.graph = graph;
+    this.verticies = new int[parsed.getVertexCount()];
+    this.sources = new int[parsed.getEdgeCount()];
+    this.destinations = new int[parsed.getEdgeCount()];
+
+    final GraphBuilder<String> builder = parsed.getBuilder();
+    if (builder != null) {
+      for (int i = 0; i < verticies.length; i++) {
+        verticies[i] = graph.getId(builder.getVertex(i));
+      }
+      for (int i = 0; i < sources.length; i++) {
+        sources[i] = verticies[builder.getSource(i)];
+        destinations[i] = verticies[builder.getDestination(i)];
+      }
+      return;
+    }
+
+    int i = 0;
+    for (final GraphNode node : parsed.getVerticies()) {
+      verticies[i++] = graph.getId(node.getId());
+    }
+
+    i = 0;
+    for (final GraphEdge edge : parsed.getEdges()) {
+      sources[i] = graph.getId(edge.getNode1().getId());
+      destinations[i] = graph.getId(edge.getNode2().getId());
+      i++;
+    }
+  }
+
+  /**
+   * Gets the number of verticies listed in the file.
+   *
+   * @return The number of verticies.
+   */
+  public int getVertexCount() {
+    return verticies.length;
+  }
+
+  /**
+   * Gets the number of edges listed in the file.
+   *
+   * @return The number of edges.
+   */
+  public int getEdgeCount() {
+    return sources.length;
+  }
+
+  /**
+   * Gets a vertex in the order it is listed in the file.
+   *
+   * @param index The position of the vertex in the file.
+   * @return The vertex.
+   */
+  public String getVertex(final int index) {
+    return graph.getVertex(verticies[index]);
+  }
+
+  /**
+   * Gets the source of an edge in the order it is listed in the file.
+   *
+   * @param index The position of the edge in the file.
+   * @return The source of the edge.
+   */
+  public String getSource(final int index) {
+    return graph.getVertex(sources[index]);
+  }
+
+  /**
+   * Gets the destination of an edge in the order it is listed in the file.
+   *
+   * @param index The position of the edge in the file.
+   * @return The destination of the edge.
+   */
+  public String getDestination(final int index) {
+    return graph.getVertex(destinations[index]);
+  }
+
+  /**
+   * Estimates the memory held by the order, not counting the graph.
+   *
+   * @return The estimate in bytes.
+   */
+  public long estimateBytes() {
+    return 3L * ARRAY_BYTES + (verticies.length + 2L * sources.length) * Integer.BYTES;
+  }
+}
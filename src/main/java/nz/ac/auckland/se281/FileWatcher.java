@@ -0,0 +1,104 @@
+package nz.ac.auckland.se281;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a file for changes, through a {@link WatchService} on the folder that holds it, and runs
+ * an action on a background thread each time the file is created or written.
+ *
+ * <p>Editors often save a file in a few writes, or by replacing it, so the action only runs once no
+ * change has been seen for a short while. The action runs on the watching thread, so a change made
+ * while the action is running is acted on once it has finished.
+ */
+public class FileWatcher implements Closeable {
+  private static final ThreadFactory WATCHERS = WorkerThreads.newFactory("graph-watcher");
+
+  private static final long SETTLE_MILLIS = 100;
+
+  private final Path file;
+
+  private final Runnable onChange;
+
+  private final WatchService service;
+
+  /**
+   * Starts watching a file.
+   *
+   * @param file The file to watch.
+   * @param onChange The action to run after the file changes.
+   * @throws IOException If the folder of the file cannot be watched.
+   */
+  public FileWatcher(final Path file, final Runnable onChange) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.onChange = onChange;
+    this.service = this.file.getFileSystem().newWatchService();
+
+    try {
+      this.file
+          .getParent()
+          .register(
+              service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (final IOException e) {
+      service.close();
+      throw e;
+    }
+
+    WATCHERS.newThread(this::watch).start();
+  }
+
+  /** Waits for changes to the file until the watcher is closed. */
+  private void watch() {
+    try {
+      while (true) {
+        boolean isChanged = readEvents(service.take());
+
+        WatchKey key;
+        while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          isChanged |= readEvents(key);
+        }
+
+        if (isChanged) {
+          onChange.run();
+        }
+      }
+    } catch (final ClosedWatchServiceException e) {
+      // The watcher was closed.
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reads the events of the folder, and gets the folder ready for more events.
+   *
+   * @param key The key of the folder.
+   * @return If any event is about the file, or some events were lost.
+   */
+  private boolean readEvents(final WatchKey key) {
+    boolean isChanged = false;
+
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      isChanged |=
+          event.kind() == StandardWatchEventKinds.OVERFLOW
+              || file.getFileName().equals(event.context());
+    }
+
+    key.reset();
+    return isChanged;
+  }
+
+  /** Stops watching the file. An action that is already running is left to finish. */
+  @Override
+  public void close() throws IOException {
+    service.close();
+  }
+}
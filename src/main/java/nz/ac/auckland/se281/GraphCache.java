@@ -0,0 +1,275 @@
+package nz.ac.auckland.se281;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.TraversalCache;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/**
+ * A bounded cache of the graphs built from recently opened files, so that switching back to a file
+ * does not parse it and build its graph again.
+ *
+ * <p>Graphs are keyed by the real path of their file, and are only reused while the file has the
+ * same size and modification time as when it was loaded, so edited files are reloaded. The least
+ * recently opened graphs are evicted once the estimated size of the cache exceeds its budget, which
+ * defaults to a quarter of the maximum heap and can be set in bytes with {@code
+ * -Dgraph.cache.bytes}. A budget of zero disables the cache. Replacing the graph of a changed file
+ * also drops the search orders cached for the old graph from the {@link TraversalCache}.
+ *
+ * <p>The cache holds each graph it keeps through {@link Graph#retain()}, and releases it when the
+ * graph is evicted or replaced, so the memory a graph holds outside the heap is freed once neither
+ * the cache nor any open file still uses it.
+ */
+public class GraphCache {
+  private static final GraphCache INSTANCE =
+      new GraphCache(Long.getLong("graph.cache.bytes", Runtime.getRuntime().maxMemory() / 4));
+
+  /**
+   * Gets the cache shared by every command line interface in this JVM.
+   *
+   * @return The shared cache.
+   */
+  public static GraphCache getInstance() {
+    return INSTANCE;
+  }
+
+  /** The real path of a file, and its size and modification time when it was looked at. */
+  public static final class Key {
+    private final Path path;
+    private final long size;
+    private final long modified;
+
+    private Key(final Path path, final long size, final long modified) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    /**
+     * Gets the real path of the file.
+     *
+     * @return The path.
+     */
+    public Path getPath() {
+      return path;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return The size in bytes.
+     */
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      final Key key = (Key) other;
+      return path.equals(key.path) && size == key.size && modified == key.modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, modified);
+    }
+  }
+
+  /** A cached graph, and the key of the file it was loaded from. */
+  private static final class Entry {
+    private final Key key;
+    private final long bytes;
+    private final LoadedGraph graph;
+
+    private Entry(final Key key, final LoadedGraph graph) {
+      this.key = key;
+      this.bytes = graph.estimateBytes();
+      this.graph = graph;
+    }
+  }
+
+  private final long budgetBytes;
+
+  // Iterates from the least to the most recently used graph.
+  private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long usedBytes;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param budgetBytes The estimated size that the cached graphs may not exceed.
+   */
+  public GraphCache(final long budgetBytes) {
+    this.budgetBytes = budgetBytes;
+  }
+
+  /**
+   * Looks up the real path, size and modification time of a file. The key should be taken before
+   * the file is read, so that a change made while it is being read makes the cached graph stale.
+   *
+   * @param file The file.
+   * @return The key of the file as it is now.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public Key keyOf(final Path file) throws FileNotFoundException {
+    try {
+      final Path path = file.toRealPath();
+      final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+      if (!attributes.isRegularFile()) {
+        throw new FileNotFoundException(file.toString());
+      }
+
+      return new Key(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+    } catch (final IOException e) {
+      throw new FileNotFoundException(file.toString());
+    }
+  }
+
+  /**
+   * Gets the graph of a file, loading it if it is not cached or the file has changed since it was
+   * cached.
+   *
+   * @param file The file to load.
+   * @return The parsed file and its graph.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public LoadedGraph get(final Path file) throws FileNotFoundException {
+    final Key key = keyOf(file);
+    final LoadedGraph cached = get(key);
+
+    if (cached != null) {
+      return cached;
+    }
+
+    // Parse outside the lock, so a slow file does not hold up graphs that are already cached.
+    final LoadedGraph graph = LoadedGraph.load(key.path);
+    put(key, graph);
+    return graph;
+  }
+
+  /**
+   * Gets the cached graph of a file if the file has not changed since it was cached.
+   *
+   * @param key The key of the file.
+   * @return The graph, or null if it is not cached or is stale.
+   */
+  public synchronized LoadedGraph get(final Key key) {
+    final Entry entry = entries.get(key.path);
+
+    if (entry != null && entry.key.size == key.size && entry.key.modified == key.modified) {
+      WorkCounter.CACHE_HITS.increment();
+      return entry.graph;
+    }
+
+    WorkCounter.CACHE_MISSES.increment();
+    return null;
+  }
+
+  /**
+   * Gets the cached graph of a file if the file has not changed since it was cached, and holds it
+   * for the caller, who must release it once it no longer reads it.
+   *
+   * @param key The key of the file.
+   * @return The held graph, or null if it is not cached or is stale.
+   */
+  public synchronized LoadedGraph acquire(final Key key) {
+    final LoadedGraph graph = get(key);
+    return graph != null && graph.getGraph().retain() ? graph : null;
+  }
+
+  /**
+   * Checks if a graph for the file is cached and still matches the file.
+   *
+   * @param file The file.
+   * @return If opening the file would not need to load it.
+   */
+  public boolean contains(final Path file) {
+    final Key key;
+
+    try {
+      key = keyOf(file);
+    } catch (final FileNotFoundException e) {
+      return false;
+    }
+
+    synchronized (this) {
+      final Entry entry = entries.get(key.path);
+      return entry != null && entry.key.size == key.size && entry.key.modified == key.modified;
+    }
+  }
+
+  /**
+   * Adds a graph to the cache, replacing any older graph of the same file, then evicts the least
+   * recently used graphs until the cache is within its budget. Graphs larger than the whole budget
+   * are not cached.
+   *
+   * @param key The key of the file, taken before it was read.
+   * @param graph The parsed file and its graph.
+   */
+  public synchronized void put(final Key key, final LoadedGraph graph) {
+    final Entry entry = new Entry(key, graph);
+    final Entry previous = entries.remove(key.path);
+
+    // The new graph is held before the old one is released, as they may be the same graph.
+    final boolean isKept = entry.bytes <= budgetBytes && graph.getGraph().retain();
+
+    if (previous != null) {
+      usedBytes -= previous.bytes;
+
+      // The file changed, so nothing found in its old graph will be asked for again, unless the
+      // graph was kept because none of its edges changed.
+      if (previous.graph.getGraph() != graph.getGraph()) {
+        TraversalCache.getInstance().invalidate(previous.graph.getGraph().getVersion());
+      }
+      previous.graph.getGraph().release();
+    }
+
+    if (!isKept) {
+      return;
+    }
+
+    entries.put(key.path, entry);
+    usedBytes += entry.bytes;
+
+    final Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+
+    while (usedBytes > budgetBytes && eldest.hasNext()) {
+      final Entry evicted = eldest.next().getValue();
+      usedBytes -= evicted.bytes;
+      eldest.remove();
+      evicted.graph.getGraph().release();
+    }
+  }
+
+  /**
+   * Gets the estimated size of every graph in the cache.
+   *
+   * @return The estimate in bytes.
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Removes every graph from the cache. */
+  public synchronized void clear() {
+    for (final Entry entry : entries.values()) {
+      entry.graph.getGraph().release();
+    }
+    entries.clear();
+    usedBytes = 0;
+  }
+}
@@ -2,16 +2,23 @@ package nz.ac.auckland.se281;
 
 import com.paypal.digraph.parser.GraphEdge;
 import com.paypal.digraph.parser.GraphNode;
-import com.paypal.digraph.parser.GraphParser;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import nz.ac.auckland.se281.datastructures.Edge;
+import java.util.concurrent.CompletionException;
 import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.GraphUpdate;
+import nz.ac.auckland.se281.datastructures.Reachability;
 
 /**
  * The calculator that reports properties of graphs to the user.
@@ -20,67 +27,411 @@ import nz.ac.auckland.se281.datastructures.Graph;
  */
 public class GraphCalculator {
   private static final Path TESTCASES = Path.of("testcases");
+  private static final String QUERY_FILE_PREFIX = "@";
+  private static final char PAIR_SEPARATOR = ':';
+  private static final int FLUSH_CHARS = 1 << 16;
 
   private final Path file;
 
-  private final Collection<GraphNode> verticies;
+  private final boolean isConfined;
 
-  private final Collection<GraphEdge> edges;
+  // Replaced between commands when the file is watched and has changed.
+  private volatile GraphLoad load;
 
-  private final Graph<String> graph;
+  private FileWatcher watcher;
+
+  private GraphLoad reloaded;
+
+  private String reloadFailure;
+
+  private boolean isClosed;
 
   /**
-   * Creates a new graph calculator.
+   * Creates a new graph calculator. The file is parsed and its graph is built in the background,
+   * and each command waits for the part of the load that it needs.
    *
    * @param filename The name of the test case to read.
    * @throws FileNotFoundException If the file does not exist.
    */
   public GraphCalculator(final String filename) throws FileNotFoundException {
-    file = TESTCASES.resolve(filename);
+    this(filename, false);
+  }
+
+  /**
+   * Creates a new graph calculator that may be kept to the testcases folder. A confined calculator
+   * refuses test cases and query files outside the folder, so a session served to other clients
+   * cannot read any other file the server can.
+   *
+   * @param filename The name of the test case to read.
+   * @param isConfined If files outside the testcases folder are refused.
+   * @throws FileNotFoundException If the file does not exist, or is refused.
+   */
+  public GraphCalculator(final String filename, final boolean isConfined)
+      throws FileNotFoundException {
+    this.isConfined = isConfined;
+    file = isConfined ? resolveConfined(filename) : TESTCASES.resolve(filename);
+    load = GraphLoad.start(file, filename);
+  }
+
+  /**
+   * Resolves a name against the testcases folder, refusing absolute names, names that climb out of
+   * the folder with "..", and links inside the folder that lead out of it.
+   *
+   * @param name The name of a file in the testcases folder.
+   * @return The path of the file.
+   * @throws FileNotFoundException If the file is outside the testcases folder.
+   */
+  private static Path resolveConfined(final String name) throws FileNotFoundException {
+    final Path path = TESTCASES.resolve(name).normalize();
+
+    try {
+      if (path.startsWith(TESTCASES)
+          && (!Files.exists(path) || path.toRealPath().startsWith(TESTCASES.toRealPath()))) {
+        return path;
+      }
+    } catch (final IOException e) {
+      // Treated as outside the folder, since where it leads cannot be told.
+    }
 
-    final GraphParser parser = new GraphParser(new FileInputStream(file.toFile()));
+    throw new FileNotFoundException(name + " is not in the testcases folder");
+  }
 
-    this.verticies = parser.getNodes().values();
-    this.edges = parser.getEdges().values();
+  /**
+   * Gets the name of the test case that is loaded.
+   *
+   * @return The filename relative to the testcases folder, or as given if it is outside the folder.
+   */
+  public String getFilename() {
+    return file.startsWith(TESTCASES) ? TESTCASES.relativize(file).toString() : file.toString();
+  }
 
-    final Set<String> verticies = new HashSet<>();
+  /**
+   * Gets the graph built from the test case, waiting for it to be built if necessary.
+   *
+   * @return The graph.
+   * @throws CompletionException If the file could not be loaded.
+   */
+  public Graph<String> getGraph() {
+    return load.awaitGraph();
+  }
 
-    for (final GraphNode node : this.verticies) {
-      verticies.add(node.getId());
+  /**
+   * Keeps the answers worked out for the graph in the {@link ResultStore}, if it has been built.
+   */
+  public void saveResults() {
+    final Graph<String> graph = load.getGraphNow();
+
+    if (graph != null) {
+      ResultStore.getInstance().save(graph);
     }
+  }
 
-    final Set<Edge<String>> edges = new HashSet<>();
+  /**
+   * Gets the background load of the test case.
+   *
+   * @return The load.
+   */
+  public GraphLoad getLoad() {
+    return load;
+  }
 
-    for (final GraphEdge edge : this.edges) {
-      edges.add(new Edge<>(edge.getNode1().getId(), edge.getNode2().getId()));
+  /**
+   * Starts or stops watching the test case for changes. While it is watched, the file is read again
+   * in the background after each change, and the graph is updated to it through {@link
+   * GraphLoad#reload(GraphLoad, Path)} before the next command.
+   *
+   * @param state Either on or off, in any case.
+   */
+  public void watch(final String state) {
+    switch (state.toUpperCase(Locale.ROOT)) {
+      case "ON":
+        if (watcher == null) {
+          try {
+            watcher = new FileWatcher(file, this::reload);
+          } catch (final IOException e) {
+            MessageCli.WATCH_FAILED.printMessage(getFilename(), e.getMessage());
+            return;
+          }
+        }
+        MessageCli.WATCH_STARTED.printMessage(getFilename());
+        break;
+      case "OFF":
+        stopWatching();
+        MessageCli.WATCH_STOPPED.printMessage(getFilename());
+        break;
+      default:
+        MessageCli.INVALID_WATCH_STATE.printMessage(state);
+        break;
     }
+  }
 
-    graph = new Graph<>(verticies, edges);
+  /**
+   * Stops watching the test case and releases its graph, once the session has moved on to another
+   * file or ended. The calculator must not be used afterwards.
+   */
+  public void close() {
+    stopWatching();
+
+    synchronized (this) {
+      isClosed = true;
+      load.release();
+      if (reloaded != null) {
+        reloaded.release();
+        reloaded = null;
+      }
+    }
+  }
+
+  /** Stops watching the test case for changes, if it is watched. */
+  public void stopWatching() {
+    if (watcher == null) {
+      return;
+    }
+
+    try {
+      watcher.close();
+    } catch (final IOException e) {
+      // The watcher is dropped either way.
+    }
+    watcher = null;
+  }
+
+  /**
+   * Reads the test case again after it changed, on the watching thread, keeping the new load until
+   * the next command applies it. A file whose first load failed is loaded again from scratch.
+   */
+  private void reload() {
+    final GraphLoad current;
+
+    // The graph is read while it is updated, so it is held even if a command moves past it.
+    synchronized (this) {
+      current = load;
+      current.acquire();
+    }
+
+    try {
+      final GraphLoad next =
+          current.getStage() == GraphLoad.Stage.FAILED
+              ? GraphLoad.start(file, getFilename())
+              : GraphLoad.reload(current, file);
+
+      synchronized (this) {
+        if (isClosed) {
+          next.release();
+          return;
+        }
+        if (reloaded != null) {
+          reloaded.release();
+        }
+        reloaded = next;
+        reloadFailure = null;
+      }
+    } catch (final FileNotFoundException e) {
+      synchronized (this) {
+        reloadFailure = "file not found";
+      }
+    } catch (final RuntimeException e) {
+      // The file may be half written, or broken until the next change.
+      synchronized (this) {
+        reloadFailure = e.getMessage() == null ? e.toString() : e.getMessage();
+      }
+    } finally {
+      current.release();
+    }
+  }
+
+  /**
+   * Switches to the graph read after the test case last changed, if it has changed since the last
+   * command, and prints how the graph changed.
+   */
+  public synchronized void applyReload() {
+    final String filename = getFilename();
+
+    if (reloadFailure != null) {
+      MessageCli.RELOAD_FAILED.printMessage(filename, reloadFailure);
+      reloadFailure = null;
+    }
+
+    if (reloaded == null) {
+      return;
+    }
+
+    final GraphLoad previous = load;
+    load = reloaded;
+    reloaded = null;
+    previous.release();
+    final GraphUpdate<String> update = load.getUpdate();
+
+    if (update == null) {
+      MessageCli.FILE_RELOADED.printMessage(filename);
+    } else if (update.isRebuilt()) {
+      MessageCli.FILE_REBUILT.printMessage(filename);
+    } else if (update.isUnchanged()) {
+      MessageCli.FILE_UNCHANGED.printMessage(filename);
+    } else {
+      MessageCli.FILE_UPDATED.printMessage(
+          filename,
+          String.valueOf(update.getInsertedEdges()),
+          String.valueOf(update.getRemovedEdges()));
+    }
   }
 
   /** Prints the filename of the test case that is loaded. */
   public void printInfo() {
-    MessageCli.INFO.printMessage(TESTCASES.relativize(file).toString());
+    MessageCli.INFO.printMessage(getFilename());
+  }
+
+  /** Prints how far the test case has been loaded. */
+  public void printLoadStatus() {
+    final String filename = getFilename();
+
+    switch (load.getStage()) {
+      case PARSING:
+        MessageCli.LOAD_STATUS_PARSING.printMessage(
+            filename, String.valueOf(load.getParseMillis()));
+        break;
+      case INDEXING:
+        final ParsedGraph parsed = load.awaitParsed();
+        MessageCli.LOAD_STATUS_INDEXING.printMessage(
+            filename,
+            String.valueOf(parsed.getVertexCount()),
+            String.valueOf(parsed.getEdgeCount()),
+            String.valueOf(load.getParseMillis()),
+            String.valueOf(load.getIndexMillis()));
+        break;
+      case READY:
+        final Graph<String> graph = load.awaitGraph();
+        final String verticies = String.valueOf(graph.getVertexCount());
+        final String edges = String.valueOf(graph.getEdgeCount());
+
+        if (load.isCached()) {
+          MessageCli.LOAD_STATUS_CACHED.printMessage(filename, verticies, edges);
+        } else {
+          MessageCli.LOAD_STATUS_READY.printMessage(
+              filename,
+              verticies,
+              edges,
+              String.valueOf(load.getParseMillis()),
+              String.valueOf(load.getIndexMillis()));
+        }
+        break;
+      case FAILED:
+      default:
+        MessageCli.LOAD_STATUS_FAILED.printMessage(filename, load.getFailure());
+        break;
+    }
+  }
+
+  /**
+   * Prints how the edges of the graph are stored, and whether the storage was chosen from the size
+   * of the graph or set with the {@code graph.storage} system property.
+   */
+  public void printRepresentation() {
+    final Graph<String> graph = getGraph();
+    final long verticies = graph.getVertexCount();
+    final double density =
+        verticies == 0 ? 0 : (double) graph.getEdgeCount() / (verticies * verticies);
+
+    MessageCli.REPRESENTATION.printMessage(
+        String.valueOf(verticies),
+        String.valueOf(graph.getEdgeCount()),
+        String.format(Locale.ROOT, "%.4f", density),
+        graph.getAdjacency().getRepresentation(),
+        describeStorageChoice(graph),
+        String.valueOf(graph.getAdjacency().estimateHeapBytes()),
+        String.valueOf(graph.getAdjacency().estimateOffHeapBytes()));
+
+    // Edges kept off the heap still pass through the two heap arrays of the graph builder.
+    if (graph.getAdjacency().estimateOffHeapBytes() > 0) {
+      final long edges = load.awaitParsed().getEdgeCount();
+      MessageCli.REPRESENTATION_HEAP_LIMIT.printMessage(
+          String.valueOf(edges), String.valueOf(2L * Integer.BYTES * edges));
+    }
+  }
+
+  /**
+   * Describes how the storage of a graph was chosen, and why the storage set by the {@code
+   * graph.storage} system property was not used, if it was not.
+   *
+   * @param graph The graph.
+   * @return The description.
+   */
+  private static String describeStorageChoice(final Graph<String> graph) {
+    final GraphStorage requested = GraphStorage.getDefault();
+
+    if (requested == GraphStorage.AUTO) {
+      return "chosen from the size of the graph";
+    } else if (graph.getStorage() == requested) {
+      return "set by graph.storage";
+    }
+
+    final String reason = requested.explainFallback(graph.getVertexCount());
+    return "as graph.storage set "
+        + requested.getPropertyName()
+        + " but fell back to "
+        + graph.getStorage().getPropertyName()
+        + (reason == null ? "" : " because " + reason);
   }
 
-  /** Prints the set of verticies and edges in the graph. */
+  /**
+   * Prints the set of verticies and edges in the graph, in the order the file lists them. Once the
+   * parser's objects have been released in slim mode, or if the file was read without the DOT
+   * parser, the order is read from the graph's own index.
+   */
   public void printVerticiesEdges() {
     final StringBuilder sb = new StringBuilder("Verticies:").append(System.lineSeparator());
 
+    if (!LoadedGraph.isSlim() && load.awaitParsed().hasParserObjects()) {
+      printParsedVerticiesEdges(sb, load.awaitParsed());
+      return;
+    }
+
+    final FileOrder fileOrder = load.awaitFileOrder();
+
     // Vertically print each vertex.
-    for (final GraphNode node : verticies) {
+    for (int i = 0; i < fileOrder.getVertexCount(); i++) {
+      sb.append("\t").append(fileOrder.getVertex(i)).append(System.lineSeparator());
+      flushIfFull(sb);
+    }
+
+    sb.append(System.lineSeparator()).append("Edges:").append(System.lineSeparator());
+
+    // Vertically print each edge between verticies.
+    for (int i = 0; i < fileOrder.getEdgeCount(); i++) {
+      sb.append("\t")
+          .append(fileOrder.getSource(i))
+          .append(" -> ")
+          .append(fileOrder.getDestination(i))
+          .append(System.lineSeparator());
+      flushIfFull(sb);
+    }
+
+    System.out.print(sb.toString());
+  }
+
+  /**
+   * Prints the verticies and edges kept by the parser, which can be done before the graph is built.
+   *
+   * @param sb The output gathered so far.
+   * @param parsed The verticies and edges read from the file.
+   */
+  private void printParsedVerticiesEdges(final StringBuilder sb, final ParsedGraph parsed) {
+    // Vertically print each vertex.
+    for (final GraphNode node : parsed.getVerticies()) {
       sb.append("\t").append(node.getId()).append(System.lineSeparator());
+      flushIfFull(sb);
     }
 
     sb.append(System.lineSeparator()).append("Edges:").append(System.lineSeparator());
 
     // Vertically print each edge between verticies.
-    for (final GraphEdge edge : edges) {
+    for (final GraphEdge edge : parsed.getEdges()) {
       sb.append("\t")
           .append(edge.getNode1().getId())
           .append(" -> ")
           .append(edge.getNode2().getId())
           .append(System.lineSeparator());
+      flushIfFull(sb);
     }
 
     System.out.print(sb.toString());
@@ -88,63 +439,333 @@ public class GraphCalculator {
 
   /** Prints the set of verticies in the graph that are root verticies. */
   public void printRoots() {
-    System.out.println(graph.getRoots());
+    System.out.println(getGraph().getRoots());
   }
 
   /** Prints if the set of verticies in the graph exhibit the reflexivity property. */
   public void printReflexitivity() {
-    MessageCli.GRAPH_REFLEXIVE.printMessage(prefixNot(graph.isReflexive()));
+    MessageCli.GRAPH_REFLEXIVE.printMessage(prefixNot(getGraph().isReflexive()));
   }
 
   /** Prints if the set of edges in the graph exhibit the symmetric property. */
   public void printSymmetry() {
-    MessageCli.GRAPH_SYMMETRIC.printMessage(prefixNot(graph.isSymmetric()));
+    MessageCli.GRAPH_SYMMETRIC.printMessage(prefixNot(getGraph().isSymmetric()));
   }
 
   /** Prints if the set of edges in the graph exhibit transitivity. */
   public void printTransitivity() {
-    MessageCli.GRAPH_TRANSITIVE.printMessage(prefixNot(graph.isTransitive()));
+    MessageCli.GRAPH_TRANSITIVE.printMessage(prefixNot(getGraph().isTransitive()));
   }
 
   /** Prints if the set of edges in the graph exhibit anti-symmetry. */
   public void printAntiSymmetry() {
-    MessageCli.GRAPH_ANTI_SYMMETRIC.printMessage(prefixNot(graph.isAntiSymmetric()));
+    MessageCli.GRAPH_ANTI_SYMMETRIC.printMessage(prefixNot(getGraph().isAntiSymmetric()));
   }
 
   /** Prints if the entire graph is considered an equivalence relation. */
   public void printEquivalence() {
-    MessageCli.GRAPH_EQUIVALENCE.printMessage(prefixNot(graph.isEquivalence()));
+    MessageCli.GRAPH_EQUIVALENCE.printMessage(prefixNot(getGraph().isEquivalence()));
+  }
+
+  /**
+   * Prints every property of the relation, in the order of the CHECK commands. The properties are
+   * all worked out in one pass over the graph, which the CHECK commands then answer from.
+   */
+  public void printAnalysis() {
+    getGraph().analyze();
+    printReflexitivity();
+    printSymmetry();
+    printTransitivity();
+    printAntiSymmetry();
+    printEquivalence();
+  }
+
+  /** Prints if the graph has no cycles, followed by one of its cycles if it has any. */
+  public void printAcyclic() {
+    final Graph<String> graph = getGraph();
+    MessageCli.GRAPH_ACYCLIC.printMessage(prefixNot(graph.isAcyclic()));
+
+    if (!graph.isAcyclic()) {
+      MessageCli.GRAPH_CYCLE.printMessage(String.join(" -> ", graph.findCycle()));
+    }
+  }
+
+  /**
+   * Prints the verticies in topological order, or that the graph is not acyclic and one of its
+   * cycles if there is no such order.
+   */
+  public void printTopologicalOrder() {
+    final Graph<String> graph = getGraph();
+
+    if (graph.isAcyclic()) {
+      System.out.println(Arrays.toString(graph.getTopologicalOrder().toArray()));
+    } else {
+      printAcyclic();
+    }
   }
 
   /**
-   * Prints the verticies in the equivalence class of the given vertex.
+   * Prints the verticies in the equivalence class of the given vertex. The class is already in the
+   * order of the graph, so it is printed as it is.
    *
    * @param vertex The vertex to compute the equivalence class of.
    */
   public void printEquivalenceClass(final String vertex) {
-    final Object[] equivalenceClass = graph.getEquivalenceClass(vertex).toArray();
-    Arrays.sort(equivalenceClass);
-    System.out.println(Arrays.toString(equivalenceClass));
+    System.out.println(getGraph().getEquivalenceClass(vertex));
+  }
+
+  /**
+   * Prints the equivalence class of each of a list of verticies, in the order they are listed.
+   * Every class comes from a single pass over the graph, however many verticies are asked about.
+   *
+   * @param queries The verticies separated by commas, or "@" followed by a file of verticies.
+   */
+  public void printEquivalenceClasses(final String queries) {
+    final List<String> verticies = readQueries(queries);
+
+    if (verticies == null) {
+      return;
+    }
+
+    final Map<String, Set<String>> classes = getGraph().getEquivalenceClasses();
+
+    // Members of a class share one set, so each class only needs to be printed once.
+    final Map<Set<String>, String> printed = new IdentityHashMap<>();
+    final StringBuilder sb = new StringBuilder();
+
+    for (final String vertex : verticies) {
+      final Set<String> equivalenceClass = classes.get(vertex);
+
+      if (equivalenceClass == null) {
+        sb.append(MessageCli.VERTEX_NOT_FOUND.getMessage(vertex));
+      } else {
+        final String members = printed.computeIfAbsent(equivalenceClass, Set::toString);
+        sb.append(MessageCli.BATCH_EQUIVALENCE_CLASS.getMessage(vertex, members));
+      }
+
+      sb.append(System.lineSeparator());
+      flushIfFull(sb);
+    }
+
+    System.out.print(sb);
+  }
+
+  /**
+   * Prints the answer to each of a list of reachability queries, in the order they are listed. A
+   * query "FROM:TO" asks if TO can be reached from FROM, while a query "FROM" asks for every vertex
+   * that can be reached from FROM. The queries from each vertex are answered together, so the graph
+   * is searched once for every vertex the queries start from.
+   *
+   * @param queries The queries separated by commas, or "@" followed by a file of queries.
+   */
+  public void printReachability(final String queries) {
+    final List<String> lines = readQueries(queries);
+
+    if (lines == null) {
+      return;
+    }
+
+    final Map<String, List<Integer>> queriesFrom = new LinkedHashMap<>();
+
+    for (int i = 0; i < lines.size(); i++) {
+      queriesFrom.computeIfAbsent(getQueryFrom(lines.get(i)), from -> new ArrayList<>()).add(i);
+    }
+
+    final Reachability<String> reachability = getGraph().getReachability();
+    final String[] answers = new String[lines.size()];
+
+    for (final List<Integer> positions : queriesFrom.values()) {
+      for (final int i : positions) {
+        answers[i] = answerReachability(reachability, lines.get(i));
+      }
+    }
+
+    final StringBuilder sb = new StringBuilder();
+
+    for (final String answer : answers) {
+      sb.append(answer).append(System.lineSeparator());
+      flushIfFull(sb);
+    }
+
+    System.out.print(sb);
+  }
+
+  /**
+   * Gets the vertex a reachability query starts from.
+   *
+   * @param query The query, either "FROM:TO" or "FROM".
+   * @return The vertex FROM.
+   */
+  private String getQueryFrom(final String query) {
+    final int separator = query.indexOf(PAIR_SEPARATOR);
+    return separator < 0 ? query : query.substring(0, separator);
+  }
+
+  /**
+   * Answers a reachability query.
+   *
+   * @param reachability The reachability of the graph.
+   * @param query The query, either "FROM:TO" or "FROM".
+   * @return The answer, or an error if a vertex is not in the graph.
+   */
+  private String answerReachability(final Reachability<String> reachability, final String query) {
+    final int separator = query.indexOf(PAIR_SEPARATOR);
+    final String from = getQueryFrom(query);
+    final String to = separator < 0 ? null : query.substring(separator + 1);
+
+    if (!reachability.contains(from)) {
+      return MessageCli.VERTEX_NOT_FOUND.getMessage(from);
+    } else if (to == null) {
+      return MessageCli.BATCH_REACHABLE_SET.getMessage(
+          from, reachability.getReachable(from).toString());
+    } else if (!reachability.contains(to)) {
+      return MessageCli.VERTEX_NOT_FOUND.getMessage(to);
+    }
+
+    return MessageCli.BATCH_REACHABLE.getMessage(
+        from, to, prefixNot(reachability.isReachable(from, to)));
+  }
+
+  /**
+   * Prints how many edges away from the nearest of a list of sources each vertex they reach is, a
+   * vertex per line in the order they are reached. Sources that are not in the graph are reported
+   * and left out.
+   *
+   * @param queries The sources separated by commas, or "@" followed by a file of sources.
+   */
+  public void printDistances(final String queries) {
+    final List<String> sources = readSources(queries);
+
+    if (sources == null) {
+      return;
+    }
+
+    final Map<String, Integer> distances = getGraph().getDistances(sources, Integer.MAX_VALUE);
+    final StringBuilder sb = new StringBuilder();
+
+    for (final Map.Entry<String, Integer> entry : distances.entrySet()) {
+      sb.append(MessageCli.DISTANCE.getMessage(entry.getKey(), String.valueOf(entry.getValue())));
+      sb.append(System.lineSeparator());
+      flushIfFull(sb);
+    }
+
+    System.out.print(sb);
+  }
+
+  /**
+   * Prints every vertex within a number of edges of any of a list of sources, in the order of the
+   * graph. Sources that are not in the graph are reported and left out.
+   *
+   * @param queries The sources separated by commas, or "@" followed by a file of sources.
+   * @param hops The most edges to follow from a source.
+   */
+  public void printNeighbourhood(final String queries, final String hops) {
+    final int maxDepth;
+
+    try {
+      maxDepth = Integer.parseInt(hops);
+    } catch (final NumberFormatException e) {
+      MessageCli.INVALID_HOPS.printMessage(hops);
+      return;
+    }
+
+    if (maxDepth < 0) {
+      MessageCli.INVALID_HOPS.printMessage(hops);
+      return;
+    }
+
+    final List<String> sources = readSources(queries);
+
+    if (sources != null) {
+      System.out.println(getGraph().getNeighbourhood(sources, maxDepth));
+    }
+  }
+
+  /**
+   * Reads a list of sources, printing an error for each one that is not in the graph.
+   *
+   * @param queries The sources separated by commas, or "@" followed by a file of sources.
+   * @return The sources, or null if the file could not be read.
+   */
+  private List<String> readSources(final String queries) {
+    final List<String> sources = readQueries(queries);
+
+    if (sources != null) {
+      final Graph<String> graph = getGraph();
+      for (final String source : sources) {
+        if (graph.getId(source) < 0) {
+          MessageCli.VERTEX_NOT_FOUND.printMessage(source);
+        }
+      }
+    }
+
+    return sources;
+  }
+
+  /**
+   * Reads a list of queries given either directly, separated by commas, or as "@" followed by the
+   * path of a file holding queries separated by commas, spaces or new lines. A confined calculator
+   * reads the file from the testcases folder instead of the working directory.
+   *
+   * @param queries The queries, or "@" followed by the path of a file of queries.
+   * @return The queries, or null if the file could not be read.
+   */
+  private List<String> readQueries(final String queries) {
+    String text = queries;
+
+    if (queries.startsWith(QUERY_FILE_PREFIX)) {
+      final String path = queries.substring(QUERY_FILE_PREFIX.length());
+
+      try {
+        text = Files.readString(isConfined ? resolveConfined(path) : Path.of(path));
+      } catch (final IOException e) {
+        MessageCli.QUERIES_NOT_READABLE.printMessage(path, String.valueOf(e.getMessage()));
+        return null;
+      }
+    }
+
+    final List<String> result = new ArrayList<>();
+
+    for (final String query : text.split("[,\\s]+")) {
+      if (!query.isEmpty()) {
+        result.add(query);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Prints the answers gathered so far once there are enough of them, so that the answers to a long
+   * list of queries stream out without being printed one line at a time.
+   *
+   * @param sb The answers that have not been printed yet.
+   */
+  private void flushIfFull(final StringBuilder sb) {
+    if (sb.length() >= FLUSH_CHARS) {
+      System.out.print(sb);
+      sb.setLength(0);
+    }
   }
 
   /** Prints the search order of an iterative breadth first search. */
   public void printIterativeBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeBreadthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(getGraph().iterativeBreadthFirstSearch().toArray()));
   }
 
   /** Prints the search order of an iterative depth first search. */
   public void printDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeDepthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(getGraph().iterativeDepthFirstSearch().toArray()));
   }
 
   /** Prints the search order of a recursive breadth first search. */
   public void printRecursiveBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveBreadthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(getGraph().recursiveBreadthFirstSearch().toArray()));
   }
 
   /** Prints the search order of a recursive depth first search. */
   public void printRecursiveDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveDepthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(getGraph().recursiveDepthFirstSearch().toArray()));
   }
 
   /**
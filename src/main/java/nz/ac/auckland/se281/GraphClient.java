@@ -0,0 +1,110 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sends commands to a running {@link GraphDaemon} and prints what it answers.
+ *
+ * <p>This client still starts a JVM of its own, but nothing more: it does no parsing and no graph
+ * work. The {@code bin/graph-client} script speaks the same protocol without starting a JVM at all,
+ * for invocations where even that startup matters.
+ */
+public class GraphClient {
+  public static final String CLIENT_FLAG = "--client";
+
+  private static final String PORT_FILE_FLAG = "--port-file=";
+
+  /**
+   * Runs a client given on the command line as {@code --client [--port-file=PATH] [COMMAND
+   * [ARGS...]]}. The command is sent if one is given, and otherwise every line of standard input is
+   * sent.
+   *
+   * @param args The arguments after {@value #CLIENT_FLAG}.
+   */
+  public static void main(final String[] args) {
+    Path portFile = GraphDaemon.getDefaultPortFile();
+    int first = 0;
+
+    if (args.length > 0 && args[0].startsWith(PORT_FILE_FLAG)) {
+      portFile = Path.of(args[0].substring(PORT_FILE_FLAG.length()));
+      first = 1;
+    }
+
+    final String command = String.join(" ", Arrays.copyOfRange(args, first, args.length));
+
+    try {
+      run(
+          GraphDaemon.readPort(portFile),
+          GraphDaemon.readToken(portFile),
+          command.isEmpty() ? null : command,
+          System.in,
+          System.out);
+    } catch (final NoSuchFileException | ConnectException | NumberFormatException e) {
+      System.err.println(MessageCli.DAEMON_NOT_RUNNING.getMessage(portFile.toString()));
+    } catch (final IOException e) {
+      System.err.println(MessageCli.DAEMON_FAILED.getMessage(e.getMessage()));
+    }
+  }
+
+  /**
+   * Sends a command, or a stream of commands, to the daemon and copies its answers to an output
+   * stream as they arrive. The daemon's token is sent ahead of the commands.
+   *
+   * @param port The port the daemon is listening on.
+   * @param token The token of the daemon.
+   * @param command The command to send, or null to send the input.
+   * @param in The commands to send if no command is given, usually standard input.
+   * @param answers Where to copy the answers to, usually standard output.
+   * @throws IOException If the daemon cannot be reached.
+   */
+  static void run(
+      final int port,
+      final String token,
+      final String command,
+      final InputStream in,
+      final OutputStream answers)
+      throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      final OutputStream out = socket.getOutputStream();
+      out.write((token + "\n").getBytes(Charset.defaultCharset()));
+
+      if (command != null) {
+        out.write((command + "\n").getBytes(Charset.defaultCharset()));
+        socket.shutdownOutput();
+      } else {
+        // Send standard input on another thread, so a long script cannot fill the socket while
+        // its earlier answers are still waiting to be read.
+        final Thread sender = new Thread(() -> send(in, socket));
+        sender.setDaemon(true);
+        sender.start();
+      }
+
+      socket.getInputStream().transferTo(answers);
+      answers.flush();
+    }
+  }
+
+  /**
+   * Copies the commands to the daemon, then tells the daemon there are no more commands.
+   *
+   * @param in The commands.
+   * @param socket The connection to the daemon.
+   */
+  private static void send(final InputStream in, final Socket socket) {
+    try {
+      in.transferTo(socket.getOutputStream());
+      socket.shutdownOutput();
+    } catch (final IOException e) {
+      // The daemon hung up, and the reading side reports whatever it managed to answer.
+    }
+  }
+}
@@ -0,0 +1,263 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se281.metrics.Metrics;
+
+/**
+ * Keeps a warmed up calculator resident in the background, so that short invocations through {@link
+ * GraphClient} or the {@code bin/graph-client} script skip JVM startup, class loading and
+ * compilation of the graph algorithms.
+ *
+ * <p>The daemon serves clients on a loopback port and writes that port to a port file, where
+ * clients look it up, along with the token they must send first. Only the user running the daemon
+ * can read the port file, so only that user's clients can use the daemon. Before it writes the port
+ * file it runs every query against every test case, so by the time a client can find it the
+ * algorithms are compiled and the test cases are in the graph cache. Test cases are found relative
+ * to the directory the daemon was started in.
+ */
+public class GraphDaemon {
+  public static final String DAEMON_FLAG = "--daemon";
+
+  private static final String PORT_FLAG = "--port=";
+  private static final String PORT_FILE_FLAG = "--port-file=";
+  private static final Path TESTCASES = Path.of("testcases");
+
+  private static final int WARM_UP_ROUNDS = Integer.getInteger("graph.daemon.warmup", 50);
+
+  /**
+   * Gets the port file that the daemon and its clients use when none is given.
+   *
+   * @return The path of the port file, which can be overridden with the {@code
+   *     GRAPH_CALCULATOR_PORT_FILE} environment variable.
+   */
+  public static Path getDefaultPortFile() {
+    final String file = System.getenv("GRAPH_CALCULATOR_PORT_FILE");
+
+    if (file != null && !file.isEmpty()) {
+      return Path.of(file);
+    }
+
+    return Path.of(System.getProperty("user.home"), ".graph-calculator.port");
+  }
+
+  /**
+   * Reads the port of a running daemon from the first line of its port file.
+   *
+   * @param portFile The port file.
+   * @return The port.
+   * @throws IOException If the port file cannot be read.
+   * @throws NumberFormatException If the port file does not hold a port.
+   */
+  public static int readPort(final Path portFile) throws IOException {
+    return Integer.parseInt(readLine(portFile, 0));
+  }
+
+  /**
+   * Reads the token of a running daemon from the second line of its port file.
+   *
+   * @param portFile The port file.
+   * @return The token.
+   * @throws IOException If the port file cannot be read.
+   * @throws NumberFormatException If the port file does not hold a token.
+   */
+  public static String readToken(final Path portFile) throws IOException {
+    return readLine(portFile, 1);
+  }
+
+  /**
+   * Reads a line of a port file.
+   *
+   * @param portFile The port file.
+   * @param index The index of the line, from 0.
+   * @return The line without surrounding whitespace.
+   * @throws IOException If the port file cannot be read.
+   * @throws NumberFormatException If the port file is too short to hold the line.
+   */
+  private static String readLine(final Path portFile, final int index) throws IOException {
+    final List<String> lines = Files.readAllLines(portFile);
+
+    if (lines.size() <= index) {
+      throw new NumberFormatException("Port file " + portFile + " has no line " + (index + 1));
+    }
+
+    return lines.get(index).trim();
+  }
+
+  /**
+   * Runs a daemon given on the command line as {@code --daemon [--port=PORT] [--port-file=PATH]},
+   * listening on any free loopback port unless told otherwise.
+   *
+   * @param args The arguments after {@value #DAEMON_FLAG}.
+   */
+  public static void main(final String[] args) {
+    int port = 0;
+    Path portFile = getDefaultPortFile();
+
+    for (final String arg : args) {
+      try {
+        if (arg.startsWith(PORT_FLAG)) {
+          port = Integer.parseInt(arg.substring(PORT_FLAG.length()));
+          continue;
+        } else if (arg.startsWith(PORT_FILE_FLAG)) {
+          portFile = Path.of(arg.substring(PORT_FILE_FLAG.length()));
+          continue;
+        }
+      } catch (final IllegalArgumentException e) {
+        // Reported below along with options that are not recognised at all.
+      }
+
+      System.err.println(MessageCli.UNKNOWN_DAEMON_OPTION.getMessage(arg));
+      return;
+    }
+
+    final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+
+    try (GraphServer server = start(address, portFile, WARM_UP_ROUNDS)) {
+      server.serve();
+    } catch (final IOException e) {
+      System.err.println(MessageCli.SERVER_FAILED.getMessage(address.toString(), e.getMessage()));
+    }
+  }
+
+  /**
+   * Opens the server of a daemon, warms it up and publishes its port, leaving the caller to serve
+   * clients on it.
+   *
+   * @param address The address to listen on.
+   * @param portFile The port file to write the port to, replacing any left by an earlier daemon.
+   * @param rounds The number of times to run every query against every test case.
+   * @return The server, ready to serve.
+   * @throws IOException If the server cannot be opened or the port file cannot be written.
+   */
+  static GraphServer start(final InetSocketAddress address, final Path portFile, final int rounds)
+      throws IOException {
+    final String token = GraphServer.newToken();
+    final GraphServer server = GraphServer.open(address, token);
+
+    try {
+      final long start = System.nanoTime();
+      warmUp(server, rounds);
+      final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      publish(server.getPort(), token, portFile);
+      MessageCli.DAEMON_READY.printMessage(
+          String.valueOf(millis), server.getAddress(), portFile.toString());
+      return server;
+    } catch (final IOException e) {
+      server.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Runs every query against every test case, without recording the queries in the statistics.
+   *
+   * @param server The server to warm up.
+   * @param rounds The number of times to run the queries.
+   * @throws IOException If the test cases cannot be listed.
+   */
+  private static void warmUp(final GraphServer server, final int rounds) throws IOException {
+    final List<String> script = new ArrayList<>();
+
+    for (final String file : listTestcases()) {
+      script.add(Command.OPEN_FILE + " " + file);
+
+      for (final Command command : Command.values()) {
+        if (isWarmUpQuery(command)) {
+          script.add(command.toString());
+        }
+      }
+    }
+
+    final boolean isRecording = Metrics.isEnabled();
+    Metrics.setEnabled(false);
+
+    try {
+      for (int round = 0; round < rounds; round++) {
+        server.warmUp(script);
+      }
+    } finally {
+      Metrics.setEnabled(isRecording);
+    }
+  }
+
+  /**
+   * Lists the test cases that can be opened by name.
+   *
+   * @return The file names, or no names if there is no testcases folder.
+   * @throws IOException If the testcases folder cannot be listed.
+   */
+  private static List<String> listTestcases() throws IOException {
+    final List<String> files = new ArrayList<>();
+
+    if (!Files.isDirectory(TESTCASES)) {
+      return files;
+    }
+
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(TESTCASES)) {
+      for (final Path entry : entries) {
+        final String name = entry.getFileName().toString();
+
+        // Commands are split on spaces, so such a file could never be opened by a client.
+        if (Files.isRegularFile(entry) && !name.contains(" ")) {
+          files.add(name);
+        }
+      }
+    }
+
+    files.sort(null);
+    return files;
+  }
+
+  /**
+   * Checks if a command should be run while warming up.
+   *
+   * @param command The command.
+   * @return If the command is a query of the open file that takes no arguments.
+   */
+  private static boolean isWarmUpQuery(final Command command) {
+    return command.getNumArgs() == 0
+        && command != Command.EXIT
+        && command != Command.HELP
+        && command != Command.STATS;
+  }
+
+  /**
+   * Writes the port and token to a port file only the user running the daemon can read, and removes
+   * the port file again when the daemon stops.
+   *
+   * @param port The port the daemon is listening on.
+   * @param token The token clients must send first.
+   * @param portFile The port file.
+   * @throws IOException If the port file cannot be written.
+   */
+  private static void publish(final int port, final String token, final Path portFile)
+      throws IOException {
+    final Path absolute = portFile.toAbsolutePath();
+
+    GraphServer.writePrivately(
+        absolute, port + System.lineSeparator() + token + System.lineSeparator());
+
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  try {
+                    // Leave the port file alone if another daemon has since replaced it.
+                    if (readPort(absolute) == port) {
+                      Files.delete(absolute);
+                    }
+                  } catch (final IOException | NumberFormatException e) {
+                    // There is nothing left to clean up.
+                  }
+                }));
+  }
+}
@@ -0,0 +1,111 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The formats a graph file can be written in.
+ *
+ * <p>The format of a file is found from its extension, ignoring a {@code .gz} extension of a gzip
+ * compressed file, and otherwise from its first decompressed line that is not blank or a comment: a
+ * Matrix Market header, a DOT graph, or two verticies separated by a tab or a comma. A file that
+ * matches none of these is read as DOT, so that the parser reports what is wrong with it.
+ */
+public enum GraphFormat {
+  /** A DOT digraph, read by the DOT parser. */
+  DOT,
+  /** One edge per line, as a source and destination separated by tabs, commas or spaces. */
+  EDGE_LIST,
+  /** One vertex per line, followed by every vertex it has an edge to. */
+  ADJACENCY_LIST,
+  /** A Matrix Market coordinate file, where each entry is an edge between numbered verticies. */
+  MATRIX_MARKET;
+
+  // Only this much of a file without a known extension is looked at to find its format.
+  private static final int SNIFF_LINES = 64;
+
+  /**
+   * Finds the format of a file from its extension, or from its first line if the extension is not
+   * known. A gzip compressed file is looked at as it is once decompressed.
+   *
+   * @param file The file.
+   * @return The format of the file.
+   */
+  public static GraphFormat detect(final Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    final boolean isCompressed;
+
+    try {
+      isCompressed = DecompressingInputStream.isCompressed(file);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (isCompressed && name.endsWith(".gz")) {
+      name = name.substring(0, name.length() - ".gz".length());
+    }
+
+    if (name.endsWith(".dot") || name.endsWith(".gv")) {
+      return DOT;
+    } else if (name.endsWith(".tsv") || name.endsWith(".csv") || name.endsWith(".edges")) {
+      return EDGE_LIST;
+    } else if (name.endsWith(".adj") || name.endsWith(".adjlist")) {
+      return ADJACENCY_LIST;
+    } else if (name.endsWith(".mtx")) {
+      return MATRIX_MARKET;
+    }
+
+    try (InputStream in =
+            isCompressed
+                ? new GZIPInputStream(Files.newInputStream(file))
+                : Files.newInputStream(file);
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      return sniff(reader);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Finds the format of a file from its first line that is not blank or a comment.
+   *
+   * @param reader The lines of the file.
+   * @return The format of the file.
+   * @throws IOException If the file could not be read.
+   */
+  private static GraphFormat sniff(final BufferedReader reader) throws IOException {
+    String line;
+
+    for (int i = 0; i < SNIFF_LINES && (line = reader.readLine()) != null; i++) {
+      if (line.startsWith("%%MatrixMarket")) {
+        return MATRIX_MARKET;
+      }
+
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#") || line.startsWith("%")) {
+        continue;
+      }
+
+      final String keyword = line.toLowerCase(Locale.ROOT);
+      if (keyword.startsWith("digraph")
+          || keyword.startsWith("graph")
+          || keyword.startsWith("strict")
+          || line.startsWith("/")) {
+        return DOT;
+      }
+
+      return line.indexOf('\t') >= 0 || line.indexOf(',') >= 0 ? EDGE_LIST : DOT;
+    }
+
+    return DOT;
+  }
+}
@@ -0,0 +1,393 @@
+package nz.ac.auckland.se281;
+
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphUpdate;
+import nz.ac.auckland.se281.events.FileLoadEvent;
+
+/**
+ * The loading of a graph file in the background, as two stages: parsing the file, then building the
+ * graph and its index from the parsed verticies and edges.
+ *
+ * <p>Commands wait only for the stage they need, so a command that lists the parsed verticies can
+ * run as soon as parsing is done while the index is still being built.
+ *
+ * <p>Each session that starts or joins a load holds its graph, through {@link Graph#retain()}, from
+ * the moment it has the load, and must {@link #release()} the load once it moves on to another. The
+ * memory the graph holds outside the heap is only freed once every holder has released it.
+ */
+public class GraphLoad {
+  private static final ExecutorService LOADERS =
+      Executors.newCachedThreadPool(WorkerThreads.newFactory("graph-loader"));
+
+  // The loads that are still running, so that sessions opening the same file share one load.
+  private static final Map<GraphCache.Key, GraphLoad> LOADING = new ConcurrentHashMap<>();
+
+  /** The stages that a load moves through. */
+  public enum Stage {
+    PARSING,
+    INDEXING,
+    READY,
+    FAILED
+  }
+
+  /**
+   * Starts loading a graph file, reusing the cached graph if the file has not changed since it was
+   * cached, or joining the load of another session that is already reading the same file.
+   *
+   * @param file The file to load.
+   * @param filename The name of the file to report in flight recorder events.
+   * @return The load, which may already be complete.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public static GraphLoad start(final Path file, final String filename)
+      throws FileNotFoundException {
+    final FileLoadEvent event = new FileLoadEvent();
+    event.begin();
+
+    final GraphCache cache = GraphCache.getInstance();
+    final GraphCache.Key key = cache.keyOf(file);
+    final LoadedGraph cached = cache.acquire(key);
+
+    if (cached != null) {
+      final GraphLoad load = new GraphLoad(cached);
+      load.commit(event, filename, key, true);
+      return load;
+    }
+
+    // A load whose graph was built and has since been released by every holder is started again.
+    final GraphLoad load =
+        LOADING.compute(
+            key,
+            (k, running) ->
+                running != null && running.acquire() ? running : new GraphLoad(k, filename, event));
+    load.loaded.whenComplete((graph, failure) -> LOADING.remove(key, load));
+    return load;
+  }
+
+  /**
+   * Reads a file again after it changed, and updates the graph of its current load to it, so that
+   * only the edges that changed are applied and the answers they do not change are kept.
+   *
+   * @param current The load of the file before it changed.
+   * @param file The file to read.
+   * @return The load of the updated graph, which is already complete.
+   * @throws FileNotFoundException If the file no longer exists.
+   * @throws CompletionException If the current load failed.
+   * @throws UncheckedIOException If the file could not be read.
+   */
+  public static GraphLoad reload(final GraphLoad current, final Path file)
+      throws FileNotFoundException {
+    final Graph<String> graph = current.awaitGraph();
+    return new GraphLoad(graph, GraphCache.getInstance().keyOf(file));
+  }
+
+  private final long startNanos = System.nanoTime();
+
+  private final boolean isCached;
+
+  private final GraphUpdate<String> update;
+
+  private final CompletableFuture<ParsedGraph> parsed;
+
+  private final CompletableFuture<LoadedGraph> loaded;
+
+  private volatile long parsedNanos;
+
+  private volatile long indexedNanos;
+
+  // The graph once it has been built, and the holders that joined before then, guarded by this.
+  private LoadedGraph built;
+
+  private int holders;
+
+  /**
+   * Creates a load that is already complete, from a cached graph.
+   *
+   * @param cached The cached graph, already held for the caller.
+   */
+  private GraphLoad(final LoadedGraph cached) {
+    this.built = cached;
+    this.isCached = true;
+    this.update = null;
+    this.parsed = CompletableFuture.completedFuture(cached.getParsed());
+    this.loaded = CompletableFuture.completedFuture(cached);
+    this.parsedNanos = startNanos;
+    this.indexedNanos = startNanos;
+  }
+
+  /**
+   * Starts parsing and then indexing a file in the background, caching the graph once it is built.
+   *
+   * @param key The key of the file, taken before it is read.
+   * @param filename The name of the file to report in flight recorder events.
+   * @param event The flight recorder event that spans the whole load.
+   */
+  private GraphLoad(final GraphCache.Key key, final String filename, final FileLoadEvent event) {
+    this.holders = 1;
+    this.isCached = false;
+    this.update = null;
+    this.parsed = CompletableFuture.supplyAsync(() -> parse(key.getPath()), LOADERS);
+    this.loaded = parsed.thenApplyAsync(this::index, LOADERS);
+
+    loaded.thenAccept(
+        graph -> {
+          GraphCache.getInstance().put(key, graph);
+          commit(event, filename, key, false);
+        });
+  }
+
+  /**
+   * Reads a file and updates a graph to it, then caches the updated graph. Unlike a new load, this
+   * runs on the calling thread.
+   *
+   * @param graph The graph of the file before it changed.
+   * @param key The key of the file, taken before it is read.
+   * @throws FileNotFoundException If the file no longer exists.
+   */
+  private GraphLoad(final Graph<String> graph, final GraphCache.Key key)
+      throws FileNotFoundException {
+    this.isCached = false;
+
+    final ParsedGraph parsedGraph = ParsedGraph.parse(key.getPath());
+    parsedNanos = System.nanoTime();
+
+    this.update = graph.update(parsedGraph.toBuilder());
+    final LoadedGraph loadedGraph = LoadedGraph.build(parsedGraph, update.getGraph());
+    // The caller holds the graph it was updated from, so an unchanged graph is still open.
+    update.getGraph().retain();
+    this.built = loadedGraph;
+    if (!update.isUnchanged()) {
+      ResultStore.getInstance().load(update.getGraph());
+    }
+    indexedNanos = System.nanoTime();
+
+    this.parsed = CompletableFuture.completedFuture(parsedGraph);
+    this.loaded = CompletableFuture.completedFuture(loadedGraph);
+    GraphCache.getInstance().put(key, loadedGraph);
+  }
+
+  /**
+   * Parses the file, as the first stage of the load.
+   *
+   * @param file The file to parse.
+   * @return The verticies and edges of the file.
+   */
+  private ParsedGraph parse(final Path file) {
+    try {
+      final ParsedGraph graph = ParsedGraph.parse(file);
+      parsedNanos = System.nanoTime();
+      return graph;
+    } catch (final FileNotFoundException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Builds the graph and its index, as the second stage of the load, then gives it any answers kept
+   * for its content by the {@link ResultStore}.
+   *
+   * @param graph The verticies and edges of the file.
+   * @return The parsed file and its graph.
+   */
+  private LoadedGraph index(final ParsedGraph graph) {
+    final LoadedGraph loaded = LoadedGraph.build(graph);
+    ResultStore.getInstance().load(loaded.getGraph());
+    indexedNanos = System.nanoTime();
+
+    synchronized (this) {
+      for (int i = 0; i < holders; i++) {
+        loaded.getGraph().retain();
+      }
+      holders = 0;
+      built = loaded;
+    }
+    return loaded;
+  }
+
+  /**
+   * Adds a holder of the graph of the load, who must {@link #release()} the load once it no longer
+   * reads the graph. A holder that joins before the graph is built holds it as soon as it is built.
+   *
+   * @return True if the graph is held, or false if it was built and has since been closed.
+   */
+  public synchronized boolean acquire() {
+    if (built != null) {
+      return built.getGraph().retain();
+    }
+
+    holders++;
+    return true;
+  }
+
+  /**
+   * Removes a holder of the graph of the load. Once the cache and every session have released the
+   * graph, the memory it holds outside the heap is freed, so the graph must not be read again.
+   */
+  public synchronized void release() {
+    if (built != null) {
+      built.getGraph().release();
+    } else if (holders > 0) {
+      holders--;
+    }
+  }
+
+  /**
+   * Records the flight recorder event of the load once it is complete.
+   *
+   * @param event The event that spans the whole load.
+   * @param filename The name of the file.
+   * @param key The key of the file.
+   * @param isCached If the graph was reused from the cache.
+   */
+  private void commit(
+      final FileLoadEvent event,
+      final String filename,
+      final GraphCache.Key key,
+      final boolean isCached) {
+    event.end();
+
+    if (event.shouldCommit()) {
+      final ParsedGraph graph = parsed.join();
+      event.file = filename;
+      event.bytes = key.getSize();
+      event.verticies = graph.getVertexCount();
+      event.edges = graph.getEdgeCount();
+      event.cached = isCached;
+      event.commit();
+    }
+  }
+
+  /**
+   * Waits for the file to be parsed.
+   *
+   * @return The verticies and edges of the file.
+   * @throws CompletionException If the file could not be parsed.
+   */
+  public ParsedGraph awaitParsed() {
+    return parsed.join();
+  }
+
+  /**
+   * Waits for the graph and its index to be built.
+   *
+   * @return The graph.
+   * @throws CompletionException If the file could not be parsed or the graph could not be built.
+   */
+  public Graph<String> awaitGraph() {
+    return loaded.join().getGraph();
+  }
+
+  /**
+   * Waits for the graph to be built, then gets the order its file lists its verticies and edges in.
+   *
+   * @return The order of the file, or null if the parser's objects are kept instead.
+   * @throws CompletionException If the file could not be parsed or the graph could not be built.
+   */
+  public FileOrder awaitFileOrder() {
+    return loaded.join().getFileOrder();
+  }
+
+  /**
+   * Gets the graph if it has been built, without waiting.
+   *
+   * @return The graph, or null if it is still being loaded or the load failed.
+   */
+  public Graph<String> getGraphNow() {
+    final LoadedGraph graph = loaded.getNow(null);
+    return graph == null ? null : graph.getGraph();
+  }
+
+  /**
+   * Gets the stage that the load has reached.
+   *
+   * @return The stage.
+   */
+  public Stage getStage() {
+    if (loaded.isCompletedExceptionally()) {
+      return Stage.FAILED;
+    } else if (loaded.isDone()) {
+      return Stage.READY;
+    } else if (parsed.isDone()) {
+      return Stage.INDEXING;
+    }
+
+    return Stage.PARSING;
+  }
+
+  /**
+   * Checks if the graph was reused from the graph cache.
+   *
+   * @return If the file was not loaded again.
+   */
+  public boolean isCached() {
+    return isCached;
+  }
+
+  /**
+   * Gets how the graph was updated, if the load read the file again after it changed.
+   *
+   * @return The update, or null if the graph was loaded from scratch or reused from the cache.
+   */
+  public GraphUpdate<String> getUpdate() {
+    return update;
+  }
+
+  /**
+   * Gets the reason the load failed.
+   *
+   * @return The message of the failure, or null if the load has not failed.
+   */
+  public String getFailure() {
+    try {
+      loaded.getNow(null);
+      return null;
+    } catch (final CompletionException e) {
+      return describe(e);
+    }
+  }
+
+  /**
+   * Gets how long parsing took, or has taken so far.
+   *
+   * @return The time in milliseconds.
+   */
+  public long getParseMillis() {
+    final long end = parsed.isDone() ? parsedNanos : System.nanoTime();
+    return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+  }
+
+  /**
+   * Gets how long building the graph took, or has taken so far.
+   *
+   * @return The time in milliseconds.
+   */
+  public long getIndexMillis() {
+    if (!parsed.isDone()) {
+      return 0;
+    }
+
+    final long end = loaded.isDone() ? indexedNanos : System.nanoTime();
+    return TimeUnit.NANOSECONDS.toMillis(end - parsedNanos);
+  }
+
+  /**
+   * Describes why a stage of a load failed.
+   *
+   * @param e The failure reported by the stage.
+   * @return The message of the underlying cause.
+   */
+  public static String describe(final CompletionException e) {
+    final Throwable cause = e.getCause() == null ? e : e.getCause();
+    return cause.getMessage() == null ? cause.toString() : cause.getMessage();
+  }
+}
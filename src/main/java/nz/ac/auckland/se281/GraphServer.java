@@ -0,0 +1,340 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the command line interface to many clients over a local socket, so one warm JVM answers
+ * the queries of every client.
+ *
+ * <p>Each client sends one command per line, exactly as it would type it at the prompt, and
+ * receives the same output the prompt would print. Every client has its own session and open file,
+ * while the graphs themselves are frozen once built and shared between sessions through the {@link
+ * GraphCache}, so clients querying the same file read the same graph at the same time. The
+ * connection is closed after the client sends the exit command or closes its side.
+ *
+ * <p>Any local account can connect to a loopback port, so a client must first send the server's
+ * token, a random secret kept in a file only the user running the server can read, and its session
+ * can only open test cases and query files inside the testcases folder.
+ */
+public class GraphServer implements AutoCloseable {
+  public static final String SERVER_FLAG = "--server";
+
+  public static final int DEFAULT_PORT = 5281;
+
+  private static final String PORT_FLAG = "--port=";
+  private static final String SOCKET_FLAG = "--socket=";
+  private static final String TOKEN_FILE_FLAG = "--token-file=";
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int TOKEN_BYTES = 32;
+
+  private static final Set<PosixFilePermission> OWNER_ONLY =
+      PosixFilePermissions.fromString("rw-------");
+
+  /**
+   * Runs a server given on the command line as {@code --server [--port=PORT | --socket=PATH]
+   * [--token-file=PATH]}, listening on the loopback interface at {@value #DEFAULT_PORT} and writing
+   * its token to {@code ~/.graph-calculator.token} unless told otherwise.
+   *
+   * @param args The arguments after {@value #SERVER_FLAG}.
+   */
+  public static void main(final String[] args) {
+    SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+    Path tokenFile = Path.of(System.getProperty("user.home"), ".graph-calculator.token");
+
+    for (final String arg : args) {
+      if (arg.startsWith(PORT_FLAG)) {
+        final String port = arg.substring(PORT_FLAG.length());
+
+        try {
+          address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port));
+        } catch (final IllegalArgumentException e) {
+          System.err.println(MessageCli.UNKNOWN_SERVER_OPTION.getMessage(arg));
+          return;
+        }
+      } else if (arg.startsWith(SOCKET_FLAG)) {
+        address = UnixDomainSocketAddress.of(arg.substring(SOCKET_FLAG.length()));
+      } else if (arg.startsWith(TOKEN_FILE_FLAG)) {
+        tokenFile = Path.of(arg.substring(TOKEN_FILE_FLAG.length()));
+      } else {
+        System.err.println(MessageCli.UNKNOWN_SERVER_OPTION.getMessage(arg));
+        return;
+      }
+    }
+
+    final String token = newToken();
+
+    try (GraphServer server = GraphServer.open(address, token)) {
+      writePrivately(tokenFile, token + System.lineSeparator());
+      MessageCli.SERVER_LISTENING.printMessage(server.getAddress(), tokenFile.toString());
+      server.serve();
+    } catch (final IOException e) {
+      System.err.println(MessageCli.SERVER_FAILED.getMessage(address.toString(), e.getMessage()));
+    }
+  }
+
+  /**
+   * Makes a new token for a server to hand to its clients.
+   *
+   * @return A random secret, in hexadecimal.
+   */
+  public static String newToken() {
+    final byte[] bytes = new byte[TOKEN_BYTES];
+    new SecureRandom().nextBytes(bytes);
+    return HexFormat.of().formatHex(bytes);
+  }
+
+  /**
+   * Writes a file that only the user running the server can read, in one step, so a client never
+   * reads half of it and no other user can read it even for a moment.
+   *
+   * @param file The file, which is replaced if it exists.
+   * @param content The content of the file.
+   * @throws IOException If the file cannot be written.
+   */
+  public static void writePrivately(final Path file, final String content) throws IOException {
+    final Path absolute = file.toAbsolutePath();
+    final FileAttribute<?>[] ownerOnly =
+        FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+            ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(OWNER_ONLY)}
+            : new FileAttribute<?>[0];
+    final Path temporary =
+        Files.createTempFile(absolute.getParent(), ".graph-calculator", ".tmp", ownerOnly);
+
+    try {
+      Files.writeString(temporary, content);
+      Files.move(
+          temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Starts listening for clients on a local address.
+   *
+   * @param address A loopback address and port, or the path of a Unix domain socket.
+   * @param token The token a client must send before its first command.
+   * @return The server, which does not accept clients until {@link #serve()} is called.
+   * @throws IOException If the address cannot be listened on.
+   */
+  public static GraphServer open(final SocketAddress address, final String token)
+      throws IOException {
+    final ServerSocketChannel channel;
+
+    if (address instanceof UnixDomainSocketAddress) {
+      // A socket file left behind by a server that was killed would stop the bind.
+      Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+      channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    } else {
+      channel = ServerSocketChannel.open();
+    }
+
+    try {
+      channel.bind(address);
+
+      if (address instanceof UnixDomainSocketAddress
+          && FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+        Files.setPosixFilePermissions(((UnixDomainSocketAddress) address).getPath(), OWNER_ONLY);
+      }
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    return new GraphServer(channel, Objects.requireNonNull(token));
+  }
+
+  private final ServerSocketChannel channel;
+
+  private final byte[] token;
+
+  private final ExecutorService clients =
+      Executors.newCachedThreadPool(WorkerThreads.newFactory("graph-client"));
+
+  private final PrintStream original = System.out;
+
+  private final OutputRouter router = new OutputRouter(original);
+
+  /**
+   * Creates a new server over a bound channel, sending the output of every client's commands back
+   * to that client.
+   *
+   * @param channel The bound channel.
+   * @param token The token a client must send first.
+   */
+  private GraphServer(final ServerSocketChannel channel, final String token) {
+    this.channel = channel;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+    System.setOut(new PrintStream(router, false));
+  }
+
+  /**
+   * Gets the address that the server is listening on.
+   *
+   * @return The loopback address and port, or the path of the Unix domain socket.
+   * @throws IOException If the server has been closed.
+   */
+  public String getAddress() throws IOException {
+    final SocketAddress address = channel.getLocalAddress();
+
+    if (address instanceof UnixDomainSocketAddress) {
+      return ((UnixDomainSocketAddress) address).getPath().toString();
+    }
+
+    final InetSocketAddress inet = (InetSocketAddress) address;
+    return inet.getHostString() + ":" + inet.getPort();
+  }
+
+  /**
+   * Gets the port that the server is listening on.
+   *
+   * @return The port, or -1 if the server is listening on a Unix domain socket.
+   * @throws IOException If the server has been closed.
+   */
+  public int getPort() throws IOException {
+    final SocketAddress address = channel.getLocalAddress();
+    return address instanceof InetSocketAddress ? ((InetSocketAddress) address).getPort() : -1;
+  }
+
+  /**
+   * Accepts clients until the server is closed, serving each on its own thread.
+   *
+   * @throws IOException If a client cannot be accepted.
+   */
+  public void serve() throws IOException {
+    try {
+      while (true) {
+        final SocketChannel client = channel.accept();
+        clients.execute(() -> handle(client));
+      }
+    } catch (final ClosedChannelException e) {
+      // The server was closed, so there are no more clients to accept.
+    }
+  }
+
+  /**
+   * Runs a script of commands in a throwaway session, discarding their output. Running the same
+   * commands a client would send, before any client connects, compiles the graph algorithms and
+   * loads the graphs into the cache ahead of the first real query.
+   *
+   * @param script The commands to run.
+   */
+  public void warmUp(final List<String> script) {
+    final Main session = new Main();
+    router.route(OutputStream.nullOutputStream());
+
+    try {
+      for (final String line : script) {
+        session.processCommand(line);
+      }
+    } finally {
+      router.clear();
+      session.close();
+    }
+  }
+
+  /**
+   * Checks the first line a client sent against the server's token, taking as long whatever the
+   * line is so the token cannot be guessed a character at a time.
+   *
+   * @param line The first line, or null if the client hung up before sending one.
+   * @return If the client may send commands.
+   */
+  private boolean isAuthorised(final String line) {
+    return line != null && MessageDigest.isEqual(token, line.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Runs the commands sent by a client in a session of its own until the client exits or hangs up.
+   * A client that does not start by sending the token is told so and disconnected.
+   *
+   * @param client The connection to the client.
+   */
+  private void handle(final SocketChannel client) {
+    final Main session = new Main(true);
+
+    try (client) {
+      final BufferedReader in =
+          new BufferedReader(
+              new InputStreamReader(Channels.newInputStream(client), Charset.defaultCharset()));
+      final OutputStream out =
+          new BufferedOutputStream(Channels.newOutputStream(client), BUFFER_SIZE);
+      router.route(out);
+
+      if (!isAuthorised(in.readLine())) {
+        MessageCli.CLIENT_NOT_AUTHORISED.printMessage();
+        out.flush();
+        return;
+      }
+
+      String line;
+      boolean isContinuing = true;
+
+      while (isContinuing && (line = in.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+
+        isContinuing = session.processCommand(line);
+
+        // Send each answer as soon as it is ready rather than when the client hangs up.
+        out.flush();
+      }
+    } catch (final IOException e) {
+      // The client hung up part way through a command, so there is nobody left to answer.
+    } finally {
+      router.clear();
+      session.close();
+    }
+  }
+
+  /**
+   * Stops accepting clients and puts back the original standard output. Clients that are already
+   * connected are served until they exit.
+   *
+   * @throws IOException If the channel cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    final SocketAddress address = channel.getLocalAddress();
+
+    channel.close();
+    clients.shutdown();
+    System.setOut(original);
+
+    if (address instanceof UnixDomainSocketAddress) {
+      Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+    }
+  }
+}
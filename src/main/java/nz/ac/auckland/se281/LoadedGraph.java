@@ -0,0 +1,147 @@
+package nz.ac.auckland.se281;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import nz.ac.auckland.se281.datastructures.Graph;
+
+/**
+ * A graph file that has been parsed, together with the graph built from it.
+ *
+ * <p>By default the parser's objects are kept alongside the graph, so the file can be listed as
+ * soon as it is parsed. With {@code -Dgraph.load.slim=true} they are released once the graph is
+ * built, and only the order the file lists its verticies and edges in is kept, as numbers of the
+ * verticies of the graph. This keeps a few bytes for each edge rather than a few hundred, at the
+ * cost of listing the file only once the graph is ready.
+ */
+public class LoadedGraph {
+  private static final boolean SLIM = Boolean.getBoolean("graph.load.slim");
+
+  // Rough sizes of the parser's and the graph's objects, used to budget the graph cache.
+  private static final int VERTEX_BYTES = 160;
+  private static final int EDGE_BYTES = 208;
+
+  /**
+   * Parses a graph file and builds its graph.
+   *
+   * @param file The file to read.
+   * @return The parsed file and its graph.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public static LoadedGraph load(final Path file) throws FileNotFoundException {
+    return build(ParsedGraph.parse(file));
+  }
+
+  /**
+   * Builds the graph of a parsed file, releasing the parser's objects afterwards in slim mode. A
+   * file read without the DOT parser always keeps just its order, as its builder is no smaller.
+   *
+   * @param parsed The verticies and edges read from the file.
+   * @return The parsed file and its graph.
+   */
+  public static LoadedGraph build(final ParsedGraph parsed) {
+    return build(parsed, parsed.buildGraph());
+  }
+
+  /**
+   * Keeps a parsed file with a graph that has already been built from it, such as a graph updated
+   * to the file, releasing the parser's objects in slim mode.
+   *
+   * @param parsed The verticies and edges read from the file.
+   * @param graph The graph of the verticies and edges.
+   * @return The parsed file and its graph.
+   */
+  public static LoadedGraph build(final ParsedGraph parsed, final Graph<String> graph) {
+    if (!SLIM && parsed.hasParserObjects()) {
+      return new LoadedGraph(parsed, graph);
+    }
+
+    final FileOrder fileOrder = new FileOrder(parsed, graph);
+    parsed.release();
+    return new LoadedGraph(parsed, graph, fileOrder);
+  }
+
+  /**
+   * Checks if graphs are loaded in slim mode, releasing the parser's objects once they are built.
+   *
+   * @return If the {@code graph.load.slim} system property is true.
+   */
+  public static boolean isSlim() {
+    return SLIM;
+  }
+
+  private final ParsedGraph parsed;
+
+  private final Graph<String> graph;
+
+  private final FileOrder fileOrder;
+
+  /**
+   * Creates a new loaded graph.
+   *
+   * @param parsed The verticies and edges read from the file.
+   * @param graph The graph built from the verticies and edges.
+   */
+  public LoadedGraph(final ParsedGraph parsed, final Graph<String> graph) {
+    this(parsed, graph, null);
+  }
+
+  /**
+   * Creates a new loaded graph whose parser's objects may have been released.
+   *
+   * @param parsed The verticies and edges read from the file.
+   * @param graph The graph built from the verticies and edges.
+   * @param fileOrder The order the file lists its verticies and edges in, or null if the parser's
+   *     objects are kept.
+   */
+  public LoadedGraph(
+      final ParsedGraph parsed, final Graph<String> graph, final FileOrder fileOrder) {
+    this.parsed = parsed;
+    this.graph = graph;
+    this.fileOrder = fileOrder;
+  }
+
+  /**
+   * Gets the verticies and edges read from the file.
+   *
+   * @return The parsed file.
+   */
+  public ParsedGraph getParsed() {
+    return parsed;
+  }
+
+  /**
+   * Gets the graph built from the file.
+   *
+   * @return The graph.
+   */
+  public Graph<String> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Gets the order the file lists its verticies and edges in, kept once the parser's objects are
+   * released.
+   *
+   * @return The order of the file, or null if the parser's objects are kept.
+   */
+  public FileOrder getFileOrder() {
+    return fileOrder;
+  }
+
+  /**
+   * Estimates the memory held by the parsed file and its graph, counting edges kept outside the
+   * heap as well, so that the graph cache never holds more memory than its budget.
+   *
+   * @return The estimate in bytes.
+   */
+  public long estimateBytes() {
+    if (fileOrder != null) {
+      return graph.estimateIndexBytes() + graph.estimateOffHeapBytes() + fileOrder.estimateBytes();
+    }
+
+    return graph.estimateIndexBytes()
+        + graph.estimateOffHeapBytes()
+        + (long) parsed.getVertexCount() * VERTEX_BYTES
+        + (long) parsed.getEdgeCount() * EDGE_BYTES;
+  }
+}
@@ -1,7 +1,10 @@
 package nz.ac.auckland.se281;
 
 import java.io.FileNotFoundException;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
+import nz.ac.auckland.se281.events.CommandEvent;
 
 /**
  * The entry point of the graph calculator command line interface.
@@ -12,6 +15,26 @@ public class Main {
   private static final String COMMAND_PREFIX = "graph-calculator> ";
 
   public static void main(final String[] args) {
+    if (args.length > 0 && args[0].equals(BatchRunner.BATCH_FLAG)) {
+      BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
+    if (args.length > 0 && args[0].equals(GraphServer.SERVER_FLAG)) {
+      GraphServer.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
+    if (args.length > 0 && args[0].equals(GraphDaemon.DAEMON_FLAG)) {
+      GraphDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
+    if (args.length > 0 && args[0].equals(GraphClient.CLIENT_FLAG)) {
+      GraphClient.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
     new Main(new Scanner(System.in)).start();
   }
 
@@ -44,6 +67,8 @@ public class Main {
 
   private final Scanner scanner;
 
+  private final boolean isConfined;
+
   private GraphCalculator calculator;
 
   /**
@@ -52,11 +77,69 @@ public class Main {
    * @param scanner The scanner to read user input from.
    */
   public Main(final Scanner scanner) {
+    this(scanner, false);
+  }
+
+  /**
+   * Create a new command line interface whose commands are passed to {@link
+   * #processCommand(String)} directly instead of being read from user input.
+   */
+  Main() {
+    this(null, false);
+  }
+
+  /**
+   * Create a new command line interface whose commands are passed to {@link
+   * #processCommand(String)} directly, and which may be kept to the testcases folder.
+   *
+   * @param isConfined If files outside the testcases folder are refused, as they are for clients of
+   *     a server, who may not be the user running it.
+   */
+  Main(final boolean isConfined) {
+    this(null, isConfined);
+  }
+
+  /**
+   * Create a new command line interface.
+   *
+   * @param scanner The scanner to read user input from, or null if commands are passed directly.
+   * @param isConfined If files outside the testcases folder are refused.
+   */
+  private Main(final Scanner scanner, final boolean isConfined) {
     this.scanner = scanner;
+    this.isConfined = isConfined;
+  }
+
+  /**
+   * Find the command named by the first word of the input.
+   *
+   * @param input The command entered by the user.
+   * @return The command, or null if there is no command with that name.
+   */
+  static Command findCommand(final String input) {
+    try {
+      return Command.valueOf(toCommandName(input.trim().split(" ")[0]));
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Convert a word entered by the user to the name of a command, allowing any case and dashes to be
+   * used instead of underscores.
+   *
+   * @param word The first word of the input.
+   * @return The command name.
+   */
+  private static String toCommandName(final String word) {
+    return word.toUpperCase().replaceAll("-", "_");
   }
 
   /** Process commands from the user for the graph calculator command line interface. */
   public void start() {
+    // Expose the session over JMX before the first command is entered.
+    CalculatorMonitor.getInstance();
+
     System.out.println(help());
 
     String command;
@@ -74,14 +157,26 @@ public class Main {
    * @param input The command entered by the user.
    * @return If the program should continue to wait for another command.
    */
-  private boolean processCommand(String input) {
+  boolean processCommand(final String input) {
+    return processCommand(input, true);
+  }
+
+  /**
+   * Execute a command entered by the user and determine if more commands are expected.
+   *
+   * @param input The command entered by the user.
+   * @param isReloading If a change to a watched file is applied before the command. Commands run at
+   *     the same time as others must leave this to their caller, so that they all see one graph.
+   * @return If the program should continue to wait for another command.
+   */
+  boolean processCommand(String input, final boolean isReloading) {
     // Remove whitespace at the beginning and end of the input.
     input = input.trim();
 
     final String[] args = input.split(" ");
 
     // Allow any case, and dashes to be used instead of underscores.
-    final String commandStr = args[0].toUpperCase().replaceAll("-", "_");
+    final String commandStr = toCommandName(args[0]);
 
     final Command command;
 
@@ -103,21 +198,87 @@ public class Main {
 
     // A file is only open if there is a calculator instance.
     // The user cannot do anything other than open a file, exit,
-    // or get help if there is no file.
+    // get help or statistics if there is no file.
     if (calculator == null
         && command != Command.OPEN_FILE
         && command != Command.EXIT
-        && command != Command.HELP) {
+        && command != Command.HELP
+        && command != Command.STATS) {
       MessageCli.FILE_NOT_OPEN.printMessage();
       return true;
     }
 
+    final long start = CommandMetrics.getInstance().start(command);
+    final CommandEvent event = new CommandEvent();
+    event.begin();
+
+    try {
+      // A change to a watched file is applied between commands, so a command sees one graph.
+      if (isReloading) {
+        applyReload();
+      }
+
+      return executeCommand(command, args);
+    } catch (final CompletionException e) {
+      // The file is loaded in the background, so a broken file is only noticed by the first
+      // command that needs its graph.
+      MessageCli.LOAD_FAILED.printMessage(GraphLoad.describe(e));
+      return true;
+    } finally {
+      CommandMetrics.getInstance().finish(command, start);
+
+      if (calculator != null) {
+        calculator.saveResults();
+      }
+
+      event.end();
+      if (event.shouldCommit()) {
+        event.command = command.toString();
+        event.arguments = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Close the file that is open, if any, releasing its graph once the session has ended, and stop
+   * reporting it over JMX unless another session has opened a file since.
+   */
+  void close() {
+    if (calculator != null) {
+      CalculatorMonitor.getInstance().clearCalculator(calculator);
+      calculator.close();
+    }
+  }
+
+  /** Apply a change to the watched file, if a file is open and it has changed. */
+  void applyReload() {
+    if (calculator != null) {
+      calculator.applyReload();
+    }
+  }
+
+  /**
+   * Execute a command that has a valid number of arguments and determine if more commands are
+   * expected.
+   *
+   * @param command The command to execute.
+   * @param args The arguments provided by the user, starting with the command name.
+   * @return If the program should continue to wait for another command.
+   */
+  private boolean executeCommand(final Command command, final String[] args) {
     switch (command) {
       case OPEN_FILE:
         final String filename = args[1];
 
         try {
-          calculator = new GraphCalculator(filename);
+          final GraphCalculator opened = new GraphCalculator(filename, isConfined);
+          final GraphCalculator previous = calculator;
+          calculator = opened;
+          CalculatorMonitor.getInstance().setCalculator(calculator);
+          if (previous != null) {
+            previous.close();
+          }
           MessageCli.OPENED_FILE_SUCCESSFULLY.printMessage(filename);
         } catch (FileNotFoundException e) {
           MessageCli.FILE_NOT_FOUND.printMessage(filename);
@@ -126,6 +287,15 @@ public class Main {
       case INFO:
         calculator.printInfo();
         break;
+      case LOAD_STATUS:
+        calculator.printLoadStatus();
+        break;
+      case REPRESENTATION:
+        calculator.printRepresentation();
+        break;
+      case WATCH_FILE:
+        calculator.watch(args[1]);
+        break;
       case LIST_VERTICIES_EDGES:
         calculator.printVerticiesEdges();
         break;
@@ -147,9 +317,30 @@ public class Main {
       case CHECK_EQUIVALENCE:
         calculator.printEquivalence();
         break;
+      case ANALYZE:
+        calculator.printAnalysis();
+        break;
+      case CHECK_ACYCLIC:
+        calculator.printAcyclic();
+        break;
+      case TOPOLOGICAL_SORT:
+        calculator.printTopologicalOrder();
+        break;
       case COMPUTE_EQUIVALENCE:
         calculator.printEquivalenceClass(args[1]);
         break;
+      case BATCH_EQUIVALENCE:
+        calculator.printEquivalenceClasses(args[1]);
+        break;
+      case BATCH_REACHABILITY:
+        calculator.printReachability(args[1]);
+        break;
+      case DISTANCES:
+        calculator.printDistances(args[1]);
+        break;
+      case K_HOP:
+        calculator.printNeighbourhood(args[1], args[2]);
+        break;
       case GRAPH_SEARCH_IBFS:
         calculator.printIterativeBreadthFirstSearch();
         break;
@@ -167,6 +358,9 @@ public class Main {
 
         // Signal that the program should exit.
         return false;
+      case STATS:
+        CommandMetrics.getInstance().printStats();
+        break;
       case HELP:
         System.out.println(help());
         break;
@@ -1,5 +1,7 @@
 package nz.ac.auckland.se281;
 
+import java.util.regex.Matcher;
+
 /**
  * Templates of messages that can be printed to the CLI.
  *
@@ -16,12 +18,68 @@ public enum MessageCli {
   FILE_NOT_OPEN("Error: no valid file open"),
   FILE_NOT_FOUND("Error: file '%s' not found in `testcases` folder"),
   INFO("File name: %s"),
+  LOAD_STATUS_PARSING("File %s is being parsed (%s ms so far)"),
+  LOAD_STATUS_INDEXING(
+      "File %s has %s verticies and %s edges, parsed in %s ms, and is being indexed (%s ms so"
+          + " far)"),
+  LOAD_STATUS_READY(
+      "File %s is ready: %s verticies and %s edges, parsed in %s ms and indexed in %s ms"),
+  LOAD_STATUS_CACHED("File %s is ready: %s verticies and %s edges, reused from the graph cache"),
+  LOAD_STATUS_FAILED("File %s failed to load: %s"),
+  LOAD_FAILED("Error: the current file could not be loaded: %s"),
+  WATCH_STARTED("Watching file %s for changes"),
+  WATCH_STOPPED("Stopped watching file %s"),
+  WATCH_FAILED("Error: unable to watch file %s: %s"),
+  INVALID_WATCH_STATE("Error: '%s' is not a watch state, expected 'on' or 'off'"),
+  FILE_UPDATED("File %s changed: %s edges inserted and %s edges removed"),
+  FILE_UNCHANGED("File %s changed, but its edges did not"),
+  FILE_REBUILT("File %s changed its verticies, so its graph was built again"),
+  FILE_RELOADED("File %s changed and was loaded again"),
+  RELOAD_FAILED("Error: file %s changed but could not be loaded again: %s"),
+  REPRESENTATION(
+      "%s verticies and %s edges (density %s) are stored as %s, %s, in %s bytes of heap and %s"
+          + " bytes off the heap"),
+  REPRESENTATION_HEAP_LIMIT(
+      "The %s edges of the file were read through the heap, which took %s bytes of heap while the"
+          + " graph was built"),
 
   GRAPH_REFLEXIVE("The graph is %sreflexive"),
   GRAPH_SYMMETRIC("The graph is %ssymmetric"),
   GRAPH_ANTI_SYMMETRIC("The graph is %santisymmetric"),
   GRAPH_EQUIVALENCE("The graph is %san equivalence relation"),
   GRAPH_TRANSITIVE("The graph is %stransitive"),
+  GRAPH_ACYCLIC("The graph is %sacyclic"),
+  GRAPH_CYCLE("Cycle: %s"),
+
+  BATCH_EQUIVALENCE_CLASS("%s: %s"),
+  BATCH_REACHABLE("%s -> %s: %sreachable"),
+  BATCH_REACHABLE_SET("%s: %s"),
+  DISTANCE("%s: %s"),
+  INVALID_HOPS("Error: '%s' is not a number of hops, expected a whole number from 0 up"),
+  VERTEX_NOT_FOUND("Error: vertex '%s' not found in the graph"),
+  QUERIES_NOT_READABLE("Error: unable to read queries from '%s': %s"),
+
+  STATS_DISABLED("Statistics are disabled, restart with -Dgraph.stats=true to record them"),
+  STATS_LATENCY_HEADER("Command latencies (microseconds):"),
+  STATS_LATENCY("\t%s: count=%s p50=%s p99=%s max=%s"),
+  STATS_COUNTER_HEADER("Work counters:"),
+  STATS_COUNTER("\t%s: %s"),
+
+  SCRIPT_NOT_FOUND("Error: script '%s' not found"),
+  SCRIPT_NOT_READABLE("Error: unable to read script '%s': %s"),
+  UNKNOWN_OUTPUT_FORMAT("Error: unknown output format '%s', expected 'text' or 'json'"),
+
+  SERVER_LISTENING("Serving graph calculator clients on %s (token file %s)"),
+  SERVER_FAILED("Error: unable to serve clients on %s: %s"),
+  UNKNOWN_SERVER_OPTION(
+      "Error: unknown server option '%s', expected '--port=<PORT>', '--socket=<PATH>' or"
+          + " '--token-file=<PATH>'"),
+  CLIENT_NOT_AUTHORISED("Error: the first line sent must be the token of the server"),
+  DAEMON_READY("Warmed up in %s ms, serving graph calculator clients on %s (port file %s)"),
+  DAEMON_NOT_RUNNING("Error: no graph calculator daemon is running (port file '%s')"),
+  DAEMON_FAILED("Error: lost the connection to the graph calculator daemon: %s"),
+  UNKNOWN_DAEMON_OPTION(
+      "Error: unknown daemon option '%s', expected '--port=<PORT>' or '--port-file=<PATH>'"),
 
   END("You closed the terminal. Goodbye.");
 
@@ -47,7 +105,8 @@ public enum MessageCli {
     String tmpMessage = msg;
 
     for (final String arg : args) {
-      tmpMessage = tmpMessage.replaceFirst("%s", arg);
+      // Quote the argument so that '$' and '\' in file names and verticies are kept as they are.
+      tmpMessage = tmpMessage.replaceFirst("%s", Matcher.quoteReplacement(String.valueOf(arg)));
     }
 
     return tmpMessage;
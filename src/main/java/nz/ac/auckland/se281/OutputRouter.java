@@ -0,0 +1,65 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that sends what each thread writes to that thread's own destination.
+ *
+ * <p>The calculator prints its results to {@link System#out}. Installing a print stream over a
+ * router as {@code System.out} lets commands running on different threads write to different
+ * places, such as a per-command buffer or a client socket, without changing how they print.
+ */
+public class OutputRouter extends OutputStream {
+  private final OutputStream fallback;
+
+  private final ThreadLocal<OutputStream> destination = new ThreadLocal<>();
+
+  /**
+   * Creates a new router.
+   *
+   * @param fallback Where to write output from threads that have no destination of their own.
+   */
+  public OutputRouter(final OutputStream fallback) {
+    this.fallback = fallback;
+  }
+
+  /**
+   * Sends everything the current thread writes to the given destination.
+   *
+   * @param out The destination of the current thread's output.
+   */
+  public void route(final OutputStream out) {
+    destination.set(out);
+  }
+
+  /** Sends the current thread's output back to the fallback destination. */
+  public void clear() {
+    destination.remove();
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    current().write(b);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    current().write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    current().flush();
+  }
+
+  /**
+   * Gets the destination of the current thread's output.
+   *
+   * @return The destination.
+   */
+  private OutputStream current() {
+    final OutputStream out = destination.get();
+    return out == null ? fallback : out;
+  }
+}
@@ -0,0 +1,214 @@
+package nz.ac.auckland.se281;
+
+import com.paypal.digraph.parser.GraphEdge;
+import com.paypal.digraph.parser.GraphNode;
+import com.paypal.digraph.parser.GraphParser;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * The verticies and edges read from a graph file, before the graph is built from them.
+ *
+ * <p>DOT files are read by the DOT parser, whose objects are kept. Files in the other formats of
+ * {@link GraphFormat} are read straight into a {@link GraphBuilder}, without the parser. Files of
+ * any format may be gzip compressed, and are then decompressed while they are parsed.
+ */
+public class ParsedGraph {
+  /**
+   * Parses a graph file, in the format found by {@link GraphFormat#detect(Path)}.
+   *
+   * @param file The file to read.
+   * @return The verticies and edges of the file.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public static ParsedGraph parse(final Path file) throws FileNotFoundException {
+    if (!Files.isRegularFile(file)) {
+      throw new FileNotFoundException(file.toString());
+    }
+
+    final GraphFormat format = GraphFormat.detect(file);
+
+    if (format != GraphFormat.DOT) {
+      try {
+        return new ParsedGraph(EdgeFileParser.parse(file, format));
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    try (InputStream in = DecompressingInputStream.open(file)) {
+      final GraphParser parser = new GraphParser(in);
+      return new ParsedGraph(parser.getNodes().values(), parser.getEdges().values());
+    } catch (final FileNotFoundException e) {
+      throw e;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private final int vertexCount;
+
+  private final int edgeCount;
+
+  private volatile Collection<GraphNode> verticies;
+
+  private volatile Collection<GraphEdge> edges;
+
+  private volatile GraphBuilder<String> builder;
+
+  /**
+   * Creates a new parsed graph from the objects of the DOT parser.
+   *
+   * @param verticies The verticies read by the parser, in the order they are listed.
+   * @param edges The edges read by the parser, in the order they are listed.
+   */
+  public ParsedGraph(final Collection<GraphNode> verticies, final Collection<GraphEdge> edges) {
+    this.vertexCount = verticies.size();
+    this.edgeCount = edges.size();
+    this.verticies = verticies;
+    this.edges = edges;
+  }
+
+  /**
+   * Creates a new parsed graph from a file that was read without the DOT parser.
+   *
+   * @param builder The verticies and edges read from the file, in the order they are listed.
+   */
+  public ParsedGraph(final GraphBuilder<String> builder) {
+    this.vertexCount = builder.getVertexCount();
+    this.edgeCount = builder.getEdgeCount();
+    this.builder = builder;
+  }
+
+  /**
+   * Gets the number of verticies read by the parser, which is still known once they are released.
+   *
+   * @return The number of verticies.
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Gets the number of edges read by the parser, which is still known once they are released.
+   *
+   * @return The number of edges.
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Checks if the file was read by the DOT parser and its objects have not been released.
+   *
+   * @return If {@link #getVerticies()} and {@link #getEdges()} can be called.
+   */
+  public boolean hasParserObjects() {
+    return verticies != null;
+  }
+
+  /**
+   * Gets the verticies read by the parser.
+   *
+   * @return The verticies, in the order they are listed.
+   * @throws IllegalStateException If the verticies have been released, or the file was not read by
+   *     the DOT parser.
+   */
+  public Collection<GraphNode> getVerticies() {
+    final Collection<GraphNode> verticies = this.verticies;
+
+    if (verticies == null) {
+      throw new IllegalStateException("The parsed verticies are not kept");
+    }
+
+    return verticies;
+  }
+
+  /**
+   * Gets the edges read by the parser.
+   *
+   * @return The edges, in the order they are listed.
+   * @throws IllegalStateException If the edges have been released, or the file was not read by the
+   *     DOT parser.
+   */
+  public Collection<GraphEdge> getEdges() {
+    final Collection<GraphEdge> edges = this.edges;
+
+    if (edges == null) {
+      throw new IllegalStateException("The parsed edges are not kept");
+    }
+
+    return edges;
+  }
+
+  /**
+   * Gets the verticies and edges of a file that was read without the DOT parser.
+   *
+   * @return The builder, or null if the file was read by the DOT parser or has been released.
+   */
+  public GraphBuilder<String> getBuilder() {
+    return builder;
+  }
+
+  /**
+   * Checks if the parser's objects have been released.
+   *
+   * @return If only the numbers of verticies and edges are left.
+   */
+  public boolean isReleased() {
+    return verticies == null && builder == null;
+  }
+
+  /**
+   * Lets the parser's objects or the builder be garbage collected once the graph has been built,
+   * keeping only the numbers of verticies and edges.
+   */
+  public void release() {
+    verticies = null;
+    edges = null;
+    builder = null;
+  }
+
+  /**
+   * Builds the graph of the parsed verticies and edges, copying them into a {@link GraphBuilder}
+   * first if they were read by the DOT parser.
+   *
+   * @return The graph.
+   */
+  public Graph<String> buildGraph() {
+    return toBuilder().build();
+  }
+
+  /**
+   * Gets the parsed verticies and edges as a {@link GraphBuilder}, copying them into a new builder
+   * if they were read by the DOT parser.
+   *
+   * @return The builder.
+   */
+  public GraphBuilder<String> toBuilder() {
+    final GraphBuilder<String> builder = this.builder;
+
+    if (builder != null) {
+      return builder;
+    }
+
+    final GraphBuilder<String> copy = new GraphBuilder<>();
+
+    for (final GraphNode node : getVerticies()) {
+      copy.addVertex(node.getId());
+    }
+
+    for (final GraphEdge edge : getEdges()) {
+      copy.addEdge(edge.getNode1().getId(), edge.getNode2().getId());
+    }
+
+    return copy;
+  }
+}
@@ -0,0 +1,158 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphResults;
+
+/**
+ * A folder of the answers worked out for graphs, kept between runs, so that opening a file whose
+ * graph has already been analysed does not analyse it again.
+ *
+ * <p>Answers are kept in a file named after the fingerprint of the content of the graph, so a copy
+ * of a file under another name, or a file with its lines in another order, finds the answers of the
+ * original. The properties, roots, equivalence classes, topological sort and search orders are
+ * kept, as numbers of verticies. The store is off unless a folder is given with {@code
+ * -Dgraph.results.dir}. A file that cannot be read is ignored and replaced by the next save, and a
+ * save that fails leaves the answers in memory, so the store never stops a command from running.
+ */
+public class ResultStore {
+  private static final ResultStore INSTANCE = create(System.getProperty("graph.results.dir"));
+
+  private static final String SUFFIX = ".bin";
+
+  /**
+   * Gets the store shared by every command line interface in this JVM.
+   *
+   * @return The shared store.
+   */
+  public static ResultStore getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Creates the store for a folder.
+   *
+   * @param folder The name of the folder, or null or empty to turn the store off.
+   * @return The store.
+   */
+  private static ResultStore create(final String folder) {
+    return new ResultStore(folder == null || folder.isEmpty() ? null : Path.of(folder));
+  }
+
+  private final Path folder;
+
+  // The number of answers last read or written for each fingerprint, so unchanged answers are not
+  // written again after every command.
+  private final Map<String, Integer> sizes = new HashMap<>();
+
+  /**
+   * Creates a new store.
+   *
+   * @param folder The folder to keep the answers in, or null to turn the store off.
+   */
+  public ResultStore(final Path folder) {
+    this.folder = folder;
+  }
+
+  /**
+   * Checks if the store has a folder to keep answers in.
+   *
+   * @return If answers are read and written.
+   */
+  public boolean isEnabled() {
+    return folder != null;
+  }
+
+  /**
+   * Gets the file the answers for a graph are kept in.
+   *
+   * @param graph The graph.
+   * @return The file, which may not exist.
+   */
+  private Path fileOf(final Graph<?> graph) {
+    return folder.resolve(graph.getFingerprint() + SUFFIX);
+  }
+
+  /**
+   * Gives a graph the answers kept for its content, if there are any.
+   *
+   * @param graph The graph, which keeps any answers it has already worked out.
+   * @return If answers were found and given to the graph.
+   */
+  public boolean load(final Graph<?> graph) {
+    if (!isEnabled()) {
+      return false;
+    }
+
+    final Path file = fileOf(graph);
+    if (!Files.isRegularFile(file)) {
+      return false;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final GraphResults results = GraphResults.readFrom(in);
+      graph.importResults(results);
+      synchronized (this) {
+        sizes.put(graph.getFingerprint(), results.size());
+      }
+      return true;
+    } catch (final IOException | IllegalArgumentException e) {
+      // A damaged or foreign file is treated as missing, and is replaced by the next save.
+      return false;
+    }
+  }
+
+  /**
+   * Keeps the answers a graph has worked out, if it has worked out more than were last kept. The
+   * answers are written to a temporary file that then replaces the old one, so a run that stops
+   * part way through never leaves half a file behind.
+   *
+   * @param graph The graph.
+   * @return If the answers were written.
+   */
+  public boolean save(final Graph<?> graph) {
+    if (!isEnabled()) {
+      return false;
+    }
+
+    final GraphResults results = graph.exportResults();
+    final String fingerprint = graph.getFingerprint();
+    synchronized (this) {
+      if (results.size() <= sizes.getOrDefault(fingerprint, 0)) {
+        return false;
+      }
+    }
+
+    try {
+      Files.createDirectories(folder);
+      final Path temporary = Files.createTempFile(folder, fingerprint, ".tmp");
+
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+          results.writeTo(out);
+        }
+        Files.move(temporary, fileOf(graph), StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (final IOException e) {
+      return false;
+    }
+
+    synchronized (this) {
+      sizes.put(fingerprint, results.size());
+    }
+    return true;
+  }
+}
@@ -0,0 +1,36 @@
+package nz.ac.auckland.se281;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Creates the threads that the calculator runs blocking background work on. */
+public final class WorkerThreads {
+  private WorkerThreads() {}
+
+  /**
+   * Creates a factory of threads for work that spends most of its time blocked, such as reading
+   * files or serving clients. The threads are virtual when the JVM supports them (Java 21 and
+   * later), and daemon platform threads otherwise, so they never keep the JVM alive.
+   *
+   * @param name The prefix of the name of each thread.
+   * @return The thread factory.
+   */
+  public static ThreadFactory newFactory(final String name) {
+    try {
+      // Looked up reflectively so that the calculator still builds and runs on Java 17.
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder =
+          builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      final AtomicInteger count = new AtomicInteger();
+
+      return runnable -> {
+        final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * The edges of a graph whose verticies are numbered from zero, with the destinations of the edges
+ * leaving each vertex kept in ascending order.
+ *
+ * <p>A {@link Graph} numbers its verticies in their natural order, so ascending numbers are also
+ * ascending verticies, and the algorithms of the graph never need to look at the verticies
+ * themselves. Implementations are never changed once built, so they can be read by many threads at
+ * once, until they are closed.
+ */
+public interface Adjacency extends AutoCloseable {
+  /**
+   * Gets the number of verticies.
+   *
+   * @return the vertex count
+   */
+  int getVertexCount();
+
+  /**
+   * Gets the number of edges.
+   *
+   * @return the edge count
+   */
+  long getEdgeCount();
+
+  /**
+   * Gets the number of edges leaving a vertex.
+   *
+   * @param vertex the number of the vertex
+   * @return the out degree
+   */
+  int getOutDegree(int vertex);
+
+  /**
+   * Gets the number of edges arriving at a vertex.
+   *
+   * @param vertex the number of the vertex
+   * @return the in degree
+   */
+  int getInDegree(int vertex);
+
+  /**
+   * Gets the largest number of edges leaving any one vertex, which is the size of the buffer needed
+   * by {@link #getNeighbours(int, int[])}.
+   *
+   * @return the maximum out degree
+   */
+  int getMaxOutDegree();
+
+  /**
+   * Checks if there is an edge from one vertex to another.
+   *
+   * @param source the number of the vertex the edge leaves
+   * @param destination the number of the vertex the edge arrives at
+   * @return true if the edge exists, false otherwise.
+   */
+  boolean hasEdge(int source, int destination);
+
+  /**
+   * Gets the destination of one of the edges leaving a vertex.
+   *
+   * @param vertex the number of the vertex
+   * @param index the position of the edge, from zero to one less than the out degree
+   * @return the number of the destination
+   */
+  int getNeighbour(int vertex, int index);
+
+  /**
+   * Copies the destinations of every edge leaving a vertex into a buffer, in ascending order.
+   *
+   * @param vertex the number of the vertex
+   * @param buffer the buffer, at least as long as the out degree of the vertex
+   * @return the number of destinations copied
+   */
+  int getNeighbours(int vertex, int[] buffer);
+
+  /**
+   * Gets a short name of how the edges are stored, for reports and flight recorder events.
+   *
+   * @return the name of the representation
+   */
+  String getRepresentation();
+
+  /**
+   * Estimates the heap held by the edges.
+   *
+   * @return the estimate in bytes
+   */
+  long estimateHeapBytes();
+
+  /**
+   * Estimates the memory held by the edges outside the heap, in direct buffers or mapped files.
+   *
+   * @return the estimate in bytes
+   */
+  long estimateOffHeapBytes();
+
+  /**
+   * Releases the memory held by the edges outside the heap, once no thread reads them any more. The
+   * edges must not be read after they are closed. Edges on the heap are left to the garbage
+   * collector, so by default this does nothing.
+   */
+  @Override
+  default void close() {}
+}
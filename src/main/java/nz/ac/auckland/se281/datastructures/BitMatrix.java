@@ -0,0 +1,187 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * Edges held as one bit for every pair of verticies, with a row of bits for the destinations of
+ * each vertex. A row takes a bit per vertex whatever the degree, so the matrix is smaller than
+ * compressed sparse rows once more than one pair in 32 has an edge, and every lookup is a single
+ * read. The matrix is built from compressed sparse rows that keep each edge once, so the degrees
+ * kept alongside and the edge count all count distinct edges, as the neighbours are listed.
+ */
+public class BitMatrix implements Adjacency {
+  private static final int ARRAY_BYTES = 16;
+
+  private final int vertexCount;
+  private final long edgeCount;
+  private final int words;
+  private final long[] rows;
+  private final int[] outDegrees;
+  private final int[] inDegrees;
+  private final int maxOutDegree;
+
+  /**
+   * Copies a set of edges into a new matrix, after which they can be thrown away.
+   *
+   * @param source the edges to copy
+   * @throws IllegalArgumentException if the matrix does not fit in a heap array
+   */
+  public BitMatrix(Adjacency source) {
+    /*
+       Contructor for the class
+    */
+    this.vertexCount = source.getVertexCount();
+    this.edgeCount = source.getEdgeCount();
+    this.maxOutDegree = source.getMaxOutDegree();
+    this.words = wordsPerRow(vertexCount);
+
+    long length = (long) vertexCount * words;
+    if (length > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException(
+          vertexCount + " verticies do not fit in a bit matrix, use a sparse storage instead");
+    }
+
+    this.rows = new long[(int) length];
+    this.outDegrees = new int[vertexCount];
+    this.inDegrees = new int[vertexCount];
+
+    int[] buffer = new int[maxOutDegree];
+    for (int v = 0; v < vertexCount; v++) {
+      int count = source.getNeighbours(v, buffer);
+      int row = v * words;
+      for (int i = 0; i < count; i++) {
+        long bit = 1L << buffer[i];
+        if ((rows[row + (buffer[i] >>> 6)] & bit) == 0) {
+          rows[row + (buffer[i] >>> 6)] |= bit;
+          outDegrees[v]++;
+          inDegrees[buffer[i]]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts the words of bits in each row.
+   *
+   * @param vertexCount the number of verticies
+   * @return the number of words
+   */
+  private static int wordsPerRow(int vertexCount) {
+    return (vertexCount + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * Estimates the heap a matrix of the given size would hold, before building it.
+   *
+   * @param vertexCount the number of verticies
+   * @return the estimate in bytes
+   */
+  static long estimateBytes(int vertexCount) {
+    return 3L * ARRAY_BYTES
+        + (long) vertexCount * wordsPerRow(vertexCount) * Long.BYTES
+        + 2L * vertexCount * Integer.BYTES;
+  }
+
+  /**
+   * Checks if every destination of one vertex is also a destination of another, a word of
+   * destinations at a time.
+   *
+   * @param vertex the number of the vertex whose destinations are searched
+   * @param other the number of the vertex whose destinations are wanted
+   * @return true if the destinations of the other vertex are all destinations of the vertex, false
+   *     otherwise.
+   */
+  boolean includes(int vertex, int other) {
+    int row = vertex * words;
+    int otherRow = other * words;
+
+    for (int w = 0; w < words; w++) {
+      if ((rows[otherRow + w] & ~rows[row + w]) != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  @Override
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getOutDegree(int vertex) {
+    return outDegrees[vertex];
+  }
+
+  @Override
+  public int getInDegree(int vertex) {
+    return inDegrees[vertex];
+  }
+
+  @Override
+  public int getMaxOutDegree() {
+    return maxOutDegree;
+  }
+
+  @Override
+  public boolean hasEdge(int source, int destination) {
+    return (rows[source * words + (destination >>> 6)] & (1L << destination)) != 0;
+  }
+
+  @Override
+  public int getNeighbour(int vertex, int index) {
+    /*
+        Counts the bits of whole words until the word holding the edge, then clears the lower bits
+        of that word
+    */
+    int row = vertex * words;
+    int remaining = index;
+
+    for (int w = 0; w < words; w++) {
+      long word = rows[row + w];
+      int count = Long.bitCount(word);
+      if (remaining < count) {
+        for (; remaining > 0; remaining--) {
+          word &= word - 1;
+        }
+        return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+      }
+      remaining -= count;
+    }
+
+    throw new IndexOutOfBoundsException(index);
+  }
+
+  @Override
+  public int getNeighbours(int vertex, int[] buffer) {
+    int row = vertex * words;
+    int count = 0;
+
+    for (int w = 0; w < words; w++) {
+      for (long word = rows[row + w]; word != 0; word &= word - 1) {
+        buffer[count++] = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+      }
+    }
+
+    return count;
+  }
+
+  @Override
+  public String getRepresentation() {
+    return "Bit matrix";
+  }
+
+  @Override
+  public long estimateHeapBytes() {
+    return estimateBytes(vertexCount);
+  }
+
+  @Override
+  public long estimateOffHeapBytes() {
+    return 0;
+  }
+}
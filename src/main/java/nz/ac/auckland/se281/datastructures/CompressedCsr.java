@@ -0,0 +1,331 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Edges held in compressed sparse row form with the destinations of each vertex gap encoded: as the
+ * destinations are in ascending order, each is stored as its difference from the one before, in a
+ * variable number of bytes (seven bits in each byte, with the top bit set on every byte but the
+ * last). The first destination is stored as its difference from the vertex itself, which may be
+ * negative, so it is zig-zag encoded (0, -1, 1, -2, ... become 0, 1, 2, 3, ...). Small gaps, which
+ * are common when nearby verticies are connected, take a single byte rather than four.
+ *
+ * <p>The block of each vertex starts with its out and in degree. The destinations of a vertex with
+ * more than {@value #FRAME} edges are split into frames of {@value #FRAME}, and the first
+ * destination of every frame after the first is also kept in a table of skips along with where the
+ * rest of its frame starts, so looking up a single edge only ever decodes one frame.
+ */
+public class CompressedCsr implements Adjacency {
+  // The largest array most JVMs will allocate.
+  private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  private static final int ARRAY_BYTES = 16;
+  private static final int FRAME = 64;
+
+  private final int vertexCount;
+  private final long edgeCount;
+  private final int maxOutDegree;
+  private final int[] offsets;
+  private final byte[] data;
+  private final int[] skipValues;
+  private final int[] skipPositions;
+
+  /**
+   * Compresses a set of uncompressed edges, which can be thrown away afterwards.
+   *
+   * @param source the edges to compress
+   * @throws IllegalArgumentException if the compressed edges do not fit in a heap array
+   */
+  public CompressedCsr(Adjacency source) {
+    /*
+       Contructor for the class
+    */
+    this.vertexCount = source.getVertexCount();
+    this.edgeCount = source.getEdgeCount();
+    this.maxOutDegree = source.getMaxOutDegree();
+
+    // Measures every block first, so that the arrays are allocated once at their exact size.
+    int[] buffer = new int[maxOutDegree];
+    long size = 0;
+    int skipCount = 0;
+    for (int v = 0; v < vertexCount; v++) {
+      int count = source.getNeighbours(v, buffer);
+      int skips = count > FRAME ? (count - 1) / FRAME : 0;
+      size += sizeOf(count) + sizeOf(source.getInDegree(v));
+      size += count > FRAME ? sizeOf(skipCount) : 0;
+      for (int i = 0; i < count; i++) {
+        size += sizeOf(i == 0 ? zigZag(buffer[0] - v) : buffer[i] - buffer[i - 1]);
+      }
+      skipCount += skips;
+    }
+
+    if (size > MAX_ARRAY_LENGTH) {
+      throw new IllegalArgumentException(
+          size + " bytes of compressed edges do not fit in a heap array");
+    }
+
+    this.offsets = new int[vertexCount + 1];
+    this.data = new byte[(int) size];
+    this.skipValues = new int[skipCount];
+    this.skipPositions = new int[skipCount];
+
+    int position = 0;
+    int skip = 0;
+    for (int v = 0; v < vertexCount; v++) {
+      int count = source.getNeighbours(v, buffer);
+      offsets[v] = position;
+      position = write(position, count);
+      position = write(position, source.getInDegree(v));
+      if (count > FRAME) {
+        position = write(position, skip);
+      }
+
+      for (int i = 0; i < count; i++) {
+        position = write(position, i == 0 ? zigZag(buffer[0] - v) : buffer[i] - buffer[i - 1]);
+        if (i > 0 && i % FRAME == 0) {
+          skipValues[skip] = buffer[i];
+          skipPositions[skip] = position;
+          skip++;
+        }
+      }
+    }
+    offsets[vertexCount] = position;
+  }
+
+  /**
+   * Folds a number that may be negative into one that is not, keeping small numbers small.
+   *
+   * @param value the number
+   * @return the folded number
+   */
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * Unfolds a number folded by {@link #zigZag(int)}.
+   *
+   * @param value the folded number
+   * @return the number
+   */
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Counts the bytes needed to write a number.
+   *
+   * @param value the number, which must not be negative
+   * @return the number of bytes
+   */
+  private static int sizeOf(int value) {
+    if (value < (1 << 7)) {
+      return 1;
+    } else if (value < (1 << 14)) {
+      return 2;
+    } else if (value < (1 << 21)) {
+      return 3;
+    } else if (value < (1 << 28)) {
+      return 4;
+    }
+    return 5;
+  }
+
+  /**
+   * Writes a number seven bits at a time, lowest bits first.
+   *
+   * @param position where to write the number
+   * @param value the number, which must not be negative
+   * @return the position after the number
+   */
+  private int write(int position, int value) {
+    while (value >= 0x80) {
+      data[position++] = (byte) (value | 0x80);
+      value >>>= 7;
+    }
+    data[position++] = (byte) value;
+    return position;
+  }
+
+  /**
+   * Reads a number written by {@link #write(int, int)}.
+   *
+   * @param position where the number starts
+   * @return the number
+   */
+  private int read(int position) {
+    int value = data[position] & 0x7f;
+    int shift = 7;
+
+    while (data[position++] < 0) {
+      value |= (data[position] & 0x7f) << shift;
+      shift += 7;
+    }
+
+    return value;
+  }
+
+  /**
+   * Skips past a number written by {@link #write(int, int)}.
+   *
+   * @param position where the number starts
+   * @return the position after the number
+   */
+  private int skip(int position) {
+    while (data[position++] < 0) {
+      continue;
+    }
+    return position;
+  }
+
+  @Override
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  @Override
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getOutDegree(int vertex) {
+    return read(offsets[vertex]);
+  }
+
+  @Override
+  public int getInDegree(int vertex) {
+    return read(skip(offsets[vertex]));
+  }
+
+  @Override
+  public int getMaxOutDegree() {
+    return maxOutDegree;
+  }
+
+  @Override
+  public boolean hasEdge(int source, int destination) {
+    /*
+        Binary searches the skips for the frame that could hold the destination, then decodes
+        that frame until the destination is found or passed
+    */
+    int position = offsets[source];
+    int count = read(position);
+    position = skip(skip(position));
+    int remaining = count;
+    int value = 0;
+    boolean isFirst = true;
+
+    if (count > FRAME) {
+      int first = read(position);
+      position = skip(position);
+      int frames = (count - 1) / FRAME;
+      int found = Arrays.binarySearch(skipValues, first, first + frames, destination);
+      if (found >= 0) {
+        return true;
+      }
+
+      int frame = -found - 2;
+      if (frame >= first) {
+        value = skipValues[frame];
+        position = skipPositions[frame];
+        remaining = Math.min(FRAME, count - (frame - first + 1) * FRAME) - 1;
+        isFirst = false;
+      }
+    }
+
+    for (int i = 0; i < remaining; i++) {
+      int gap = read(position);
+      value = isFirst ? source + unZigZag(gap) : value + gap;
+      isFirst = false;
+      position = skip(position);
+      if (value >= destination) {
+        return value == destination;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public int getNeighbour(int vertex, int index) {
+    /*
+        Jumps to the frame holding the edge, then decodes up to the edge
+    */
+    int position = offsets[vertex];
+    int count = read(position);
+    position = skip(skip(position));
+    int value = 0;
+    int decoded = 0;
+
+    if (count > FRAME) {
+      int first = read(position);
+      position = skip(position);
+      if (index >= FRAME) {
+        int frame = first + index / FRAME - 1;
+        value = skipValues[frame];
+        position = skipPositions[frame];
+        decoded = index - index % FRAME;
+        if (decoded == index) {
+          return value;
+        }
+        decoded++;
+      }
+    }
+
+    for (; decoded <= index; decoded++) {
+      int gap = read(position);
+      value = decoded == 0 ? vertex + unZigZag(gap) : value + gap;
+      position = skip(position);
+    }
+
+    return value;
+  }
+
+  @Override
+  public int getNeighbours(int vertex, int[] buffer) {
+    /*
+        Decodes every gap of the vertex, adding each to the destination before it, starting from
+        the vertex itself
+    */
+    int p = offsets[vertex];
+    int count = read(p);
+    p = skip(skip(p));
+    if (count > FRAME) {
+      p = skip(p);
+    }
+
+    int value = vertex;
+    for (int i = 0; i < count; i++) {
+      int gap = data[p] & 0x7f;
+      int shift = 7;
+      while (data[p++] < 0) {
+        gap |= (data[p] & 0x7f) << shift;
+        shift += 7;
+      }
+      value += i == 0 ? unZigZag(gap) : gap;
+      buffer[i] = value;
+    }
+
+    return count;
+  }
+
+  @Override
+  public String getRepresentation() {
+    return "Compressed CSR";
+  }
+
+  @Override
+  public long estimateHeapBytes() {
+    return 4L * ARRAY_BYTES
+        + (long) offsets.length * Integer.BYTES
+        + data.length
+        + (long) skipValues.length * Integer.BYTES
+        + (long) skipPositions.length * Integer.BYTES;
+  }
+
+  @Override
+  public long estimateOffHeapBytes() {
+    return 0;
+  }
+}
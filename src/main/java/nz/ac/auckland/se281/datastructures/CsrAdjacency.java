@@ -0,0 +1,163 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * Edges stored in compressed sparse row form: the destinations of every edge, grouped by source and
+ * sorted within each group, in one long array of targets, and the position where the group of each
+ * vertex starts in an array of offsets. Each edge is kept once, however many times it was given.
+ *
+ * <p>Subclasses decide where the arrays live, and only need to read and write single elements and
+ * runs of targets.
+ */
+public abstract class CsrAdjacency implements Adjacency {
+  private final int vertexCount;
+  private long edgeCount;
+  private int maxOutDegree;
+
+  /**
+   * Creates a new, empty set of arrays.
+   *
+   * @param vertexCount the number of verticies
+   * @param edgeCount the number of edges
+   */
+  protected CsrAdjacency(int vertexCount, long edgeCount) {
+    /*
+       Contructor for the class
+    */
+    this.vertexCount = vertexCount;
+    this.edgeCount = edgeCount;
+  }
+
+  /**
+   * Gets the position in the targets where the edges of a vertex start.
+   *
+   * @param vertex the number of the vertex, or the vertex count for the end of the last vertex
+   * @return the offset
+   */
+  protected abstract long getOffset(int vertex);
+
+  /**
+   * Sets the position in the targets where the edges of a vertex start.
+   *
+   * @param vertex the number of the vertex, or the vertex count for the end of the last vertex
+   * @param offset the offset
+   */
+  protected abstract void setOffset(int vertex, long offset);
+
+  /**
+   * Gets a single target.
+   *
+   * @param index the position of the target
+   * @return the number of the destination vertex
+   */
+  protected abstract int getTarget(long index);
+
+  /**
+   * Sets a single target.
+   *
+   * @param index the position of the target
+   * @param target the number of the destination vertex
+   */
+  protected abstract void setTarget(long index, int target);
+
+  /**
+   * Copies a run of targets into a buffer.
+   *
+   * @param from the position of the first target
+   * @param buffer the buffer to copy into
+   * @param count the number of targets to copy
+   */
+  protected abstract void readTargets(long from, int[] buffer, int count);
+
+  /**
+   * Copies a run of targets from a buffer.
+   *
+   * @param from the position of the first target
+   * @param buffer the buffer to copy from
+   * @param count the number of targets to copy
+   */
+  protected abstract void writeTargets(long from, int[] buffer, int count);
+
+  /**
+   * Sets the number of edges arriving at a vertex.
+   *
+   * @param vertex the number of the vertex
+   * @param inDegree the in degree
+   */
+  protected abstract void setInDegree(int vertex, int inDegree);
+
+  /**
+   * Records the number of edges left once repeated edges have been removed, which leaves the end of
+   * the targets unused.
+   *
+   * @param edgeCount the number of distinct edges
+   */
+  protected void setEdgeCount(long edgeCount) {
+    this.edgeCount = edgeCount;
+  }
+
+  /**
+   * Records the largest out degree once every offset has been set.
+   *
+   * @param maxOutDegree the maximum out degree
+   */
+  protected void setMaxOutDegree(int maxOutDegree) {
+    this.maxOutDegree = maxOutDegree;
+  }
+
+  @Override
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  @Override
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getOutDegree(int vertex) {
+    return (int) (getOffset(vertex + 1) - getOffset(vertex));
+  }
+
+  @Override
+  public int getMaxOutDegree() {
+    return maxOutDegree;
+  }
+
+  @Override
+  public boolean hasEdge(int source, int destination) {
+    /*
+        Binary searches the sorted targets of the source for the destination
+    */
+    long low = getOffset(source);
+    long high = getOffset(source + 1) - 1;
+
+    while (low <= high) {
+      long middle = (low + high) >>> 1;
+      int target = getTarget(middle);
+
+      if (target < destination) {
+        low = middle + 1;
+      } else if (target > destination) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public int getNeighbour(int vertex, int index) {
+    return getTarget(getOffset(vertex) + index);
+  }
+
+  @Override
+  public int getNeighbours(int vertex, int[] buffer) {
+    long from = getOffset(vertex);
+    int count = (int) (getOffset(vertex + 1) - from);
+    readTargets(from, buffer, count);
+    return count;
+  }
+}
@@ -0,0 +1,363 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds compressed sparse row edges from edges given in any order.
+ *
+ * <p>Large sets of edges are built in parallel on a {@link ForkJoinPool}: the edges are split into
+ * chunks that each count the degrees of their own edges, the counts are summed into the offsets of
+ * each vertex and the starting position of each chunk within each vertex, then every chunk scatters
+ * its edges to those positions without any locking, and finally the group of each vertex is radix
+ * sorted. Every step only reads or writes the parts of the arrays that belong to its own chunk or
+ * range of verticies.
+ *
+ * <p>An edge given more than once is kept once, so every storage holds the same set of edges and
+ * the relation it describes does not depend on how many times a file lists an edge.
+ */
+public final class CsrBuilder {
+  // Fewer edges than this are built on the calling thread, where forking costs more than it saves.
+  private static final int SEQUENTIAL_EDGES = 1 << 16;
+  private static final int TASKS_PER_THREAD = 4;
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+
+  private CsrBuilder() {}
+
+  /**
+   * Builds the compressed sparse row form of a set of edges on the common fork join pool, whose
+   * size can be set with the {@code java.util.concurrent.ForkJoinPool.common.parallelism} system
+   * property.
+   *
+   * @param storage where to keep the edges
+   * @param vertexCount the number of verticies
+   * @param sources the number of the vertex each edge leaves
+   * @param destinations the number of the vertex each edge arrives at, in the same order
+   * @return the edges, grouped by source and sorted by destination
+   */
+  public static Adjacency build(
+      GraphStorage storage, int vertexCount, int[] sources, int[] destinations) {
+    return build(storage, vertexCount, sources, destinations, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Builds the compressed sparse row form of a set of edges by counting the degree of each vertex,
+   * placing each edge in the group of its source, then sorting each group.
+   *
+   * @param storage where to keep the edges, chosen by {@link GraphStorage#choose(int, long)}
+   * @param vertexCount the number of verticies
+   * @param sources the number of the vertex each edge leaves
+   * @param destinations the number of the vertex each edge arrives at, in the same order
+   * @param pool the pool to build on
+   * @return the edges, grouped by source and sorted by destination, each kept once
+   */
+  public static Adjacency build(
+      GraphStorage storage, int vertexCount, int[] sources, int[] destinations, ForkJoinPool pool) {
+    /*
+        Counts the degrees, lays out the offsets, scatters the targets, sorts each group, then
+        removes repeated edges if there are any
+    */
+    int edgeCount = sources.length;
+    GraphStorage chosen = storage.choose(vertexCount, edgeCount);
+    int threads = edgeCount < SEQUENTIAL_EDGES ? 1 : pool.getParallelism();
+
+    // Each chunk counts into its own histograms, kept to about twice the size of the edges.
+    int chunks = (int) Math.max(1, Math.min(threads, 2L * edgeCount / Math.max(1, vertexCount)));
+    int blocks = Math.max(1, Math.min(vertexCount, threads * TASKS_PER_THREAD));
+    int[][] outCounts = new int[chunks][vertexCount];
+    int[][] inCounts = new int[chunks][vertexCount];
+
+    run(
+        pool,
+        chunks,
+        chunk -> {
+          int[] out = outCounts[chunk];
+          int[] in = inCounts[chunk];
+          int end = split(chunk + 1, chunks, edgeCount);
+
+          for (int e = split(chunk, chunks, edgeCount); e < end; e++) {
+            out[sources[e]]++;
+            in[destinations[e]]++;
+          }
+        });
+
+    // Sums the counts of every chunk, giving the number of edges and largest degree of each block.
+    long[] blockEdges = new long[blocks];
+    int[] blockMaxOutDegree = new int[blocks];
+    run(
+        pool,
+        blocks,
+        block -> {
+          int end = split(block + 1, blocks, vertexCount);
+
+          for (int v = split(block, blocks, vertexCount); v < end; v++) {
+            int outDegree = 0;
+            int inDegree = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+              outDegree += outCounts[chunk][v];
+              inDegree += inCounts[chunk][v];
+            }
+            inCounts[0][v] = inDegree;
+            blockEdges[block] += outDegree;
+            blockMaxOutDegree[block] = Math.max(blockMaxOutDegree[block], outDegree);
+          }
+        });
+
+    CsrAdjacency csr = chosen.allocate(vertexCount, edgeCount);
+    long[] blockOffsets = new long[blocks];
+    int maxOutDegree = 0;
+    for (int block = 1; block < blocks; block++) {
+      blockOffsets[block] = blockOffsets[block - 1] + blockEdges[block - 1];
+    }
+    for (int block = 0; block < blocks; block++) {
+      maxOutDegree = Math.max(maxOutDegree, blockMaxOutDegree[block]);
+    }
+
+    // Turns the counts of each chunk into the position its first edge from each vertex goes to.
+    run(
+        pool,
+        blocks,
+        block -> {
+          int end = split(block + 1, blocks, vertexCount);
+          long offset = blockOffsets[block];
+
+          for (int v = split(block, blocks, vertexCount); v < end; v++) {
+            csr.setOffset(v, offset);
+            csr.setInDegree(v, inCounts[0][v]);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+              int count = outCounts[chunk][v];
+              outCounts[chunk][v] = (int) offset;
+              offset += count;
+            }
+          }
+        });
+    csr.setOffset(vertexCount, edgeCount);
+    csr.setMaxOutDegree(maxOutDegree);
+
+    run(
+        pool,
+        chunks,
+        chunk -> {
+          int[] cursors = outCounts[chunk];
+          int end = split(chunk + 1, chunks, edgeCount);
+
+          for (int e = split(chunk, chunks, edgeCount); e < end; e++) {
+            csr.setTarget(cursors[sources[e]]++, destinations[e]);
+          }
+        });
+
+    // Splits the verticies by their edges rather than their number, so a hub cannot stall a task.
+    int[] firstVerticies = new int[blocks + 1];
+    for (int block = 0; block <= blocks; block++) {
+      firstVerticies[block] = findVertex(csr, vertexCount, (long) edgeCount * block / blocks);
+    }
+    int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, vertexCount - 1));
+    long[] repeats = new long[blocks];
+    run(
+        pool,
+        blocks,
+        block ->
+            repeats[block] =
+                sortGroups(csr, firstVerticies[block], firstVerticies[block + 1], bits));
+
+    if (Arrays.stream(repeats).sum() > 0) {
+      removeRepeats(csr, vertexCount);
+    }
+
+    return chosen.finish(csr);
+  }
+
+  /**
+   * Runs a number of tasks, in parallel on the pool if there is more than one.
+   *
+   * @param pool the pool to run on
+   * @param tasks the number of tasks
+   * @param task the task, given its number
+   */
+  private static void run(ForkJoinPool pool, int tasks, IntConsumer task) {
+    if (tasks == 1) {
+      task.accept(0);
+      return;
+    }
+
+    ForkJoinTask<?>[] forks = new ForkJoinTask<?>[tasks];
+    for (int i = 0; i < tasks; i++) {
+      int number = i;
+      forks[i] = ForkJoinTask.adapt(() -> task.accept(number));
+    }
+    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forks)));
+  }
+
+  /**
+   * Finds where one of a number of equal parts of a range starts.
+   *
+   * @param part the number of the part, or the number of parts for the end of the range
+   * @param parts the number of parts
+   * @param length the length of the range
+   * @return the start of the part
+   */
+  private static int split(int part, int parts, int length) {
+    return (int) ((long) length * part / parts);
+  }
+
+  /**
+   * Finds the first vertex whose edges start at or after a position in the targets.
+   *
+   * @param csr the edges, with every offset set
+   * @param vertexCount the number of verticies
+   * @param position the position in the targets
+   * @return the number of the vertex, or the vertex count if there is none
+   */
+  private static int findVertex(CsrAdjacency csr, int vertexCount, long position) {
+    int low = 0;
+    int high = vertexCount;
+
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (csr.getOffset(middle) < position) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Sorts the targets of a range of verticies.
+   *
+   * @param csr the edges
+   * @param from the first vertex
+   * @param to one past the last vertex
+   * @param bits the number of bits needed for the largest vertex number
+   * @return the number of targets equal to the target before them once sorted
+   */
+  private static long sortGroups(CsrAdjacency csr, int from, int to, int bits) {
+    int maxOutDegree = 0;
+    for (int v = from; v < to; v++) {
+      maxOutDegree = Math.max(maxOutDegree, csr.getOutDegree(v));
+    }
+
+    int[] buffer = new int[maxOutDegree];
+    int[] scratch = new int[maxOutDegree >= RADIX ? maxOutDegree : 0];
+    int[] counts = new int[RADIX + 1];
+    long repeats = 0;
+
+    for (int v = from; v < to; v++) {
+      int count = csr.getNeighbours(v, buffer);
+      if (!isSorted(buffer, count)) {
+        if (count < RADIX) {
+          Arrays.sort(buffer, 0, count);
+        } else {
+          radixSort(buffer, scratch, counts, count, bits);
+        }
+        csr.writeTargets(csr.getOffset(v), buffer, count);
+      }
+      for (int i = 1; i < count; i++) {
+        if (buffer[i] == buffer[i - 1]) {
+          repeats++;
+        }
+      }
+    }
+
+    return repeats;
+  }
+
+  /**
+   * Removes every target equal to the target before it, moving each group down over the gaps left
+   * by the groups before it, and takes each removed edge off the in degree of its destination.
+   *
+   * @param csr the edges, with each group sorted
+   * @param vertexCount the number of verticies
+   */
+  private static void removeRepeats(CsrAdjacency csr, int vertexCount) {
+    int[] buffer = new int[csr.getMaxOutDegree()];
+    long kept = 0;
+    int maxOutDegree = 0;
+
+    for (int v = 0; v < vertexCount; v++) {
+      // The group is read before its offset is moved, and is only ever written further down.
+      int count = csr.getNeighbours(v, buffer);
+      csr.setOffset(v, kept);
+
+      int distinct = 0;
+      for (int i = 0; i < count; i++) {
+        if (distinct > 0 && buffer[i] == buffer[distinct - 1]) {
+          csr.setInDegree(buffer[i], csr.getInDegree(buffer[i]) - 1);
+        } else {
+          buffer[distinct++] = buffer[i];
+        }
+      }
+
+      csr.writeTargets(kept, buffer, distinct);
+      kept += distinct;
+      maxOutDegree = Math.max(maxOutDegree, distinct);
+    }
+
+    csr.setOffset(vertexCount, kept);
+    csr.setEdgeCount(kept);
+    csr.setMaxOutDegree(maxOutDegree);
+  }
+
+  /**
+   * Checks if the start of an array is already in ascending order, as it often is when the edges
+   * were given in order.
+   *
+   * @param values the array
+   * @param count the number of values to check
+   * @return true if the values are in order, false otherwise.
+   */
+  private static boolean isSorted(int[] values, int count) {
+    for (int i = 1; i < count; i++) {
+      if (values[i - 1] > values[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Sorts the start of an array of vertex numbers a digit at a time, from the least significant.
+   * Digits that are the same for every value are skipped.
+   *
+   * @param values the array to sort
+   * @param scratch an array at least as long as the values to sort
+   * @param counts an array one longer than the radix
+   * @param count the number of values to sort
+   * @param bits the number of bits needed for the largest value
+   */
+  private static void radixSort(int[] values, int[] scratch, int[] counts, int count, int bits) {
+    int[] from = values;
+    int[] to = scratch;
+
+    for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < count; i++) {
+        counts[((from[i] >>> shift) & (RADIX - 1)) + 1]++;
+      }
+      if (counts[((from[0] >>> shift) & (RADIX - 1)) + 1] == count) {
+        continue;
+      }
+
+      for (int digit = 0; digit < RADIX; digit++) {
+        counts[digit + 1] += counts[digit];
+      }
+      for (int i = 0; i < count; i++) {
+        to[counts[(from[i] >>> shift) & (RADIX - 1)]++] = from[i];
+      }
+
+      int[] swap = from;
+      from = to;
+      to = swap;
+    }
+
+    if (from != values) {
+      System.arraycopy(from, 0, values, 0, count);
+    }
+  }
+}
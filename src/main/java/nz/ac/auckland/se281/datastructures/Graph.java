@@ -1,29 +1,84 @@
 package nz.ac.auckland.se281.datastructures;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import nz.ac.auckland.se281.events.IndexBuildEvent;
+import nz.ac.auckland.se281.events.PropertyCheckEvent;
+import nz.ac.auckland.se281.events.TraversalEvent;
+import nz.ac.auckland.se281.metrics.WorkCounter;
 
 /**
  * A graph that is composed of a set of verticies and edges.
  *
  * <p>You must NOT change the signature of the existing methods or constructor of this class.
  *
+ * <p>The verticies are numbered in ascending order, and the edges are kept as an {@link Adjacency}
+ * between those numbers, so every algorithm works on plain integers whichever {@link GraphStorage}
+ * holds the edges. As the destinations of each vertex are in ascending order, the searches visit
+ * the verticies in the same order as if they walked the verticies themselves.
+ *
  * @param <T> The type of each vertex, that have a total ordering.
  */
 public class Graph<T extends Comparable<T>> {
+  private static final int REFERENCE_BYTES = 4;
+  private static final int HASH_MAP_BYTES = 48;
+  private static final int HASH_MAP_NODE_BYTES = 32;
+  private static final int INTEGER_BYTES = 16;
+
+  // A shard holds about as many edges as fit in a typical 256 KiB level 2 cache.
+  private static final int SHARD_EDGES = 1 << 16;
+  private static final int SHARD_VERTICIES = 1 << 16;
+
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  // The names the topological sort is saved under, alongside the orders of the searches.
+  private static final String TOPOLOGICAL_ORDER = "TOPOLOGICAL";
+  private static final String CYCLE = "CYCLE";
+  private static final String[] SEARCHES = {"BFS", "IDFS", "RDFS"};
 
-  private Set<T> verticies;
-  private Set<Edge<T>> edges;
-  private HashMap<T, LinkedList<Edge<T>>> verticesEdgesMap;
+  private final List<T> verticies;
+  private final HashMap<T, Integer> ids;
+  private final VertexOrder order;
+  private final GraphStorage storage;
+  // The storage asked for, which may be AUTO, so an update chooses for its own size as this did.
+  private final GraphStorage requestedStorage;
+  private final Adjacency adjacency;
+  private final long version;
+  // The number of holders, or -1 once the last holder has released the graph and it is closed.
+  private final AtomicInteger holders = new AtomicInteger();
+  private volatile int[] shardStartsCache;
+  private volatile BitSet rootIdsCache;
+  private volatile String fingerprintCache;
+  private volatile Boolean isReflexiveCache;
+  private volatile Boolean isSymmetricCache;
+  private volatile Boolean isAntiSymmetricCache;
+  private volatile Boolean isTransitiveCache;
+  private volatile Boolean isEquivalenceCache;
+  private volatile Map<T, Set<T>> equivalenceClassesCache;
+  private volatile TopologicalOrder topologicalOrderCache;
 
   /**
-   * Creates a new graph.
+   * Creates a new graph. The graph is frozen once it has been created, so a single graph can be
+   * queried by many threads at once.
    *
    * @param verticies The set of verticies in the graph.
    * @param edges The set of edges in the graph.
@@ -32,164 +87,852 @@ public class Graph<T extends Comparable<T>> {
     /*
        Contructor for the class
     */
-    this.verticies = verticies;
-    this.edges = edges;
-    this.verticesEdgesMap = new HashMap<>();
-    this.createVerticesEdgesMap();
+    this(verticies, edges, GraphStorage.getDefault(), VertexOrder.getDefault());
   }
 
   /**
-   * Creates a map of verticies to edges.
+   * Creates a new graph whose edges are kept in the given storage. The edges are copied into the
+   * storage, so the sets can be thrown away once the graph has been created.
    *
-   * <p>For example, if the graph has verticies [A, B, C, D] and edges [(A, B), (A, C), (B, D)],
-   * then the map should be:
+   * @param verticies The set of verticies in the graph.
+   * @param edges The set of edges in the graph.
+   * @param storage Where to keep the edges.
+   */
+  public Graph(Set<T> verticies, Set<Edge<T>> edges, GraphStorage storage) {
+    /*
+       Contructor for the class
+    */
+    this(verticies, edges, storage, VertexOrder.getDefault());
+  }
+
+  /**
+   * Creates a new graph whose edges are kept in the given storage, and whose verticies are ranked
+   * in the given order. The verticies are only compared while they are ranked.
    *
-   * <p>A -> [(A, B), (A, C)]
+   * @param verticies The set of verticies in the graph.
+   * @param edges The set of edges in the graph.
+   * @param storage Where to keep the edges.
+   * @param order The order to rank the verticies in.
    */
-  public void createVerticesEdgesMap() {
+  public Graph(Set<T> verticies, Set<Edge<T>> edges, GraphStorage storage, VertexOrder order) {
     /*
-        Creates a HashMap of verticies to edges
+       Contructor for the class
     */
-    for (T vertex : verticies) {
-      LinkedList<Edge<T>> edgesLinkedList = new LinkedList<>();
-      for (Edge<T> edge : this.edges) {
-        if (edge.getSource().equals(vertex)) {
-          if (edgesLinkedList.isEmpty()) {
-            edgesLinkedList.add(edge);
-            continue;
-          }
+    List<T> sorted = new ArrayList<T>(verticies);
+    sorted.sort(order.comparator());
+    this.order = order;
+    this.verticies = Collections.unmodifiableList(sorted);
+    this.ids = new HashMap<T, Integer>();
+    for (int i = 0; i < sorted.size(); i++) {
+      ids.put(sorted.get(i), i);
+    }
 
-          int i = 0;
-          Node<Edge<T>> n = edgesLinkedList.head;
+    List<Edge<T>> list = new ArrayList<Edge<T>>(edges);
+    int[] sources = new int[list.size()];
+    int[] destinations = new int[list.size()];
+    Arrays.parallelSetAll(sources, i -> ids.get(list.get(i).getSource()));
+    Arrays.parallelSetAll(destinations, i -> ids.get(list.get(i).getDestination()));
+    this.requestedStorage = storage;
+    this.storage = storage.choose(sorted.size(), sources.length);
+    this.adjacency = buildAdjacency(this.storage, sorted.size(), sources, destinations);
+    this.version = VERSIONS.incrementAndGet();
+    WorkCounter.EDGES_SCANNED.add(2L * edges.size());
+  }
 
-          while (n != null) {
-            if (edge.getDestination().compareTo(n.getData().getDestination()) < 0) {
-              edgesLinkedList.insert(i, edge);
-              break;
-            }
-            if (n.getNext() == null) {
-              edgesLinkedList.add(edge);
-              break;
-            }
-            i++;
-            n = n.getNext();
-          }
+  /**
+   * Creates a new graph from edges given as positions in a list of verticies, without an object for
+   * each edge. Used by {@link GraphBuilder}.
+   *
+   * @param verticies The verticies of the graph, each listed once, in any order.
+   * @param sources The position in the list of the vertex each edge leaves, which is overwritten.
+   * @param destinations The position in the list of the vertex each edge arrives at, in the same
+   *     order, which is overwritten.
+   * @param storage Where to keep the edges.
+   * @param order The order to rank the verticies in.
+   */
+  Graph(
+      List<T> verticies,
+      int[] sources,
+      int[] destinations,
+      GraphStorage storage,
+      VertexOrder order) {
+    /*
+       Contructor for the class
+    */
+    List<T> sorted = new ArrayList<T>(verticies);
+    sorted.sort(order.comparator());
+    this.order = order;
+    this.verticies = Collections.unmodifiableList(sorted);
+    this.ids = new HashMap<T, Integer>();
+    for (int i = 0; i < sorted.size(); i++) {
+      ids.put(sorted.get(i), i);
+    }
+
+    // Each position is looked up once, however many edges it has.
+    int[] ranks = new int[verticies.size()];
+    Arrays.parallelSetAll(ranks, i -> ids.get(verticies.get(i)));
+    Arrays.parallelSetAll(sources, i -> ranks[sources[i]]);
+    Arrays.parallelSetAll(destinations, i -> ranks[destinations[i]]);
+    this.requestedStorage = storage;
+    this.storage = storage.choose(sorted.size(), sources.length);
+    this.adjacency = buildAdjacency(this.storage, sorted.size(), sources, destinations);
+    this.version = VERSIONS.incrementAndGet();
+    WorkCounter.EDGES_SCANNED.add(2L * sources.length);
+  }
+
+  /**
+   * Creates an updated graph with the same verticies as a graph and the given edges. The verticies
+   * and their ranks are shared with the graph, and each answer of the graph that the changed edges
+   * cannot have changed, or that the changed edges alone decide, is kept.
+   *
+   * @param previous the graph that was updated
+   * @param storage where the edges are kept
+   * @param adjacency the edges of the updated graph
+   * @param inserted the distinct edges that were inserted, as a source rank in the upper half and a
+   *     destination rank in the lower half
+   * @param removed the distinct edges that were removed, in the same form
+   */
+  private Graph(
+      Graph<T> previous,
+      GraphStorage storage,
+      Adjacency adjacency,
+      long[] inserted,
+      long[] removed) {
+    /*
+       Contructor for the class
+    */
+    this.order = previous.order;
+    this.verticies = previous.verticies;
+    this.ids = previous.ids;
+    this.requestedStorage = previous.requestedStorage;
+    this.storage = storage;
+    this.adjacency = adjacency;
+    this.version = VERSIONS.incrementAndGet();
+
+    // Each property is kept only if it is still known exactly, so the answers never differ from
+    // those of a graph built from scratch.
+    Boolean wasReflexive = previous.isReflexiveCache;
+    if (Boolean.TRUE.equals(wasReflexive)) {
+      isReflexiveCache = !hasLoop(removed);
+    } else if (Boolean.FALSE.equals(wasReflexive) && !hasLoop(inserted)) {
+      isReflexiveCache = false;
+    }
+
+    if (Boolean.TRUE.equals(previous.isSymmetricCache)) {
+      // Only the changed edges can have lost their reverse.
+      isSymmetricCache = isSymmetric(inserted) && isSymmetric(removed);
+    }
+
+    if (Boolean.TRUE.equals(previous.isAntiSymmetricCache)) {
+      // Removing edges never breaks anti-symmetry, so only the inserted edges are checked.
+      isAntiSymmetricCache = isAntiSymmetric(inserted);
+    }
+
+    if (Boolean.FALSE.equals(isReflexiveCache) || Boolean.FALSE.equals(isSymmetricCache)) {
+      isEquivalenceCache = false;
+    }
+  }
+
+  /**
+   * Builds the index of the edges of a new graph, recording the build as a flight recorder event.
+   *
+   * @param storage where to keep the edges, already chosen for the size of the graph
+   * @param vertexCount the number of verticies
+   * @param sources the rank of the vertex each edge leaves
+   * @param destinations the rank of the vertex each edge arrives at, in the same order
+   * @return the edges
+   */
+  private static Adjacency buildAdjacency(
+      GraphStorage storage, int vertexCount, int[] sources, int[] destinations) {
+    IndexBuildEvent event = new IndexBuildEvent();
+    event.begin();
+    Adjacency adjacency = CsrBuilder.build(storage, vertexCount, sources, destinations);
+    WorkCounter.INDEX_BUILDS.increment();
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.representation = adjacency.getRepresentation();
+      event.verticies = vertexCount;
+      event.edges = adjacency.getEdgeCount();
+      event.commit();
+    }
+
+    return adjacency;
+  }
+
+  /**
+   * Updates the graph to the verticies and edges of a builder, such as those of a file read again
+   * after it changed. If the builder has exactly the verticies of the graph, its distinct edges are
+   * compared with those of the graph: if none changed the graph itself is kept, with every answer
+   * it has worked out, and otherwise the updated graph shares the ranks of the verticies and keeps
+   * each answer that the inserted and removed edges do not change. If the verticies changed, their
+   * ranks change too, so the graph is built from scratch. Either way the edges are kept in the
+   * storage this graph was built with.
+   *
+   * @param next the verticies and edges to update the graph to
+   * @return the updated graph, and how many edges were inserted and removed
+   */
+  public GraphUpdate<T> update(GraphBuilder<T> next) {
+    /*
+        Ranks the edges of the builder by the verticies of this graph, indexes them, then compares
+        the destinations of each vertex in both graphs
+    */
+    boolean isSameVerticies = next.getVertexCount() == verticies.size();
+    int[] ranks = new int[next.getVertexCount()];
+    for (int i = 0; isSameVerticies && i < ranks.length; i++) {
+      Integer id = ids.get(next.getVertex(i));
+      isSameVerticies = id != null;
+      ranks[i] = isSameVerticies ? id : -1;
+    }
+
+    if (!isSameVerticies) {
+      return new GraphUpdate<T>(next.build(requestedStorage, order), 0, 0, true);
+    }
+
+    int[] sources = new int[next.getEdgeCount()];
+    int[] destinations = new int[next.getEdgeCount()];
+    Arrays.parallelSetAll(sources, i -> ranks[next.getSource(i)]);
+    Arrays.parallelSetAll(destinations, i -> ranks[next.getDestination(i)]);
+    GraphStorage nextStorage = requestedStorage.choose(verticies.size(), sources.length);
+    Adjacency nextAdjacency = buildAdjacency(nextStorage, verticies.size(), sources, destinations);
+
+    long[] inserted = diff(nextAdjacency, adjacency);
+    long[] removed = diff(adjacency, nextAdjacency);
+    WorkCounter.EDGES_SCANNED.add(2L * (adjacency.getEdgeCount() + nextAdjacency.getEdgeCount()));
+
+    if (inserted.length == 0 && removed.length == 0) {
+      // The new index is only needed to compare, so off-heap memory is given back straight away.
+      nextAdjacency.close();
+      return new GraphUpdate<T>(this, 0, 0, false);
+    }
+
+    return new GraphUpdate<T>(
+        new Graph<T>(this, nextStorage, nextAdjacency, inserted, removed),
+        inserted.length,
+        removed.length,
+        false);
+  }
+
+  /**
+   * Finds the edges of one index that another index of the same verticies does not have. The
+   * destinations of each vertex are distinct and in ascending order in both, so they are merged.
+   *
+   * @param edges the index to take the edges from
+   * @param others the index to leave out the edges of
+   * @return the edges, as a source rank in the upper half and a destination rank in the lower half
+   */
+  private static long[] diff(Adjacency edges, Adjacency others) {
+    LongStream.Builder found = LongStream.builder();
+    int[] buffer = new int[edges.getMaxOutDegree()];
+    int[] otherBuffer = new int[others.getMaxOutDegree()];
+
+    for (int v = 0; v < edges.getVertexCount(); v++) {
+      int count = edges.getNeighbours(v, buffer);
+      int otherCount = others.getNeighbours(v, otherBuffer);
+      int j = 0;
+      for (int i = 0; i < count; i++) {
+        while (j < otherCount && otherBuffer[j] < buffer[i]) {
+          j++;
+        }
+        if (j == otherCount || otherBuffer[j] != buffer[i]) {
+          found.add(((long) v << 32) | buffer[i]);
         }
       }
-      verticesEdgesMap.put(vertex, edgesLinkedList);
     }
+
+    return found.build().toArray();
   }
 
   /**
-   * Returns the set of roots in the graph.
+   * Checks if any of a number of edges is a loop from a vertex to itself.
    *
-   * <p>A root is a vertex that has no incoming edges. or if it has incoming edges, all of its
-   * incoming edges are from vertices that are in the same equivalence class as it.
+   * @param edges the edges, as a source rank in the upper half and a destination rank in the lower
+   *     half
+   * @return true if there is a loop
+   */
+  private static boolean hasLoop(long[] edges) {
+    for (long edge : edges) {
+      if ((int) (edge >>> 32) == (int) edge) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if each of a number of edges is in this graph exactly when its reverse is.
    *
-   * @return roots
+   * @param edges the edges, as a source rank in the upper half and a destination rank in the lower
+   *     half
+   * @return true if no edge is without its reverse
    */
-  public Set<T> getRoots() {
+  private boolean isSymmetric(long[] edges) {
+    for (long edge : edges) {
+      int source = (int) (edge >>> 32);
+      int destination = (int) edge;
+      if (adjacency.hasEdge(source, destination) != adjacency.hasEdge(destination, source)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks that none of a number of edges between two different verticies has its reverse in this
+   * graph.
+   *
+   * @param edges the edges, as a source rank in the upper half and a destination rank in the lower
+   *     half
+   * @return true if no edge has its reverse
+   */
+  private boolean isAntiSymmetric(long[] edges) {
+    for (long edge : edges) {
+      int source = (int) (edge >>> 32);
+      int destination = (int) edge;
+      if (source != destination && adjacency.hasEdge(destination, source)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the version of the graph, which is different for every graph built in this JVM, so
+   * results kept for one graph are never mistaken for those of a graph built later.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns a fingerprint of the content of the graph: a SHA-256 hash of the order the verticies
+   * are ranked in, every vertex in rank order, and the destinations of every vertex. Every storage
+   * keeps a repeated edge once, so two graphs with the same fingerprint have the same answers to
+   * every question, whichever files they were read from, however often those files repeat an edge,
+   * and wherever their edges are stored.
+   *
+   * <p>The fingerprint is worked out on the first call and kept, as the graph cannot change.
+   *
+   * @return the fingerprint as hexadecimal digits
+   */
+  public String getFingerprint() {
     /*
-        Returns the set of roots in the graph
+        Feeds the verticies and the edges into the hash through a buffer
     */
-    Set<T> roots = new HashSet<T>();
+    String fingerprint = fingerprintCache;
+    if (fingerprint != null) {
+      return fingerprint;
+    }
+
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+
+    digest.update(order.name().getBytes(StandardCharsets.UTF_8));
+    ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+    bytes.putInt(verticies.size());
     for (T vertex : verticies) {
-      if (roots.contains(vertex)) {
-        continue;
+      byte[] name = String.valueOf(vertex).getBytes(StandardCharsets.UTF_8);
+      if (bytes.remaining() < Integer.BYTES + name.length) {
+        digest.update(bytes.flip());
+        bytes.clear();
       }
-
-      if (this.getOutDegree(vertex) > 0 && this.getInDegree(vertex) <= 0) {
-        roots.add(vertex);
+      bytes.putInt(name.length);
+      if (name.length > bytes.remaining()) {
+        digest.update(bytes.flip());
+        bytes.clear();
+        digest.update(name);
       } else {
-        if (this.getEquivalenceClass(vertex).size() > 0) {
-          roots.add(this.getMin(getEquivalenceClass(vertex)));
+        bytes.put(name);
+      }
+    }
+
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    for (int v = 0; v < verticies.size(); v++) {
+      int count = adjacency.getNeighbours(v, buffer);
+      for (int i = 0; i < count; i++) {
+        if (bytes.remaining() < 2 * Integer.BYTES) {
+          digest.update(bytes.flip());
+          bytes.clear();
         }
+        bytes.putInt(v).putInt(buffer[i]);
       }
-      // use linked hashset to maintain sorted order
     }
-    LinkedHashSet<T> sortedRoots = this.sortArray(roots);
-    return sortedRoots;
+    digest.update(bytes.flip());
+    WorkCounter.EDGES_SCANNED.add(adjacency.getEdgeCount());
+
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    fingerprint = hex.toString();
+    fingerprintCache = fingerprint;
+    return fingerprint;
   }
 
   /**
-   * Sorts a set of verticies by converting the set to an array, sorting the array, and then
-   * converting the array back to a set.
+   * Gathers every answer the graph has worked out so far, so that they can be saved and given to a
+   * graph with the same fingerprint with {@link #importResults(GraphResults)}.
    *
-   * @param roots the set of verticies that we want to sort
-   * @return sortedRoots
+   * @return the answers worked out so far
    */
-  public LinkedHashSet<T> sortArray(Set<T> roots) {
+  public GraphResults exportResults() {
     /*
-        Sorts a set of verticies by converting the set to an
-        array, sorting the array, and then converting the array back to a set
+        Reads each cache, leaving out the ones that are still empty
     */
-    LinkedHashSet<T> sortedRoots = new LinkedHashSet<T>();
-    ArrayList<T> rootsArray = new ArrayList<T>();
+    int known = 0;
+    int holding = 0;
+    Boolean[] properties = {
+      isReflexiveCache,
+      isSymmetricCache,
+      isAntiSymmetricCache,
+      isTransitiveCache,
+      isEquivalenceCache,
+      topologicalOrderCache == null ? null : topologicalOrderCache.isAcyclic()
+    };
+    int[] bits = {
+      GraphResults.REFLEXIVE,
+      GraphResults.SYMMETRIC,
+      GraphResults.ANTI_SYMMETRIC,
+      GraphResults.TRANSITIVE,
+      GraphResults.EQUIVALENCE,
+      GraphResults.ACYCLIC
+    };
+    for (int i = 0; i < bits.length; i++) {
+      if (properties[i] != null) {
+        known |= bits[i];
+        holding |= properties[i] ? bits[i] : 0;
+      }
+    }
 
-    for (T vertex : roots) {
-      rootsArray.add(vertex);
+    BitSet roots = rootIdsCache;
+    Map<String, int[]> orders = new HashMap<String, int[]>();
+    if (roots != null) {
+      orders.putAll(TraversalCache.getInstance().getOrders(version, roots));
+    }
+    TopologicalOrder sort = topologicalOrderCache;
+    if (sort != null) {
+      orders.put(TOPOLOGICAL_ORDER, sort.getOrder());
+      orders.put(CYCLE, sort.getCycle());
     }
 
-    Collections.sort(rootsArray);
+    int[] classes = null;
+    Map<T, Set<T>> equivalenceClasses = equivalenceClassesCache;
+    if (equivalenceClasses != null && Boolean.TRUE.equals(isEquivalenceCache)) {
+      classes = new int[verticies.size()];
+      for (int v = 0; v < verticies.size(); v++) {
+        Set<T> members = equivalenceClasses.get(verticies.get(v));
+        classes[v] = members.isEmpty() ? v : ids.get(members.iterator().next());
+      }
+    }
 
-    for (T vertex : rootsArray) {
-      sortedRoots.add(vertex);
+    return new GraphResults(
+        verticies.size(),
+        known,
+        holding,
+        roots == null ? null : roots.stream().toArray(),
+        classes,
+        orders);
+  }
+
+  /**
+   * Fills the caches of the graph with answers worked out before, by a graph with the same
+   * fingerprint, so they do not need to be worked out again. Answers the graph already has are
+   * kept.
+   *
+   * @param results the answers worked out before
+   * @throws IllegalArgumentException if the answers are for a graph of a different size
+   */
+  public void importResults(GraphResults results) {
+    /*
+        Fills each empty cache that the results have an answer for
+    */
+    if (results.getVertexCount() != verticies.size()) {
+      throw new IllegalArgumentException(
+          "results for " + results.getVertexCount() + " verticies, not " + verticies.size());
     }
 
-    return sortedRoots;
+    if (isReflexiveCache == null && results.isKnown(GraphResults.REFLEXIVE)) {
+      isReflexiveCache = results.holds(GraphResults.REFLEXIVE);
+    }
+    if (isSymmetricCache == null && results.isKnown(GraphResults.SYMMETRIC)) {
+      isSymmetricCache = results.holds(GraphResults.SYMMETRIC);
+    }
+    if (isAntiSymmetricCache == null && results.isKnown(GraphResults.ANTI_SYMMETRIC)) {
+      isAntiSymmetricCache = results.holds(GraphResults.ANTI_SYMMETRIC);
+    }
+    if (isTransitiveCache == null && results.isKnown(GraphResults.TRANSITIVE)) {
+      isTransitiveCache = results.holds(GraphResults.TRANSITIVE);
+    }
+    if (isEquivalenceCache == null && results.isKnown(GraphResults.EQUIVALENCE)) {
+      isEquivalenceCache = results.holds(GraphResults.EQUIVALENCE);
+    }
+
+    Map<String, int[]> orders = results.getOrders();
+    if (topologicalOrderCache == null
+        && orders.containsKey(TOPOLOGICAL_ORDER)
+        && orders.containsKey(CYCLE)) {
+      topologicalOrderCache =
+          new TopologicalOrder(orders.get(TOPOLOGICAL_ORDER), orders.get(CYCLE));
+    }
+
+    if (rootIdsCache == null && results.getRoots() != null) {
+      BitSet roots = new BitSet(verticies.size());
+      for (int root : results.getRoots()) {
+        roots.set(root);
+      }
+      rootIdsCache = roots;
+    }
+    BitSet roots = rootIdsCache;
+    for (String search : SEARCHES) {
+      if (roots != null && orders.containsKey(search)) {
+        TraversalCache.getInstance().put(version, search, roots, orders.get(search));
+      }
+    }
+
+    if (equivalenceClassesCache == null
+        && results.getClasses() != null
+        && results.getClasses().length == verticies.size()
+        && Boolean.TRUE.equals(isEquivalenceCache)) {
+      equivalenceClassesCache = toClasses(results.getClasses());
+    }
   }
 
   /**
-   * Returns the minimum vertex in an equivalence class using the compareTo method and a for loop.
+   * Groups the verticies of an equivalence relation by the smallest member of their class.
    *
-   * @param equivalenceClass the equivalence class that we want to find the minimum value of
-   * @return min
+   * @param classes the smallest member of the class of each vertex
+   * @return the equivalence class of each vertex, with every member of a class sharing one set
    */
-  private T getMin(Set<T> equivalenceClass) {
-    T min = equivalenceClass.stream().findFirst().get();
+  private Map<T, Set<T>> toClasses(int[] classes) {
+    int[] starts = new int[verticies.size() + 1];
+    for (int leader : classes) {
+      starts[leader + 1]++;
+    }
+    for (int v = 0; v < verticies.size(); v++) {
+      starts[v + 1] += starts[v];
+    }
 
-    for (T vertex : equivalenceClass) {
-      if (vertex.compareTo(min) < 0) {
-        min = vertex;
+    // Filling each class in ascending order keeps its members in rank order.
+    int[] members = new int[verticies.size()];
+    int[] cursors = starts.clone();
+    for (int v = 0; v < verticies.size(); v++) {
+      members[cursors[classes[v]]++] = v;
+    }
+
+    Map<T, Set<T>> result = new HashMap<T, Set<T>>();
+    for (int leader = 0; leader < verticies.size(); leader++) {
+      if (starts[leader] == starts[leader + 1]) {
+        continue;
+      }
+      Set<T> equivalenceClass =
+          new VertexSet<T>(
+              verticies, ids, Arrays.copyOfRange(members, starts[leader], starts[leader + 1]));
+      for (int i = starts[leader]; i < starts[leader + 1]; i++) {
+        result.put(verticies.get(members[i]), equivalenceClass);
       }
     }
 
-    return min;
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Returns where the edges of the graph are kept, after {@link GraphStorage#AUTO} has been
+   * resolved.
+   *
+   * @return the storage
+   */
+  public GraphStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * Returns the number of verticies in the graph.
+   *
+   * @return the vertex count
+   */
+  public int getVertexCount() {
+    return verticies.size();
+  }
+
+  /**
+   * Returns the number of edges in the graph.
+   *
+   * @return the edge count
+   */
+  public long getEdgeCount() {
+    return adjacency.getEdgeCount();
+  }
+
+  /**
+   * Returns the edges of the graph, between the numbers of the verticies.
+   *
+   * @return the adjacency
+   */
+  public Adjacency getAdjacency() {
+    return adjacency;
+  }
+
+  /**
+   * Creates a map of verticies to edges.
+   *
+   * <p>The graph answers every question from its {@link Adjacency}, so no map of verticies to edges
+   * is made or kept, and this method does nothing. It is kept so that existing callers still
+   * compile; the edges of a vertex are read from {@link #getAdjacency()} instead.
+   *
+   * @deprecated the graph keeps no map of verticies to edges
+   */
+  @Deprecated
+  public void createVerticesEdgesMap() {
+    /*
+        Nothing to create, as the edges are only kept in the index
+    */
   }
 
   /**
-   * Returns the in degree of a vertex by iterating through the edges and counting the number of
-   * edges that have the vertex as their destination.
+   * Returns the order the verticies are ranked in.
    *
-   * <p>The in degree of a vertex is the number of edges that have the vertex as their destination.
+   * @return the order
+   */
+  public VertexOrder getOrder() {
+    return order;
+  }
+
+  /**
+   * Returns the vertex with the given number. Verticies are numbered from zero in ascending order,
+   * so the number of a vertex is also its rank.
    *
-   * @param vertex the vertex that we want to find the in degree of
-   * @return inDegree
+   * @param id the number of the vertex
+   * @return the vertex
    */
-  private int getInDegree(T vertex) {
-    int inDegree = 0;
+  public T getVertex(int id) {
+    return verticies.get(id);
+  }
+
+  /**
+   * Returns the number of a vertex.
+   *
+   * @param vertex the vertex
+   * @return the number of the vertex, or -1 if the vertex is not in the graph
+   */
+  public int getId(T vertex) {
+    Integer id = ids.get(vertex);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns how the numbers of the verticies are split into shards, each holding about as many
+   * edges as fit in a level 2 cache. The property checks run over the shards in parallel. A vertex
+   * with more edges than a shard can hold is a shard on its own.
+   *
+   * @return where each shard starts, followed by the vertex count
+   */
+  public int[] getShards() {
+    return getShardStarts().clone();
+  }
+
+  /**
+   * Splits the numbers of the verticies into shards on the first call, and keeps the shards.
+   *
+   * @return where each shard starts, followed by the vertex count, which must not be changed
+   */
+  private int[] getShardStarts() {
+    /*
+        Starts a new shard whenever the current one is full of edges or verticies
+    */
+    int[] starts = shardStartsCache;
+    if (starts != null) {
+      return starts;
+    }
 
-    for (Edge<T> edge : edges) {
-      if (edge.getDestination().equals(vertex)) {
-        inDegree++;
+    int[] found = new int[verticies.size() + 1];
+    int count = 0;
+    long edges = 0;
+    for (int v = 0; v < verticies.size(); v++) {
+      if (v == 0 || edges >= SHARD_EDGES || v - found[count - 1] >= SHARD_VERTICIES) {
+        found[count++] = v;
+        edges = 0;
       }
+      edges += adjacency.getOutDegree(v);
     }
+    found[count++] = verticies.size();
+
+    starts = Arrays.copyOf(found, count);
+    shardStartsCache = starts;
+    return starts;
+  }
 
-    return inDegree;
+  /**
+   * Checks a single property over every shard of the graph at once, stopping every shard as soon as
+   * any of them finds the property does not hold.
+   *
+   * @param property the property to check
+   * @return true if the property holds, false otherwise.
+   */
+  private boolean holds(int property) {
+    return RelationChecker.check(adjacency, getShardStarts(), property, ForkJoinPool.commonPool())
+        == property;
   }
 
   /**
-   * Returns the out degree of a vertex by iterating through the edges and counting the number of
-   * edges that have the vertex as their source.
+   * Estimates the heap used by the graph's index, assuming compressed object pointers: the map from
+   * each vertex to its number, and the heap part of the edges. The verticies themselves are shared
+   * with the caller and are not counted.
    *
-   * <p>The out degree of a vertex is the number of edges that have the vertex as their source.
+   * @return the estimated size of the index in bytes
+   */
+  public long estimateIndexBytes() {
+    int needed = (int) Math.ceil(ids.size() / 0.75);
+    int tableSize = needed <= 1 ? 1 : Integer.highestOneBit(needed - 1) << 1;
+
+    // Each entry is a HashMap.Node holding a boxed number, and each vertex is in the sorted list.
+    return HASH_MAP_BYTES
+        + (long) tableSize * REFERENCE_BYTES
+        + (long) ids.size() * (HASH_MAP_NODE_BYTES + INTEGER_BYTES + REFERENCE_BYTES)
+        + adjacency.estimateHeapBytes();
+  }
+
+  /**
+   * Estimates the memory used by the edges outside the heap.
    *
-   * @param vertex the vertex that we want to find the out degree of
-   * @return outDegree
+   * @return the estimated size in bytes, which is zero for graphs stored on the heap
    */
-  private int getOutDegree(T vertex) {
-    int outDegree = verticesEdgesMap.get(vertex).size();
-    return outDegree;
+  public long estimateOffHeapBytes() {
+    return adjacency.estimateOffHeapBytes();
+  }
+
+  /**
+   * Adds a holder of the graph, such as a cache or an open file, which must call {@link #release()}
+   * once it no longer reads the graph. A graph that was never held is never closed, and is left to
+   * the garbage collector.
+   *
+   * @return true if the graph is held, or false if it has already been closed
+   */
+  public boolean retain() {
+    /*
+        Counts one more holder, unless the count has already reached zero and closed the graph
+    */
+    int count = holders.get();
+    while (count >= 0) {
+      if (holders.compareAndSet(count, count + 1)) {
+        return true;
+      }
+      count = holders.get();
+    }
+    return false;
+  }
+
+  /**
+   * Removes a holder of the graph. Once the last holder has released it, the edges are closed,
+   * which frees any memory they hold outside the heap, and the graph must not be read again.
+   */
+  public void release() {
+    /*
+        Closes the edges only if no new holder arrived after the count reached zero
+    */
+    if (holders.decrementAndGet() == 0 && holders.compareAndSet(0, -1)) {
+      adjacency.close();
+    }
+  }
+
+  /**
+   * Returns the set of roots in the graph.
+   *
+   * <p>A root is a vertex that has no incoming edges. or if it has incoming edges, all of its
+   * incoming edges are from vertices that are in the same equivalence class as it.
+   *
+   * @return roots
+   */
+  public Set<T> getRoots() {
+    /*
+        Returns the set of roots in the graph
+    */
+    LinkedHashSet<T> roots = new LinkedHashSet<T>();
+    BitSet rootIds = getRootIds();
+    for (int v = rootIds.nextSetBit(0); v >= 0; v = rootIds.nextSetBit(v + 1)) {
+      roots.add(verticies.get(v));
+    }
+    return roots;
+  }
+
+  /**
+   * Finds the numbers of the roots. A vertex with outgoing edges is a root if it has no incoming
+   * edges, and if the graph is an equivalence relation the smallest member of each class is a root.
+   *
+   * <p>The roots are worked out on the first call and kept, as the graph cannot change.
+   *
+   * @return the numbers of the roots, which iterate in ascending order and must not be changed
+   */
+  private BitSet getRootIds() {
+    BitSet roots = rootIdsCache;
+    if (roots != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return roots;
+    }
+    WorkCounter.CACHE_MISSES.increment();
+
+    roots = new BitSet(verticies.size());
+
+    // A graph already known to be acyclic has no loops, so it cannot be an equivalence relation.
+    TopologicalOrder sorted = topologicalOrderCache;
+    boolean isEquivalence = (sorted == null || !sorted.isAcyclic()) && isEquivalence();
+
+    for (int v = 0; v < verticies.size(); v++) {
+      if (adjacency.getOutDegree(v) == 0) {
+        continue;
+      }
+
+      if (adjacency.getInDegree(v) <= 0) {
+        roots.set(v);
+      } else if (isEquivalence) {
+        // The destinations are in ascending order, so the first is the smallest of the class.
+        roots.set(adjacency.getNeighbour(v, 0));
+      }
+    }
+
+    rootIdsCache = roots;
+    return roots;
+  }
+
+  /**
+   * Sorts a set of verticies by marking the rank of each vertex in a bit set, and then reading the
+   * bit set in order. Verticies that are not in the graph have no rank, so they are compared and
+   * added at the end.
+   *
+   * @param roots the set of verticies that we want to sort
+   * @return sortedRoots
+   */
+  public LinkedHashSet<T> sortArray(Set<T> roots) {
+    /*
+        Sorts a set of verticies by their ranks, falling back on comparing any verticies that are
+        not in the graph
+    */
+    LinkedHashSet<T> sortedRoots = new LinkedHashSet<T>();
+    BitSet ranks = new BitSet(verticies.size());
+    List<T> unranked = new ArrayList<T>();
+
+    for (T vertex : roots) {
+      Integer rank = ids.get(vertex);
+      if (rank == null) {
+        unranked.add(vertex);
+      } else {
+        ranks.set(rank);
+      }
+    }
+
+    for (int rank = ranks.nextSetBit(0); rank >= 0; rank = ranks.nextSetBit(rank + 1)) {
+      sortedRoots.add(verticies.get(rank));
+    }
+    unranked.sort(order.comparator());
+    sortedRoots.addAll(unranked);
+
+    return sortedRoots;
   }
 
   /**
@@ -198,6 +941,8 @@ public class Graph<T extends Comparable<T>> {
    *
    * <p>A graph is reflexive if every vertex has an edge to itself.
    *
+   * <p>The answer is worked out on the first call, or by {@link #analyze()}, and kept.
+   *
    * @return true if the graph is reflexive, false otherwise.
    */
   public boolean isReflexive() {
@@ -205,29 +950,18 @@ public class Graph<T extends Comparable<T>> {
         Checks if the graph is reflexive by iterating through the edges and checking if every
         vertex has an edge to itself.
     */
-
-    Boolean doesContain;
-    for (Entry<T, LinkedList<Edge<T>>> set : verticesEdgesMap.entrySet()) {
-      if (set.getValue().isEmpty()) {
-        return false;
-      }
-
-      Node<Edge<T>> nodeEdge = set.getValue().head;
-      doesContain = false;
-
-      while (nodeEdge != null) {
-        if (set.getKey().equals(nodeEdge.getData().getDestination())) {
-          doesContain = true;
-          break;
-        }
-        nodeEdge = nodeEdge.getNext();
-      }
-      if (!doesContain) {
-        return false;
-      }
+    Boolean cached = isReflexiveCache;
+    if (cached != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return cached;
     }
+    WorkCounter.CACHE_MISSES.increment();
 
-    return true;
+    PropertyCheckEvent event = new PropertyCheckEvent("reflexive");
+    cached = holds(RelationChecker.REFLEXIVE);
+    isReflexiveCache = cached;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), cached);
+    return cached;
   }
 
   /**
@@ -236,6 +970,8 @@ public class Graph<T extends Comparable<T>> {
    *
    * <p>A graph is symmetric if for every edge (A, B), there is also an edge (B, A).
    *
+   * <p>The answer is worked out on the first call, or by {@link #analyze()}, and kept.
+   *
    * @return true if the graph is symmetric, false otherwise.
    */
   public boolean isSymmetric() {
@@ -243,25 +979,18 @@ public class Graph<T extends Comparable<T>> {
         Checks if the graph is symmetric by iterating through the edges and
         checking if for every edge (A, B), there is also an edge (B, A).
     */
-    for (Edge<T> edge : edges) {
-      T destination = edge.getDestination();
-      LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(destination);
-      Node<Edge<T>> nodeEdge = edgesLinkedList.head;
-      Boolean doesContain = false;
-
-      while (nodeEdge != null) {
-        if (nodeEdge.getData().getDestination().equals(edge.getSource())) {
-          doesContain = true;
-          break;
-        }
-        nodeEdge = nodeEdge.getNext();
-      }
-      if (!doesContain) {
-        return false;
-      }
+    Boolean cached = isSymmetricCache;
+    if (cached != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return cached;
     }
+    WorkCounter.CACHE_MISSES.increment();
 
-    return true;
+    PropertyCheckEvent event = new PropertyCheckEvent("symmetric");
+    cached = holds(RelationChecker.SYMMETRIC);
+    isSymmetricCache = cached;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), cached);
+    return cached;
   }
 
   /**
@@ -270,6 +999,8 @@ public class Graph<T extends Comparable<T>> {
    *
    * <p>A graph is transitive if for every edge (A, B) and (B, C), there is also an edge (A, C).
    *
+   * <p>The answer is worked out on the first call, or by {@link #analyze()}, and kept.
+   *
    * @return true if the graph is transitive, false otherwise.
    */
   public boolean isTransitive() {
@@ -277,30 +1008,18 @@ public class Graph<T extends Comparable<T>> {
         Checks if the graph is transitive by iterating through the edges and
         checking if for every edge (A, B) and (B, C), there is also an edge (A, C).
     */
-    for (Edge<T> edge : edges) {
-      T destination = edge.getDestination();
-      LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(destination);
-      Node<Edge<T>> nodeEdge = edgesLinkedList.head;
-
-      while (nodeEdge != null) {
-        LinkedList<Edge<T>> edgesLinkedList2 = verticesEdgesMap.get(edge.getSource());
-        Node<Edge<T>> nodeEdge2 = edgesLinkedList2.head;
-        Boolean doesContain = false;
-
-        while (nodeEdge2 != null) {
-          if (nodeEdge2.getData().getDestination().equals(edge.getSource())) {
-            doesContain = true;
-            break;
-          }
-          nodeEdge2 = nodeEdge2.getNext();
-        }
-        if (!doesContain) {
-          return false;
-        }
-        nodeEdge = nodeEdge.getNext();
-      }
+    Boolean cached = isTransitiveCache;
+    if (cached != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return cached;
     }
-    return true;
+    WorkCounter.CACHE_MISSES.increment();
+
+    PropertyCheckEvent event = new PropertyCheckEvent("transitive");
+    cached = holds(RelationChecker.TRANSITIVE);
+    isTransitiveCache = cached;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), cached);
+    return cached;
   }
 
   /**
@@ -310,6 +1029,8 @@ public class Graph<T extends Comparable<T>> {
    * <p>A graph is anti-symmetric if for every edge (A, B), if there is also an edge (B, A), then A
    * = B.
    *
+   * <p>The answer is worked out on the first call, or by {@link #analyze()}, and kept.
+   *
    * @return true if the graph is anti-symmetric, false otherwise.
    */
   public boolean isAntiSymmetric() {
@@ -317,21 +1038,18 @@ public class Graph<T extends Comparable<T>> {
         Checks if the graph is anti-symmetric by iterating through the edges and
         checking if for every edge (A, B), if there is also an edge (B, A), then A = B.
     */
-    for (Edge<T> edge : edges) {
-      T destination = edge.getDestination();
-      LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(destination);
-      Node<Edge<T>> nodeEdge = edgesLinkedList.head;
-
-      while (nodeEdge != null) {
-        if (nodeEdge.getData().getDestination().equals(edge.getSource())) {
-          if (!nodeEdge.getData().getSource().equals(nodeEdge.getData().getDestination())) {
-            return false;
-          }
-        }
-        nodeEdge = nodeEdge.getNext();
-      }
+    Boolean cached = isAntiSymmetricCache;
+    if (cached != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return cached;
     }
-    return true;
+    WorkCounter.CACHE_MISSES.increment();
+
+    PropertyCheckEvent event = new PropertyCheckEvent("antisymmetric");
+    cached = holds(RelationChecker.ANTI_SYMMETRIC);
+    isAntiSymmetricCache = cached;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), cached);
+    return cached;
   }
 
   /**
@@ -340,6 +1058,9 @@ public class Graph<T extends Comparable<T>> {
    *
    * <p>A graph is an equivalence relation if it is reflexive, symmetric and transitive.
    *
+   * <p>The answer is worked out on the first call and kept, as the graph cannot change and {@link
+   * #getRoots()} asks for it on every search.
+   *
    * @return true if the graph is an equivalence relation, false otherwise.
    */
   public boolean isEquivalence() {
@@ -347,10 +1068,75 @@ public class Graph<T extends Comparable<T>> {
         Checks if the graph is an equivalence relation by checking if it is reflexive, symmetric
         and transitive (using the methods above).
     */
-    if (isReflexive() && isSymmetric() && isTransitive()) {
-      return true;
+    Boolean cached = isEquivalenceCache;
+    if (cached != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return cached;
     }
-    return false;
+    WorkCounter.CACHE_MISSES.increment();
+
+    PropertyCheckEvent event = new PropertyCheckEvent("equivalence");
+    cached = isReflexive() && isSymmetric() && isTransitive();
+    isEquivalenceCache = cached;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), cached);
+    return cached;
+  }
+
+  /**
+   * Checks every property of the relation in a single pass over the edges, and keeps the answers so
+   * that {@link #isReflexive()}, {@link #isSymmetric()}, {@link #isAntiSymmetric()}, {@link
+   * #isTransitive()} and {@link #isEquivalence()} return at once afterwards.
+   *
+   * <p>The destinations of each vertex are read once and shared by every property. A property stops
+   * being checked as soon as it is found not to hold, or if it is already known, and the pass stops
+   * early once no property is left to check. The shards of the graph are checked in parallel.
+   */
+  public void analyze() {
+    /*
+        Checks the properties that are still undecided over every shard at once
+    */
+    boolean checkReflexive = isReflexiveCache == null;
+    boolean checkSymmetric = isSymmetricCache == null;
+    boolean checkAntiSymmetric = isAntiSymmetricCache == null;
+    boolean checkTransitive = isTransitiveCache == null;
+    if (!checkReflexive && !checkSymmetric && !checkAntiSymmetric && !checkTransitive) {
+      WorkCounter.CACHE_HITS.increment();
+      isEquivalence();
+      return;
+    }
+    WorkCounter.CACHE_MISSES.increment();
+
+    PropertyCheckEvent event = new PropertyCheckEvent("all");
+    int properties =
+        (checkReflexive ? RelationChecker.REFLEXIVE : 0)
+            | (checkSymmetric ? RelationChecker.SYMMETRIC : 0)
+            | (checkAntiSymmetric ? RelationChecker.ANTI_SYMMETRIC : 0)
+            | (checkTransitive ? RelationChecker.TRANSITIVE : 0);
+    int holding =
+        RelationChecker.check(adjacency, getShardStarts(), properties, ForkJoinPool.commonPool());
+    boolean isReflexive = (holding & RelationChecker.REFLEXIVE) != 0;
+    boolean isSymmetric = (holding & RelationChecker.SYMMETRIC) != 0;
+    boolean isAntiSymmetric = (holding & RelationChecker.ANTI_SYMMETRIC) != 0;
+    boolean isTransitive = (holding & RelationChecker.TRANSITIVE) != 0;
+
+    // Only properties that were undecided are kept, as the others may have been skipped part way.
+    if (isReflexiveCache == null) {
+      isReflexiveCache = isReflexive;
+    }
+    if (isSymmetricCache == null) {
+      isSymmetricCache = isSymmetric;
+    }
+    if (isAntiSymmetricCache == null) {
+      isAntiSymmetricCache = isAntiSymmetric;
+    }
+    if (isTransitiveCache == null) {
+      isTransitiveCache = isTransitive;
+    }
+    if (isEquivalenceCache == null) {
+      isEquivalenceCache = isReflexiveCache && isSymmetricCache && isTransitiveCache;
+    }
+
+    event.finish(verticies.size(), adjacency.getEdgeCount(), isEquivalenceCache);
   }
 
   /**
@@ -369,19 +1155,221 @@ public class Graph<T extends Comparable<T>> {
         destination of each edge to a set. If the graph is not an equivalence relation or the
         vertex has no edges, then the equivalence class is empty.
     */
+    int v = getId(vertex);
+    if (v < 0 || !isEquivalence()) {
+      return new VertexSet<T>(verticies, ids, new int[0]);
+    }
+
+    // The destinations are already in ascending order, so they are the class in rank order.
+    int[] members = new int[adjacency.getOutDegree(v)];
+    adjacency.getNeighbours(v, members);
+    WorkCounter.EDGES_SCANNED.add(members.length);
+
+    return new VertexSet<T>(verticies, ids, members);
+  }
 
-    Set<T> equivalenceClass = new HashSet<T>();
-    Node<Edge<T>> nodeEdge = verticesEdgesMap.get(vertex).head;
-    if (!isEquivalence() || verticesEdgesMap.get(vertex).isEmpty()) {
-      return equivalenceClass;
+  /**
+   * Gets the equivalence class of every vertex at once, checking the equivalence relation only
+   * once. Every member of a class shares the same set, so each class is only gathered once.
+   *
+   * <p>The classes are worked out on the first call and kept, as the graph cannot change.
+   *
+   * @return the equivalence class of each vertex, which is empty for every vertex if the graph is
+   *     not an equivalence relation
+   */
+  public Map<T, Set<T>> getEquivalenceClasses() {
+    /*
+        Walks the edges of each vertex that is not yet in a class, and gives the class it finds to
+        every member of that class.
+    */
+    Map<T, Set<T>> classes = equivalenceClassesCache;
+    if (classes != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return classes;
     }
+    WorkCounter.CACHE_MISSES.increment();
+
+    classes = new HashMap<T, Set<T>>();
+    boolean isEquivalence = isEquivalence();
+    boolean[] isClassified = new boolean[verticies.size()];
+    long edgesScanned = 0;
 
-    while (nodeEdge != null) {
-      equivalenceClass.add(nodeEdge.getData().getDestination());
-      nodeEdge = nodeEdge.getNext();
+    for (int v = 0; v < verticies.size(); v++) {
+      if (isClassified[v]) {
+        continue;
+      }
+
+      int[] members = new int[isEquivalence ? adjacency.getOutDegree(v) : 0];
+      if (isEquivalence) {
+        edgesScanned += adjacency.getNeighbours(v, members);
+      }
+
+      Set<T> equivalenceClass = new VertexSet<T>(verticies, ids, members);
+      classes.put(verticies.get(v), equivalenceClass);
+      isClassified[v] = true;
+      for (int member : members) {
+        classes.put(verticies.get(member), equivalenceClass);
+        isClassified[member] = true;
+      }
     }
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
 
-    return equivalenceClass;
+    classes = Collections.unmodifiableMap(classes);
+    equivalenceClassesCache = classes;
+    return classes;
+  }
+
+  /**
+   * Gets which verticies can be reached from which, so that a batch of reachability questions can
+   * be answered with one search for each vertex asked about.
+   *
+   * <p>The reachability is worked out again on every call rather than kept with the graph, as it
+   * holds the results of its searches and is as large as the graph, so it is only kept for as long
+   * as a batch needs it.
+   *
+   * @return the reachability of every vertex, for one thread to use
+   */
+  public Reachability<T> getReachability() {
+    /*
+        Hands the numbered verticies and their edges to Reachability
+    */
+    Reachability<T> reachability = new Reachability<T>(verticies, ids, adjacency);
+    WorkCounter.EDGES_SCANNED.add(adjacency.getEdgeCount());
+    WorkCounter.VERTICES_VISITED.add(verticies.size());
+    return reachability;
+  }
+
+  /**
+   * Sorts the verticies so that every edge leads forwards, or finds a cycle if that cannot be done.
+   *
+   * <p>The sort is worked out on the first call and kept, as the graph cannot change.
+   *
+   * @return the sort
+   */
+  private TopologicalOrder getTopologicalSort() {
+    /*
+        Hands the edges to TopologicalOrder
+    */
+    TopologicalOrder sort = topologicalOrderCache;
+    if (sort != null) {
+      WorkCounter.CACHE_HITS.increment();
+      return sort;
+    }
+    WorkCounter.CACHE_MISSES.increment();
+
+    PropertyCheckEvent event = new PropertyCheckEvent("acyclic");
+    sort = new TopologicalOrder(adjacency);
+    WorkCounter.EDGES_SCANNED.add(adjacency.getEdgeCount());
+    WorkCounter.VERTICES_VISITED.add(verticies.size());
+    topologicalOrderCache = sort;
+    event.finish(verticies.size(), adjacency.getEdgeCount(), sort.isAcyclic());
+    return sort;
+  }
+
+  /**
+   * Checks if the graph has no cycles, so that it is a directed acyclic graph. A loop from a vertex
+   * to itself is a cycle.
+   *
+   * <p>The answer is worked out on the first call, along with the topological order, and kept.
+   *
+   * @return true if the graph is acyclic, false otherwise.
+   */
+  public boolean isAcyclic() {
+    return getTopologicalSort().isAcyclic();
+  }
+
+  /**
+   * Gets the verticies in topological order, where every edge leads from a vertex to one after it.
+   * Verticies with no incoming edges come first, in ascending order, followed by each vertex once
+   * every vertex with an edge into it has been placed.
+   *
+   * @return the verticies in topological order, or an empty list if the graph has a cycle
+   */
+  public List<T> getTopologicalOrder() {
+    return toVerticies(getTopologicalSort().getOrder());
+  }
+
+  /**
+   * Finds a cycle of the graph, as a witness that it has no topological order.
+   *
+   * @return the verticies of the cycle, starting and ending with the same vertex, or an empty list
+   *     if the graph is acyclic
+   */
+  public List<T> findCycle() {
+    return toVerticies(getTopologicalSort().getCycle());
+  }
+
+  /**
+   * Searches from every one of a number of sources at once, following at most the given number of
+   * edges. Each thread keeps one search for every graph, so its buffers are reused by every search
+   * it runs.
+   *
+   * @param sources the verticies to start from, ignoring any that are not in the graph
+   * @param maxDepth the most edges to follow from a source
+   * @return the search, which holds its results until the thread runs another search
+   */
+  private LevelSearch searchLevels(Collection<T> sources, int maxDepth) {
+    int[] ranks = new int[sources.size()];
+    int count = 0;
+    for (T source : sources) {
+      Integer rank = ids.get(source);
+      if (rank != null) {
+        ranks[count++] = rank;
+      }
+    }
+
+    LevelSearch search = LevelSearch.get();
+    TraversalEvent event = new TraversalEvent("LEVELS");
+    int visited = search.search(adjacency, ranks, count, maxDepth);
+    event.finish(verticies.size(), adjacency.getEdgeCount(), count, visited);
+    return search;
+  }
+
+  /**
+   * Finds the number of edges on a shortest path to every vertex that can be reached from any of
+   * the given sources, by a breadth first search from all of them at once.
+   *
+   * @param sources the verticies to start from, ignoring any that are not in the graph
+   * @param maxDepth the most edges to follow, or {@link Integer#MAX_VALUE} for no limit
+   * @return the distance from the nearest source to each vertex reached, in the order they were
+   *     reached, which is by ascending distance
+   */
+  public Map<T, Integer> getDistances(Collection<T> sources, int maxDepth) {
+    /*
+        Copies the levels of the visited verticies out of the search
+    */
+    LevelSearch search = searchLevels(sources, maxDepth);
+    Map<T, Integer> distances = new LinkedHashMap<T, Integer>();
+
+    for (int i = 0; i < search.getVisitedCount(); i++) {
+      int vertex = search.getVisited(i);
+      distances.put(verticies.get(vertex), search.getLevel(vertex));
+    }
+
+    return distances;
+  }
+
+  /**
+   * Finds every vertex within a number of edges of any of the given sources, the sources included,
+   * by a breadth first search from all of them at once that stops at that depth.
+   *
+   * @param sources the verticies to start from, ignoring any that are not in the graph
+   * @param hops the most edges to follow
+   * @return the verticies within reach, in the order of the graph
+   */
+  public Set<T> getNeighbourhood(Collection<T> sources, int hops) {
+    /*
+        Sorts the ranks of the visited verticies into a set
+    */
+    LevelSearch search = searchLevels(sources, hops);
+    int[] members = new int[search.getVisitedCount()];
+
+    for (int i = 0; i < members.length; i++) {
+      members[i] = search.getVisited(i);
+    }
+    Arrays.sort(members);
+
+    return new VertexSet<T>(verticies, ids, members);
   }
 
   /**
@@ -396,20 +1384,77 @@ public class Graph<T extends Comparable<T>> {
     /*
         Performs the breadth first search of the graph. Using an iterative approach.
     */
-    Set<T> roots = this.getRoots();
-    List<T> visited = new ArrayList<T>();
-    Queue<T> queue = new Queue<T>();
-    List<T> bfs = new ArrayList<T>();
+    TraversalEvent event = new TraversalEvent("IBFS");
+    BitSet roots = this.getRootIds();
+    List<T> bfs = toVerticies(search("BFS", roots, this::breadthFirstSearch));
+    event.finish(verticies.size(), adjacency.getEdgeCount(), roots.cardinality(), bfs.size());
+    return bfs;
+  }
 
-    for (T root : roots) {
-      queue.enqueue(root);
-      visited.add(root);
-      while (!queue.isEmpty()) {
-        this.getQueue(queue, bfs, visited);
+  /**
+   * Runs a search from the given roots, or reuses the order it visited the verticies in if the same
+   * search has already been run from the same roots on this version of the graph.
+   *
+   * @param algorithm the name of the search, which is the same for searches that visit the
+   *     verticies in the same order
+   * @param roots the numbers of the verticies to start searching from
+   * @param search the search
+   * @return the numbers of the verticies in the order they were visited, which must not be changed
+   */
+  private int[] search(String algorithm, BitSet roots, Function<BitSet, int[]> search) {
+    TraversalCache cache = TraversalCache.getInstance();
+    int[] order = cache.get(version, algorithm, roots);
+
+    if (order == null) {
+      order = search.apply(roots);
+      cache.put(version, algorithm, roots, order);
+    }
+
+    return order;
+  }
+
+  /**
+   * Performs a breadth first search from the given roots, in ascending order, using an array as the
+   * queue. A vertex is marked as visited when it is added to the queue, so it is only ever added
+   * once.
+   *
+   * @param roots the numbers of the verticies to start searching from
+   * @return the numbers of the verticies in the order they were visited
+   */
+  private int[] breadthFirstSearch(BitSet roots) {
+    boolean[] visited = new boolean[verticies.size()];
+    int[] queue = new int[verticies.size()];
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int tail = 0;
+    long edgesScanned = 0;
+
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      if (visited[root]) {
+        continue;
+      }
+
+      int head = tail;
+      queue[tail++] = root;
+      visited[root] = true;
+
+      while (head < tail) {
+        int count = adjacency.getNeighbours(queue[head++], buffer);
+        edgesScanned += count;
+
+        for (int i = 0; i < count; i++) {
+          if (!visited[buffer[i]]) {
+            queue[tail++] = buffer[i];
+            visited[buffer[i]] = true;
+          }
+        }
       }
     }
+    WorkCounter.VERTICES_VISITED.add(tail);
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
 
-    return bfs;
+    int[] order = new int[tail];
+    System.arraycopy(queue, 0, order, 0, tail);
+    return order;
   }
 
   /**
@@ -427,16 +1472,18 @@ public class Graph<T extends Comparable<T>> {
     */
     T vertex = (T) queue.dequeue();
     bfs.add(vertex);
-    LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(vertex);
-    Node<Edge<T>> nodeEdge = edgesLinkedList.head;
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int count = adjacency.getNeighbours(ids.get(vertex), buffer);
 
-    while (nodeEdge != null) {
-      if (!visited.contains(nodeEdge.getData().getDestination())) {
-        queue.enqueue(nodeEdge.getData().getDestination());
-        visited.add(nodeEdge.getData().getDestination());
+    for (int i = 0; i < count; i++) {
+      T destination = verticies.get(buffer[i]);
+      if (!visited.contains(destination)) {
+        queue.enqueue(destination);
+        visited.add(destination);
       }
-      nodeEdge = nodeEdge.getNext();
     }
+    WorkCounter.VERTICES_VISITED.increment();
+    WorkCounter.EDGES_SCANNED.add(count);
   }
 
   /**
@@ -451,32 +1498,58 @@ public class Graph<T extends Comparable<T>> {
     /*
         Performs the depth first search of the graph. Using an iterative approach.
     */
-    Set<T> roots = this.getRoots();
-    List<T> visited = new ArrayList<T>();
-    Stack<T> stack = new Stack<T>();
-    List<T> dfs = new ArrayList<T>();
-
-    for (T root : roots) {
-
-      stack.push(root);
-      visited.add(root);
-      while (!stack.isEmpty()) {
-        T vertex = (T) stack.pop();
-        dfs.add(vertex);
-        LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(vertex);
-        Node<Edge<T>> nodeEdge = edgesLinkedList.tail;
-
-        while (nodeEdge != null) {
-          if (!visited.contains(nodeEdge.getData().getDestination())) {
-            stack.push(nodeEdge.getData().getDestination());
-            visited.add(nodeEdge.getData().getDestination());
+    TraversalEvent event = new TraversalEvent("IDFS");
+    BitSet roots = this.getRootIds();
+    List<T> dfs = toVerticies(search("IDFS", roots, this::iterativeDepthFirstSearch));
+    event.finish(verticies.size(), adjacency.getEdgeCount(), roots.cardinality(), dfs.size());
+    return dfs;
+  }
+
+  /**
+   * Performs an iterative depth first search from the given roots, in ascending order. A vertex is
+   * marked as visited when it is pushed, and the destinations of each vertex are pushed from the
+   * largest to the smallest, so the smallest unvisited destination is always popped first.
+   *
+   * @param roots the numbers of the verticies to start searching from
+   * @return the numbers of the verticies in the order they were visited
+   */
+  private int[] iterativeDepthFirstSearch(BitSet roots) {
+    boolean[] visited = new boolean[verticies.size()];
+    int[] stack = new int[verticies.size()];
+    int[] order = new int[verticies.size()];
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int visitedCount = 0;
+    long edgesScanned = 0;
+
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      if (visited[root]) {
+        continue;
+      }
+
+      int top = 0;
+      stack[top++] = root;
+      visited[root] = true;
+
+      while (top > 0) {
+        int vertex = stack[--top];
+        order[visitedCount++] = vertex;
+        int count = adjacency.getNeighbours(vertex, buffer);
+        edgesScanned += count;
+
+        for (int i = count - 1; i >= 0; i--) {
+          if (!visited[buffer[i]]) {
+            stack[top++] = buffer[i];
+            visited[buffer[i]] = true;
           }
-          nodeEdge = nodeEdge.getPrev();
         }
       }
     }
+    WorkCounter.VERTICES_VISITED.add(visitedCount);
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
 
-    return dfs;
+    int[] result = new int[visitedCount];
+    System.arraycopy(order, 0, result, 0, visitedCount);
+    return result;
   }
 
   /**
@@ -484,27 +1557,21 @@ public class Graph<T extends Comparable<T>> {
    * the roots and adding them to a queue. Then calling the recursive function getRecursiveBfs to
    * perform the actual recursive breadth first search.
    *
+   * <p>Each recursive call only ever takes the next vertex off the queue, so the search visits the
+   * verticies in the same order as the iterative search, and is run as one to keep deep graphs from
+   * overflowing the call stack.
+   *
    * @return bfs
    */
   public List<T> recursiveBreadthFirstSearch() {
     /*
         Performs the breadth first search of the graph. Using a recursive approach.
     */
-    Set<T> roots = this.getRoots();
-    List<T> visited = new ArrayList<T>();
-    Queue<T> queue = new Queue<T>();
-    List<T> bfs = new ArrayList<T>();
-
-    for (T root : roots) {
-      queue.enqueue(root);
-      visited.add(root);
-      for (T x : this.getRecursiveBfs(bfs, visited, queue)) {
-        if (!bfs.contains(x)) {
-          bfs.add(x);
-        }
-      }
-    }
-
+    TraversalEvent event = new TraversalEvent("RBFS");
+    BitSet roots = this.getRootIds();
+    // Both breadth first searches visit the verticies in the same order, so they share it.
+    List<T> bfs = toVerticies(search("BFS", roots, this::breadthFirstSearch));
+    event.finish(verticies.size(), adjacency.getEdgeCount(), roots.cardinality(), bfs.size());
     return bfs;
   }
 
@@ -537,29 +1604,74 @@ public class Graph<T extends Comparable<T>> {
    * roots and adding them to a stack. Then calling the recursive function getRecursiveDfs to
    * perform the actual recursive depth first search.
    *
+   * <p>The recursion is run on an explicit stack to keep deep graphs from overflowing the call
+   * stack, and visits the verticies in the same order.
+   *
    * @return dfs
    */
   public List<T> recursiveDepthFirstSearch() {
     /*
         Performs the depth first search of the graph. Using a recursive approach.
     */
-    Set<T> roots = this.getRoots();
-    List<T> visited = new ArrayList<T>();
-    Stack<T> stack = new Stack<T>();
-    List<T> dfs = new ArrayList<T>();
+    TraversalEvent event = new TraversalEvent("RDFS");
+    BitSet roots = this.getRootIds();
+    List<T> dfs = toVerticies(search("RDFS", roots, this::recursiveDepthFirstSearch));
+    event.finish(verticies.size(), adjacency.getEdgeCount(), roots.cardinality(), dfs.size());
+    return dfs;
+  }
+
+  /**
+   * Performs a depth first search from the given roots, in ascending order, that visits each vertex
+   * before any of its destinations, exactly as a recursive search would. A vertex is only marked as
+   * visited when it is popped, so each destination is pushed and popped in the order a recursive
+   * call would reach it.
+   *
+   * @param roots the numbers of the verticies to start searching from
+   * @return the numbers of the verticies in the order they were visited
+   */
+  private int[] recursiveDepthFirstSearch(BitSet roots) {
+    boolean[] visited = new boolean[verticies.size()];
+    int[] stack = new int[Math.max(verticies.size(), 1)];
+    int[] order = new int[verticies.size()];
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int visitedCount = 0;
+    long edgesScanned = 0;
 
-    for (T root : roots) {
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      int top = 0;
+      stack[top++] = root;
 
-      stack.push(root);
-      visited.add(root);
-      for (T x : this.getRecursiveDfs(stack, visited, dfs)) {
-        if (!dfs.contains(x)) {
-          dfs.add(x);
+      while (top > 0) {
+        int vertex = stack[--top];
+        if (visited[vertex]) {
+          continue;
+        }
+
+        visited[vertex] = true;
+        order[visitedCount++] = vertex;
+        int count = adjacency.getNeighbours(vertex, buffer);
+        edgesScanned += count;
+
+        // A vertex can be waiting on the stack once for each edge to it.
+        if (top + count > stack.length) {
+          int[] larger = new int[Math.max(stack.length * 2, top + count)];
+          System.arraycopy(stack, 0, larger, 0, top);
+          stack = larger;
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+          if (!visited[buffer[i]]) {
+            stack[top++] = buffer[i];
+          }
         }
       }
     }
+    WorkCounter.VERTICES_VISITED.add(visitedCount);
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
 
-    return dfs;
+    int[] result = new int[visitedCount];
+    System.arraycopy(order, 0, result, 0, visitedCount);
+    return result;
   }
 
   /**
@@ -577,22 +1689,44 @@ public class Graph<T extends Comparable<T>> {
     while (!stack.isEmpty()) {
       T vertex = (T) stack.pop();
       dfs.add(vertex);
-      LinkedList<Edge<T>> edgesLinkedList = verticesEdgesMap.get(vertex);
-      Node<Edge<T>> nodeEdge = edgesLinkedList.head;
+      int[] buffer = new int[adjacency.getMaxOutDegree()];
+      int count = adjacency.getNeighbours(ids.get(vertex), buffer);
 
-      while (nodeEdge != null) {
-        if (!visited.contains(nodeEdge.getData().getDestination())) {
-          stack.push(nodeEdge.getData().getDestination());
-          visited.add(nodeEdge.getData().getDestination());
+      for (int i = 0; i < count; i++) {
+        T destination = verticies.get(buffer[i]);
+        if (!visited.contains(destination)) {
+          stack.push(destination);
+          visited.add(destination);
           for (T x : this.getRecursiveDfs(stack, visited, dfs)) {
             if (!dfs.contains(x)) {
               dfs.add(x);
             }
           }
         }
-        nodeEdge = nodeEdge.getNext();
       }
+      WorkCounter.VERTICES_VISITED.increment();
+      WorkCounter.EDGES_SCANNED.add(count);
     }
     return dfs;
   }
+
+  /**
+   * Turns the numbers of verticies back into the verticies, without copying them.
+   *
+   * @param order the numbers of the verticies
+   * @return the verticies, in the same order
+   */
+  private List<T> toVerticies(int[] order) {
+    return new AbstractList<T>() {
+      @Override
+      public T get(int index) {
+        return verticies.get(order[index]);
+      }
+
+      @Override
+      public int size() {
+        return order.length;
+      }
+    };
+  }
 }
@@ -0,0 +1,165 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Gathers the verticies and edges of a graph as they are read, without an object for each edge.
+ * Each vertex is given a position the first time it is added, and each edge is kept as the
+ * positions of its verticies in two growing arrays, so a reader can feed the builder one edge at a
+ * time and the graph is built straight from the arrays.
+ *
+ * <p>The verticies and edges stay in the order they were added, so they can still be listed in the
+ * order of the file they came from. A builder is not safe to share between threads.
+ *
+ * <p>The arrays are on the heap whichever {@link GraphStorage} the graph is built in, so a builder
+ * holds at most {@code Integer.MAX_VALUE - 8} edges, in eight bytes of heap each.
+ *
+ * @param <T> the type of each vertex
+ */
+public class GraphBuilder<T extends Comparable<T>> {
+  private static final int INITIAL_EDGES = 1 << 10;
+
+  private final HashMap<T, Integer> positions = new HashMap<T, Integer>();
+  private final List<T> verticies = new ArrayList<T>();
+  private int[] sources = new int[INITIAL_EDGES];
+  private int[] destinations = new int[INITIAL_EDGES];
+  private int edgeCount;
+
+  /**
+   * Adds a vertex, if it has not been added already.
+   *
+   * @param vertex the vertex
+   * @return the position of the vertex, in the order verticies were first added
+   */
+  public int addVertex(T vertex) {
+    Integer position = positions.get(vertex);
+    if (position != null) {
+      return position;
+    }
+
+    positions.put(vertex, verticies.size());
+    verticies.add(vertex);
+    return verticies.size() - 1;
+  }
+
+  /**
+   * Adds an edge, adding its verticies if they have not been added already. An edge that is added
+   * twice is kept twice, so the edges can still be listed as they were read, but the graph built
+   * from the builder keeps it once.
+   *
+   * @param source the vertex the edge leaves
+   * @param destination the vertex the edge arrives at
+   */
+  public void addEdge(T source, T destination) {
+    addEdge(addVertex(source), addVertex(destination));
+  }
+
+  /**
+   * Adds an edge between verticies that have already been added.
+   *
+   * @param source the position of the vertex the edge leaves
+   * @param destination the position of the vertex the edge arrives at
+   * @throws IndexOutOfBoundsException if either vertex has not been added
+   */
+  public void addEdge(int source, int destination) {
+    /*
+        Doubles the arrays when they are full
+    */
+    if (source < 0 || source >= verticies.size()) {
+      throw new IndexOutOfBoundsException(source);
+    }
+    if (destination < 0 || destination >= verticies.size()) {
+      throw new IndexOutOfBoundsException(destination);
+    }
+
+    if (edgeCount == sources.length) {
+      int capacity = (int) Math.min(2L * sources.length, Integer.MAX_VALUE - 8);
+      if (capacity == edgeCount) {
+        throw new IllegalStateException("too many edges for a graph builder");
+      }
+      sources = Arrays.copyOf(sources, capacity);
+      destinations = Arrays.copyOf(destinations, capacity);
+    }
+
+    sources[edgeCount] = source;
+    destinations[edgeCount] = destination;
+    edgeCount++;
+  }
+
+  /**
+   * Gets the number of verticies added.
+   *
+   * @return the number of verticies
+   */
+  public int getVertexCount() {
+    return verticies.size();
+  }
+
+  /**
+   * Gets a vertex by its position.
+   *
+   * @param position the position of the vertex
+   * @return the vertex
+   */
+  public T getVertex(int position) {
+    return verticies.get(position);
+  }
+
+  /**
+   * Gets the number of edges added.
+   *
+   * @return the number of edges
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Gets the position of the vertex an edge leaves.
+   *
+   * @param edge the position of the edge, in the order edges were added
+   * @return the position of the vertex
+   */
+  public int getSource(int edge) {
+    return sources[edge];
+  }
+
+  /**
+   * Gets the position of the vertex an edge arrives at.
+   *
+   * @param edge the position of the edge, in the order edges were added
+   * @return the position of the vertex
+   */
+  public int getDestination(int edge) {
+    return destinations[edge];
+  }
+
+  /**
+   * Builds the graph of the verticies and edges added so far, in the default storage and order.
+   *
+   * @return the graph
+   */
+  public Graph<T> build() {
+    return build(GraphStorage.getDefault(), VertexOrder.getDefault());
+  }
+
+  /**
+   * Builds the graph of the verticies and edges added so far. The builder can still be read
+   * afterwards.
+   *
+   * @param storage where to keep the edges
+   * @param order the order to rank the verticies in
+   * @return the graph
+   */
+  public Graph<T> build(GraphStorage storage, VertexOrder order) {
+    return new Graph<T>(
+        verticies,
+        Arrays.copyOf(sources, edgeCount),
+        Arrays.copyOf(destinations, edgeCount),
+        storage,
+        order);
+  }
+}
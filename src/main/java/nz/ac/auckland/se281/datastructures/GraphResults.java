@@ -0,0 +1,235 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The answers a graph has worked out so far, as numbers of verticies rather than the verticies
+ * themselves, so they can be saved and handed to another graph with the same fingerprint.
+ *
+ * <p>Each property is either known, and then holds or not, or unknown. The roots, the class of each
+ * vertex and the order of each search are null or missing until they are known. The class of a
+ * vertex is kept as the smallest member of the class, which is only known for an equivalence
+ * relation, as every class is empty otherwise.
+ */
+public final class GraphResults {
+  /** Every vertex has an edge to itself. */
+  public static final int REFLEXIVE = RelationChecker.REFLEXIVE;
+
+  /** Every edge has a reverse edge. */
+  public static final int SYMMETRIC = RelationChecker.SYMMETRIC;
+
+  /** No edge between two different verticies has a reverse edge. */
+  public static final int ANTI_SYMMETRIC = RelationChecker.ANTI_SYMMETRIC;
+
+  /** Every path of two edges has an edge from its start to its end. */
+  public static final int TRANSITIVE = RelationChecker.TRANSITIVE;
+
+  /** The graph is reflexive, symmetric and transitive. */
+  public static final int EQUIVALENCE = 1 << 4;
+
+  /** The graph has no cycles. */
+  public static final int ACYCLIC = 1 << 5;
+
+  // Written first, so a file of some other kind is never read as results.
+  private static final int MAGIC = 0x47524553;
+  private static final int FORMAT = 1;
+
+  private final int vertexCount;
+  private final int known;
+  private final int holding;
+  private final int[] roots;
+  private final int[] classes;
+  private final Map<String, int[]> orders;
+
+  /**
+   * Creates a new set of results.
+   *
+   * @param vertexCount the number of verticies of the graph
+   * @param known the properties that are known
+   * @param holding the known properties that hold
+   * @param roots the numbers of the roots in ascending order, or null if they are not known
+   * @param classes the smallest member of the class of each vertex, or null if not known
+   * @param orders the numbers of the verticies each search visited, by the name of the search
+   */
+  GraphResults(
+      int vertexCount,
+      int known,
+      int holding,
+      int[] roots,
+      int[] classes,
+      Map<String, int[]> orders) {
+    /*
+       Contructor for the class
+    */
+    this.vertexCount = vertexCount;
+    this.known = known;
+    this.holding = holding & known;
+    this.roots = roots;
+    this.classes = classes;
+    this.orders = Collections.unmodifiableMap(new TreeMap<String, int[]>(orders));
+  }
+
+  /**
+   * Gets the number of verticies of the graph the results were worked out for.
+   *
+   * @return the vertex count
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Checks if a property is known.
+   *
+   * @param property the property
+   * @return true if the property is known, false otherwise.
+   */
+  public boolean isKnown(int property) {
+    return (known & property) == property;
+  }
+
+  /**
+   * Checks if a known property holds.
+   *
+   * @param property the property
+   * @return true if the property is known to hold, false otherwise.
+   */
+  public boolean holds(int property) {
+    return (holding & property) == property;
+  }
+
+  /**
+   * Gets the numbers of the roots.
+   *
+   * @return the roots in ascending order, or null if they are not known
+   */
+  int[] getRoots() {
+    return roots;
+  }
+
+  /**
+   * Gets the smallest member of the class of each vertex.
+   *
+   * @return the classes, or null if they are not known
+   */
+  int[] getClasses() {
+    return classes;
+  }
+
+  /**
+   * Gets the order each search visited the verticies in.
+   *
+   * @return the numbers of the verticies, by the name of the search
+   */
+  Map<String, int[]> getOrders() {
+    return orders;
+  }
+
+  /**
+   * Counts how many answers are known, so a newer set of results can be told apart from an older
+   * one of the same graph.
+   *
+   * @return the number of known properties, roots, classes and orders
+   */
+  public int size() {
+    return Integer.bitCount(known)
+        + (roots == null ? 0 : 1)
+        + (classes == null ? 0 : 1)
+        + orders.size();
+  }
+
+  /**
+   * Writes the results.
+   *
+   * @param out where to write the results
+   * @throws IOException if the results could not be written
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT);
+    out.writeInt(vertexCount);
+    out.writeInt(known);
+    out.writeInt(holding);
+    writeInts(out, roots);
+    writeInts(out, classes);
+    out.writeInt(orders.size());
+    for (Map.Entry<String, int[]> order : orders.entrySet()) {
+      out.writeUTF(order.getKey());
+      writeInts(out, order.getValue());
+    }
+  }
+
+  /**
+   * Reads results written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in where to read the results from
+   * @return the results
+   * @throws IOException if the results could not be read, or are not results of this format
+   */
+  public static GraphResults readFrom(DataInput in) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+      throw new IOException("not a file of graph results");
+    }
+
+    int vertexCount = in.readInt();
+    int known = in.readInt();
+    int holding = in.readInt();
+    int[] roots = readInts(in, vertexCount);
+    int[] classes = readInts(in, vertexCount);
+    Map<String, int[]> orders = new TreeMap<String, int[]>();
+    for (int count = in.readInt(); count > 0; count--) {
+      String name = in.readUTF();
+      orders.put(name, readInts(in, vertexCount));
+    }
+
+    return new GraphResults(vertexCount, known, holding, roots, classes, orders);
+  }
+
+  /**
+   * Writes an array of numbers after its length, or a length of -1 for no array.
+   *
+   * @param out where to write the array
+   * @param values the array, or null
+   * @throws IOException if the array could not be written
+   */
+  private static void writeInts(DataOutput out, int[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      for (int value : values) {
+        out.writeInt(value);
+      }
+    }
+  }
+
+  /**
+   * Reads an array of numbers of verticies written by {@link #writeInts(DataOutput, int[])}.
+   *
+   * @param in where to read the array from
+   * @param vertexCount the number of verticies, which every number is less than, and which no array
+   *     is longer than except a cycle that ends where it starts
+   * @return the array, or null
+   * @throws IOException if the array could not be read or is out of range
+   */
+  private static int[] readInts(DataInput in, int vertexCount) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    } else if (length > vertexCount + 1) {
+      throw new IOException("more numbers than verticies");
+    }
+
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = in.readInt();
+      if (values[i] < 0 || values[i] >= vertexCount) {
+        throw new IOException("vertex number " + values[i] + " out of range");
+      }
+    }
+    return values;
+  }
+}
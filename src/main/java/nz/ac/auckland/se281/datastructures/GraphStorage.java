@@ -0,0 +1,204 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.nio.file.Path;
+
+/**
+ * Where a graph keeps its edges.
+ *
+ * <p>The storage of graphs built without naming one is read from the {@code graph.storage} system
+ * property ({@code auto}, {@code heap}, {@code off-heap}, {@code mapped}, {@code compressed} or
+ * {@code bit-matrix}), and is {@link #AUTO} if the property is missing. A value that is not
+ * recognised is reported on standard error, and {@link #AUTO} is used instead. Mapped files are
+ * created in the directory named by the {@code graph.storage.dir} system property, or the temporary
+ * directory.
+ *
+ * <p>Whatever the storage, the edges are read into two heap arrays of a {@link GraphBuilder} before
+ * they are built, so a graph can have no more edges than fit in a heap array, and loading it needs
+ * eight bytes of heap for each edge even if the built edges are kept off the heap.
+ */
+public enum GraphStorage {
+  /** Plain arrays on the heap, the fastest choice for graphs that fit in the heap. */
+  HEAP,
+  /** Direct buffers outside the heap, limited by {@code -XX:MaxDirectMemorySize}. */
+  OFF_HEAP,
+  /** Memory mapped temporary files, which the operating system pages in and out as needed. */
+  MAPPED,
+  /**
+   * Gap encoded bytes on the heap, several times smaller than {@link #HEAP} when connected
+   * verticies have nearby numbers, at the cost of decoding the edges on every read.
+   */
+  COMPRESSED,
+  /**
+   * One bit for every pair of verticies, smaller than {@link #HEAP} for dense relations and
+   * answering every edge lookup with a single read. Graphs whose matrix would be larger than 256
+   * MiB are kept in {@link #HEAP} instead.
+   */
+  BIT_MATRIX,
+  /** Chosen when the graph is built, from its number of verticies and edges. */
+  AUTO;
+
+  private static final int ARRAY_BYTES = 16;
+  private static final long MAX_BIT_MATRIX_BYTES = 1L << 28;
+
+  private static final GraphStorage DEFAULT = readDefault();
+
+  // Heap edges larger than this are compressed, by default a quarter of the largest heap.
+  private static final long COMPRESS_ABOVE =
+      Long.getLong("graph.storage.compress-above", Runtime.getRuntime().maxMemory() / 4);
+
+  /**
+   * Gets the storage used for graphs built without naming one.
+   *
+   * @return the default storage
+   */
+  public static GraphStorage getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Reads the storage named by the {@code graph.storage} system property.
+   *
+   * @return the storage, or {@link #AUTO} if the property is missing or not recognised
+   */
+  private static GraphStorage readDefault() {
+    String name = System.getProperty("graph.storage");
+
+    try {
+      return parse(name);
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: graph.storage " + e.getMessage() + ", so auto is used instead");
+      return AUTO;
+    }
+  }
+
+  /**
+   * Finds the storage with the given name, allowing any case and dashes instead of underscores.
+   *
+   * @param name the name of the storage
+   * @return the storage, or {@link #AUTO} if the name is null, as when no storage is named
+   * @throws IllegalArgumentException if the name is not the name of a storage
+   */
+  public static GraphStorage parse(String name) {
+    if (name == null) {
+      return AUTO;
+    }
+
+    try {
+      return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "'"
+              + name
+              + "' is not a storage, expected auto, heap, off-heap, mapped, compressed or"
+              + " bit-matrix");
+    }
+  }
+
+  /**
+   * Gets the name of the storage as it is given to the {@code graph.storage} system property.
+   *
+   * @return the name, in lower case with dashes
+   */
+  public String getPropertyName() {
+    return name().toLowerCase().replace('_', '-');
+  }
+
+  /**
+   * Chooses the storage for a graph of the given size. {@link #AUTO} becomes a {@link #BIT_MATRIX}
+   * if the matrix would be no larger than the heap arrays, the heap arrays if they are no larger
+   * than the {@code graph.storage.compress-above} system property (in bytes, a quarter of the
+   * largest heap by default), and {@link #COMPRESSED} above that. Every other storage is kept,
+   * except a bit matrix that would be too large, which falls back to {@link #HEAP}, as explained by
+   * {@link #explainFallback(int)}.
+   *
+   * @param vertexCount the number of verticies
+   * @param edgeCount the number of edges
+   * @return the storage to build the graph in
+   */
+  public GraphStorage choose(int vertexCount, long edgeCount) {
+    /*
+        Compares the size of the matrix with the size of the heap arrays
+    */
+    long matrixBytes = BitMatrix.estimateBytes(vertexCount);
+    long arrayBytes = 3L * ARRAY_BYTES + (2L * vertexCount + 1 + edgeCount) * Integer.BYTES;
+
+    switch (this) {
+      case BIT_MATRIX:
+        return matrixBytes <= MAX_BIT_MATRIX_BYTES ? BIT_MATRIX : HEAP;
+      case AUTO:
+        if (matrixBytes <= arrayBytes && matrixBytes <= MAX_BIT_MATRIX_BYTES) {
+          return BIT_MATRIX;
+        } else if (arrayBytes > COMPRESS_ABOVE) {
+          return COMPRESSED;
+        }
+        return HEAP;
+      default:
+        return this;
+    }
+  }
+
+  /**
+   * Explains why {@link #choose(int, long)} did not keep this storage for a graph of the given
+   * size.
+   *
+   * @param vertexCount the number of verticies
+   * @return the reason, or null if the storage is kept or chosen from the size of the graph
+   */
+  public String explainFallback(int vertexCount) {
+    long matrixBytes = BitMatrix.estimateBytes(vertexCount);
+    if (this != BIT_MATRIX || matrixBytes <= MAX_BIT_MATRIX_BYTES) {
+      return null;
+    }
+
+    return "the matrix would take "
+        + matrixBytes
+        + " bytes, more than the limit of "
+        + MAX_BIT_MATRIX_BYTES
+        + " bytes";
+  }
+
+  /**
+   * Allocates empty compressed sparse row arrays to build the edges in. Compressed edges and bit
+   * matrices are built on the heap, and converted once they are complete.
+   *
+   * @param vertexCount the number of verticies
+   * @param edgeCount the number of edges
+   * @return the arrays
+   */
+  public CsrAdjacency allocate(int vertexCount, long edgeCount) {
+    switch (this) {
+      case OFF_HEAP:
+        return new OffHeapCsr(vertexCount, edgeCount, null);
+      case MAPPED:
+        String directory = System.getProperty("graph.storage.dir");
+        return new OffHeapCsr(
+            vertexCount,
+            edgeCount,
+            Path.of(directory == null ? System.getProperty("java.io.tmpdir") : directory));
+      case COMPRESSED:
+      case BIT_MATRIX:
+      case AUTO:
+      case HEAP:
+      default:
+        return new HeapCsr(vertexCount, edgeCount);
+    }
+  }
+
+  /**
+   * Turns a set of edges built in the arrays from {@link #allocate(int, long)} into the edges kept
+   * by this storage.
+   *
+   * @param built the edges, grouped by source and sorted by destination
+   * @return the edges to keep
+   */
+  public Adjacency finish(CsrAdjacency built) {
+    switch (this) {
+      case COMPRESSED:
+        return new CompressedCsr(built);
+      case BIT_MATRIX:
+        return new BitMatrix(built);
+      default:
+        return built;
+    }
+  }
+}
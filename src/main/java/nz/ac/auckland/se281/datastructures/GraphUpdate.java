@@ -0,0 +1,78 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * The result of {@link Graph#update(GraphBuilder)}: the updated graph, and the edges that had to be
+ * inserted and removed to get to it.
+ *
+ * @param <T> the type of each vertex
+ */
+public class GraphUpdate<T extends Comparable<T>> {
+  private final Graph<T> graph;
+  private final long insertedEdges;
+  private final long removedEdges;
+  private final boolean isRebuilt;
+
+  /**
+   * Creates a new update.
+   *
+   * @param graph the updated graph
+   * @param insertedEdges the number of distinct edges inserted
+   * @param removedEdges the number of distinct edges removed
+   * @param isRebuilt if the verticies changed, so the graph was built from scratch
+   */
+  GraphUpdate(Graph<T> graph, long insertedEdges, long removedEdges, boolean isRebuilt) {
+    /*
+       Contructor for the class
+    */
+    this.graph = graph;
+    this.insertedEdges = insertedEdges;
+    this.removedEdges = removedEdges;
+    this.isRebuilt = isRebuilt;
+  }
+
+  /**
+   * Returns the updated graph, which is the graph that was updated if none of its edges changed.
+   *
+   * @return the graph
+   */
+  public Graph<T> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the number of distinct edges that were inserted.
+   *
+   * @return the number of edges, or 0 if the graph was rebuilt
+   */
+  public long getInsertedEdges() {
+    return insertedEdges;
+  }
+
+  /**
+   * Returns the number of distinct edges that were removed.
+   *
+   * @return the number of edges, or 0 if the graph was rebuilt
+   */
+  public long getRemovedEdges() {
+    return removedEdges;
+  }
+
+  /**
+   * Checks if the verticies changed, so the graph was built from scratch and kept none of the
+   * answers of the graph that was updated.
+   *
+   * @return true if the graph was rebuilt
+   */
+  public boolean isRebuilt() {
+    return isRebuilt;
+  }
+
+  /**
+   * Checks if the edges stayed the same, so the graph that was updated is still the graph.
+   *
+   * @return true if nothing changed
+   */
+  public boolean isUnchanged() {
+    return !isRebuilt && insertedEdges == 0 && removedEdges == 0;
+  }
+}
@@ -0,0 +1,99 @@
+package nz.ac.auckland.se281.datastructures;
+
+/** Compressed sparse row edges held in plain arrays on the heap. */
+public class HeapCsr extends CsrAdjacency {
+  // The largest array most JVMs will allocate.
+  private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  private static final int ARRAY_BYTES = 16;
+
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] inDegrees;
+
+  /**
+   * Creates a new, empty set of arrays.
+   *
+   * @param vertexCount the number of verticies
+   * @param edgeCount the number of edges
+   * @throws IllegalArgumentException if there are too many edges for a heap array
+   */
+  public HeapCsr(int vertexCount, long edgeCount) {
+    /*
+       Contructor for the class
+    */
+    super(vertexCount, edgeCount);
+
+    if (edgeCount > MAX_ARRAY_LENGTH) {
+      throw new IllegalArgumentException(
+          edgeCount + " edges do not fit in a heap array, use off-heap storage instead");
+    }
+
+    this.offsets = new int[vertexCount + 1];
+    this.targets = new int[(int) edgeCount];
+    this.inDegrees = new int[vertexCount];
+  }
+
+  @Override
+  protected long getOffset(int vertex) {
+    return offsets[vertex];
+  }
+
+  @Override
+  protected void setOffset(int vertex, long offset) {
+    offsets[vertex] = (int) offset;
+  }
+
+  @Override
+  protected int getTarget(long index) {
+    return targets[(int) index];
+  }
+
+  @Override
+  protected void setTarget(long index, int target) {
+    targets[(int) index] = target;
+  }
+
+  @Override
+  protected void readTargets(long from, int[] buffer, int count) {
+    System.arraycopy(targets, (int) from, buffer, 0, count);
+  }
+
+  @Override
+  protected void writeTargets(long from, int[] buffer, int count) {
+    System.arraycopy(buffer, 0, targets, (int) from, count);
+  }
+
+  @Override
+  public int getOutDegree(int vertex) {
+    return offsets[vertex + 1] - offsets[vertex];
+  }
+
+  @Override
+  public int getInDegree(int vertex) {
+    return inDegrees[vertex];
+  }
+
+  @Override
+  protected void setInDegree(int vertex, int inDegree) {
+    inDegrees[vertex] = inDegree;
+  }
+
+  @Override
+  public String getRepresentation() {
+    return "Heap CSR";
+  }
+
+  @Override
+  public long estimateHeapBytes() {
+    return 3L * ARRAY_BYTES
+        + (long) offsets.length * Integer.BYTES
+        + (long) targets.length * Integer.BYTES
+        + (long) inDegrees.length * Integer.BYTES;
+  }
+
+  @Override
+  public long estimateOffHeapBytes() {
+    return 0;
+  }
+}
@@ -0,0 +1,145 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/**
+ * A breadth first search that records how many edges away from its sources each vertex is, and can
+ * stop at a given depth.
+ *
+ * <p>Each thread has one search, shared by every graph it searches, so a graph keeps no buffers of
+ * its own and nothing outlives the graph but plain arrays. The levels, queue and neighbour buffer
+ * are reused by every search of the thread, grown for a larger graph and shrunk again once a much
+ * smaller graph is searched. Only the levels of the verticies the last search visited are cleared
+ * before the next one, so a search that stops after a few hops costs as much as the part of the
+ * graph it visits, however large the graph is.
+ */
+final class LevelSearch {
+  /** The level of a vertex the search has not reached. */
+  static final int UNREACHED = -1;
+
+  // Buffers this many times larger than a search needs are given back rather than kept.
+  private static final int SHRINK_FACTOR = 4;
+
+  private static final ThreadLocal<LevelSearch> SEARCHES =
+      ThreadLocal.withInitial(LevelSearch::new);
+
+  private int[] levels = new int[0];
+  private int[] queue = new int[0];
+  private int[] buffer = new int[0];
+  private int visitedCount;
+
+  /**
+   * Gets the search of the current thread.
+   *
+   * @return the search, which holds the results of the last search the thread ran
+   */
+  static LevelSearch get() {
+    return SEARCHES.get();
+  }
+
+  /**
+   * Makes the buffers fit a graph, keeping them if they are large enough and not much larger.
+   *
+   * @param vertexCount the number of verticies of the graph
+   * @param maxOutDegree the largest number of edges leaving any one vertex
+   */
+  private void fit(int vertexCount, int maxOutDegree) {
+    /*
+        Replaces the levels and the queue together, as the levels are cleared through the queue
+    */
+    if (levels.length < vertexCount || levels.length / SHRINK_FACTOR > vertexCount) {
+      levels = new int[vertexCount];
+      queue = new int[vertexCount];
+      Arrays.fill(levels, UNREACHED);
+      visitedCount = 0;
+    }
+    if (buffer.length < maxOutDegree || buffer.length / SHRINK_FACTOR > maxOutDegree) {
+      buffer = new int[maxOutDegree];
+    }
+  }
+
+  /**
+   * Searches from every source at once, so each vertex is given its distance from the nearest
+   * source.
+   *
+   * @param adjacency the edges of the graph to search
+   * @param sources the numbers of the verticies to start from, which may repeat
+   * @param sourceCount the number of sources
+   * @param maxDepth the most edges to follow from a source, or {@link Integer#MAX_VALUE} for no
+   *     limit
+   * @return the number of verticies visited, sources included
+   */
+  int search(Adjacency adjacency, int[] sources, int sourceCount, int maxDepth) {
+    /*
+        Clears the levels of the last search, then visits the graph a level at a time, stopping
+        once the first vertex at the deepest level is taken from the queue
+    */
+    for (int i = 0; i < visitedCount; i++) {
+      levels[queue[i]] = UNREACHED;
+    }
+    visitedCount = 0;
+    fit(adjacency.getVertexCount(), adjacency.getMaxOutDegree());
+
+    int tail = 0;
+    for (int i = 0; i < sourceCount; i++) {
+      if (levels[sources[i]] == UNREACHED) {
+        levels[sources[i]] = 0;
+        queue[tail++] = sources[i];
+      }
+    }
+
+    long edgesScanned = 0;
+    for (int head = 0; head < tail; head++) {
+      int vertex = queue[head];
+      int level = levels[vertex];
+      if (level >= maxDepth) {
+        break;
+      }
+
+      int count = adjacency.getNeighbours(vertex, buffer);
+      edgesScanned += count;
+      for (int i = 0; i < count; i++) {
+        if (levels[buffer[i]] == UNREACHED) {
+          levels[buffer[i]] = level + 1;
+          queue[tail++] = buffer[i];
+        }
+      }
+    }
+
+    visitedCount = tail;
+    WorkCounter.VERTICES_VISITED.add(tail);
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
+    return tail;
+  }
+
+  /**
+   * Gets the number of verticies the last search visited.
+   *
+   * @return the number of verticies, sources included
+   */
+  int getVisitedCount() {
+    return visitedCount;
+  }
+
+  /**
+   * Gets one of the verticies the last search visited, in the order it visited them, which is in
+   * ascending distance.
+   *
+   * @param index the position of the vertex, less than the number of verticies visited
+   * @return the number of the vertex
+   */
+  int getVisited(int index) {
+    return queue[index];
+  }
+
+  /**
+   * Gets how many edges away from the nearest source the last search found a vertex.
+   *
+   * @param vertex the number of the vertex
+   * @return the distance, or {@link #UNREACHED} if the search did not reach the vertex
+   */
+  int getLevel(int vertex) {
+    return levels[vertex];
+  }
+}
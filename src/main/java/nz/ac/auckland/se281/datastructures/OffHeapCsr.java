@@ -0,0 +1,268 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row edges held outside the heap, in direct buffers or in memory mapped files.
+ *
+ * <p>The garbage collector sees a handful of buffer objects however many edges there are, so
+ * collection pauses do not grow with the graph, and the built edges are not limited by the size of
+ * the heap. The edges are still read into the heap arrays of a {@link GraphBuilder} before they are
+ * built, though, so loading a graph needs eight bytes of heap for each edge of its file, and a file
+ * can have no more edges than fit in a heap array. A single buffer cannot be larger than 2 GiB, so
+ * each array is split into segments of 1 GiB.
+ *
+ * <p>Closing the edges frees the direct buffers and unmaps the mapped files straight away, rather
+ * than when the garbage collector next finds the buffers unreachable, which may be long after the
+ * graph is dropped as the buffers take up next to nothing on the heap.
+ */
+public class OffHeapCsr extends CsrAdjacency {
+  private static final int SEGMENT_SHIFT = 30;
+  private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+  private static final int INT_SHIFT = SEGMENT_SHIFT - 2;
+  private static final long INT_MASK = (1L << INT_SHIFT) - 1;
+  private static final int LONG_SHIFT = SEGMENT_SHIFT - 3;
+  private static final long LONG_MASK = (1L << LONG_SHIFT) - 1;
+
+  // The heap held by each buffer object and its view.
+  private static final int BUFFER_OBJECT_BYTES = 128;
+
+  // Frees the memory of a direct or mapped buffer, or null if this JVM does not allow it.
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> type = Class.forName("sun.misc.Unsafe");
+      Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // The buffers are then freed by the garbage collector once they are unreachable.
+      invokeCleaner = null;
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private final boolean isMapped;
+  private final ByteBuffer[] segments;
+  private final LongBuffer[] offsets;
+  private final IntBuffer[] targets;
+  private final IntBuffer[] inDegrees;
+  private boolean isClosed;
+
+  /**
+   * Creates a new, zeroed set of arrays.
+   *
+   * @param vertexCount the number of verticies
+   * @param edgeCount the number of edges
+   * @param directory the directory to create the mapped files in, or null to use direct buffers
+   * @throws UncheckedIOException if a mapped file cannot be created
+   */
+  public OffHeapCsr(int vertexCount, long edgeCount, Path directory) {
+    /*
+       Contructor for the class
+    */
+    super(vertexCount, edgeCount);
+    this.isMapped = directory != null;
+
+    ByteBuffer[] offsetBytes = allocate(((long) vertexCount + 1) * Long.BYTES, directory);
+    this.offsets = new LongBuffer[offsetBytes.length];
+    for (int i = 0; i < offsetBytes.length; i++) {
+      offsets[i] = offsetBytes[i].asLongBuffer();
+    }
+
+    ByteBuffer[] targetBytes = allocate(edgeCount * Integer.BYTES, directory);
+    this.targets = new IntBuffer[targetBytes.length];
+    for (int i = 0; i < targetBytes.length; i++) {
+      targets[i] = targetBytes[i].asIntBuffer();
+    }
+
+    ByteBuffer[] inDegreeBytes = allocate((long) vertexCount * Integer.BYTES, directory);
+    this.inDegrees = new IntBuffer[inDegreeBytes.length];
+    for (int i = 0; i < inDegreeBytes.length; i++) {
+      inDegrees[i] = inDegreeBytes[i].asIntBuffer();
+    }
+
+    this.segments = new ByteBuffer[offsetBytes.length + targetBytes.length + inDegreeBytes.length];
+    System.arraycopy(offsetBytes, 0, segments, 0, offsetBytes.length);
+    System.arraycopy(targetBytes, 0, segments, offsetBytes.length, targetBytes.length);
+    System.arraycopy(
+        inDegreeBytes, 0, segments, offsetBytes.length + targetBytes.length, inDegreeBytes.length);
+  }
+
+  /**
+   * Allocates the segments of one array.
+   *
+   * @param bytes the size of the array
+   * @param directory the directory to create a mapped file in, or null to use direct buffers
+   * @return the segments, in native byte order
+   */
+  private static ByteBuffer[] allocate(long bytes, Path directory) {
+    /*
+        Splits the array into whole segments, then allocates or maps each one
+    */
+    int count = (int) ((bytes + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT);
+    ByteBuffer[] segments = new ByteBuffer[Math.max(count, 1)];
+
+    if (directory == null) {
+      for (int i = 0; i < segments.length; i++) {
+        long size = Math.min(SEGMENT_BYTES, bytes - (long) i * SEGMENT_BYTES);
+        segments[i] = ByteBuffer.allocateDirect((int) Math.max(size, 0));
+        segments[i].order(ByteOrder.nativeOrder());
+      }
+      return segments;
+    }
+
+    try {
+      Path file = Files.createTempFile(directory, "graph-csr", ".bin");
+
+      // A mapping stays valid after its file is deleted, so nothing is left behind on disk.
+      try (FileChannel channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.DELETE_ON_CLOSE)) {
+        for (int i = 0; i < segments.length; i++) {
+          long size = Math.max(Math.min(SEGMENT_BYTES, bytes - (long) i * SEGMENT_BYTES), 0);
+          segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_BYTES, size);
+          segments[i].order(ByteOrder.nativeOrder());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return segments;
+  }
+
+  @Override
+  protected long getOffset(int vertex) {
+    return offsets[vertex >>> LONG_SHIFT].get((int) (vertex & LONG_MASK));
+  }
+
+  @Override
+  protected void setOffset(int vertex, long offset) {
+    offsets[vertex >>> LONG_SHIFT].put((int) (vertex & LONG_MASK), offset);
+  }
+
+  @Override
+  protected int getTarget(long index) {
+    return targets[(int) (index >>> INT_SHIFT)].get((int) (index & INT_MASK));
+  }
+
+  @Override
+  protected void setTarget(long index, int target) {
+    targets[(int) (index >>> INT_SHIFT)].put((int) (index & INT_MASK), target);
+  }
+
+  @Override
+  protected void readTargets(long from, int[] buffer, int count) {
+    /*
+        Copies the run one segment at a time, as a run may cross from one segment into the next
+    */
+    int copied = 0;
+    while (copied < count) {
+      long index = from + copied;
+      int position = (int) (index & INT_MASK);
+      int length = (int) Math.min(count - copied, (1L << INT_SHIFT) - position);
+      targets[(int) (index >>> INT_SHIFT)].get(position, buffer, copied, length);
+      copied += length;
+    }
+  }
+
+  @Override
+  protected void writeTargets(long from, int[] buffer, int count) {
+    /*
+        Copies the run one segment at a time, as a run may cross from one segment into the next
+    */
+    int copied = 0;
+    while (copied < count) {
+      long index = from + copied;
+      int position = (int) (index & INT_MASK);
+      int length = (int) Math.min(count - copied, (1L << INT_SHIFT) - position);
+      targets[(int) (index >>> INT_SHIFT)].put(position, buffer, copied, length);
+      copied += length;
+    }
+  }
+
+  @Override
+  public int getInDegree(int vertex) {
+    return inDegrees[vertex >>> INT_SHIFT].get((int) (vertex & INT_MASK));
+  }
+
+  @Override
+  protected void setInDegree(int vertex, int inDegree) {
+    inDegrees[vertex >>> INT_SHIFT].put((int) (vertex & INT_MASK), inDegree);
+  }
+
+  @Override
+  public String getRepresentation() {
+    return isMapped ? "Mapped CSR" : "Off-heap CSR";
+  }
+
+  @Override
+  public long estimateHeapBytes() {
+    return (long) (offsets.length + targets.length + inDegrees.length) * BUFFER_OBJECT_BYTES;
+  }
+
+  @Override
+  public long estimateOffHeapBytes() {
+    /*
+        Counts the whole of every segment, including targets left unused by repeated edges
+    */
+    long bytes = 0;
+    for (ByteBuffer segment : segments) {
+      bytes += segment.capacity();
+    }
+    return bytes;
+  }
+
+  /**
+   * Frees every segment. The views of the segments are dropped first, so a read after the edges are
+   * closed fails with an exception rather than reading freed memory.
+   */
+  @Override
+  public synchronized void close() {
+    /*
+        Drops the views, then frees each segment if the JVM allows it
+    */
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+    Arrays.fill(offsets, null);
+    Arrays.fill(targets, null);
+    Arrays.fill(inDegrees, null);
+
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    for (ByteBuffer segment : segments) {
+      try {
+        INVOKE_CLEANER.invoke(UNSAFE, segment);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        // The segment is freed by the garbage collector instead.
+      }
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which verticies of a graph can be reached from which, so that a batch of reachability questions
+ * can be answered without searching the whole graph for each one.
+ *
+ * <p>Verticies that can reach each other are collapsed into a single strongly connected component,
+ * and questions are answered by a breadth first search over the graph of components from the
+ * component of the vertex asked about. The components the last search reached are kept, so the
+ * questions about one vertex cost a single search however many there are. A graph with at most
+ * {@value #CLOSURE_LIMIT} components instead works out up front the bit set of the components each
+ * component can reach, which is at most 2 MiB. A vertex can always reach itself.
+ *
+ * <p>A reachability keeps the results of its last search, so it must only be used by one thread at
+ * a time.
+ *
+ * @param <T> The type of each vertex, that have a total ordering.
+ */
+public class Reachability<T extends Comparable<T>> {
+  /** The most components whose reachability is all worked out up front. */
+  public static final int CLOSURE_LIMIT = 1 << 12;
+
+  private final List<T> verticies;
+  private final Map<T, Integer> ranks;
+  private final int[] component;
+  private final int[] memberStarts;
+  private final int[] members;
+  private final Adjacency condensation;
+  private final BitSet[] closure;
+  private final BitSet reached;
+  private int searched = -1;
+
+  /**
+   * Finds the strongly connected components of a graph and the edges between them.
+   *
+   * @param verticies The verticies of the graph, in rank order.
+   * @param ranks The rank of every vertex, which is also its number in the edges.
+   * @param adjacency The edges between the numbers of the verticies.
+   */
+  public Reachability(List<T> verticies, Map<T, Integer> ranks, Adjacency adjacency) {
+    /*
+        Finds the strongly connected components, then the edges between them, then the
+        components each of them can reach if there are few enough
+    */
+    this.verticies = verticies;
+    this.ranks = ranks;
+    this.component = new int[verticies.size()];
+    int count = findComponents(adjacency, component);
+
+    // Groups the ranks of the members of each component, which stay in ascending order.
+    this.memberStarts = new int[count + 1];
+    this.members = new int[verticies.size()];
+    for (int v = 0; v < verticies.size(); v++) {
+      memberStarts[component[v] + 1]++;
+    }
+    for (int c = 0; c < count; c++) {
+      memberStarts[c + 1] += memberStarts[c];
+    }
+    int[] cursors = memberStarts.clone();
+    for (int v = 0; v < verticies.size(); v++) {
+      members[cursors[component[v]]++] = v;
+    }
+
+    this.condensation = condense(adjacency, component, count);
+    this.closure = count <= CLOSURE_LIMIT ? close(condensation) : null;
+    this.reached = closure == null ? new BitSet(count) : null;
+  }
+
+  /**
+   * Collapses the edges of a graph into the edges between its components, each kept once.
+   *
+   * @param adjacency The edges of the graph.
+   * @param component The component of each vertex.
+   * @param count The number of components.
+   * @return The edges between the components.
+   */
+  private static Adjacency condense(Adjacency adjacency, int[] component, int count) {
+    int crossing = 0;
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    for (int v = 0; v < component.length; v++) {
+      int degree = adjacency.getNeighbours(v, buffer);
+      for (int i = 0; i < degree; i++) {
+        if (component[v] != component[buffer[i]]) {
+          crossing++;
+        }
+      }
+    }
+
+    int[] sources = new int[crossing];
+    int[] destinations = new int[crossing];
+    int edge = 0;
+    for (int v = 0; v < component.length; v++) {
+      int degree = adjacency.getNeighbours(v, buffer);
+      for (int i = 0; i < degree; i++) {
+        if (component[v] != component[buffer[i]]) {
+          sources[edge] = component[v];
+          destinations[edge++] = component[buffer[i]];
+        }
+      }
+    }
+
+    return CsrBuilder.build(GraphStorage.HEAP, count, sources, destinations);
+  }
+
+  /**
+   * Works out the components every component can reach.
+   *
+   * @param condensation The edges between the components.
+   * @return The bit set of the components each component can reach.
+   */
+  private static BitSet[] close(Adjacency condensation) {
+    /*
+        Components are numbered so that every edge between two components leads to a lower number,
+        so the components a component can reach are always known before it is
+    */
+    int count = condensation.getVertexCount();
+    BitSet[] closure = new BitSet[count];
+    int[] buffer = new int[condensation.getMaxOutDegree()];
+
+    for (int c = 0; c < count; c++) {
+      closure[c] = new BitSet(count);
+      closure[c].set(c);
+
+      // Only the direct successors need merging, as their own sets are already complete.
+      int degree = condensation.getNeighbours(c, buffer);
+      for (int i = 0; i < degree; i++) {
+        closure[c].or(closure[buffer[i]]);
+      }
+    }
+
+    return closure;
+  }
+
+  /**
+   * Gets the components that a component can reach.
+   *
+   * @param from the component the paths start at
+   * @return the components, which must not be changed
+   */
+  private BitSet getClosure(int from) {
+    /*
+        Searches the components from from, unless the last search already did
+    */
+    if (closure != null) {
+      return closure[from];
+    }
+
+    if (searched != from) {
+      LevelSearch search = LevelSearch.get();
+      search.search(condensation, new int[] {from}, 1, Integer.MAX_VALUE);
+
+      reached.clear();
+      for (int i = 0; i < search.getVisitedCount(); i++) {
+        reached.set(search.getVisited(i));
+      }
+      searched = from;
+    }
+
+    return reached;
+  }
+
+  /**
+   * Numbers the strongly connected components of a graph using an iterative version of Tarjan's
+   * algorithm, so that long paths cannot overflow the call stack.
+   *
+   * <p>Tarjan's algorithm completes a component only after every component it leads to, so the
+   * components are numbered in reverse topological order.
+   *
+   * @param adjacency The edges of the graph.
+   * @param component Filled with the component of each vertex.
+   * @return The number of components.
+   */
+  private static int findComponents(Adjacency adjacency, int[] component) {
+    /*
+        Tarjan's strongly connected components algorithm, with an explicit call stack
+    */
+    int n = adjacency.getVertexCount();
+    int[] index = new int[n];
+    int[] lowLink = new int[n];
+    int[] nextEdge = new int[n];
+    boolean[] isOnStack = new boolean[n];
+    int[] stack = new int[n];
+    int[] callStack = new int[n];
+    int stackSize = 0;
+    int nextIndex = 1;
+    int count = 0;
+
+    for (int root = 0; root < n; root++) {
+      if (index[root] != 0) {
+        continue;
+      }
+
+      int depth = 0;
+      callStack[depth++] = root;
+      index[root] = nextIndex;
+      lowLink[root] = nextIndex++;
+      stack[stackSize++] = root;
+      isOnStack[root] = true;
+
+      while (depth > 0) {
+        int v = callStack[depth - 1];
+
+        if (nextEdge[v] < adjacency.getOutDegree(v)) {
+          int w = adjacency.getNeighbour(v, nextEdge[v]++);
+
+          if (index[w] == 0) {
+            index[w] = nextIndex;
+            lowLink[w] = nextIndex++;
+            stack[stackSize++] = w;
+            isOnStack[w] = true;
+            callStack[depth++] = w;
+          } else if (isOnStack[w]) {
+            lowLink[v] = Math.min(lowLink[v], index[w]);
+          }
+          continue;
+        }
+
+        // Every edge of v has been followed, so return from v to its caller.
+        depth--;
+        if (depth > 0) {
+          int caller = callStack[depth - 1];
+          lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+        }
+
+        if (lowLink[v] == index[v]) {
+          int w;
+          do {
+            w = stack[--stackSize];
+            isOnStack[w] = false;
+            component[w] = count;
+          } while (w != v);
+          count++;
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Checks if a vertex is in the graph.
+   *
+   * @param vertex the vertex
+   * @return true if the vertex is in the graph, false otherwise.
+   */
+  public boolean contains(T vertex) {
+    return ranks.containsKey(vertex);
+  }
+
+  /**
+   * Checks if there is a path from one vertex to another.
+   *
+   * @param from the vertex the path starts at
+   * @param to the vertex the path ends at
+   * @return true if to can be reached from from, false otherwise.
+   */
+  public boolean isReachable(T from, T to) {
+    /*
+        Looks up the component of to in the components the component of from can reach
+    */
+    return getClosure(component[ranks.get(from)]).get(component[ranks.get(to)]);
+  }
+
+  /**
+   * Gets every vertex that can be reached from a vertex, including the vertex itself.
+   *
+   * @param from the vertex the paths start at
+   * @return the reachable verticies, in rank order
+   */
+  public Set<T> getReachable(T from) {
+    /*
+        Marks the ranks of the members of every component that the component of from can reach,
+        then reads the marks in order
+    */
+    BitSet components = getClosure(component[ranks.get(from)]);
+    BitSet result = new BitSet(verticies.size());
+
+    for (int c = components.nextSetBit(0); c >= 0; c = components.nextSetBit(c + 1)) {
+      for (int i = memberStarts[c]; i < memberStarts[c + 1]; i++) {
+        result.set(members[i]);
+      }
+    }
+
+    return new VertexSet<T>(verticies, ranks, result.stream().toArray());
+  }
+
+  /**
+   * Gets the number of strongly connected components in the graph.
+   *
+   * @return the component count
+   */
+  public int getComponentCount() {
+    return memberStarts.length - 1;
+  }
+}
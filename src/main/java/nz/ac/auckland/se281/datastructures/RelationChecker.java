@@ -0,0 +1,231 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/**
+ * Checks properties of the relation a graph describes, over every shard of the graph at once.
+ *
+ * <p>The shards are split in halves as fork join tasks, so idle workers steal whole ranges of
+ * shards from busy ones, and a shard holding a hub does not hold up the shards after it. The
+ * properties still to be decided are kept in one shared set of bits: a shard that finds a property
+ * does not hold clears its bit, and every shard reads the bits again before each vertex, so all the
+ * workers stop as soon as nothing is left to decide.
+ */
+final class RelationChecker {
+  /** Every vertex has an edge to itself. */
+  static final int REFLEXIVE = 1;
+
+  /** Every edge has a reverse edge. */
+  static final int SYMMETRIC = 1 << 1;
+
+  /** No edge between two different verticies has a reverse edge. */
+  static final int ANTI_SYMMETRIC = 1 << 2;
+
+  /** Every path of two edges has an edge from its start to its end. */
+  static final int TRANSITIVE = 1 << 3;
+
+  private static final int EDGE_PROPERTIES = SYMMETRIC | ANTI_SYMMETRIC | TRANSITIVE;
+
+  private final Adjacency adjacency;
+  private final int[] shards;
+  private final AtomicInteger undecided;
+
+  /**
+   * Creates a new check.
+   *
+   * @param adjacency the edges of the graph
+   * @param shards where each shard starts, followed by the vertex count
+   * @param properties the properties to check
+   */
+  private RelationChecker(Adjacency adjacency, int[] shards, int properties) {
+    /*
+       Contructor for the class
+    */
+    this.adjacency = adjacency;
+    this.shards = shards;
+    this.undecided = new AtomicInteger(properties);
+  }
+
+  /**
+   * Checks properties of a relation, on the pool if there is more than one shard.
+   *
+   * @param adjacency the edges of the graph
+   * @param shards where each shard starts, followed by the vertex count
+   * @param properties the properties to check
+   * @param pool the pool to check on
+   * @return the properties that hold, out of those checked
+   */
+  static int check(Adjacency adjacency, int[] shards, int properties, ForkJoinPool pool) {
+    /*
+        Checks every shard, then reads which properties were never found not to hold
+    */
+    RelationChecker checker = new RelationChecker(adjacency, shards, properties);
+    int shardCount = shards.length - 1;
+
+    if (shardCount <= 1) {
+      for (int shard = 0; shard < shardCount; shard++) {
+        checker.checkShard(shard);
+      }
+    } else {
+      pool.invoke(checker.new ShardTask(0, shardCount));
+    }
+
+    return checker.undecided.get();
+  }
+
+  /** Checks a range of shards, splitting it in half until a single shard is left. */
+  private class ShardTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates a task for a range of shards.
+     *
+     * @param from the first shard
+     * @param to one past the last shard
+     */
+    ShardTask(int from, int to) {
+      /*
+         Contructor for the class
+      */
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (undecided.get() == 0) {
+        return;
+      }
+
+      if (to - from == 1) {
+        checkShard(from);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new ShardTask(from, middle), new ShardTask(middle, to));
+    }
+  }
+
+  /**
+   * Checks the undecided properties on every vertex of a shard, and on the edges leaving them.
+   *
+   * @param shard the number of the shard
+   */
+  private void checkShard(int shard) {
+    /*
+        Walks each vertex and its edges once, checking the properties that are still undecided
+    */
+    int first = shards[shard];
+    int end = shards[shard + 1];
+    int maxOutDegree = 0;
+    for (int v = first; v < end; v++) {
+      maxOutDegree = Math.max(maxOutDegree, adjacency.getOutDegree(v));
+    }
+
+    // The rows of a bit matrix are compared a word at a time, rather than merged.
+    BitMatrix matrix = adjacency instanceof BitMatrix ? (BitMatrix) adjacency : null;
+    int[] neighbours = new int[maxOutDegree];
+    int[] ends = new int[maxOutDegree];
+    long edgesScanned = 0;
+    int a = first;
+
+    for (; a < end; a++) {
+      int properties = undecided.get();
+      if (properties == 0) {
+        break;
+      }
+
+      int failed = 0;
+      if ((properties & EDGE_PROPERTIES) == 0) {
+        if (!adjacency.hasEdge(a, a)) {
+          failed |= REFLEXIVE;
+        }
+      } else {
+        int count = adjacency.getNeighbours(a, neighbours);
+        if ((properties & REFLEXIVE) != 0 && Arrays.binarySearch(neighbours, 0, count, a) < 0) {
+          failed |= REFLEXIVE;
+        }
+
+        for (int i = 0; i < count && (properties & ~failed & EDGE_PROPERTIES) != 0; i++) {
+          int b = neighbours[i];
+          edgesScanned++;
+          if (b == a) {
+            // A loop is its own reverse, and every edge it leads to already leaves a.
+            continue;
+          }
+
+          if ((properties & ~failed & (SYMMETRIC | ANTI_SYMMETRIC)) != 0) {
+            failed |= adjacency.hasEdge(b, a) ? ANTI_SYMMETRIC : SYMMETRIC;
+          }
+
+          if ((properties & ~failed & TRANSITIVE) != 0 && matrix != null) {
+            if (!matrix.includes(a, b)) {
+              failed |= TRANSITIVE;
+            }
+          } else if ((properties & ~failed & TRANSITIVE) != 0) {
+            // The neighbour may be in another shard, with more edges than any vertex of this one.
+            if (adjacency.getOutDegree(b) > ends.length) {
+              ends = new int[adjacency.getOutDegree(b)];
+            }
+            int endCount = adjacency.getNeighbours(b, ends);
+            edgesScanned += endCount;
+            if (!containsAll(neighbours, count, ends, endCount)) {
+              failed |= TRANSITIVE;
+            }
+          }
+        }
+      }
+
+      if ((properties & failed) != 0) {
+        int cleared = failed;
+        undecided.getAndUpdate(bits -> bits & ~cleared);
+      }
+    }
+
+    WorkCounter.VERTICES_VISITED.add(a - first);
+    WorkCounter.EDGES_SCANNED.add(edgesScanned);
+  }
+
+  /**
+   * Checks if every value of one sorted run is also in another sorted run. Each value is found by
+   * galloping forward from where the last one was found, so a short run is checked against a long
+   * one without walking the whole of the long one. A value wanted more than once is found each
+   * time.
+   *
+   * @param values the run to search, in ascending order
+   * @param count the length of the run to search
+   * @param wanted the values to find, in ascending order
+   * @param wantedCount the number of values to find
+   * @return true if every wanted value is in the run, false otherwise.
+   */
+  private static boolean containsAll(int[] values, int count, int[] wanted, int wantedCount) {
+    int from = 0;
+
+    for (int i = 0; i < wantedCount; i++) {
+      int step = 1;
+      int to = from;
+      while (to < count && values[to] < wanted[i]) {
+        from = to + 1;
+        to += step;
+        step <<= 1;
+      }
+
+      int found = Arrays.binarySearch(values, from, Math.min(to + 1, count), wanted[i]);
+      if (found < 0) {
+        return false;
+      }
+      // The same value may be wanted again, so the search goes on from where it was found.
+      from = found;
+    }
+
+    return true;
+  }
+}
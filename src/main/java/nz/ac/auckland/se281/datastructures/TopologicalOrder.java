@@ -0,0 +1,160 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * An order of the verticies of a graph in which every edge leads forwards, found with Kahn's
+ * algorithm, or a cycle showing that there is no such order.
+ *
+ * <p>Each vertex starts with its in degree as the number of edges still to be removed from it. The
+ * verticies with none are queued in ascending order, and each vertex taken from the queue removes
+ * its edges, queueing every destination that has no edges left. If the queue empties before every
+ * vertex has been taken, the verticies left over all lie on or after a cycle, and a depth first
+ * search of only those verticies walks into one.
+ */
+final class TopologicalOrder {
+  private static final int UNSEEN = 0;
+  private static final int ON_PATH = 1;
+  private static final int DONE = 2;
+
+  private final int[] order;
+  private final int[] cycle;
+
+  /**
+   * Sorts the verticies of a graph.
+   *
+   * @param adjacency the edges of the graph
+   */
+  TopologicalOrder(Adjacency adjacency) {
+    /*
+       Contructor for the class
+    */
+    int vertexCount = adjacency.getVertexCount();
+    int[] remaining = new int[vertexCount];
+    int[] queue = new int[vertexCount];
+    int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int tail = 0;
+
+    for (int v = 0; v < vertexCount; v++) {
+      remaining[v] = adjacency.getInDegree(v);
+      if (remaining[v] == 0) {
+        queue[tail++] = v;
+      }
+    }
+
+    for (int head = 0; head < tail; head++) {
+      int count = adjacency.getNeighbours(queue[head], buffer);
+      for (int i = 0; i < count; i++) {
+        if (--remaining[buffer[i]] == 0) {
+          queue[tail++] = buffer[i];
+        }
+      }
+    }
+
+    if (tail == vertexCount) {
+      this.order = queue;
+      this.cycle = new int[0];
+    } else {
+      this.order = new int[0];
+      this.cycle = findCycle(adjacency, remaining);
+    }
+  }
+
+  /**
+   * Recreates a sort worked out before.
+   *
+   * @param order the numbers of the verticies in order, or empty if the graph has a cycle
+   * @param cycle the numbers of the verticies of a cycle, or empty if the graph is acyclic
+   */
+  TopologicalOrder(int[] order, int[] cycle) {
+    /*
+       Contructor for the class
+    */
+    this.order = order;
+    this.cycle = cycle;
+  }
+
+  /**
+   * Searches the verticies left over by Kahn's algorithm, following their edges until one leads
+   * back to a vertex on the current path.
+   *
+   * @param adjacency the edges of the graph
+   * @param remaining the number of edges still into each vertex, which is not zero for every vertex
+   *     left over
+   * @return the cycle, starting and ending with the same vertex
+   */
+  private static int[] findCycle(Adjacency adjacency, int[] remaining) {
+    int vertexCount = adjacency.getVertexCount();
+    byte[] state = new byte[vertexCount];
+    int[] path = new int[vertexCount];
+    int[] nextEdge = new int[vertexCount];
+
+    for (int root = 0; root < vertexCount; root++) {
+      if (remaining[root] == 0 || state[root] != UNSEEN) {
+        continue;
+      }
+
+      int depth = 0;
+      path[0] = root;
+      nextEdge[0] = 0;
+      state[root] = ON_PATH;
+
+      while (depth >= 0) {
+        int vertex = path[depth];
+        if (nextEdge[depth] == adjacency.getOutDegree(vertex)) {
+          state[vertex] = DONE;
+          depth--;
+          continue;
+        }
+
+        int destination = adjacency.getNeighbour(vertex, nextEdge[depth]++);
+        if (remaining[destination] == 0 || state[destination] == DONE) {
+          continue;
+        }
+
+        if (state[destination] == ON_PATH) {
+          int start = depth;
+          while (path[start] != destination) {
+            start--;
+          }
+          int[] cycle = new int[depth - start + 2];
+          System.arraycopy(path, start, cycle, 0, depth - start + 1);
+          cycle[cycle.length - 1] = destination;
+          return cycle;
+        }
+
+        depth++;
+        path[depth] = destination;
+        nextEdge[depth] = 0;
+        state[destination] = ON_PATH;
+      }
+    }
+
+    return new int[0];
+  }
+
+  /**
+   * Checks if the graph has no cycles.
+   *
+   * @return true if every vertex is in the order, false otherwise.
+   */
+  boolean isAcyclic() {
+    return cycle.length == 0;
+  }
+
+  /**
+   * Gets the numbers of the verticies in an order where every edge leads forwards.
+   *
+   * @return the order, which is empty if the graph has a cycle
+   */
+  int[] getOrder() {
+    return order;
+  }
+
+  /**
+   * Gets the numbers of the verticies of a cycle, if the graph has one.
+   *
+   * @return the cycle, starting and ending with the same vertex, or empty if there is none
+   */
+  int[] getCycle() {
+    return cycle;
+  }
+}
@@ -0,0 +1,208 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import nz.ac.auckland.se281.metrics.WorkCounter;
+
+/**
+ * A bounded cache of the orders that searches of graphs visited their verticies in, so that asking
+ * for the same search of an unchanged graph again does not walk the graph again.
+ *
+ * <p>Each order is kept as the numbers of its verticies, keyed by the version of the graph it was
+ * found in, the name of the search, and the verticies it started from. Every graph that is built
+ * has a new version, so a graph that is rebuilt after its file changes never sees the orders of the
+ * old graph, and {@link #invalidate(long)} drops those orders straight away. The least recently
+ * used orders are evicted once the estimated size of the cache exceeds its budget, which defaults
+ * to a sixteenth of the maximum heap and can be set in bytes with {@code
+ * -Dgraph.traversal.cache.bytes}. A budget of zero disables the cache.
+ */
+public final class TraversalCache {
+  private static final TraversalCache INSTANCE =
+      new TraversalCache(
+          Long.getLong("graph.traversal.cache.bytes", Runtime.getRuntime().maxMemory() / 16));
+
+  // The estimated size of a key and its map entry, without the arrays they hold.
+  private static final int ENTRY_BYTES = 96;
+  private static final int ARRAY_BYTES = 16;
+
+  /**
+   * Gets the cache shared by every graph in this JVM.
+   *
+   * @return The shared cache.
+   */
+  public static TraversalCache getInstance() {
+    return INSTANCE;
+  }
+
+  /** The version of a graph, the name of a search, and the verticies the search started from. */
+  private static final class Key {
+    private final long version;
+    private final String algorithm;
+    private final BitSet starts;
+
+    private Key(final long version, final String algorithm, final BitSet starts) {
+      this.version = version;
+      this.algorithm = algorithm;
+      this.starts = starts;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      final Key key = (Key) other;
+      return version == key.version && algorithm.equals(key.algorithm) && starts.equals(key.starts);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(version, algorithm, starts);
+    }
+  }
+
+  private final long budgetBytes;
+
+  // Iterates from the least to the most recently used order.
+  private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long usedBytes;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param budgetBytes The estimated size that the cached orders may not exceed.
+   */
+  public TraversalCache(final long budgetBytes) {
+    this.budgetBytes = budgetBytes;
+  }
+
+  /**
+   * Estimates the size of a cached order.
+   *
+   * @param key The key of the order.
+   * @param order The numbers of the verticies in the order.
+   * @return The estimate in bytes.
+   */
+  private static long estimateBytes(final Key key, final int[] order) {
+    return ENTRY_BYTES
+        + 2L * ARRAY_BYTES
+        + key.starts.size() / Byte.SIZE
+        + (long) order.length * Integer.BYTES;
+  }
+
+  /**
+   * Gets the order a search visited the verticies of a graph in, if it is cached.
+   *
+   * @param version The version of the graph.
+   * @param algorithm The name of the search.
+   * @param starts The numbers of the verticies the search started from.
+   * @return The numbers of the verticies in the order they were visited, which must not be changed,
+   *     or null if the order is not cached.
+   */
+  public synchronized int[] get(final long version, final String algorithm, final BitSet starts) {
+    final int[] order = entries.get(new Key(version, algorithm, starts));
+
+    if (order != null) {
+      WorkCounter.CACHE_HITS.increment();
+    } else {
+      WorkCounter.CACHE_MISSES.increment();
+    }
+
+    return order;
+  }
+
+  /**
+   * Adds the order a search visited the verticies of a graph in, then evicts the least recently
+   * used orders until the cache is within its budget. Orders larger than the whole budget are not
+   * cached.
+   *
+   * @param version The version of the graph.
+   * @param algorithm The name of the search.
+   * @param starts The numbers of the verticies the search started from, which must not be changed
+   *     afterwards.
+   * @param order The numbers of the verticies in the order they were visited, which must not be
+   *     changed afterwards.
+   */
+  public synchronized void put(
+      final long version, final String algorithm, final BitSet starts, final int[] order) {
+    final Key key = new Key(version, algorithm, starts);
+    final long bytes = estimateBytes(key, order);
+
+    if (bytes > budgetBytes) {
+      return;
+    }
+
+    final int[] previous = entries.put(key, order);
+    if (previous != null) {
+      usedBytes -= estimateBytes(key, previous);
+    }
+    usedBytes += bytes;
+
+    final Iterator<Map.Entry<Key, int[]>> eldest = entries.entrySet().iterator();
+
+    while (usedBytes > budgetBytes && eldest.hasNext()) {
+      final Map.Entry<Key, int[]> entry = eldest.next();
+      usedBytes -= estimateBytes(entry.getKey(), entry.getValue());
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Gets every cached order of a version of a graph from the given verticies, without counting them
+   * as cache hits or making them more recently used.
+   *
+   * @param version The version of the graph.
+   * @param starts The numbers of the verticies the searches started from.
+   * @return The numbers of the verticies in the order each search visited them, by the name of the
+   *     search.
+   */
+  public synchronized Map<String, int[]> getOrders(final long version, final BitSet starts) {
+    final Map<String, int[]> orders = new TreeMap<>();
+
+    for (final Map.Entry<Key, int[]> entry : entries.entrySet()) {
+      if (entry.getKey().version == version && entry.getKey().starts.equals(starts)) {
+        orders.put(entry.getKey().algorithm, entry.getValue());
+      }
+    }
+
+    return orders;
+  }
+
+  /**
+   * Removes every order found in a version of a graph, once that version has been replaced.
+   *
+   * @param version The version of the graph.
+   */
+  public synchronized void invalidate(final long version) {
+    final Iterator<Map.Entry<Key, int[]>> iterator = entries.entrySet().iterator();
+
+    while (iterator.hasNext()) {
+      final Map.Entry<Key, int[]> entry = iterator.next();
+      if (entry.getKey().version == version) {
+        usedBytes -= estimateBytes(entry.getKey(), entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Gets the estimated size of every order in the cache.
+   *
+   * @return The estimate in bytes.
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Removes every order from the cache. */
+  public synchronized void clear() {
+    entries.clear();
+    usedBytes = 0;
+  }
+}
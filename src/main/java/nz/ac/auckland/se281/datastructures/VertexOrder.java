@@ -0,0 +1,137 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Comparator;
+
+/**
+ * The total order a graph ranks its verticies by. A graph ranks its verticies once when it is
+ * created, and every later ordering decision compares ranks rather than verticies.
+ *
+ * <p>The order of graphs created without naming one is read from the {@code graph.order} system
+ * property ({@code natural} or {@code numeric}), and is {@link #NATURAL} if the property is missing
+ * or not recognised.
+ */
+public enum VertexOrder {
+  /** The natural order of the verticies, so the vertex "10" comes before the vertex "9". */
+  NATURAL,
+  /**
+   * The natural order, except that runs of digits in verticies that are strings are compared by
+   * their value, so the vertex "9" comes before the vertex "10".
+   */
+  NUMERIC;
+
+  private static final VertexOrder DEFAULT = parse(System.getProperty("graph.order"));
+
+  /**
+   * Gets the order used for graphs created without naming one.
+   *
+   * @return the default order
+   */
+  public static VertexOrder getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Finds the order with the given name, allowing any case.
+   *
+   * @param name the name of the order
+   * @return the order, or {@link #NATURAL} if the name is null or not recognised
+   */
+  public static VertexOrder parse(String name) {
+    if (name == null) {
+      return NATURAL;
+    }
+
+    try {
+      return valueOf(name.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return NATURAL;
+    }
+  }
+
+  /**
+   * Gets a comparator that puts verticies in this order.
+   *
+   * @param <T> the type of each vertex
+   * @return the comparator
+   */
+  public <T extends Comparable<T>> Comparator<T> comparator() {
+    if (this == NATURAL) {
+      return Comparator.naturalOrder();
+    }
+
+    return (a, b) ->
+        a instanceof String && b instanceof String
+            ? compareNumeric((String) a, (String) b)
+            : a.compareTo(b);
+  }
+
+  /**
+   * Compares two strings a character at a time, except that runs of digits are compared by their
+   * value. Strings that only differ in leading zeros are then compared naturally, so the order is
+   * still total.
+   *
+   * @param a the first string
+   * @param b the second string
+   * @return a negative number, zero, or a positive number as a is less than, equal to, or greater
+   *     than b
+   */
+  static int compareNumeric(String a, String b) {
+    /*
+        Walks both strings together, comparing runs of digits by length once leading zeros are
+        skipped, and then digit by digit
+    */
+    int i = 0;
+    int j = 0;
+
+    while (i < a.length() && j < b.length()) {
+      char charA = a.charAt(i);
+      char charB = b.charAt(j);
+
+      if (!isDigit(charA) || !isDigit(charB)) {
+        if (charA != charB) {
+          return Character.compare(charA, charB);
+        }
+        i++;
+        j++;
+        continue;
+      }
+
+      while (i < a.length() && a.charAt(i) == '0') {
+        i++;
+      }
+      while (j < b.length() && b.charAt(j) == '0') {
+        j++;
+      }
+      int endA = i;
+      while (endA < a.length() && isDigit(a.charAt(endA))) {
+        endA++;
+      }
+      int endB = j;
+      while (endB < b.length() && isDigit(b.charAt(endB))) {
+        endB++;
+      }
+
+      if (endA - i != endB - j) {
+        return Integer.compare(endA - i, endB - j);
+      }
+      for (; i < endA; i++, j++) {
+        if (a.charAt(i) != b.charAt(j)) {
+          return Character.compare(a.charAt(i), b.charAt(j));
+        }
+      }
+    }
+
+    int remaining = Integer.compare(a.length() - i, b.length() - j);
+    return remaining != 0 ? remaining : a.compareTo(b);
+  }
+
+  /**
+   * Checks if a character is one of the ASCII digits.
+   *
+   * @param c the character
+   * @return true if the character is a digit, false otherwise.
+   */
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
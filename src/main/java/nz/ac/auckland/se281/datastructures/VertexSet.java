@@ -0,0 +1,70 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An unmodifiable set of verticies held as their ranks in ascending order, so it iterates, and
+ * prints, in the order of the graph without ever comparing the verticies themselves.
+ *
+ * @param <T> The type of each vertex, that have a total ordering.
+ */
+class VertexSet<T extends Comparable<T>> extends AbstractSet<T> {
+  private final List<T> verticies;
+  private final Map<T, Integer> ranks;
+  private final int[] members;
+
+  /**
+   * Creates a new set.
+   *
+   * @param verticies every vertex of the graph, in rank order
+   * @param ranks the rank of every vertex of the graph
+   * @param members the ranks of the members, in ascending order, which must not change afterwards
+   */
+  VertexSet(List<T> verticies, Map<T, Integer> ranks, int[] members) {
+    /*
+       Contructor for the class
+    */
+    this.verticies = verticies;
+    this.ranks = ranks;
+    this.members = members;
+  }
+
+  @Override
+  public int size() {
+    return members.length;
+  }
+
+  @Override
+  public boolean contains(Object vertex) {
+    /*
+        Looks up the rank of the vertex and binary searches the members for it
+    */
+    Integer rank = ranks.get(vertex);
+    return rank != null && Arrays.binarySearch(members, rank) >= 0;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < members.length;
+      }
+
+      @Override
+      public T next() {
+        if (next >= members.length) {
+          throw new NoSuchElementException();
+        }
+        return verticies.get(members[next++]);
+      }
+    };
+  }
+}
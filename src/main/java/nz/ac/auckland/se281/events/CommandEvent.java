@@ -0,0 +1,19 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A flight recorder event spanning one command entered into the command line interface. */
+@Name("nz.ac.auckland.se281.Command")
+@Label("Calculator Command")
+@Category("Graph Calculator")
+@Description("A command entered by the user, enclosing the loading and algorithm events it caused")
+public class CommandEvent extends jdk.jfr.Event {
+  @Label("Command")
+  public String command;
+
+  @Label("Arguments")
+  public String arguments;
+}
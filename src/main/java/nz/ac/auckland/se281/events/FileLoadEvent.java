@@ -0,0 +1,31 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A flight recorder event spanning the parse of a graph file and the construction of its graph. */
+@Name("nz.ac.auckland.se281.FileLoad")
+@Label("Graph File Load")
+@Category({"Graph Calculator", "Loading"})
+@Description("Parsing a graph file and building the graph from it")
+public class FileLoadEvent extends jdk.jfr.Event {
+  @Label("File")
+  public String file;
+
+  @Label("Size")
+  @DataAmount
+  public long bytes;
+
+  @Label("Verticies")
+  public int verticies;
+
+  @Label("Edges")
+  public long edges;
+
+  @Label("Cached")
+  @Description("If the graph was reused from the graph cache instead of being parsed")
+  public boolean cached;
+}
@@ -0,0 +1,22 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A flight recorder event spanning the construction of a graph's adjacency index. */
+@Name("nz.ac.auckland.se281.IndexBuild")
+@Label("Adjacency Index Build")
+@Category({"Graph Calculator", "Loading"})
+@Description("Building the index from each vertex to its outgoing edges")
+public class IndexBuildEvent extends jdk.jfr.Event {
+  @Label("Representation")
+  public String representation;
+
+  @Label("Verticies")
+  public int verticies;
+
+  @Label("Edges")
+  public long edges;
+}
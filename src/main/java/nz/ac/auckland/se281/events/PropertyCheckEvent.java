@@ -0,0 +1,55 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A flight recorder event spanning a check of one property of the relation a graph describes. */
+@Name("nz.ac.auckland.se281.PropertyCheck")
+@Label("Relation Property Check")
+@Category({"Graph Calculator", "Algorithms"})
+@Description(
+    "Checking if the graph is reflexive, symmetric, antisymmetric, transitive, acyclic or an"
+        + " equivalence relation")
+public class PropertyCheckEvent extends jdk.jfr.Event {
+  @Label("Property")
+  public String property;
+
+  @Label("Verticies")
+  public int verticies;
+
+  @Label("Edges")
+  public long edges;
+
+  @Label("Result")
+  public boolean result;
+
+  /**
+   * Creates a new event for the given property and starts its timer.
+   *
+   * @param property The name of the property being checked.
+   */
+  public PropertyCheckEvent(final String property) {
+    this.property = property;
+    begin();
+  }
+
+  /**
+   * Stops the timer and records the event if the flight recorder is interested in it.
+   *
+   * @param verticies The number of verticies in the graph.
+   * @param edges The number of edges in the graph.
+   * @param result If the graph has the property.
+   */
+  public void finish(final int verticies, final long edges, final boolean result) {
+    end();
+
+    if (shouldCommit()) {
+      this.verticies = verticies;
+      this.edges = edges;
+      this.result = result;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A flight recorder event spanning one search of a graph from its roots or given sources. */
+@Name("nz.ac.auckland.se281.Traversal")
+@Label("Graph Traversal")
+@Category({"Graph Calculator", "Algorithms"})
+@Description(
+    "A breadth-first or depth-first search of the graph from its roots, or a breadth-first"
+        + " search by levels from given sources")
+public class TraversalEvent extends jdk.jfr.Event {
+  @Label("Algorithm")
+  public String algorithm;
+
+  @Label("Verticies")
+  public int verticies;
+
+  @Label("Edges")
+  public long edges;
+
+  @Label("Roots")
+  public int roots;
+
+  @Label("Verticies Visited")
+  public int visited;
+
+  /**
+   * Creates a new event for the given algorithm and starts its timer.
+   *
+   * @param algorithm The name of the search being performed.
+   */
+  public TraversalEvent(final String algorithm) {
+    this.algorithm = algorithm;
+    begin();
+  }
+
+  /**
+   * Stops the timer and records the event if the flight recorder is interested in it.
+   *
+   * @param verticies The number of verticies in the graph.
+   * @param edges The number of edges in the graph.
+   * @param roots The number of roots the search started from.
+   * @param visited The number of verticies in the search order.
+   */
+  public void finish(final int verticies, final long edges, final int roots, final int visited) {
+    end();
+
+    if (shouldCommit()) {
+      this.verticies = verticies;
+      this.edges = edges;
+      this.roots = roots;
+      this.visited = visited;
+      commit();
+    }
+  }
+}
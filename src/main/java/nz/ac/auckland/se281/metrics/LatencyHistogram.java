@@ -0,0 +1,127 @@
+package nz.ac.auckland.se281.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size, log-linear histogram of latencies in nanoseconds.
+ *
+ * <p>Each power of two is split into eight equal buckets, so a reported percentile is never more
+ * than 12.5% above the true value. Recording is a few array operations and never allocates.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Records a single latency.
+   *
+   * @param nanos The latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+
+    buckets.incrementAndGet(bucketOf(nanos));
+    count.increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   *
+   * @return The count.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the sum of every latency recorded.
+   *
+   * @return The total in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  /**
+   * Gets the largest latency recorded.
+   *
+   * @return The maximum in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Gets the latency below which the given fraction of recorded latencies fall.
+   *
+   * @param percentile The percentile between 0 and 100.
+   * @return The upper bound of the bucket holding the percentile, in nanoseconds.
+   */
+  public long getPercentileNanos(final double percentile) {
+    final long recorded = getCount();
+
+    if (recorded == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+    long seen = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), getMaxNanos());
+      }
+    }
+
+    return getMaxNanos();
+  }
+
+  /**
+   * Finds the bucket that a latency is counted in.
+   *
+   * @param nanos The latency in nanoseconds.
+   * @return The index of the bucket.
+   */
+  private static int bucketOf(final long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+
+    final int msb = 63 - Long.numberOfLeadingZeros(nanos);
+    final int sub = (int) (nanos >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Finds the largest latency that is counted in a bucket.
+   *
+   * @param bucket The index of the bucket.
+   * @return The upper bound in nanoseconds.
+   */
+  private static long upperBoundOf(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final int msb = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    final long sub = bucket % SUB_BUCKETS;
+    final int shift = msb - SUB_BUCKET_BITS;
+    final long lower = (SUB_BUCKETS | sub) << shift;
+
+    return lower + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,42 @@
+package nz.ac.auckland.se281.metrics;
+
+/**
+ * The global switch for the calculator's instrumentation.
+ *
+ * <p>Instrumentation is enabled by default, and can be disabled by starting the JVM with {@code
+ * -Dgraph.stats=false}. When disabled, every recording call returns after a single field read.
+ */
+public final class Metrics {
+  private static volatile boolean enabled =
+      Boolean.parseBoolean(System.getProperty("graph.stats", "true"));
+
+  private Metrics() {}
+
+  /**
+   * Returns true if counters and latencies are currently being recorded.
+   *
+   * @return true if instrumentation is enabled, false otherwise.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns the recording of counters and latencies on or off.
+   *
+   * @param isEnabled true to record, false to ignore all recording calls.
+   */
+  public static void setEnabled(boolean isEnabled) {
+    enabled = isEnabled;
+  }
+
+  /**
+   * Returns the current time for latency measurements, or zero if instrumentation is disabled so
+   * that the clock is not read at all.
+   *
+   * @return the current value of the monotonic clock in nanoseconds.
+   */
+  public static long startTimer() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+}
@@ -0,0 +1,71 @@
+package nz.ac.auckland.se281.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work performed by the graph algorithms.
+ *
+ * <p>Algorithms count into a local variable while they run and add the total once when they finish,
+ * so the counters cost nothing inside the hot loops.
+ */
+public enum WorkCounter {
+  EDGES_SCANNED("Edges scanned"),
+  VERTICES_VISITED("Vertices visited"),
+  INDEX_BUILDS("Index builds"),
+  CACHE_HITS("Cache hits"),
+  CACHE_MISSES("Cache misses");
+
+  private final String description;
+
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * Creates a new counter.
+   *
+   * @param description The human readable name of the counter.
+   */
+  private WorkCounter(final String description) {
+    this.description = description;
+  }
+
+  /**
+   * Gets the human readable name of the counter.
+   *
+   * @return The description.
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Adds the given amount of work to the counter if instrumentation is enabled.
+   *
+   * @param amount The amount of work performed.
+   */
+  public void add(final long amount) {
+    if (Metrics.isEnabled() && amount != 0) {
+      count.add(amount);
+    }
+  }
+
+  /** Adds one to the counter if instrumentation is enabled. */
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * Gets the total amount of work recorded by the counter.
+   *
+   * @return The total.
+   */
+  public long get() {
+    return count.sum();
+  }
+
+  /** Resets every counter back to zero. */
+  public static void resetAll() {
+    for (final WorkCounter counter : values()) {
+      counter.count.reset();
+    }
+  }
+}
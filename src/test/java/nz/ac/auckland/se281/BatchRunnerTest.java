@@ -0,0 +1,197 @@
+package nz.ac.auckland.se281;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchRunnerTest {
+  private static final String NEW_LINE = System.lineSeparator();
+
+  private String run(final BatchRunner.OutputFormat format, final String... script)
+      throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new BatchRunner(format).run(List.of(script), out);
+    return out.toString();
+  }
+
+  @Test
+  public void text_has_no_prompt_or_help() throws Exception {
+    final String output =
+        run(BatchRunner.OutputFormat.TEXT, "open_file a.txt", "list_root_verticies", "exit");
+
+    Assert.assertEquals(
+        "Successfully opened graph from file a.txt"
+            + NEW_LINE
+            + "[0]"
+            + NEW_LINE
+            + "You closed the terminal. Goodbye."
+            + NEW_LINE,
+        output);
+  }
+
+  @Test
+  public void concurrent_commands_keep_script_order() throws Exception {
+    final String output =
+        run(
+            BatchRunner.OutputFormat.TEXT,
+            "# properties of c.txt",
+            "open_file c.txt",
+            "check_reflexivity",
+            "check_symmetry",
+            "",
+            "check_transitivity",
+            "graph_search_ibfs",
+            "compute_equivalence 1");
+
+    Assert.assertEquals(
+        "Successfully opened graph from file c.txt"
+            + NEW_LINE
+            + "The graph is reflexive"
+            + NEW_LINE
+            + "The graph is symmetric"
+            + NEW_LINE
+            + "The graph is transitive"
+            + NEW_LINE
+            + "[0, 1, 2, 3]"
+            + NEW_LINE
+            + "[1, 2, 3]"
+            + NEW_LINE,
+        output);
+  }
+
+  @Test
+  public void watching_a_file_waits_for_the_commands_around_it() throws Exception {
+    final String output =
+        run(
+            BatchRunner.OutputFormat.TEXT,
+            "open_file a.txt",
+            "list_root_verticies",
+            "check_symmetry",
+            "watch_file on",
+            "list_root_verticies",
+            "check_symmetry",
+            "watch_file off");
+
+    Assert.assertEquals(
+        "Successfully opened graph from file a.txt"
+            + NEW_LINE
+            + "[0]"
+            + NEW_LINE
+            + "The graph is NOT symmetric"
+            + NEW_LINE
+            + "Watching file a.txt for changes"
+            + NEW_LINE
+            + "[0]"
+            + NEW_LINE
+            + "The graph is NOT symmetric"
+            + NEW_LINE
+            + "Stopped watching file a.txt"
+            + NEW_LINE,
+        output);
+  }
+
+  @Test
+  public void stops_at_exit() throws Exception {
+    final String output =
+        run(BatchRunner.OutputFormat.TEXT, "exit", "open_file a.txt", "list_root_verticies");
+
+    Assert.assertEquals("You closed the terminal. Goodbye." + NEW_LINE, output);
+  }
+
+  @Test
+  public void json_has_one_object_per_command() throws Exception {
+    final String output =
+        run(BatchRunner.OutputFormat.JSON, "open_file b.txt", "check_symmetry", "nope");
+
+    Assert.assertEquals(
+        "{\"line\":1,\"command\":\"OPEN_FILE\",\"input\":\"open_file b.txt\",\"output\":"
+            + "\"Successfully opened graph from file b.txt"
+            + NEW_LINE.replace("\r", "\\r").replace("\n", "\\n")
+            + "\"}"
+            + NEW_LINE
+            + "{\"line\":2,\"command\":\"CHECK_SYMMETRY\",\"input\":\"check_symmetry\",\"output\":"
+            + "\"The graph is NOT symmetric"
+            + NEW_LINE.replace("\r", "\\r").replace("\n", "\\n")
+            + "\"}"
+            + NEW_LINE
+            + "{\"line\":3,\"command\":null,\"input\":\"nope\",\"output\":"
+            + "\"Error! Command not found! (run 'help' for the list of available commands):"
+            + " \\\"NOPE\\\""
+            + NEW_LINE.replace("\r", "\\r").replace("\n", "\\n")
+            + "\"}"
+            + NEW_LINE,
+        output);
+  }
+
+  /** Reads back a JSON string literal, failing on anything JSON does not allow in one. */
+  private static String unquote(final String literal) {
+    Assert.assertTrue(literal, literal.startsWith("\"") && literal.endsWith("\""));
+    final StringBuilder sb = new StringBuilder();
+
+    for (int i = 1; i < literal.length() - 1; i++) {
+      final char c = literal.charAt(i);
+      Assert.assertFalse(literal, c < ' ' || c == '"' || c == '\u2028' || c == '\u2029');
+
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+
+      final char escape = literal.charAt(++i);
+      switch (escape) {
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case '"':
+        case '\\':
+        case '/':
+          sb.append(escape);
+          break;
+        case 'u':
+          sb.append((char) Integer.parseInt(literal.substring(i + 1, i + 5), 16));
+          i += 4;
+          break;
+        default:
+          Assert.fail(literal);
+      }
+    }
+
+    return sb.toString();
+  }
+
+  @Test
+  public void json_strings_escape_every_character_they_must() {
+    for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+      final String value = "a" + (char) c + "b";
+      final String quoted = BatchRunner.quote(value);
+
+      Assert.assertEquals(value, unquote(quoted));
+      // Only lone surrogates and the separators are escaped beyond what JSON requires.
+      final boolean mustEscape =
+          c < ' '
+              || c == '"'
+              || c == '\\'
+              || c == '\u2028'
+              || c == '\u2029'
+              || Character.isSurrogate((char) c);
+      Assert.assertEquals(quoted, mustEscape, quoted.length() > value.length() + 2);
+    }
+
+    final String pair = "\ud83d\ude00";
+    Assert.assertEquals("\"" + pair + "\"", BatchRunner.quote(pair));
+    Assert.assertEquals("\"\\ude00\\ud83d\"", BatchRunner.quote("\ude00\ud83d"));
+  }
+}
@@ -0,0 +1,115 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedFileParserTest {
+  private Path file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = Files.createTempFile("chunked", ".txt");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.delete(file);
+  }
+
+  private static List<String> describe(final GraphBuilder<String> builder) {
+    final List<String> lines = new ArrayList<>();
+    for (int v = 0; v < builder.getVertexCount(); v++) {
+      lines.add(builder.getVertex(v));
+    }
+    for (int e = 0; e < builder.getEdgeCount(); e++) {
+      lines.add(builder.getSource(e) + "->" + builder.getDestination(e));
+    }
+    return lines;
+  }
+
+  private GraphBuilder<String> parseChunked(final GraphFormat format, final long chunkBytes)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      return ChunkedFileParser.parse(channel, format, chunkBytes, new ForkJoinPool(4));
+    }
+  }
+
+  private GraphBuilder<String> parseSequential(final GraphFormat format) throws IOException {
+    return EdgeFileParser.parse(
+        new BufferedReader(new StringReader(Files.readString(file))), format);
+  }
+
+  @Test
+  public void chunks_give_the_same_builder_as_one_pass() throws Exception {
+    final Random random = new Random(7);
+    final StringBuilder edges = new StringBuilder("# edges\n");
+    final StringBuilder adjacency = new StringBuilder();
+    for (int i = 0; i < 2_000; i++) {
+      edges.append("v").append(random.nextInt(300)).append('\t');
+      edges.append("v").append(random.nextInt(300)).append(i % 7 == 0 ? "\r\n" : "\n");
+      adjacency.append("v").append(random.nextInt(300)).append(':');
+      for (int j = random.nextInt(4); j > 0; j--) {
+        adjacency.append(' ').append("v").append(random.nextInt(300));
+      }
+      adjacency.append(i % 11 == 0 ? "\n% comment\n\n" : "\n");
+    }
+
+    Files.writeString(file, edges.append("lonely"));
+    for (final long chunkBytes : new long[] {1, 37, 4096, Long.MAX_VALUE / 2}) {
+      Assert.assertEquals(
+          describe(parseSequential(GraphFormat.EDGE_LIST)),
+          describe(parseChunked(GraphFormat.EDGE_LIST, chunkBytes)));
+    }
+
+    Files.writeString(file, adjacency);
+    for (final long chunkBytes : new long[] {1, 37, 4096}) {
+      Assert.assertEquals(
+          describe(parseSequential(GraphFormat.ADJACENCY_LIST)),
+          describe(parseChunked(GraphFormat.ADJACENCY_LIST, chunkBytes)));
+    }
+  }
+
+  @Test
+  public void matrix_chunks_report_the_same_line_as_one_pass() throws Exception {
+    final StringBuilder matrix =
+        new StringBuilder(
+            "%%MatrixMarket matrix coordinate pattern symmetric\n% size\n50 50 300\n");
+    final Random random = new Random(11);
+    for (int i = 0; i < 300; i++) {
+      matrix.append(1 + random.nextInt(50)).append(' ').append(1 + random.nextInt(50)).append('\n');
+    }
+
+    Files.writeString(file, matrix);
+    Assert.assertEquals(
+        describe(parseSequential(GraphFormat.MATRIX_MARKET)),
+        describe(parseChunked(GraphFormat.MATRIX_MARKET, 64)));
+
+    Files.writeString(file, matrix.insert(matrix.length() - 200, "\n1 51\n"));
+    String expected = null;
+    try {
+      parseSequential(GraphFormat.MATRIX_MARKET);
+    } catch (final IOException e) {
+      expected = e.getMessage();
+    }
+    try {
+      parseChunked(GraphFormat.MATRIX_MARKET, 64);
+      Assert.fail("Read an entry outside the matrix");
+    } catch (final IOException e) {
+      Assert.assertNotNull(expected);
+      Assert.assertEquals(expected, e.getMessage());
+    }
+  }
+}
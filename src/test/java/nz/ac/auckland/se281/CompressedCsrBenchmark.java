@@ -0,0 +1,138 @@
+package nz.ac.auckland.se281;
+
+import java.util.SplittableRandom;
+import nz.ac.auckland.se281.datastructures.Adjacency;
+import nz.ac.auckland.se281.datastructures.CompressedCsr;
+import nz.ac.auckland.se281.datastructures.CsrBuilder;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+
+/**
+ * Compares the size and speed of uncompressed and compressed edges, on a graph whose edges join
+ * nearby verticies and on a graph whose edges join random verticies. Each is timed on a scan of
+ * every edge, a breadth first search from every unvisited vertex, and a million random edge
+ * lookups.
+ *
+ * <p>Run with {@code mvn test-compile exec:java@compression-benchmark}, optionally followed by
+ * {@code -Dexec.args="VERTICIES DEGREE ROUNDS"}. The defaults are 1 million verticies with 8 edges
+ * each, best of 5 rounds.
+ */
+public class CompressedCsrBenchmark {
+  private static final int LOOKUPS = 1_000_000;
+  private static final int NEARBY = 64;
+
+  public static void main(final String[] args) {
+    final int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+    System.out.printf(
+        "%,d verticies, %d edges each, best of %d rounds%n", vertexCount, degree, rounds);
+    System.out.printf(
+        "%-8s %-15s %12s %7s %10s %10s %10s%n",
+        "graph", "representation", "bytes", "ratio", "scan ms", "bfs ms", "lookup ms");
+
+    for (final boolean nearby : new boolean[] {true, false}) {
+      final SplittableRandom random = new SplittableRandom(281);
+      final int[] sources = new int[vertexCount * degree];
+      final int[] destinations = new int[sources.length];
+      for (int e = 0; e < sources.length; e++) {
+        sources[e] = e / degree;
+        destinations[e] =
+            nearby
+                ? Math.floorMod(sources[e] + random.nextInt(-NEARBY, NEARBY), vertexCount)
+                : random.nextInt(vertexCount);
+      }
+
+      final Adjacency heap =
+          CsrBuilder.build(GraphStorage.HEAP, vertexCount, sources, destinations);
+      final Adjacency compressed = new CompressedCsr(heap);
+
+      for (final Adjacency adjacency : new Adjacency[] {heap, compressed}) {
+        System.out.printf(
+            "%-8s %-15s %,12d %6.2fx %10.1f %10.1f %10.1f%n",
+            nearby ? "nearby" : "random",
+            adjacency.getRepresentation(),
+            adjacency.estimateHeapBytes(),
+            (double) heap.estimateHeapBytes() / adjacency.estimateHeapBytes(),
+            time(rounds, () -> scan(adjacency)),
+            time(rounds, () -> search(adjacency)),
+            time(rounds, () -> lookup(adjacency)));
+      }
+    }
+  }
+
+  private static double time(final int rounds, final Runnable task) {
+    long best = Long.MAX_VALUE;
+
+    // The first round warms up the JIT and is not counted.
+    for (int round = 0; round <= rounds; round++) {
+      final long start = System.nanoTime();
+      task.run();
+      final long elapsed = System.nanoTime() - start;
+      if (round > 0) {
+        best = Math.min(best, elapsed);
+      }
+    }
+
+    return best / 1e6;
+  }
+
+  private static long sink;
+
+  private static void scan(final Adjacency adjacency) {
+    final int[] buffer = new int[adjacency.getMaxOutDegree()];
+    long sum = 0;
+
+    for (int v = 0; v < adjacency.getVertexCount(); v++) {
+      final int count = adjacency.getNeighbours(v, buffer);
+      for (int i = 0; i < count; i++) {
+        sum += buffer[i];
+      }
+    }
+
+    sink += sum;
+  }
+
+  private static void search(final Adjacency adjacency) {
+    final int vertexCount = adjacency.getVertexCount();
+    final boolean[] visited = new boolean[vertexCount];
+    final int[] queue = new int[vertexCount];
+    final int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int tail = 0;
+
+    for (int root = 0; root < vertexCount; root++) {
+      if (visited[root]) {
+        continue;
+      }
+      visited[root] = true;
+      queue[tail++] = root;
+
+      for (int head = tail - 1; head < tail; head++) {
+        final int count = adjacency.getNeighbours(queue[head], buffer);
+        for (int i = 0; i < count; i++) {
+          if (!visited[buffer[i]]) {
+            visited[buffer[i]] = true;
+            queue[tail++] = buffer[i];
+          }
+        }
+      }
+    }
+
+    sink += tail;
+  }
+
+  private static void lookup(final Adjacency adjacency) {
+    final SplittableRandom random = new SplittableRandom(5281);
+    final int vertexCount = adjacency.getVertexCount();
+    int found = 0;
+
+    for (int i = 0; i < LOOKUPS; i++) {
+      final int source = random.nextInt(vertexCount);
+      if (adjacency.hasEdge(source, Math.floorMod(source + random.nextInt(-8, 8), vertexCount))) {
+        found++;
+      }
+    }
+
+    sink += found;
+  }
+}
@@ -0,0 +1,62 @@
+package nz.ac.auckland.se281;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import nz.ac.auckland.se281.datastructures.Adjacency;
+import nz.ac.auckland.se281.datastructures.CompressedCsr;
+import nz.ac.auckland.se281.datastructures.CsrBuilder;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressedCsrTest {
+  private static Adjacency build(final int vertexCount, final int[] sources, final int[] dests) {
+    return CsrBuilder.build(
+        GraphStorage.HEAP, vertexCount, sources, dests, ForkJoinPool.commonPool());
+  }
+
+  @Test
+  public void random_access_matches_uncompressed() {
+    final int vertexCount = 5_000;
+    final int[] sources = new int[40_000];
+    final int[] destinations = new int[sources.length];
+    final SplittableRandom random = new SplittableRandom(281);
+    for (int e = 0; e < sources.length; e++) {
+      // Two hubs with several frames each, one of them reaching vertex 0 and the largest vertex.
+      sources[e] = e % 10 == 0 ? 3 : e % 10 == 1 ? 4_999 : random.nextInt(vertexCount);
+      destinations[e] = e < 2 ? (e == 0 ? 0 : vertexCount - 1) : random.nextInt(vertexCount);
+    }
+    final Adjacency heap = build(vertexCount, sources, destinations);
+    final Adjacency compressed = new CompressedCsr(heap);
+
+    Assert.assertEquals(heap.getEdgeCount(), compressed.getEdgeCount());
+    Assert.assertEquals(heap.getMaxOutDegree(), compressed.getMaxOutDegree());
+    for (int v = 0; v < vertexCount; v++) {
+      Assert.assertEquals(heap.getOutDegree(v), compressed.getOutDegree(v));
+      Assert.assertEquals(heap.getInDegree(v), compressed.getInDegree(v));
+      for (int i = 0; i < heap.getOutDegree(v); i++) {
+        Assert.assertEquals(heap.getNeighbour(v, i), compressed.getNeighbour(v, i));
+        Assert.assertTrue(compressed.hasEdge(v, heap.getNeighbour(v, i)));
+      }
+      for (int d = 0; d < vertexCount; d += 37) {
+        Assert.assertEquals(heap.hasEdge(v, d), compressed.hasEdge(v, d));
+      }
+    }
+  }
+
+  @Test
+  public void nearby_edges_compress_well() {
+    final int vertexCount = 100_000;
+    final int[] sources = new int[vertexCount * 8];
+    final int[] destinations = new int[sources.length];
+    for (int e = 0; e < sources.length; e++) {
+      sources[e] = e / 8;
+      destinations[e] = (e / 8 + 1 + e % 8) % vertexCount;
+    }
+    final Adjacency heap = build(vertexCount, sources, destinations);
+    final Adjacency compressed = new CompressedCsr(heap);
+
+    Assert.assertTrue(compressed.estimateHeapBytes() * 5 / 2 < heap.estimateHeapBytes());
+    Assert.assertEquals("Compressed CSR", compressed.getRepresentation());
+  }
+}
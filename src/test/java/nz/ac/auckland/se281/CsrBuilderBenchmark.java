@@ -0,0 +1,66 @@
+package nz.ac.auckland.se281;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import nz.ac.auckland.se281.datastructures.CsrBuilder;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+
+/**
+ * Times building compressed sparse row edges for a large random graph on pools of 1, 2, 4 and so on
+ * up to the number of processors, and prints the speed up over a single thread.
+ *
+ * <p>Run with {@code mvn test-compile exec:java@benchmark}, optionally followed by {@code
+ * -Dexec.args="EDGES VERTICIES ROUNDS THREADS"}. The defaults are 10 million edges between 1
+ * million verticies, best of 5 rounds, up to as many threads as there are processors.
+ */
+public class CsrBuilderBenchmark {
+  public static void main(final String[] args) {
+    final int edgeCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    final int vertexCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+    final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    final int processors =
+        args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+    final SplittableRandom random = new SplittableRandom(281);
+    final int[] sources = new int[edgeCount];
+    final int[] destinations = new int[edgeCount];
+    for (int e = 0; e < edgeCount; e++) {
+      sources[e] = random.nextInt(vertexCount);
+      destinations[e] = random.nextInt(vertexCount);
+    }
+
+    System.out.printf(
+        "%,d edges, %,d verticies, best of %d rounds%n", edgeCount, vertexCount, rounds);
+    System.out.printf("%8s %10s %8s%n", "threads", "ms", "speedup");
+
+    double single = 0;
+    for (int threads = 1; threads <= processors; threads = nextThreads(threads, processors)) {
+      final ForkJoinPool pool = new ForkJoinPool(threads);
+      long best = Long.MAX_VALUE;
+
+      try {
+        // The first round warms up the JIT and is not counted.
+        for (int round = 0; round <= rounds; round++) {
+          final long start = System.nanoTime();
+          CsrBuilder.build(GraphStorage.HEAP, vertexCount, sources, destinations, pool);
+          final long elapsed = System.nanoTime() - start;
+          if (round > 0) {
+            best = Math.min(best, elapsed);
+          }
+        }
+      } finally {
+        pool.shutdown();
+      }
+
+      final double millis = best / 1e6;
+      if (threads == 1) {
+        single = millis;
+      }
+      System.out.printf("%8d %10.1f %7.2fx%n", threads, millis, single / millis);
+    }
+  }
+
+  private static int nextThreads(final int threads, final int processors) {
+    return threads < processors && threads * 2 > processors ? processors : threads * 2;
+  }
+}
@@ -0,0 +1,73 @@
+package nz.ac.auckland.se281;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import nz.ac.auckland.se281.datastructures.Adjacency;
+import nz.ac.auckland.se281.datastructures.CsrBuilder;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CsrBuilderTest {
+  private static void assertBuilt(
+      final Adjacency adjacency, final int vertexCount, final int[] sources, final int[] dests) {
+    final long[] given = new long[sources.length];
+    for (int e = 0; e < sources.length; e++) {
+      given[e] = (long) sources[e] << 32 | dests[e];
+    }
+    // Repeated edges are kept once.
+    final long[] expected = Arrays.stream(given).distinct().sorted().toArray();
+    final int[] inDegrees = new int[vertexCount];
+    for (final long edge : expected) {
+      inDegrees[(int) edge]++;
+    }
+
+    final int[] buffer = new int[adjacency.getMaxOutDegree()];
+    int e = 0;
+    for (int v = 0; v < vertexCount; v++) {
+      Assert.assertEquals(inDegrees[v], adjacency.getInDegree(v));
+      final int count = adjacency.getNeighbours(v, buffer);
+      for (int i = 0; i < count; i++, e++) {
+        Assert.assertEquals(expected[e], (long) v << 32 | buffer[i]);
+      }
+    }
+    Assert.assertEquals(expected.length, e);
+    Assert.assertEquals(expected.length, adjacency.getEdgeCount());
+  }
+
+  @Test
+  public void parallel_build_sorts_every_group() {
+    final int vertexCount = 70_000;
+    final int[] sources = new int[300_000];
+    final int[] destinations = new int[sources.length];
+    final SplittableRandom random = new SplittableRandom(281);
+    for (int e = 0; e < sources.length; e++) {
+      // One hub with thousands of edges, so some groups are radix sorted.
+      sources[e] = e % 50 == 0 ? 7 : random.nextInt(vertexCount);
+      destinations[e] = random.nextInt(vertexCount);
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (final GraphStorage storage : GraphStorage.values()) {
+        assertBuilt(
+            CsrBuilder.build(storage, vertexCount, sources, destinations, pool),
+            vertexCount,
+            sources,
+            destinations);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void empty_graph_is_built() {
+    final Adjacency adjacency =
+        CsrBuilder.build(GraphStorage.HEAP, 3, new int[0], new int[0], ForkJoinPool.commonPool());
+
+    Assert.assertEquals(0, adjacency.getEdgeCount());
+    Assert.assertEquals(0, adjacency.getOutDegree(2));
+  }
+}
@@ -0,0 +1,113 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import nz.ac.auckland.se281.datastructures.Graph;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DecompressingInputStreamTest {
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("gzip");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (var files = Files.list(directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  private Path write(final String name, final byte[] bytes, final boolean isCompressed)
+      throws IOException {
+    final Path file = directory.resolve(name);
+    try (OutputStream out =
+        isCompressed
+            ? new GZIPOutputStream(Files.newOutputStream(file))
+            : Files.newOutputStream(file)) {
+      out.write(bytes);
+    }
+    return file;
+  }
+
+  private static List<String> describe(final Graph<String> graph) {
+    final List<String> lines = new ArrayList<>();
+    for (int v = 0; v < graph.getVertexCount(); v++) {
+      for (int i = 0; i < graph.getAdjacency().getOutDegree(v); i++) {
+        lines.add(
+            graph.getVertex(v) + "->" + graph.getVertex(graph.getAdjacency().getNeighbour(v, i)));
+      }
+      lines.add(graph.getVertex(v));
+    }
+    return lines;
+  }
+
+  @Test
+  public void reads_every_byte_across_blocks() throws Exception {
+    final byte[] bytes = new byte[3 * (1 << 18) + 12_345];
+    new Random(3).nextBytes(bytes);
+    final Path file = write("random.bin.gz", bytes, true);
+
+    Assert.assertTrue(DecompressingInputStream.isCompressed(file));
+    try (InputStream in = DecompressingInputStream.open(file)) {
+      Assert.assertEquals(bytes[0] & 0xff, in.read());
+      Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 1, bytes.length), in.readAllBytes());
+      Assert.assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void compressed_files_give_the_same_graph() throws Exception {
+    final StringBuilder edges = new StringBuilder();
+    final Random random = new Random(5);
+    for (int i = 0; i < 5_000; i++) {
+      edges.append(random.nextInt(400)).append('\t').append(random.nextInt(400)).append('\n');
+    }
+    final byte[] dot = Files.readAllBytes(Path.of("testcases", "c.txt"));
+    final byte[] tsv = edges.toString().getBytes("UTF-8");
+
+    Assert.assertEquals(GraphFormat.DOT, GraphFormat.detect(write("c.dot.gz", dot, true)));
+    Assert.assertEquals(GraphFormat.EDGE_LIST, GraphFormat.detect(write("e.gz", tsv, true)));
+    Assert.assertEquals(
+        describe(ParsedGraph.parse(write("c.txt", dot, false)).buildGraph()),
+        describe(ParsedGraph.parse(write("c.txt.gz", dot, true)).buildGraph()));
+    Assert.assertEquals(
+        describe(ParsedGraph.parse(write("e.tsv", tsv, false)).buildGraph()),
+        describe(ParsedGraph.parse(write("e.tsv.gz", tsv, true)).buildGraph()));
+  }
+
+  @Test
+  public void truncated_files_fail() throws Exception {
+    final StringBuilder edges = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      edges.append(i).append('\t').append(i + 1).append('\n');
+    }
+    final Path whole = write("whole.tsv.gz", edges.toString().getBytes("UTF-8"), true);
+    final byte[] compressed = Files.readAllBytes(whole);
+    final Path file = write("cut.tsv.gz", Arrays.copyOf(compressed, compressed.length / 2), false);
+
+    try {
+      ParsedGraph.parse(file);
+      Assert.fail("Read a truncated file");
+    } catch (final UncheckedIOException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+}
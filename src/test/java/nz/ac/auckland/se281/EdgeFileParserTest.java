@@ -0,0 +1,159 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.VertexOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EdgeFileParserTest {
+  private static Graph<String> parse(final GraphFormat format, final String text)
+      throws IOException {
+    return EdgeFileParser.parse(new BufferedReader(new StringReader(text)), format).build();
+  }
+
+  private static List<String> edges(final Graph<String> graph) {
+    final List<String> edges = new ArrayList<>();
+    for (int v = 0; v < graph.getVertexCount(); v++) {
+      for (int i = 0; i < graph.getAdjacency().getOutDegree(v); i++) {
+        edges.add(
+            graph.getVertex(v) + "->" + graph.getVertex(graph.getAdjacency().getNeighbour(v, i)));
+      }
+    }
+    return edges;
+  }
+
+  @Test
+  public void formats_give_the_same_graph() throws Exception {
+    final Graph<String> expected = parse(GraphFormat.EDGE_LIST, "1\t2\n1\t3\n3\t1\n3\t3\n");
+
+    final Graph<String> csv = parse(GraphFormat.EDGE_LIST, "# comment\n1,2\n1,3,0.5\n\n3,1\n3,3\n");
+    final Graph<String> adjacency = parse(GraphFormat.ADJACENCY_LIST, "1: 2 3\n2\n3 1 3\n");
+    final Graph<String> matrix =
+        parse(
+            GraphFormat.MATRIX_MARKET,
+            "%%MatrixMarket matrix coordinate pattern general\n"
+                + "% comment\n"
+                + "3 3 4\n"
+                + "1 2\n"
+                + "1 3\n"
+                + "3 1\n"
+                + "3 3\n");
+
+    Assert.assertEquals(List.of("1->2", "1->3", "3->1", "3->3"), edges(expected));
+    Assert.assertEquals(edges(expected), edges(csv));
+    Assert.assertEquals(edges(expected), edges(adjacency));
+    Assert.assertEquals(edges(expected), edges(matrix));
+    Assert.assertEquals(3, adjacency.getVertexCount());
+  }
+
+  @Test
+  public void symmetric_matrices_mirror_their_entries() throws Exception {
+    final Graph<String> matrix =
+        parse(
+            GraphFormat.MATRIX_MARKET,
+            "%%MatrixMarket matrix coordinate real symmetric\n4 4 2\n2 1 1.5\n3 3 2.0\n");
+
+    Assert.assertEquals(4, matrix.getVertexCount());
+    Assert.assertEquals(List.of("1->2", "2->1", "3->3"), edges(matrix));
+  }
+
+  @Test
+  public void bad_matrices_are_rejected() {
+    for (final String text :
+        List.of(
+            "3 3 1\n1 1\n",
+            "%%MatrixMarket matrix array real general\n2 2\n1\n2\n3\n4\n",
+            "%%MatrixMarket matrix coordinate pattern general\n2 2 1\n3 1\n",
+            "%%MatrixMarket matrix coordinate pattern general\n2 2 2\n1 1\n")) {
+      try {
+        parse(GraphFormat.MATRIX_MARKET, text);
+        Assert.fail("Read " + text);
+      } catch (final IOException e) {
+        Assert.assertTrue(
+            e.getMessage(), e.getMessage().contains("Line") || e.getMessage().contains("entries"));
+      }
+    }
+  }
+
+  @Test
+  public void format_is_found_from_extension_or_header() throws Exception {
+    final Path directory = Files.createTempDirectory("graph-format");
+    try {
+      final Path tsv = Files.writeString(directory.resolve("g.tsv"), "a\tb\n");
+      final Path mtx =
+          Files.writeString(
+              directory.resolve("g"), "%%MatrixMarket matrix coordinate pattern general\n1 1 0\n");
+      final Path dot = Files.writeString(directory.resolve("g.txt"), "digraph g { 1 -> 2; }\n");
+      final Path edges = Files.writeString(directory.resolve("e.txt"), "# edges\na,b\n");
+
+      Assert.assertEquals(GraphFormat.EDGE_LIST, GraphFormat.detect(tsv));
+      Assert.assertEquals(GraphFormat.MATRIX_MARKET, GraphFormat.detect(mtx));
+      Assert.assertEquals(GraphFormat.DOT, GraphFormat.detect(dot));
+      Assert.assertEquals(GraphFormat.EDGE_LIST, GraphFormat.detect(edges));
+
+      final ParsedGraph parsed = ParsedGraph.parse(edges);
+      final LoadedGraph loaded = LoadedGraph.build(parsed);
+      Assert.assertTrue(parsed.isReleased());
+      Assert.assertEquals("a", loaded.getFileOrder().getSource(0));
+      Assert.assertEquals("b", loaded.getFileOrder().getDestination(0));
+    } finally {
+      try (var files = Files.list(directory)) {
+        for (final Path file : (Iterable<Path>) files::iterator) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  public void repeated_lines_are_one_edge_in_every_storage() throws Exception {
+    final Path file = Files.createTempFile("eq", ".edges");
+    try {
+      Files.writeString(file, "1\t1\n2\t2\n3\t3\n1\t2\n2\t1\n1\t1\n1\t2\n");
+      final ParsedGraph parsed = ParsedGraph.parse(file);
+      Assert.assertEquals(7, parsed.getEdgeCount());
+
+      for (final GraphStorage storage : GraphStorage.values()) {
+        final Graph<String> graph = parsed.toBuilder().build(storage, VertexOrder.getDefault());
+        final String name = storage.toString();
+
+        Assert.assertEquals(name, 5, graph.getEdgeCount());
+        Assert.assertEquals(name, List.of("1->1", "1->2", "2->1", "2->2", "3->3"), edges(graph));
+        Assert.assertEquals(name, 2, graph.getAdjacency().getInDegree(0));
+        Assert.assertEquals(name, 2, graph.getAdjacency().getMaxOutDegree());
+        Assert.assertTrue(name, graph.isEquivalence());
+        Assert.assertEquals(name, Set.of("1", "2"), graph.getEquivalenceClass("1"));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void repeated_lines_keep_a_transitive_relation_transitive() throws Exception {
+    final Path file = Files.createTempFile("transitive", ".edges");
+    try {
+      Files.writeString(file, "a\tb\nb\tc\nb\tc\na\tc\n");
+      final ParsedGraph parsed = ParsedGraph.parse(file);
+
+      for (final GraphStorage storage : GraphStorage.values()) {
+        final Graph<String> graph = parsed.toBuilder().build(storage, VertexOrder.getDefault());
+
+        Assert.assertTrue(storage.toString(), graph.isTransitive());
+        Assert.assertTrue(storage.toString(), graph.isAntiSymmetric());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package nz.ac.auckland.se281;
+
+import com.paypal.digraph.parser.GraphEdge;
+import com.paypal.digraph.parser.GraphNode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import nz.ac.auckland.se281.datastructures.Graph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileOrderTest {
+  @Test
+  public void file_order_lists_the_file_like_the_parser() throws Exception {
+    final ParsedGraph parsed = ParsedGraph.parse(Path.of("testcases", "a.txt"));
+    final Graph<String> graph = parsed.buildGraph();
+    final FileOrder fileOrder = new FileOrder(parsed, graph);
+
+    final List<String> expected = new ArrayList<>();
+    for (final GraphNode node : parsed.getVerticies()) {
+      expected.add(node.getId());
+    }
+    for (final GraphEdge edge : parsed.getEdges()) {
+      expected.add(edge.getNode1().getId() + " -> " + edge.getNode2().getId());
+    }
+
+    final List<String> actual = new ArrayList<>();
+    for (int i = 0; i < fileOrder.getVertexCount(); i++) {
+      actual.add(fileOrder.getVertex(i));
+    }
+    for (int i = 0; i < fileOrder.getEdgeCount(); i++) {
+      actual.add(fileOrder.getSource(i) + " -> " + fileOrder.getDestination(i));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void released_parse_keeps_only_counts() throws Exception {
+    final ParsedGraph parsed = ParsedGraph.parse(Path.of("testcases", "a.txt"));
+    final Graph<String> graph = parsed.buildGraph();
+    final long full = new LoadedGraph(parsed, graph).estimateBytes();
+    final int verticies = parsed.getVerticies().size();
+    final int edges = parsed.getEdges().size();
+
+    final LoadedGraph slim = new LoadedGraph(parsed, graph, new FileOrder(parsed, graph));
+    parsed.release();
+
+    Assert.assertTrue(parsed.isReleased());
+    Assert.assertEquals(verticies, parsed.getVertexCount());
+    Assert.assertEquals(edges, parsed.getEdgeCount());
+    try {
+      parsed.getVerticies();
+      Assert.fail("The released verticies were returned");
+    } catch (final IllegalStateException e) {
+      // The parser's objects are gone.
+    }
+    Assert.assertTrue(slim.estimateBytes() < full);
+    Assert.assertEquals(edges, slim.getFileOrder().getEdgeCount());
+  }
+}
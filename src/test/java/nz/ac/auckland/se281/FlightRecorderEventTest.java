@@ -0,0 +1,87 @@
+package nz.ac.auckland.se281;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FlightRecorderEventTest {
+  private static final String COMMAND = "nz.ac.auckland.se281.Command";
+  private static final String FILE_LOAD = "nz.ac.auckland.se281.FileLoad";
+  private static final String INDEX_BUILD = "nz.ac.auckland.se281.IndexBuild";
+  private static final String PROPERTY_CHECK = "nz.ac.auckland.se281.PropertyCheck";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static List<RecordedEvent> ofType(final List<RecordedEvent> events, final String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void commands_record_their_events_with_every_field() throws Exception {
+    // A file no other test has opened, so it is neither cached nor given saved answers.
+    final Path file = folder.newFile("recorded-" + System.nanoTime() + ".tsv").toPath();
+    Files.writeString(file, "a\tb\nb\tc\na\tc\nc\tc\n");
+    final List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+    try (RecordingStream stream = new RecordingStream()) {
+      for (final String name : List.of(COMMAND, FILE_LOAD, INDEX_BUILD, PROPERTY_CHECK)) {
+        stream.enable(name).withThreshold(Duration.ZERO);
+        stream.onEvent(name, events::add);
+      }
+      stream.startAsync();
+
+      new BatchRunner(BatchRunner.OutputFormat.TEXT)
+          .run(
+              List.of("open_file " + file, "check_transitivity", "exit"),
+              new ByteArrayOutputStream());
+
+      // The load is recorded on the loading thread once it completes, and the stream reads the
+      // recording about once a second.
+      final long deadline = System.currentTimeMillis() + 30_000;
+      while ((ofType(events, COMMAND).size() < 3 || ofType(events, FILE_LOAD).isEmpty())
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+    }
+
+    final List<RecordedEvent> commands = ofType(events, COMMAND);
+    Assert.assertEquals(
+        List.of("OPEN_FILE", "CHECK_TRANSITIVITY", "EXIT"),
+        commands.stream().map(event -> event.getString("command")).collect(Collectors.toList()));
+    Assert.assertEquals(file.toString(), commands.get(0).getString("arguments"));
+    Assert.assertEquals("", commands.get(1).getString("arguments"));
+
+    final List<RecordedEvent> loads = ofType(events, FILE_LOAD);
+    Assert.assertEquals(1, loads.size());
+    Assert.assertEquals(file.toString(), loads.get(0).getString("file"));
+    Assert.assertEquals(Files.size(file), loads.get(0).getLong("bytes"));
+    Assert.assertEquals(3, loads.get(0).getInt("verticies"));
+    Assert.assertEquals(4, loads.get(0).getLong("edges"));
+    Assert.assertFalse(loads.get(0).getBoolean("cached"));
+
+    final List<RecordedEvent> builds = ofType(events, INDEX_BUILD);
+    Assert.assertEquals(1, builds.size());
+    Assert.assertFalse(builds.get(0).getString("representation").isEmpty());
+    Assert.assertEquals(3, builds.get(0).getInt("verticies"));
+    Assert.assertEquals(4, builds.get(0).getLong("edges"));
+
+    final List<RecordedEvent> checks = ofType(events, PROPERTY_CHECK);
+    Assert.assertEquals(1, checks.size());
+    Assert.assertEquals("transitive", checks.get(0).getString("property"));
+    Assert.assertEquals(3, checks.get(0).getInt("verticies"));
+    Assert.assertEquals(4, checks.get(0).getLong("edges"));
+    Assert.assertTrue(checks.get(0).getBoolean("result"));
+  }
+}
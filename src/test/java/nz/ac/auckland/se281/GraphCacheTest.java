@@ -0,0 +1,123 @@
+package nz.ac.auckland.se281;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.VertexOrder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphCacheTest {
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("graph-cache");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (var files = Files.list(directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  private Path write(final String name, final String dot) throws Exception {
+    return Files.writeString(directory.resolve(name), dot);
+  }
+
+  @Test
+  public void reopening_reuses_graph() throws Exception {
+    final GraphCache cache = new GraphCache(Long.MAX_VALUE);
+    final Path file = write("a.txt", "digraph a { 0 -> 1; }");
+
+    final LoadedGraph first = cache.get(file);
+
+    Assert.assertTrue(cache.contains(file));
+    Assert.assertSame(first, cache.get(file));
+  }
+
+  @Test
+  public void changed_file_is_reloaded() throws Exception {
+    final GraphCache cache = new GraphCache(Long.MAX_VALUE);
+    final Path file = write("a.txt", "digraph a { 0 -> 1; }");
+
+    final LoadedGraph first = cache.get(file);
+    write("a.txt", "digraph a { 0 -> 1; 1 -> 2; }");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+    Assert.assertFalse(cache.contains(file));
+    final LoadedGraph second = cache.get(file);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(3, second.getGraph().getVertexCount());
+  }
+
+  @Test
+  public void least_recently_used_graph_is_evicted() throws Exception {
+    final Path a = write("a.txt", "digraph a { 0 -> 1; }");
+    final Path b = write("b.txt", "digraph b { 0 -> 1; }");
+    final Path c = write("c.txt", "digraph c { 0 -> 1; }");
+    final long size = new GraphCache(Long.MAX_VALUE).get(a).estimateBytes();
+    final GraphCache cache = new GraphCache(2 * size);
+
+    cache.get(a);
+    cache.get(b);
+    cache.get(a);
+    cache.get(c);
+
+    Assert.assertTrue(cache.contains(a));
+    Assert.assertFalse(cache.contains(b));
+    Assert.assertTrue(cache.contains(c));
+    Assert.assertEquals(2 * size, cache.getUsedBytes());
+  }
+
+  private LoadedGraph loadOffHeap(final Path file) throws Exception {
+    final ParsedGraph parsed = ParsedGraph.parse(file);
+    return new LoadedGraph(
+        parsed, parsed.toBuilder().build(GraphStorage.OFF_HEAP, VertexOrder.getDefault()));
+  }
+
+  @Test
+  public void evicted_graphs_are_closed_once_nothing_holds_them() throws Exception {
+    final Path a = write("a.txt", "digraph a { 0 -> 1; }");
+    final Path b = write("b.txt", "digraph b { 0 -> 1; }");
+    final Path c = write("c.txt", "digraph c { 0 -> 1; }");
+    final LoadedGraph first = loadOffHeap(a);
+    final LoadedGraph second = loadOffHeap(b);
+    final GraphCache cache = new GraphCache(first.estimateBytes());
+
+    cache.put(cache.keyOf(a), first);
+    cache.put(cache.keyOf(b), second);
+    Assert.assertFalse(first.getGraph().retain());
+
+    // A graph held by an open file stays readable after it is evicted, until it is released.
+    final Graph<String> held = cache.acquire(cache.keyOf(b)).getGraph();
+    cache.put(cache.keyOf(c), loadOffHeap(c));
+    Assert.assertEquals(1, held.getAdjacency().getNeighbour(0, 0));
+
+    held.release();
+    Assert.assertFalse(held.retain());
+    try {
+      held.getAdjacency().getNeighbour(0, 0);
+      Assert.fail("Read a closed graph");
+    } catch (final NullPointerException e) {
+      // The views of the freed buffers were dropped.
+    }
+  }
+
+  @Test
+  public void zero_budget_disables_cache() throws Exception {
+    final GraphCache cache = new GraphCache(0);
+    final Path file = write("a.txt", "digraph a { 0 -> 1; }");
+
+    Assert.assertNotSame(cache.get(file), cache.get(file));
+    Assert.assertFalse(cache.contains(file));
+  }
+}
@@ -0,0 +1,21 @@
+package nz.ac.auckland.se281;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphCalculatorTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void filenames_outside_the_testcases_folder_are_kept_as_given() throws Exception {
+    final Path file = folder.newFile("outside.tsv").toPath();
+    Files.writeString(file, "a\tb\n");
+
+    Assert.assertEquals("a.txt", new GraphCalculator("a.txt").getFilename());
+    Assert.assertEquals(file.toString(), new GraphCalculator(file.toString()).getFilename());
+  }
+}
@@ -0,0 +1,149 @@
+package nz.ac.auckland.se281;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphDaemonTest {
+  private static final String NEW_LINE = System.lineSeparator();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private GraphServer server;
+
+  /** Starts a daemon that warms up once, and serves it on a background thread. */
+  private void startDaemon(final Path portFile) throws Exception {
+    server =
+        GraphDaemon.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), portFile, 1);
+    final Thread thread =
+        new Thread(
+            () -> {
+              try {
+                server.serve();
+              } catch (final Exception e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /** Runs the client main method, returning what it printed on standard error. */
+  private static String runClient(final String... args) {
+    final PrintStream original = System.err;
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(err, true));
+
+    try {
+      GraphClient.main(args);
+    } finally {
+      System.setErr(original);
+    }
+
+    return err.toString();
+  }
+
+  /** Gets a loopback port that nothing is listening on. */
+  private static int closedPort() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+
+  @Test
+  public void client_reaches_daemon_through_port_file() throws Exception {
+    final Path portFile = folder.getRoot().toPath().resolve("daemon.port");
+    startDaemon(portFile);
+
+    Assert.assertEquals(server.getPort(), GraphDaemon.readPort(portFile));
+
+    final ByteArrayOutputStream answers = new ByteArrayOutputStream();
+    final InputStream script =
+        new ByteArrayInputStream(
+            "open_file a.txt\nlist_root_verticies\nexit\n".getBytes(Charset.defaultCharset()));
+    GraphClient.run(
+        GraphDaemon.readPort(portFile), GraphDaemon.readToken(portFile), null, script, answers);
+
+    Assert.assertEquals(
+        "Successfully opened graph from file a.txt"
+            + NEW_LINE
+            + "[0]"
+            + NEW_LINE
+            + "You closed the terminal. Goodbye."
+            + NEW_LINE,
+        answers.toString());
+
+    final ByteArrayOutputStream single = new ByteArrayOutputStream();
+    GraphClient.run(
+        server.getPort(),
+        GraphDaemon.readToken(portFile),
+        "info",
+        InputStream.nullInputStream(),
+        single);
+    Assert.assertEquals(MessageCli.FILE_NOT_OPEN.getMessage() + NEW_LINE, single.toString());
+  }
+
+  @Test
+  public void daemon_replaces_a_stale_port_file() throws Exception {
+    final Path portFile = folder.newFile("stale.port").toPath();
+    Files.writeString(portFile, closedPort() + NEW_LINE + GraphServer.newToken() + NEW_LINE);
+
+    startDaemon(portFile);
+
+    Assert.assertEquals(server.getPort(), GraphDaemon.readPort(portFile));
+    try (var files = Files.list(folder.getRoot().toPath())) {
+      Assert.assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  public void client_reports_a_stale_or_missing_daemon() throws Exception {
+    final Path stale = folder.newFile("stale.port").toPath();
+    Files.writeString(stale, closedPort() + NEW_LINE + GraphServer.newToken() + NEW_LINE);
+    final Path garbled = folder.newFile("garbled.port").toPath();
+    Files.writeString(garbled, "not a port");
+    final Path missing = folder.getRoot().toPath().resolve("missing.port");
+
+    for (final Path portFile : new Path[] {stale, garbled, missing}) {
+      Assert.assertEquals(
+          MessageCli.DAEMON_NOT_RUNNING.getMessage(portFile.toString()) + NEW_LINE,
+          runClient("--port-file=" + portFile, "info"));
+    }
+  }
+
+  @Test
+  public void only_the_owner_can_read_the_token() throws Exception {
+    final Path portFile = folder.getRoot().toPath().resolve("daemon.port");
+    startDaemon(portFile);
+
+    Assert.assertEquals(
+        PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(portFile));
+    Assert.assertEquals(64, GraphDaemon.readToken(portFile).length());
+
+    final ByteArrayOutputStream answers = new ByteArrayOutputStream();
+    GraphClient.run(
+        server.getPort(), GraphServer.newToken(), "info", InputStream.nullInputStream(), answers);
+    Assert.assertEquals(
+        MessageCli.CLIENT_NOT_AUTHORISED.getMessage() + NEW_LINE, answers.toString());
+  }
+}
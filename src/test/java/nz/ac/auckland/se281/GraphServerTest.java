@@ -0,0 +1,165 @@
+package nz.ac.auckland.se281;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphServerTest {
+  private static final String NEW_LINE = System.lineSeparator();
+
+  private final String token = GraphServer.newToken();
+
+  private GraphServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = GraphServer.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), token);
+    final Thread thread =
+        new Thread(
+            () -> {
+              try {
+                server.serve();
+              } catch (final Exception e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  private String send(final String... commands) throws Exception {
+    return sendAs(token, commands);
+  }
+
+  private String sendAs(final String clientToken, final String... commands) throws Exception {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+      final OutputStream out = socket.getOutputStream();
+      out.write(
+          (clientToken + "\n" + String.join("\n", commands) + "\n")
+              .getBytes(Charset.defaultCharset()));
+      out.flush();
+
+      final InputStream in = socket.getInputStream();
+      return new String(in.readAllBytes(), Charset.defaultCharset());
+    }
+  }
+
+  @Test
+  public void client_gets_command_output() throws Exception {
+    Assert.assertEquals(
+        "Successfully opened graph from file a.txt"
+            + NEW_LINE
+            + "[0]"
+            + NEW_LINE
+            + "You closed the terminal. Goodbye."
+            + NEW_LINE,
+        send("open_file a.txt", "list_root_verticies", "exit"));
+  }
+
+  @Test
+  public void each_client_has_its_own_file() throws Exception {
+    final String first = send("open_file a.txt", "info", "exit");
+    final String second = send("info", "exit");
+
+    Assert.assertTrue(first.contains("File name: a.txt"));
+    Assert.assertTrue(second.contains("Error: no valid file open"));
+  }
+
+  @Test
+  public void concurrent_clients_share_graph() throws Exception {
+    final List<CompletableFuture<String>> clients = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      clients.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return send("open_file c.txt", "check_equivalence", "graph_search_ibfs", "exit");
+                } catch (final Exception e) {
+                  throw new IllegalStateException(e);
+                }
+              }));
+    }
+
+    final String expected = clients.get(0).get(10, TimeUnit.SECONDS);
+    Assert.assertTrue(expected.contains("The graph is an equivalence relation"));
+
+    for (final CompletableFuture<String> client : clients) {
+      Assert.assertEquals(expected, client.get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void client_without_the_token_is_refused() throws Exception {
+    final String refused = MessageCli.CLIENT_NOT_AUTHORISED.getMessage() + NEW_LINE;
+
+    Assert.assertEquals(refused, sendAs("wrong", "open_file a.txt", "info", "exit"));
+    Assert.assertEquals(refused, sendAs("open_file a.txt", "info", "exit"));
+  }
+
+  @Test
+  public void client_cannot_read_files_outside_testcases() throws Exception {
+    final String outside = Path.of("pom.xml").toAbsolutePath().toString();
+
+    Assert.assertEquals(
+        MessageCli.FILE_NOT_FOUND.getMessage("../pom.xml")
+            + NEW_LINE
+            + MessageCli.FILE_NOT_FOUND.getMessage(outside)
+            + NEW_LINE
+            + MessageCli.END.getMessage()
+            + NEW_LINE,
+        send("open_file ../pom.xml", "open_file " + outside, "exit"));
+
+    final String answers =
+        send("open_file a.txt", "distances @../pom.xml", "distances @" + outside, "exit");
+    Assert.assertTrue(
+        answers.contains(
+            MessageCli.QUERIES_NOT_READABLE.getMessage(
+                "../pom.xml", "../pom.xml is not in the testcases folder")));
+    Assert.assertTrue(
+        answers.contains(
+            MessageCli.QUERIES_NOT_READABLE.getMessage(
+                outside, outside + " is not in the testcases folder")));
+    Assert.assertFalse(answers.contains("artifactId"));
+  }
+
+  @Test
+  public void jmx_stops_reporting_closed_sessions() throws Exception {
+    final ObjectName name = new ObjectName(CalculatorMonitor.OBJECT_NAME);
+    final MBeanServer beans = ManagementFactory.getPlatformMBeanServer();
+    final Main first = new Main(true);
+    final Main second = new Main(true);
+
+    CalculatorMonitor.getInstance();
+    first.processCommand("open_file a.txt");
+    second.processCommand("open_file b.txt");
+    Assert.assertEquals("b.txt", beans.getAttribute(name, "LoadedFile"));
+
+    // The first session is no longer reported, so closing it leaves the second one alone.
+    first.close();
+    Assert.assertEquals("b.txt", beans.getAttribute(name, "LoadedFile"));
+
+    second.close();
+    Assert.assertNull(beans.getAttribute(name, "LoadedFile"));
+  }
+}
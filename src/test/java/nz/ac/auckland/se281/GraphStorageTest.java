@@ -0,0 +1,103 @@
+package nz.ac.auckland.se281;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GraphStorageTest {
+  private static Graph<String> build(final GraphStorage storage) {
+    final Set<String> verticies = new HashSet<>();
+    final Set<Edge<String>> edges = new HashSet<>();
+    final String[][] pairs = {
+      {"1", "2"}, {"1", "3"}, {"2", "4"}, {"3", "4"}, {"4", "5"}, {"5", "3"}, {"6", "7"}, {"7", "6"}
+    };
+
+    for (final String[] pair : pairs) {
+      verticies.add(pair[0]);
+      verticies.add(pair[1]);
+      edges.add(new Edge<>(pair[0], pair[1]));
+    }
+    verticies.add("8");
+
+    return new Graph<>(verticies, edges, storage);
+  }
+
+  private static String describe(final Graph<String> graph) {
+    return graph.getRoots()
+        + " "
+        + new ArrayList<>(graph.iterativeBreadthFirstSearch())
+        + new ArrayList<>(graph.iterativeDepthFirstSearch())
+        + new ArrayList<>(graph.recursiveBreadthFirstSearch())
+        + new ArrayList<>(graph.recursiveDepthFirstSearch())
+        + " "
+        + graph.isReflexive()
+        + graph.isSymmetric()
+        + graph.isAntiSymmetric()
+        + graph.isTransitive()
+        + " "
+        + graph.getEdgeCount();
+  }
+
+  @Test
+  public void every_storage_gives_same_answers() {
+    final String expected = describe(build(GraphStorage.HEAP));
+    final List<String> actual = new ArrayList<>();
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      actual.add(describe(build(storage)));
+    }
+
+    for (final String answer : actual) {
+      Assert.assertEquals(expected, answer);
+    }
+  }
+
+  @Test
+  public void off_heap_storage_is_reported() {
+    final Graph<String> heap = build(GraphStorage.HEAP);
+    final Graph<String> offHeap = build(GraphStorage.OFF_HEAP);
+
+    Assert.assertEquals(0, heap.estimateOffHeapBytes());
+    Assert.assertTrue(offHeap.estimateOffHeapBytes() > 0);
+    Assert.assertEquals("Off-heap CSR", offHeap.getAdjacency().getRepresentation());
+  }
+
+  @Test
+  public void storage_is_chosen_from_density() {
+    Assert.assertEquals(GraphStorage.BIT_MATRIX, GraphStorage.AUTO.choose(5_000, 5_000_000));
+    Assert.assertEquals(GraphStorage.HEAP, GraphStorage.AUTO.choose(5_000, 10_000));
+    Assert.assertEquals(GraphStorage.HEAP, GraphStorage.BIT_MATRIX.choose(100_000, 10_000));
+    Assert.assertEquals(GraphStorage.MAPPED, GraphStorage.MAPPED.choose(5_000, 5_000_000));
+    Assert.assertEquals(
+        "Bit matrix", build(GraphStorage.BIT_MATRIX).getAdjacency().getRepresentation());
+  }
+
+  @Test
+  public void unknown_storage_is_rejected() {
+    Assert.assertEquals(GraphStorage.MAPPED, GraphStorage.parse("Mapped"));
+    Assert.assertEquals(GraphStorage.OFF_HEAP, GraphStorage.parse("off-heap"));
+    Assert.assertEquals(GraphStorage.AUTO, GraphStorage.parse(null));
+
+    try {
+      GraphStorage.parse("disk");
+      Assert.fail("Parsed an unknown storage");
+    } catch (final IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("'disk'"));
+    }
+  }
+
+  @Test
+  public void large_bit_matrix_fallback_is_explained() {
+    Assert.assertEquals(GraphStorage.HEAP, GraphStorage.BIT_MATRIX.choose(100_000, 10_000));
+    Assert.assertTrue(GraphStorage.BIT_MATRIX.explainFallback(100_000).contains("bytes"));
+    Assert.assertNull(GraphStorage.BIT_MATRIX.explainFallback(5_000));
+    Assert.assertNull(GraphStorage.HEAP.explainFallback(100_000));
+    Assert.assertEquals("bit-matrix", GraphStorage.BIT_MATRIX.getPropertyName());
+  }
+}
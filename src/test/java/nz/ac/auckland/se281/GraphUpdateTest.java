@@ -0,0 +1,159 @@
+package nz.ac.auckland.se281;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.GraphUpdate;
+import nz.ac.auckland.se281.datastructures.VertexOrder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphUpdateTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static GraphBuilder<String> builderOf(
+      final int verticies, final Set<List<String>> edges) {
+    final GraphBuilder<String> builder = new GraphBuilder<>();
+    for (int v = 0; v < verticies; v++) {
+      builder.addVertex(String.valueOf(v));
+    }
+    for (final List<String> edge : edges) {
+      builder.addEdge(edge.get(0), edge.get(1));
+    }
+    return builder;
+  }
+
+  private static List<String> describe(final Graph<String> graph) {
+    final List<String> lines = new ArrayList<>();
+    lines.add("reflexive " + graph.isReflexive());
+    lines.add("symmetric " + graph.isSymmetric());
+    lines.add("antisymmetric " + graph.isAntiSymmetric());
+    lines.add("transitive " + graph.isTransitive());
+    lines.add("equivalence " + graph.isEquivalence());
+    lines.add("roots " + graph.getRoots());
+    lines.add("order " + graph.getTopologicalOrder());
+    lines.add("cycle " + graph.findCycle());
+    lines.add("bfs " + graph.iterativeBreadthFirstSearch());
+    return lines;
+  }
+
+  @Test
+  public void updates_answer_as_a_graph_built_from_scratch() {
+    final Random random = new Random(13);
+
+    for (int round = 0; round < 300; round++) {
+      final int verticies = 1 + random.nextInt(6);
+      final Set<List<String>> before = new HashSet<>();
+      for (int i = 0; i < verticies; i++) {
+        before.add(List.of(String.valueOf(i), String.valueOf(i)));
+      }
+      for (int i = random.nextInt(12); i > 0; i--) {
+        final String a = String.valueOf(random.nextInt(verticies));
+        final String b = String.valueOf(random.nextInt(verticies));
+        before.add(List.of(a, b));
+        if (random.nextBoolean()) {
+          before.add(List.of(b, a));
+        }
+      }
+
+      final Set<List<String>> after = new HashSet<>(before);
+      for (int i = random.nextInt(4); i > 0; i--) {
+        final List<String> edge =
+            List.of(
+                String.valueOf(random.nextInt(verticies)),
+                String.valueOf(random.nextInt(verticies)));
+        if (!after.remove(edge)) {
+          after.add(edge);
+        }
+      }
+
+      final Graph<String> graph = builderOf(verticies, before).build();
+      describe(graph);
+      final GraphUpdate<String> update = graph.update(builderOf(verticies, after));
+
+      final Set<List<String>> inserted = new HashSet<>(after);
+      inserted.removeAll(before);
+      final Set<List<String>> removed = new HashSet<>(before);
+      removed.removeAll(after);
+      Assert.assertFalse(update.isRebuilt());
+      Assert.assertEquals(inserted.size(), update.getInsertedEdges());
+      Assert.assertEquals(removed.size(), update.getRemovedEdges());
+      Assert.assertEquals(
+          describe(builderOf(verticies, after).build()), describe(update.getGraph()));
+    }
+  }
+
+  @Test
+  public void unchanged_edges_keep_the_graph_and_new_verticies_rebuild_it() {
+    final Set<List<String>> edges = Set.of(List.of("0", "1"), List.of("1", "2"));
+    final Graph<String> graph = builderOf(3, edges).build();
+
+    final GraphBuilder<String> reordered = new GraphBuilder<>();
+    reordered.addEdge("1", "2");
+    reordered.addEdge("0", "1");
+    reordered.addEdge("0", "1");
+    final GraphUpdate<String> unchanged = graph.update(reordered);
+    Assert.assertTrue(unchanged.isUnchanged());
+    Assert.assertSame(graph, unchanged.getGraph());
+
+    final GraphUpdate<String> rebuilt = graph.update(builderOf(4, edges));
+    Assert.assertTrue(rebuilt.isRebuilt());
+    Assert.assertEquals(4, rebuilt.getGraph().getVertexCount());
+  }
+
+  @Test
+  public void updates_keep_the_storage_the_graph_was_built_with() {
+    final Set<List<String>> edges = Set.of(List.of("0", "1"), List.of("1", "2"));
+    final Set<List<String>> changed = Set.of(List.of("0", "1"), List.of("2", "0"));
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      final Graph<String> graph = builderOf(3, edges).build(storage, VertexOrder.getDefault());
+      final GraphStorage built = graph.getStorage();
+
+      final GraphUpdate<String> unchanged = graph.update(builderOf(3, edges));
+      Assert.assertSame(graph, unchanged.getGraph());
+      // Only the index built to compare with is closed, not the index of the graph.
+      Assert.assertEquals(Map.of("1", 0, "2", 1), graph.getDistances(List.of("1"), 5));
+
+      Assert.assertEquals(built, graph.update(builderOf(3, changed)).getGraph().getStorage());
+      Assert.assertEquals(built, graph.update(builderOf(4, changed)).getGraph().getStorage());
+    }
+  }
+
+  @Test
+  public void watched_files_are_applied_before_the_next_command() throws Exception {
+    final Path file = folder.newFile("watched.tsv").toPath();
+    Files.writeString(file, "a\tb\nb\tc\n");
+    final GraphCalculator calculator = new GraphCalculator(file.toString());
+    final Graph<String> before = calculator.getGraph();
+    calculator.watch("on");
+
+    try {
+      Files.writeString(file, "a\tb\nb\tc\nc\ta\n");
+
+      final long deadline = System.currentTimeMillis() + 30_000;
+      while (calculator.getGraph() == before && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+        calculator.applyReload();
+      }
+    } finally {
+      calculator.stopWatching();
+    }
+
+    final Graph<String> after = calculator.getGraph();
+    Assert.assertNotSame(before, after);
+    Assert.assertEquals(3, after.getEdgeCount());
+    Assert.assertEquals(1, calculator.getLoad().getUpdate().getInsertedEdges());
+    Assert.assertFalse(after.isAcyclic());
+  }
+}
@@ -0,0 +1,118 @@
+package nz.ac.auckland.se281;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LevelSearchTest {
+  private static final int VERTICIES = 2_000;
+
+  /** Distances worked out the slow way, by a search over lists of destinations. */
+  private static Map<Integer, Integer> expected(
+      final List<List<Integer>> destinations, final List<Integer> sources, final int maxDepth) {
+    final Map<Integer, Integer> distances = new HashMap<>();
+    final ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (final int source : sources) {
+      if (distances.putIfAbsent(source, 0) == null) {
+        queue.add(source);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      final int vertex = queue.poll();
+      if (distances.get(vertex) < maxDepth) {
+        for (final int destination : destinations.get(vertex)) {
+          if (distances.putIfAbsent(destination, distances.get(vertex) + 1) == null) {
+            queue.add(destination);
+          }
+        }
+      }
+    }
+
+    return distances;
+  }
+
+  @Test
+  public void repeated_searches_match_a_plain_search() {
+    final SplittableRandom random = new SplittableRandom(281);
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = new HashSet<>();
+    final List<List<Integer>> destinations = new ArrayList<>();
+    for (int v = 0; v < VERTICIES; v++) {
+      verticies.add(v);
+      destinations.add(new ArrayList<>());
+    }
+    for (int e = 0; e < 3 * VERTICIES; e++) {
+      final int source = random.nextInt(VERTICIES);
+      final int destination = random.nextInt(VERTICIES);
+      edges.add(new Edge<>(source, destination));
+      destinations.get(source).add(destination);
+    }
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      final Graph<Integer> graph = new Graph<>(verticies, edges, storage);
+
+      // Deep and shallow searches in turn, so each one starts after a larger one.
+      for (int query = 0; query < 50; query++) {
+        final List<Integer> sources = List.of(random.nextInt(VERTICIES), random.nextInt(VERTICIES));
+        final int maxDepth = query % 2 == 0 ? Integer.MAX_VALUE : query % 5;
+        final Map<Integer, Integer> distances = graph.getDistances(sources, maxDepth);
+        final Map<Integer, Integer> wanted = expected(destinations, sources, maxDepth);
+
+        Assert.assertEquals(wanted, distances);
+        Assert.assertEquals(
+            new TreeSet<>(wanted.keySet()), graph.getNeighbourhood(sources, maxDepth));
+        int last = 0;
+        for (final int distance : distances.values()) {
+          Assert.assertTrue(distance >= last);
+          last = distance;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void graphs_of_different_sizes_share_the_search_of_a_thread() {
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = new HashSet<>();
+    for (int v = 0; v < VERTICIES; v++) {
+      verticies.add(v);
+      edges.add(new Edge<>(v, (v + 1) % VERTICIES));
+    }
+    final Graph<Integer> large = new Graph<>(verticies, edges);
+    final Graph<Integer> small =
+        new Graph<>(Set.of(1, 2, 3), Set.of(new Edge<>(1, 2), new Edge<>(2, 3)));
+
+    // Each search starts after one of the other graph, which shrinks or grows the buffers.
+    for (int round = 0; round < 3; round++) {
+      Assert.assertEquals(VERTICIES, large.getNeighbourhood(List.of(round), VERTICIES).size());
+      Assert.assertEquals(Map.of(2, 0, 3, 1), small.getDistances(List.of(2), 5));
+      Assert.assertEquals(Set.of(5, 6, 7), large.getNeighbourhood(List.of(5), 2));
+      Assert.assertEquals(Set.of(1, 2, 3), small.getNeighbourhood(List.of(1), 2));
+    }
+  }
+
+  @Test
+  public void missing_sources_are_ignored() {
+    final Set<Integer> verticies = new HashSet<>(List.of(1, 2, 3));
+    final Set<Edge<Integer>> edges = new HashSet<>();
+    edges.add(new Edge<>(1, 2));
+    edges.add(new Edge<>(2, 3));
+    final Graph<Integer> graph = new Graph<>(verticies, edges);
+
+    Assert.assertEquals(Set.of(2, 3), graph.getNeighbourhood(List.of(7, 2), 5));
+    Assert.assertEquals(Set.of(1), graph.getNeighbourhood(List.of(1), 0));
+    Assert.assertTrue(graph.getDistances(List.of(7), 5).isEmpty());
+  }
+}
@@ -2,6 +2,10 @@ package nz.ac.auckland.se281;
 
 import static nz.ac.auckland.se281.Command.*;
 
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -422,5 +426,131 @@ public class MainTest {
       assertContains("Successfully opened graph from file f.txt");
       assertContains("[0]");
     }
+
+    @Test
+    public void TY_A_stats() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", LIST_ROOT_VERTICIES, STATS);
+      assertContains("Command latencies (microseconds):");
+      assertContains("LIST_ROOT_VERTICIES: count=");
+      assertContains("Work counters:");
+      assertContains("Edges scanned: ");
+    }
+
+    @Test
+    public void TY_stats_without_file() throws Exception {
+      runCommands(STATS);
+      assertContains("Work counters:");
+      assertDoesNotContain("Error: no valid file open");
+    }
+
+    @Test
+    public void TY_A_jmx() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", LIST_ROOT_VERTICIES);
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(CalculatorMonitor.OBJECT_NAME);
+      Assert.assertEquals("a.txt", server.getAttribute(name, "LoadedFile"));
+      Assert.assertEquals(6, server.getAttribute(name, "VertexCount"));
+      Assert.assertEquals(5L, server.getAttribute(name, "EdgeCount"));
+      Assert.assertNull(server.getAttribute(name, "RunningCommand"));
+    }
+
+    @Test
+    public void TY_A_load_status() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", LIST_ROOT_VERTICIES, LOAD_STATUS);
+      assertContains("File a.txt is ready: 6 verticies and 5 edges");
+    }
+
+    @Test
+    public void TY_A_batch_equivalence() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", BATCH_EQUIVALENCE, "3,0,1,9");
+      assertContains("3: [1, 2, 3]" + System.lineSeparator() + "0: [0]");
+      assertContains("1: [1, 2, 3]");
+      assertContains("Error: vertex '9' not found in the graph");
+    }
+
+    @Test
+    public void TY_A_batch_reachability() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", BATCH_REACHABILITY, "0:5,5:0,1");
+      assertContains(
+          "0 -> 5: reachable"
+              + System.lineSeparator()
+              + "5 -> 0: NOT reachable"
+              + System.lineSeparator()
+              + "1: [1, 3, 4, 5]");
+    }
+
+    @Test
+    public void TY_A_analyze() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", ANALYZE);
+      assertContains(
+          "The graph is NOT reflexive"
+              + System.lineSeparator()
+              + "The graph is NOT symmetric"
+              + System.lineSeparator()
+              + "The graph is NOT transitive"
+              + System.lineSeparator()
+              + "The graph is antisymmetric"
+              + System.lineSeparator()
+              + "The graph is NOT an equivalence relation");
+    }
+
+    @Test
+    public void TY_C_analyze_then_check() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", ANALYZE, CHECK_TRANSITIVITY, CHECK_EQUIVALENCE);
+      assertContains("The graph is reflexive");
+      assertContains("The graph is symmetric");
+      assertContains("The graph is transitive");
+      assertContains("The graph is NOT antisymmetric");
+      assertContains("The graph is an equivalence relation");
+    }
+
+    @Test
+    public void TY_C_representation() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", REPRESENTATION);
+      assertContains("are stored as Bit matrix, chosen from the size of the graph");
+    }
+
+    @Test
+    public void TY_A_topological_sort() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", CHECK_ACYCLIC, TOPOLOGICAL_SORT);
+      assertContains("The graph is acyclic");
+      assertContains("[0, 1, 2, 3, 4, 5]");
+    }
+
+    @Test
+    public void TY_B_topological_sort_shows_cycle() throws Exception {
+      runCommands(OPEN_FILE, "b.txt", TOPOLOGICAL_SORT);
+      assertContains("The graph is NOT acyclic");
+      assertContains("Cycle: 0 -> 0");
+    }
+
+    @Test
+    public void TY_A_distances() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", DISTANCES, "1,2");
+      assertContains(
+          "1: 0"
+              + System.lineSeparator()
+              + "2: 0"
+              + System.lineSeparator()
+              + "3: 1"
+              + System.lineSeparator()
+              + "4: 1"
+              + System.lineSeparator()
+              + "5: 1");
+      assertDoesNotContain("0: 0");
+    }
+
+    @Test
+    public void TY_A_k_hop() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", K_HOP, "0", "1", K_HOP, "0", "-1");
+      assertContains("[0, 1, 2]");
+      assertContains("Error: '-1' is not a number of hops, expected a whole number from 0 up");
+    }
+
+    @Test
+    public void TY_load_status_without_file() throws Exception {
+      runCommands(LOAD_STATUS);
+      assertContains("Error: no valid file open");
+    }
   }
 }
@@ -0,0 +1,14 @@
+package nz.ac.auckland.se281;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageCliTest {
+  @Test
+  public void arguments_are_printed_as_they_are() {
+    Assert.assertEquals("File name: a$1\\b.txt", MessageCli.INFO.getMessage("a$1\\b.txt"));
+    Assert.assertEquals(
+        "Error: file '$0' not found in `testcases` folder",
+        MessageCli.FILE_NOT_FOUND.getMessage("$0"));
+  }
+}
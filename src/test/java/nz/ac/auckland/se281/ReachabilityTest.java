@@ -0,0 +1,92 @@
+package nz.ac.auckland.se281;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.Reachability;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReachabilityTest {
+  /** The verticies reachable from a vertex worked out the slow way, by a plain search. */
+  private static Set<Integer> expected(final List<List<Integer>> destinations, final int from) {
+    final Set<Integer> reached = new TreeSet<>(List.of(from));
+    final ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(from));
+
+    while (!queue.isEmpty()) {
+      for (final int destination : destinations.get(queue.poll())) {
+        if (reached.add(destination)) {
+          queue.add(destination);
+        }
+      }
+    }
+
+    return reached;
+  }
+
+  /** Checks every answer of a random graph against a plain search, asking from many verticies. */
+  private static Reachability<Integer> check(final int vertexCount, final int edgeCount) {
+    final SplittableRandom random = new SplittableRandom(vertexCount);
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = new HashSet<>();
+    final List<List<Integer>> destinations = new ArrayList<>();
+    for (int v = 0; v < vertexCount; v++) {
+      verticies.add(v);
+      destinations.add(new ArrayList<>());
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      final int source = random.nextInt(vertexCount);
+      final int destination = random.nextInt(vertexCount);
+      edges.add(new Edge<>(source, destination));
+      destinations.get(source).add(destination);
+    }
+
+    final Graph<Integer> graph = new Graph<>(verticies, edges);
+    final Reachability<Integer> reachability = graph.getReachability();
+
+    for (int query = 0; query < 200; query++) {
+      final int from = random.nextInt(vertexCount);
+      final Set<Integer> wanted = expected(destinations, from);
+
+      Assert.assertEquals(wanted, reachability.getReachable(from));
+      for (int i = 0; i < 20; i++) {
+        final int to = random.nextInt(vertexCount);
+        Assert.assertEquals(wanted.contains(to), reachability.isReachable(from, to));
+      }
+
+      // Another search of the thread between questions must not change the answers.
+      graph.getNeighbourhood(List.of(random.nextInt(vertexCount)), 3);
+      Assert.assertEquals(wanted, reachability.getReachable(from));
+    }
+
+    return reachability;
+  }
+
+  @Test
+  public void small_graphs_match_a_plain_search() {
+    final Reachability<Integer> reachability = check(2_000, 2_400);
+
+    Assert.assertTrue(reachability.getComponentCount() <= Reachability.CLOSURE_LIMIT);
+  }
+
+  @Test
+  public void graphs_with_many_components_match_a_plain_search() {
+    final Reachability<Integer> reachability =
+        check(4 * Reachability.CLOSURE_LIMIT, 5 * Reachability.CLOSURE_LIMIT);
+
+    Assert.assertTrue(reachability.getComponentCount() > Reachability.CLOSURE_LIMIT);
+  }
+
+  @Test
+  public void empty_graph_has_no_components() {
+    final Graph<Integer> graph = new Graph<>(Set.<Integer>of(), Set.<Edge<Integer>>of());
+
+    Assert.assertEquals(0, graph.getReachability().getComponentCount());
+  }
+}
@@ -0,0 +1,109 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphResults;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.VertexOrder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultStoreTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static Set<Edge<String>> equivalenceEdges() {
+    final Set<Edge<String>> edges = new HashSet<>();
+    for (final String vertex : List.of("1", "2", "3", "4")) {
+      edges.add(new Edge<>(vertex, vertex));
+    }
+    edges.add(new Edge<>("1", "2"));
+    edges.add(new Edge<>("2", "1"));
+    return edges;
+  }
+
+  @Test
+  public void fingerprint_depends_on_content_not_storage() {
+    final Set<String> verticies = new HashSet<>(List.of("1", "2", "3", "4"));
+    final Graph<String> heap = new Graph<>(verticies, equivalenceEdges(), GraphStorage.HEAP);
+    final Graph<String> compressed =
+        new Graph<>(verticies, equivalenceEdges(), GraphStorage.COMPRESSED);
+    final Set<Edge<String>> fewer = equivalenceEdges();
+    fewer.add(new Edge<>("3", "4"));
+
+    Assert.assertEquals(heap.getFingerprint(), compressed.getFingerprint());
+    Assert.assertNotEquals(heap.getFingerprint(), new Graph<>(verticies, fewer).getFingerprint());
+  }
+
+  @Test
+  public void saved_answers_are_given_to_a_graph_with_the_same_content() throws IOException {
+    final ResultStore store = new ResultStore(folder.getRoot().toPath());
+    final Set<String> verticies = new HashSet<>(List.of("1", "2", "3", "4"));
+    final Graph<String> graph = new Graph<>(verticies, equivalenceEdges(), GraphStorage.HEAP);
+    graph.analyze();
+    graph.getRoots();
+    graph.getEquivalenceClasses();
+    graph.isAcyclic();
+
+    Assert.assertTrue(store.save(graph));
+    Assert.assertFalse(store.save(graph));
+
+    final Graph<String> reopened =
+        new Graph<>(verticies, equivalenceEdges(), GraphStorage.COMPRESSED);
+    Assert.assertTrue(new ResultStore(folder.getRoot().toPath()).load(reopened));
+
+    final GraphResults results = reopened.exportResults();
+    Assert.assertEquals(graph.exportResults().size(), results.size());
+    Assert.assertTrue(results.holds(GraphResults.EQUIVALENCE));
+    Assert.assertTrue(results.isKnown(GraphResults.ACYCLIC));
+    Assert.assertFalse(results.holds(GraphResults.ACYCLIC));
+    Assert.assertEquals(graph.getRoots(), reopened.getRoots());
+    Assert.assertEquals(graph.getEquivalenceClasses(), reopened.getEquivalenceClasses());
+  }
+
+  @Test
+  public void repeated_lines_give_the_same_fingerprint_and_answers() throws IOException {
+    final Path once = folder.newFile("once.tsv").toPath();
+    final Path twice = folder.newFile("twice.tsv").toPath();
+    Files.writeString(once, "1\t1\n2\t2\n3\t3\n1\t2\n2\t1\n");
+    Files.writeString(twice, "1\t1\n2\t2\n3\t3\n1\t2\n2\t1\n1\t1\n1\t2\n");
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      final Graph<String> graph =
+          ParsedGraph.parse(once).toBuilder().build(storage, VertexOrder.getDefault());
+      final Graph<String> repeated =
+          ParsedGraph.parse(twice).toBuilder().build(storage, VertexOrder.getDefault());
+
+      Assert.assertEquals(graph.getFingerprint(), repeated.getFingerprint());
+      graph.analyze();
+      repeated.analyze();
+      Assert.assertEquals(graph.exportResults().size(), repeated.exportResults().size());
+      Assert.assertEquals(graph.isEquivalence(), repeated.isEquivalence());
+      Assert.assertEquals(graph.isTransitive(), repeated.isTransitive());
+      Assert.assertEquals(graph.getEdgeCount(), repeated.getEdgeCount());
+      Assert.assertEquals(graph.getEquivalenceClasses(), repeated.getEquivalenceClasses());
+    }
+  }
+
+  @Test
+  public void damaged_files_are_ignored() throws IOException {
+    final Path root = folder.getRoot().toPath();
+    final Graph<String> graph =
+        new Graph<>(new HashSet<>(List.of("1", "2", "3", "4")), equivalenceEdges());
+    Files.write(root.resolve(graph.getFingerprint() + ".bin"), new byte[] {1, 2, 3});
+
+    Assert.assertFalse(new ResultStore(root).load(graph));
+    Assert.assertFalse(new ResultStore(null).save(graph));
+
+    graph.isReflexive();
+    Assert.assertTrue(new ResultStore(root).save(graph));
+    Assert.assertTrue(new ResultStore(root).load(graph));
+  }
+}
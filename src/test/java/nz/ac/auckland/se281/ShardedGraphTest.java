@@ -0,0 +1,85 @@
+package nz.ac.auckland.se281;
+
+import java.util.HashSet;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardedGraphTest {
+  private static String describe(final Graph<Integer> graph) {
+    return ""
+        + graph.isReflexive()
+        + graph.isSymmetric()
+        + graph.isAntiSymmetric()
+        + graph.isTransitive()
+        + graph.isEquivalence();
+  }
+
+  private static String analyze(final Set<Integer> verticies, final Set<Edge<Integer>> edges) {
+    final Graph<Integer> graph = new Graph<>(verticies, edges);
+    graph.analyze();
+    return describe(graph);
+  }
+
+  /**
+   * Cliques of 30 verticies, which is an equivalence relation spread over several shards, except
+   * for one missing edge.
+   */
+  private static Set<Edge<Integer>> cliques(final Set<Integer> verticies, final int missing) {
+    final Set<Edge<Integer>> edges = new HashSet<>();
+
+    for (int c = 0; c < 300; c++) {
+      for (int i = 0; i < 30; i++) {
+        verticies.add(c * 30 + i);
+        for (int j = 0; j < 30; j++) {
+          if (c * 30 + i != missing || c * 30 + j != missing) {
+            edges.add(new Edge<>(c * 30 + i, c * 30 + j));
+          }
+        }
+      }
+    }
+
+    return edges;
+  }
+
+  @Test
+  public void equivalence_spans_many_shards() {
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = cliques(verticies, -1);
+    final Graph<Integer> graph = new Graph<>(verticies, edges);
+
+    Assert.assertTrue(graph.getShards().length > 2);
+    Assert.assertEquals("truetruefalsetruetrue", describe(graph));
+    Assert.assertEquals(describe(graph), analyze(verticies, edges));
+  }
+
+  @Test
+  public void violation_in_last_shard_is_found() {
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = cliques(verticies, 8999);
+
+    Assert.assertEquals("falsetruefalsefalsefalse", describe(new Graph<>(verticies, edges)));
+    Assert.assertEquals("falsetruefalsefalsefalse", analyze(verticies, edges));
+  }
+
+  @Test
+  public void hub_in_another_shard_is_checked() {
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = new HashSet<>();
+
+    // Every leaf leads to the hub and back, so leaf -> hub -> other leaf is not closed.
+    verticies.add(0);
+    for (int leaf = 1; leaf <= 100_000; leaf++) {
+      verticies.add(leaf);
+      edges.add(new Edge<>(0, leaf));
+      edges.add(new Edge<>(leaf, 0));
+    }
+    final Graph<Integer> graph = new Graph<>(verticies, edges);
+
+    Assert.assertTrue(graph.getShards().length > 2);
+    Assert.assertEquals("falsetruefalsefalsefalse", describe(graph));
+    Assert.assertEquals(describe(graph), analyze(verticies, edges));
+  }
+}
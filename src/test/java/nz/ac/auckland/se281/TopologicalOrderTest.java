@@ -0,0 +1,103 @@
+package nz.ac.auckland.se281;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TopologicalOrderTest {
+  private static Graph<Integer> build(
+      final int vertexCount, final int[][] pairs, final GraphStorage storage) {
+    final Set<Integer> verticies = new HashSet<>();
+    final Set<Edge<Integer>> edges = new HashSet<>();
+    for (int v = 0; v < vertexCount; v++) {
+      verticies.add(v);
+    }
+    for (final int[] pair : pairs) {
+      edges.add(new Edge<>(pair[0], pair[1]));
+    }
+
+    return new Graph<>(verticies, edges, storage);
+  }
+
+  /** A long chain with shortcuts, whose only order is the chain itself. */
+  private static int[][] chain(final int length) {
+    final int[][] pairs = new int[2 * length - 3][];
+    for (int v = 0; v + 1 < length; v++) {
+      pairs[v] = new int[] {length - 1 - v, length - 2 - v};
+    }
+    for (int v = 0; v + 2 < length; v++) {
+      pairs[length - 1 + v] = new int[] {v + 2, v};
+    }
+    return pairs;
+  }
+
+  @Test
+  public void order_follows_every_edge() {
+    final int[][] pairs = chain(100_000);
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      final Graph<Integer> graph = build(100_000, pairs, storage);
+      final List<Integer> order = graph.getTopologicalOrder();
+      final Map<Integer, Integer> positions = new HashMap<>();
+      for (int i = 0; i < order.size(); i++) {
+        positions.put(order.get(i), i);
+      }
+
+      Assert.assertTrue(graph.isAcyclic());
+      Assert.assertEquals(100_000, order.size());
+      Assert.assertTrue(graph.findCycle().isEmpty());
+      for (final int[] pair : pairs) {
+        Assert.assertTrue(positions.get(pair[0]) < positions.get(pair[1]));
+      }
+    }
+  }
+
+  @Test
+  public void cycle_is_a_witness() {
+    final int[][] pairs = chain(100_000);
+    // Closes the chain from its end back to the middle, below a vertex that is not on the cycle.
+    pairs[pairs.length - 1] = new int[] {0, 50_000};
+
+    for (final GraphStorage storage : GraphStorage.values()) {
+      final Graph<Integer> graph = build(100_000, pairs, storage);
+      final List<Integer> cycle = graph.findCycle();
+
+      Assert.assertFalse(graph.isAcyclic());
+      Assert.assertTrue(graph.getTopologicalOrder().isEmpty());
+      Assert.assertTrue(cycle.size() > 2);
+      Assert.assertEquals(cycle.get(0), cycle.get(cycle.size() - 1));
+      for (int i = 0; i + 1 < cycle.size(); i++) {
+        Assert.assertTrue(cycle.get(i) > cycle.get(i + 1) || cycle.get(i) == 0);
+      }
+    }
+  }
+
+  @Test
+  public void loop_is_a_cycle() {
+    final Graph<Integer> graph =
+        build(3, new int[][] {{0, 1}, {1, 2}, {2, 2}}, GraphStorage.getDefault());
+
+    Assert.assertFalse(graph.isAcyclic());
+    Assert.assertEquals(List.of(2, 2), graph.findCycle());
+  }
+
+  @Test
+  public void roots_are_unchanged_once_acyclic() {
+    final Graph<Integer> graph =
+        build(5, new int[][] {{0, 1}, {1, 2}, {3, 2}, {4, 4}}, GraphStorage.getDefault());
+    final Graph<Integer> sorted =
+        build(5, new int[][] {{0, 1}, {1, 2}, {3, 2}}, GraphStorage.getDefault());
+
+    Assert.assertFalse(graph.isAcyclic());
+    Assert.assertEquals(Set.of(0, 3), graph.getRoots());
+    Assert.assertTrue(sorted.isAcyclic());
+    Assert.assertEquals(Set.of(0, 3), sorted.getRoots());
+  }
+}
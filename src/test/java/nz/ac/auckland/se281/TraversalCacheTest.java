@@ -0,0 +1,81 @@
+package nz.ac.auckland.se281;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.TraversalCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraversalCacheTest {
+  private static BitSet starts(final int... ranks) {
+    final BitSet starts = new BitSet();
+    for (final int rank : ranks) {
+      starts.set(rank);
+    }
+    return starts;
+  }
+
+  @Test
+  public void orders_are_keyed_by_version_search_and_starts() {
+    final TraversalCache cache = new TraversalCache(Long.MAX_VALUE);
+    final int[] order = {0, 2, 1};
+    cache.put(1, "BFS", starts(0), order);
+
+    Assert.assertSame(order, cache.get(1, "BFS", starts(0)));
+    Assert.assertNull(cache.get(2, "BFS", starts(0)));
+    Assert.assertNull(cache.get(1, "RDFS", starts(0)));
+    Assert.assertNull(cache.get(1, "BFS", starts(0, 1)));
+  }
+
+  @Test
+  public void least_recently_used_order_is_evicted() {
+    final TraversalCache cache = new TraversalCache(1_500);
+    cache.put(1, "BFS", starts(0), new int[100]);
+    cache.put(1, "RDFS", starts(0), new int[100]);
+    cache.get(1, "BFS", starts(0));
+    cache.put(1, "IDFS", starts(0), new int[100]);
+
+    Assert.assertNotNull(cache.get(1, "BFS", starts(0)));
+    Assert.assertNull(cache.get(1, "RDFS", starts(0)));
+    Assert.assertNotNull(cache.get(1, "IDFS", starts(0)));
+    Assert.assertTrue(cache.getUsedBytes() <= 1_500);
+
+    cache.put(1, "BFS", starts(1), new int[1_000]);
+    Assert.assertNull(cache.get(1, "BFS", starts(1)));
+  }
+
+  @Test
+  public void invalidating_a_version_drops_its_orders() {
+    final TraversalCache cache = new TraversalCache(Long.MAX_VALUE);
+    cache.put(1, "BFS", starts(0), new int[10]);
+    cache.put(2, "BFS", starts(0), new int[10]);
+    final long used = cache.getUsedBytes();
+    cache.invalidate(1);
+
+    Assert.assertNull(cache.get(1, "BFS", starts(0)));
+    Assert.assertNotNull(cache.get(2, "BFS", starts(0)));
+    Assert.assertEquals(used / 2, cache.getUsedBytes());
+  }
+
+  @Test
+  public void repeated_searches_give_the_same_order() {
+    final Set<String> verticies = new HashSet<>(List.of("1", "2", "3", "4"));
+    final Set<Edge<String>> edges = new HashSet<>();
+    edges.add(new Edge<>("1", "3"));
+    edges.add(new Edge<>("1", "2"));
+    edges.add(new Edge<>("3", "4"));
+    final Graph<String> graph = new Graph<>(verticies, edges);
+    final Graph<String> rebuilt = new Graph<>(verticies, edges);
+
+    Assert.assertEquals(List.of("1", "2", "3", "4"), graph.iterativeBreadthFirstSearch());
+    Assert.assertEquals(graph.iterativeBreadthFirstSearch(), graph.recursiveBreadthFirstSearch());
+    Assert.assertEquals(List.of("1", "2", "3", "4"), graph.recursiveDepthFirstSearch());
+    Assert.assertEquals(graph.recursiveDepthFirstSearch(), graph.iterativeDepthFirstSearch());
+    Assert.assertNotEquals(graph.getVersion(), rebuilt.getVersion());
+    Assert.assertEquals(graph.iterativeDepthFirstSearch(), rebuilt.iterativeDepthFirstSearch());
+  }
+}
@@ -0,0 +1,75 @@
+package nz.ac.auckland.se281;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStorage;
+import nz.ac.auckland.se281.datastructures.VertexOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VertexOrderTest {
+  private static Graph<String> build(final VertexOrder order, final String... pairs) {
+    final Set<String> verticies = new HashSet<>();
+    final Set<Edge<String>> edges = new HashSet<>();
+
+    for (final String pair : pairs) {
+      final String[] ends = pair.split("-");
+      verticies.add(ends[0]);
+      verticies.add(ends[1]);
+      edges.add(new Edge<>(ends[0], ends[1]));
+    }
+
+    return new Graph<>(verticies, edges, GraphStorage.HEAP, order);
+  }
+
+  @Test
+  public void numeric_order_compares_digits_by_value() {
+    final List<String> ids = new ArrayList<>(List.of("10", "9", "a10", "a9", "1", "01", "b"));
+
+    ids.sort(VertexOrder.NUMERIC.comparator());
+
+    Assert.assertEquals(List.of("01", "1", "9", "10", "a9", "a10", "b"), ids);
+  }
+
+  @Test
+  public void natural_order_is_unchanged() {
+    final List<String> ids = new ArrayList<>(List.of("10", "9", "1"));
+
+    ids.sort(VertexOrder.NATURAL.comparator());
+
+    Assert.assertEquals(List.of("1", "10", "9"), ids);
+  }
+
+  @Test
+  public void searches_follow_rank_order() {
+    final String[] pairs = {"1-10", "1-9", "9-2", "10-3"};
+
+    Assert.assertEquals(
+        List.of("1", "10", "9", "3", "2"),
+        new ArrayList<>(build(VertexOrder.NATURAL, pairs).iterativeBreadthFirstSearch()));
+    Assert.assertEquals(
+        List.of("1", "9", "10", "2", "3"),
+        new ArrayList<>(build(VertexOrder.NUMERIC, pairs).iterativeBreadthFirstSearch()));
+  }
+
+  @Test
+  public void equivalence_class_is_in_rank_order() {
+    final List<String> pairs = new ArrayList<>();
+    for (final String a : Arrays.asList("2", "10", "9")) {
+      for (final String b : Arrays.asList("2", "10", "9")) {
+        pairs.add(a + "-" + b);
+      }
+    }
+    final Graph<String> graph = build(VertexOrder.NUMERIC, pairs.toArray(new String[0]));
+
+    Assert.assertEquals("[2, 9, 10]", graph.getEquivalenceClass("10").toString());
+    Assert.assertEquals("[2, 9, 10]", graph.getReachability().getReachable("9").toString());
+    Assert.assertTrue(graph.getEquivalenceClasses().get("9").contains("2"));
+    Assert.assertEquals(Set.of("2"), graph.getRoots());
+  }
+}